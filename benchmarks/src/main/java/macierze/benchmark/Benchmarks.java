@@ -0,0 +1,41 @@
+package macierze.benchmark;
+
+import org.openjdk.jmh.profile.*;
+import org.openjdk.jmh.runner.*;
+import org.openjdk.jmh.runner.options.*;
+
+/**
+ * Punkt wejścia benchmarków. Działa jak org.openjdk.jmh.Main, ale gdy nie podano żadnego profilera
+ * dodaje profiler gc, żeby w wynikach zawsze była liczba alokowanych bajtów na operację.
+ * Gdy w jar są jądra SIMD, a JVM to 17+, forkowane JVM dostają --add-modules jdk.incubator.vector,
+ * wersję skalarną można zmierzyć z -jvmArgsAppend -Dmacierze.simd=false.
+ */
+
+public final class Benchmarks {
+	
+	private Benchmarks() {}
+	
+	/**
+	 * Uruchomienie benchmarków z argumentami JMH, np. "Product -p n=256"
+	 * @param args Argumenty wiersza poleceń JMH
+	 * @throws Exception Gdy uruchomienie się nie powiedzie
+	 */
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions cmd = new CommandLineOptions(args);
+		if(cmd.shouldHelp() || cmd.shouldList() || cmd.shouldListWithParams() || cmd.shouldListProfilers() || cmd.shouldListResultFormats()) {
+			org.openjdk.jmh.Main.main(args);
+			return;
+		}
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(cmd);
+		if(cmd.getProfilers().isEmpty()) options.addProfiler(GCProfiler.class);
+		if(!cmd.getJvmArgsPrepend().hasValue() && hasVectorKernels()) options.jvmArgsPrepend("--add-modules=jdk.incubator.vector");
+		new Runner(options.build()).run();
+	}
+	
+	/**
+	 * Funkcja sprawdzająca czy jądra SIMD są w classpath i JVM może je uruchomić, bez ładowania klasy
+	 */
+	private static boolean hasVectorKernels() {
+		return Runtime.version().feature() >= 17 && Benchmarks.class.getClassLoader().getResource("macierze/VectorKernels.class") != null;
+	}
+}
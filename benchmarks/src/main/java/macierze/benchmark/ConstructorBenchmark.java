@@ -0,0 +1,58 @@
+package macierze.benchmark;
+
+import java.util.concurrent.*;
+import macierze.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmark konstruktorów według wzoru i generatora MatrixGenerator (wielowątkowego, z ziarnem)
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConstructorBenchmark {
+	
+	@Param({"64", "256", "1024"})
+	public int n;
+	
+	private final MatrixGenerator generator = new MatrixGenerator(1);
+	
+	@Benchmark
+	public Macierz identity() throws MatrixSizeException {
+		return new Macierz(n, n, "identity");
+	}
+	
+	@Benchmark
+	public Macierz hilbert() throws MatrixSizeException {
+		return new Macierz(n, n, "hilbert");
+	}
+	
+	@Benchmark
+	public Macierz random() throws MatrixSizeException {
+		return new Macierz(n, n, "random");
+	}
+	
+	@Benchmark
+	public Macierz uniform() {
+		return generator.uniform(n, n);
+	}
+	
+	@Benchmark
+	public Macierz normal() {
+		return generator.normal(n, n);
+	}
+	
+	@Benchmark
+	public MacierzRzadka sparse() {
+		return generator.sparse(n, n, 0.01);
+	}
+	
+	@Benchmark
+	public Macierz zeros() {
+		return new Macierz(n, n);
+	}
+}
@@ -0,0 +1,91 @@
+package macierze.benchmark;
+
+import java.util.concurrent.*;
+import macierze.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmark działań opartych na rozkładzie LU: wyznacznik (2n^3/3 operacji),
+ * macierz odwrotna (2n^3) i rozwiązanie układu z n prawymi stronami (2n^3/3 + 2n^3),
+ * także z pamięcią DecompositionCache (trafienie kosztuje hash i porównanie n^2 elementów).
+ * Dla macierzy symetrycznej dodatnio określonej (spd = X^T X + nI) wybierany jest rozkład Choleskiego (n^3/3),
+ * a dla macierzy wysokiej 4n x n/4 rozkład QR i rozwiązanie w sensie najmniejszych kwadratów.
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DecompositionBenchmark {
+	
+	@Param({"16", "64", "256", "512", "2048"})
+	public int n;
+	
+	private Macierz a, b, spd, tall, tallB;
+	private DecompositionCache cache;
+	
+	@Setup
+	public void setup() throws MatrixSizeException {
+		a = new Macierz(n, n, "random");
+		b = new Macierz(n, n, "random");
+		spd = Macierz.add(Macierz.product(Macierz.transpose(a), a), Macierz.product(n, new Macierz(n, n, "identity")));
+		tall = new Macierz(4*n, Math.max(1, n/4), "random");
+		tallB = new Macierz(4*n, 1, "random");
+		cache = new DecompositionCache(16, 1L << 30);
+	}
+	
+	@Benchmark
+	public double determinant(Flops flops) throws MatrixSizeException {
+		flops.add(2.0*n*n*n/3);
+		return Macierz.determinant(a);
+	}
+	
+	@Benchmark
+	public Macierz inverse(Flops flops) throws MatrixSizeException, MatrixIndexOutOfBoundsException {
+		flops.add(2.0*n*n*n);
+		return Macierz.inverse(a);
+	}
+	
+	@Benchmark
+	public Macierz solve(Flops flops) throws MatrixSizeException {
+		flops.add(2.0*n*n*n/3 + 2.0*n*n*n);
+		return Macierz.solve(a, b);
+	}
+	
+	@Benchmark
+	public double choleskyDeterminant(Flops flops) throws MatrixSizeException {
+		flops.add(1.0*n*n*n/3);
+		return Macierz.determinant(spd);
+	}
+	
+	@Benchmark
+	public Macierz choleskyInverse(Flops flops) throws MatrixSizeException, MatrixIndexOutOfBoundsException {
+		flops.add(1.0*n*n*n/3 + 4.0*n*n*n/3);
+		return Macierz.inverse(spd);
+	}
+	
+	@Benchmark
+	public Macierz choleskySolve(Flops flops) throws MatrixSizeException {
+		flops.add(1.0*n*n*n/3 + 2.0*n*n*n);
+		return Macierz.solve(spd, b);
+	}
+	
+	@Benchmark
+	public Macierz leastSquares(Flops flops) throws MatrixSizeException {
+		double m = tall.getHeight(), k = tall.getLength();
+		flops.add(2*m*k*k - 2*k*k*k/3 + 4*m*k);
+		return Macierz.solve(tall, tallB);
+	}
+	
+	@Benchmark
+	public double cachedDeterminant() throws MatrixSizeException {
+		return cache.determinant(a);
+	}
+	
+	@Benchmark
+	public Macierz cachedInverse() throws MatrixSizeException {
+		return cache.inverse(a);
+	}
+}
@@ -0,0 +1,100 @@
+package macierze.benchmark;
+
+import java.util.concurrent.*;
+import macierze.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmark działań ograniczonych przepustowością pamięci: dodawanie, kopiowanie, transpozycja
+ * oraz porównywanie i hash macierzy zwykłych i zamrożonych
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ElementwiseBenchmark {
+	
+	@Param({"64", "256", "1024", "2048"})
+	public int n;
+	
+	private Macierz a, b, dst, frozen, frozenCopy, frozenOther;
+	
+	@Setup
+	public void setup() throws MatrixSizeException {
+		a = new Macierz(n, n, "random");
+		b = new Macierz(n, n, "random");
+		dst = new Macierz(n, n);
+		frozen = a.freeze();
+		frozenCopy = Macierz.copyOf(a).freeze();
+		frozenOther = b.freeze();
+	}
+	
+	@Benchmark
+	public Macierz add(Flops flops) throws MatrixSizeException {
+		flops.add((double)n*n);
+		return Macierz.add(a, b);
+	}
+	
+	@Benchmark
+	public Macierz addInto(Flops flops) throws MatrixSizeException {
+		flops.add((double)n*n);
+		Macierz.addInto(a, b, dst);
+		return dst;
+	}
+	
+	@Benchmark
+	public Macierz subtract(Flops flops) throws MatrixSizeException {
+		flops.add((double)n*n);
+		return Macierz.subtract(a, b);
+	}
+	
+	@Benchmark
+	public Macierz copyOf() {
+		return Macierz.copyOf(a);
+	}
+	
+	@Benchmark
+	public Macierz transpose() throws MatrixSizeException {
+		return Macierz.transpose(a);
+	}
+	
+	@Benchmark
+	public Macierz transposeInto() throws MatrixSizeException {
+		Macierz.transposeInto(a, dst);
+		return dst;
+	}
+	
+	@Benchmark
+	public Macierz transposeInPlace() throws MatrixSizeException {
+		Macierz.transposeInPlace(dst);
+		return dst;
+	}
+	
+	@Benchmark
+	public boolean equals() {
+		return a.equals(frozenCopy);
+	}
+	
+	@Benchmark
+	public boolean frozenEquals() {
+		return frozen.equals(frozenCopy);
+	}
+	
+	@Benchmark
+	public boolean frozenNotEquals() {
+		return frozen.equals(frozenOther);
+	}
+	
+	@Benchmark
+	public int hashCodeMutable() {
+		return a.hashCode();
+	}
+	
+	@Benchmark
+	public int hashCodeFrozen() {
+		return frozen.hashCode();
+	}
+}
@@ -0,0 +1,70 @@
+package macierze.benchmark;
+
+import java.util.*;
+import java.util.concurrent.*;
+import macierze.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmark paczki niezależnych działań: kolejno w wątku wywołującym i przez MatrixExecutor.
+ * Jedna operacja to odwrócenie COUNT macierzy n x n (małe zadania) lub pomnożenie ich par (dla n = 256 duże zadania).
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExecutorBenchmark {
+	
+	private static final int COUNT = 64;
+	
+	@Param({"16", "64", "256"})
+	public int n;
+	
+	private Macierz[] a;
+	
+	private MatrixExecutor executor;
+	
+	@Setup
+	public void setup() {
+		MatrixGenerator generator = new MatrixGenerator(42);
+		a = new Macierz[COUNT];
+		for(int p=0; p<COUNT; p++) a[p] = generator.normal(n, n).freeze();
+		executor = new MatrixExecutor();
+	}
+	
+	@TearDown
+	public void tearDown() {
+		executor.close();
+	}
+	
+	@Benchmark
+	public Macierz inverseSequential() throws MatrixSizeException, MatrixIndexOutOfBoundsException {
+		Macierz ret = null;
+		for(Macierz m : a) ret = Macierz.inverse(m);
+		return ret;
+	}
+	
+	@Benchmark
+	public List<Macierz> inverseAsync() {
+		List<CompletableFuture<Macierz>> futures = new ArrayList<>(COUNT);
+		for(Macierz m : a) futures.add(executor.inverse(m));
+		return MatrixExecutor.allOf(futures).join();
+	}
+	
+	@Benchmark
+	public Macierz productSequential() throws MatrixSizeException {
+		Macierz ret = null;
+		for(int p=0; p<COUNT; p++) ret = Macierz.product(a[p], a[(p+1)%COUNT]);
+		return ret;
+	}
+	
+	@Benchmark
+	public List<Macierz> productAsync() {
+		List<CompletableFuture<Macierz>> futures = new ArrayList<>(COUNT);
+		for(int p=0; p<COUNT; p++) futures.add(executor.product(a[p], a[(p+1)%COUNT]));
+		return MatrixExecutor.allOf(futures).join();
+	}
+}
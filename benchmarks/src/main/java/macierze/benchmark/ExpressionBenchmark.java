@@ -0,0 +1,47 @@
+package macierze.benchmark;
+
+import java.util.concurrent.*;
+import macierze.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmark wyrażenia 2.5*A + (B - C): kolejne wywołania Macierz kontra jedno przejście Expression
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExpressionBenchmark {
+	
+	@Param({"256", "1024", "2048"})
+	public int n;
+	
+	private Macierz a, b, c, dst;
+	
+	private Expression expression;
+	
+	@Setup
+	public void setup() throws MatrixSizeException {
+		a = new Macierz(n, n, "random");
+		b = new Macierz(n, n, "random");
+		c = new Macierz(n, n, "random");
+		dst = new Macierz(n, n);
+		expression = Expression.add(Expression.product(2.5, Expression.of(a)), Expression.subtract(Expression.of(b), Expression.of(c)));
+	}
+	
+	@Benchmark
+	public Macierz eager(Flops flops) throws MatrixSizeException {
+		flops.add(3.0*n*n);
+		return Macierz.add(Macierz.product(2.5, a), Macierz.subtract(b, c));
+	}
+	
+	@Benchmark
+	public Macierz fused(Flops flops) throws MatrixSizeException {
+		flops.add(3.0*n*n);
+		expression.evaluateInto(dst);
+		return dst;
+	}
+}
@@ -0,0 +1,70 @@
+package macierze.benchmark;
+
+import java.util.concurrent.*;
+import macierze.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmark porównujący MacierzFloat z Macierz dla dodawania (ograniczonego przepustowością pamięci)
+ * i mnożenia, także z sumowaniem w double
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FloatBenchmark {
+	
+	@Param({"256", "1024", "2048"})
+	public int n;
+	
+	private Macierz a, b, dst;
+	private MacierzFloat fa, fb, fdst;
+	
+	@Setup
+	public void setup() throws MatrixSizeException {
+		a = new Macierz(n, n, "random");
+		b = new Macierz(n, n, "random");
+		dst = new Macierz(n, n);
+		fa = MacierzFloat.fromMacierz(a);
+		fb = MacierzFloat.fromMacierz(b);
+		fdst = new MacierzFloat(n, n);
+	}
+	
+	@Benchmark
+	public Macierz add(Flops flops) throws MatrixSizeException {
+		flops.add((double)n*n);
+		Macierz.addInto(a, b, dst);
+		return dst;
+	}
+	
+	@Benchmark
+	public MacierzFloat floatAdd(Flops flops) throws MatrixSizeException {
+		flops.add((double)n*n);
+		MacierzFloat.addInto(fa, fb, fdst);
+		return fdst;
+	}
+	
+	@Benchmark
+	public Macierz product(Flops flops) throws MatrixSizeException {
+		flops.add(2.0*n*n*n);
+		Macierz.productInto(a, b, dst);
+		return dst;
+	}
+	
+	@Benchmark
+	public MacierzFloat floatProduct(Flops flops) throws MatrixSizeException {
+		flops.add(2.0*n*n*n);
+		MacierzFloat.productInto(fa, fb, fdst, false);
+		return fdst;
+	}
+	
+	@Benchmark
+	public MacierzFloat floatProductDoubleAccumulation(Flops flops) throws MatrixSizeException {
+		flops.add(2.0*n*n*n);
+		MacierzFloat.productInto(fa, fb, fdst, true);
+		return fdst;
+	}
+}
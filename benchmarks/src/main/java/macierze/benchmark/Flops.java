@@ -0,0 +1,34 @@
+package macierze.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Licznik operacji zmiennoprzecinkowych raportowany przez JMH obok przepustowości.
+ * Wartość jest dzielona przez czas pomiaru, więc w wynikach pojawia się jako "gflops" w GFLOP/s.
+ */
+
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class Flops {
+	
+	/**
+	 * Liczba wykonanych operacji w miliardach
+	 */
+	public double gflops;
+	
+	/**
+	 * Wyzerowanie licznika przed każdą iteracją
+	 */
+	@Setup(Level.Iteration)
+	public void reset() {
+		gflops = 0;
+	}
+	
+	/**
+	 * Funkcja dodająca liczbę operacji jednego wywołania
+	 * @param flops Liczba operacji
+	 */
+	public void add(double flops) {
+		gflops = gflops + flops*1e-9;
+	}
+}
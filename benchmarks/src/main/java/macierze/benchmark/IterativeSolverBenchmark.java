@@ -0,0 +1,93 @@
+package macierze.benchmark;
+
+import java.util.*;
+import java.util.concurrent.*;
+import macierze.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmark metod iteracyjnych na macierzy rzadkiej z siatki g x g (pięciopunktowy laplasjan, n = g^2),
+ * symetrycznej dla CG i z członem konwekcji (niesymetrycznej) dla BiCGSTAB i GMRES
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IterativeSolverBenchmark {
+	
+	@Param({"100", "316"})
+	public int g;
+	
+	private MacierzRzadka symmetric, nonsymmetric;
+	private double[] b;
+	private IterativeSolver plain, jacobi, ilu, iluNonsymmetric;
+	
+	@Setup
+	public void setup() throws MatrixSizeException, MatrixIndexOutOfBoundsException {
+		symmetric = grid(g, 0);
+		nonsymmetric = grid(g, 0.4);
+		b = new double[g*g];
+		Arrays.fill(b, 1);
+		plain = new IterativeSolver(1e-8, 10000);
+		jacobi = new IterativeSolver(1e-8, 10000).setPreconditioner(new JacobiPreconditioner(symmetric));
+		ilu = new IterativeSolver(1e-8, 10000).setPreconditioner(new ILU0Preconditioner(symmetric));
+		iluNonsymmetric = new IterativeSolver(1e-8, 10000).setPreconditioner(new ILU0Preconditioner(nonsymmetric));
+	}
+	
+	/**
+	 * Funkcja budująca macierz siatki g x g ze współczynnikiem konwekcji conv
+	 */
+	private static MacierzRzadka grid(int g, double conv) throws MatrixIndexOutOfBoundsException {
+		int n = g*g;
+		MacierzRzadka.Builder builder = new MacierzRzadka.Builder(n, n, 5*n);
+		for(int i=0; i<g; i++) {
+			for(int j=0; j<g; j++) {
+				int r = i*g+j;
+				builder.add(r, r, 4);
+				if(i > 0) builder.add(r, r-g, -1-conv);
+				if(i < g-1) builder.add(r, r+g, -1+conv);
+				if(j > 0) builder.add(r, r-1, -1);
+				if(j < g-1) builder.add(r, r+1, -1);
+			}
+		}
+		return builder.build();
+	}
+	
+	@Benchmark
+	public double[] cg() throws MatrixSizeException {
+		double[] x = new double[b.length];
+		plain.cg(symmetric, b, x);
+		return x;
+	}
+	
+	@Benchmark
+	public double[] cgJacobi() throws MatrixSizeException {
+		double[] x = new double[b.length];
+		jacobi.cg(symmetric, b, x);
+		return x;
+	}
+	
+	@Benchmark
+	public double[] cgIlu0() throws MatrixSizeException {
+		double[] x = new double[b.length];
+		ilu.cg(symmetric, b, x);
+		return x;
+	}
+	
+	@Benchmark
+	public double[] bicgstabIlu0() throws MatrixSizeException {
+		double[] x = new double[b.length];
+		iluNonsymmetric.bicgstab(nonsymmetric, b, x);
+		return x;
+	}
+	
+	@Benchmark
+	public double[] gmresIlu0() throws MatrixSizeException {
+		double[] x = new double[b.length];
+		iluNonsymmetric.gmres(nonsymmetric, b, x);
+		return x;
+	}
+}
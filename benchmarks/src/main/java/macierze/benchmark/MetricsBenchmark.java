@@ -0,0 +1,54 @@
+package macierze.benchmark;
+
+import java.util.concurrent.*;
+import macierze.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmark kosztu pomiarów Metrics na małych macierzach, gdzie narzut jest najbardziej widoczny:
+ * enabled = false to koszt pomiarów wyłączonych (odczyt pola volatile), true to liczniki bez odbiorców
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsBenchmark {
+	
+	@Param({"4", "64"})
+	public int n;
+	
+	@Param({"false", "true"})
+	public boolean enabled;
+	
+	private Macierz a, b, c;
+	
+	@Setup
+	public void setup() {
+		MatrixGenerator generator = new MatrixGenerator(42);
+		a = generator.normal(n, n);
+		b = generator.normal(n, n);
+		c = new Macierz(n, n);
+		Metrics.setEnabled(enabled);
+	}
+	
+	@TearDown
+	public void tearDown() {
+		Metrics.setEnabled(false);
+		Metrics.reset();
+	}
+	
+	@Benchmark
+	public Macierz addInto() throws MatrixSizeException {
+		Macierz.addInto(a, b, c);
+		return c;
+	}
+	
+	@Benchmark
+	public Macierz productInto() throws MatrixSizeException {
+		Macierz.productInto(a, b, c);
+		return c;
+	}
+}
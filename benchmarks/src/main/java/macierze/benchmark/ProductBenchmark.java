@@ -0,0 +1,49 @@
+package macierze.benchmark;
+
+import java.util.concurrent.*;
+import macierze.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmark mnożenia macierzy kwadratowych, 2n^3 operacji na wywołanie
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductBenchmark {
+	
+	@Param({"16", "64", "256", "1024"})
+	public int n;
+	
+	private Macierz a, b, dst;
+	
+	@Setup
+	public void setup() throws MatrixSizeException {
+		a = new Macierz(n, n, "random");
+		b = new Macierz(n, n, "random");
+		dst = new Macierz(n, n);
+	}
+	
+	@Benchmark
+	public Macierz product(Flops flops) throws MatrixSizeException {
+		flops.add(2.0*n*n*n);
+		return Macierz.product(a, b);
+	}
+	
+	@Benchmark
+	public Macierz productInto(Flops flops) throws MatrixSizeException {
+		flops.add(2.0*n*n*n);
+		Macierz.productInto(a, b, dst);
+		return dst;
+	}
+	
+	@Benchmark
+	public Macierz scalarProduct(Flops flops) throws MatrixSizeException {
+		flops.add((double)n*n);
+		return Macierz.product(1.5, a);
+	}
+}
@@ -0,0 +1,88 @@
+package macierze.benchmark;
+
+import java.util.*;
+import java.util.concurrent.*;
+import macierze.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmark działań na 1024 macierzach 4x4: Macierz, rozwinięta Macierz4 i pakiet PakietMacierzy.
+ * Jedna operacja to działanie na wszystkich 1024 macierzach.
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SmallMatrixBenchmark {
+	
+	private static final int COUNT = 1024;
+	
+	private Macierz[] a, b;
+	
+	private Macierz4[] fa, fb, fc;
+	
+	private PakietMacierzy pa, pb, pc;
+	
+	@Setup
+	public void setup() throws MatrixSizeException {
+		SplittableRandom random = new SplittableRandom(42);
+		a = new Macierz[COUNT];
+		b = new Macierz[COUNT];
+		fa = new Macierz4[COUNT];
+		fb = new Macierz4[COUNT];
+		fc = new Macierz4[COUNT];
+		pa = new PakietMacierzy(4, COUNT);
+		pb = new PakietMacierzy(4, COUNT);
+		pc = new PakietMacierzy(4, COUNT);
+		for(int p=0; p<COUNT; p++) {
+			a[p] = new Macierz(4, 4, random.doubles(16).toArray());
+			b[p] = new Macierz(4, 4, random.doubles(16).toArray());
+			fa[p] = Macierz4.fromMacierz(a[p]);
+			fb[p] = Macierz4.fromMacierz(b[p]);
+			fc[p] = new Macierz4();
+			pa.set(p, a[p]);
+			pb.set(p, b[p]);
+		}
+	}
+	
+	@Benchmark
+	public Macierz product() throws MatrixSizeException {
+		Macierz ret = null;
+		for(int p=0; p<COUNT; p++) ret = Macierz.product(a[p], b[p]);
+		return ret;
+	}
+	
+	@Benchmark
+	public Macierz4[] fixedProduct() {
+		for(int p=0; p<COUNT; p++) Macierz4.productInto(fa[p], fb[p], fc[p]);
+		return fc;
+	}
+	
+	@Benchmark
+	public PakietMacierzy batchProduct() throws MatrixSizeException {
+		PakietMacierzy.productInto(pa, pb, pc);
+		return pc;
+	}
+	
+	@Benchmark
+	public Macierz inverse() throws MatrixSizeException, MatrixIndexOutOfBoundsException {
+		Macierz ret = null;
+		for(int p=0; p<COUNT; p++) ret = Macierz.inverse(a[p]);
+		return ret;
+	}
+	
+	@Benchmark
+	public Macierz4[] fixedInverse() {
+		for(int p=0; p<COUNT; p++) Macierz4.inverseInto(fa[p], fc[p]);
+		return fc;
+	}
+	
+	@Benchmark
+	public PakietMacierzy batchInverse() throws MatrixSizeException {
+		PakietMacierzy.inverseInto(pa, pc);
+		return pc;
+	}
+}
@@ -0,0 +1,50 @@
+package macierze.benchmark;
+
+import java.util.concurrent.*;
+import macierze.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmark mnożenia dużych macierzy: klasyczne jądro kontra Strassen-Winograd dla kilku wartości cutoff.
+ * GFLOP/s liczone są jak dla klasycznego mnożenia (2n^3), więc są porównywalne między algorytmami.
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class StrassenBenchmark {
+	
+	@Param({"1024", "2048", "4096"})
+	public int n;
+	
+	@Param({"256", "512"})
+	public int cutoff;
+	
+	private Macierz a, b, dst;
+	
+	@Setup
+	public void setup() throws MatrixSizeException {
+		a = new Macierz(n, n, "random");
+		b = new Macierz(n, n, "random");
+		dst = new Macierz(n, n);
+		Strassen.setCutoff(cutoff);
+		Strassen.setThreshold(Integer.MAX_VALUE);
+	}
+	
+	@Benchmark
+	public Macierz classical(Flops flops) throws MatrixSizeException {
+		flops.add(2.0*n*n*n);
+		Macierz.productInto(a, b, dst);
+		return dst;
+	}
+	
+	@Benchmark
+	public Macierz strassen(Flops flops) throws MatrixSizeException {
+		flops.add(2.0*n*n*n);
+		Strassen.productInto(a, b, dst);
+		return dst;
+	}
+}
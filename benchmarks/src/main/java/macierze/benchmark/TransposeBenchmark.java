@@ -0,0 +1,38 @@
+package macierze.benchmark;
+
+import java.util.concurrent.*;
+import macierze.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Benchmark transpozycji dla macierzy kwadratowych, wysokich i wąskich oraz niskich i szerokich,
+ * każdy kształt ma tyle samo elementów
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransposeBenchmark {
+	
+	@Param({"2048x2048", "524288x8", "8x524288"})
+	public String shape;
+	
+	private Macierz a, dst;
+	
+	@Setup
+	public void setup() throws MatrixSizeException {
+		String[] size = shape.split("x");
+		int n = Integer.parseInt(size[0]), m = Integer.parseInt(size[1]);
+		a = new Macierz(n, m, "random");
+		dst = new Macierz(m, n);
+	}
+	
+	@Benchmark
+	public Macierz transposeInto() throws MatrixSizeException {
+		Macierz.transposeInto(a, dst);
+		return dst;
+	}
+}
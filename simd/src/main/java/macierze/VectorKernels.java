@@ -0,0 +1,133 @@
+package macierze;
+
+import jdk.incubator.vector.*;
+
+/**
+ * Wersja Kernels z jawną wektoryzacją przez jdk.incubator.vector. Ładowana przez refleksję w Kernels.load(),
+ * wymaga JDK 17+ i --add-modules jdk.incubator.vector, inaczej używana jest wersja skalarna.
+ * Działania element po elemencie (combine, scale, axpy) liczą mnożenie i dodawanie osobno,
+ * więc wyniki są identyczne z wersją skalarną. Iloczyn skalarny i mikrojądro GEMM używają FMA
+ * i innej kolejności sumowania, więc mogą różnić się na ostatnich bitach.
+ */
+
+final class VectorKernels extends Kernels {
+	
+	/**
+	 * Wektor dla działań element po elemencie, najszerszy obsługiwany przez procesor, ale domyślnie
+	 * nie szerszy niż 256 bitów, bo wektory 512 bitowe okazały się wolniejsze od 256 bitowych.
+	 * Limit zmienia właściwość -Dmacierze.simd.bits=512.
+	 */
+	private static final VectorSpecies<Double> SPECIES = species(Integer.getInteger("macierze.simd.bits", 256));
+	
+	/**
+	 * Wektor na jeden wiersz kafelka mikrojądra, NR = 4 wartości
+	 */
+	private static final VectorSpecies<Double> TILE = DoubleVector.SPECIES_256;
+	
+	/**
+	 * Czy procesor ma wektory co najmniej 256 bitowe, potrzebne dla mikrojądra
+	 */
+	private final boolean wideTile;
+	
+	/**
+	 * Konstruktor sprawdzający czy procesor ma instrukcje wektorowe
+	 * @throws UnsupportedOperationException Gdy wektory mają mniej niż 2 wartości double
+	 */
+	VectorKernels() {
+		if(SPECIES.length() < 2) throw new UnsupportedOperationException("No SIMD support for double");
+		if(TILE.length() != GemmKernel.NR) throw new UnsupportedOperationException(String.format("Tile width %d, expected %d", TILE.length(), GemmKernel.NR));
+		this.wideTile = DoubleVector.SPECIES_PREFERRED.vectorBitSize() >= TILE.vectorBitSize();
+	}
+	
+	/**
+	 * Funkcja wybierająca wektor obsługiwany przez procesor, nie szerszy niż podana liczba bitów
+	 */
+	private static VectorSpecies<Double> species(int bits) {
+		VectorSpecies<Double> preferred = DoubleVector.SPECIES_PREFERRED;
+		if(preferred.vectorBitSize() <= bits) return preferred;
+		return VectorSpecies.of(double.class, VectorShape.forBitSize(bits));
+	}
+	
+	@Override
+	String name() {
+		return "vector " + SPECIES.vectorBitSize() + " bit";
+	}
+	
+	@Override
+	void combine(int n, double[] x, int offX, double beta, double[] y, int offY, double[] r, int offR) {
+		int j = 0, bound = SPECIES.loopBound(n), step = SPECIES.length();
+		if(beta == 1) {
+			for(; j<bound; j+=step) {
+				DoubleVector.fromArray(SPECIES, x, offX+j).add(DoubleVector.fromArray(SPECIES, y, offY+j)).intoArray(r, offR+j);
+			}
+		} else if(beta == -1) {
+			for(; j<bound; j+=step) {
+				DoubleVector.fromArray(SPECIES, x, offX+j).sub(DoubleVector.fromArray(SPECIES, y, offY+j)).intoArray(r, offR+j);
+			}
+		} else {
+			DoubleVector vb = DoubleVector.broadcast(SPECIES, beta);
+			for(; j<bound; j+=step) {
+				DoubleVector.fromArray(SPECIES, x, offX+j).add(DoubleVector.fromArray(SPECIES, y, offY+j).mul(vb)).intoArray(r, offR+j);
+			}
+		}
+		super.combine(n-j, x, offX+j, beta, y, offY+j, r, offR+j);
+	}
+	
+	@Override
+	void scale(int n, double alpha, double[] x, int offX, double[] r, int offR) {
+		int j = 0, bound = SPECIES.loopBound(n), step = SPECIES.length();
+		DoubleVector va = DoubleVector.broadcast(SPECIES, alpha);
+		for(; j<bound; j+=step) {
+			DoubleVector.fromArray(SPECIES, x, offX+j).mul(va).intoArray(r, offR+j);
+		}
+		super.scale(n-j, alpha, x, offX+j, r, offR+j);
+	}
+	
+	@Override
+	void axpy(int n, double alpha, double[] x, int offX, double[] y, int offY) {
+		int j = 0, bound = SPECIES.loopBound(n), step = SPECIES.length();
+		DoubleVector va = DoubleVector.broadcast(SPECIES, alpha);
+		for(; j<bound; j+=step) {
+			DoubleVector vy = DoubleVector.fromArray(SPECIES, y, offY+j);
+			vy.add(DoubleVector.fromArray(SPECIES, x, offX+j).mul(va)).intoArray(y, offY+j);
+		}
+		super.axpy(n-j, alpha, x, offX+j, y, offY+j);
+	}
+	
+	@Override
+	double dot(int n, double[] x, int offX, double[] y, int offY) {
+		int j = 0, step = SPECIES.length(), bound = (n/(2*step))*(2*step);
+		DoubleVector s0 = DoubleVector.zero(SPECIES), s1 = DoubleVector.zero(SPECIES);
+		// Dwa niezależne akumulatory ukrywają opóźnienie FMA
+		for(; j<bound; j+=2*step) {
+			s0 = DoubleVector.fromArray(SPECIES, x, offX+j).fma(DoubleVector.fromArray(SPECIES, y, offY+j), s0);
+			s1 = DoubleVector.fromArray(SPECIES, x, offX+j+step).fma(DoubleVector.fromArray(SPECIES, y, offY+j+step), s1);
+		}
+		return s0.add(s1).reduceLanes(VectorOperators.ADD) + super.dot(n-j, x, offX+j, y, offY+j);
+	}
+	
+	@Override
+	void microKernel(int kc, double[] a, int offA, double[] b, int offB, double[] c, int offC, int ldc) {
+		if(!wideTile) {
+			super.microKernel(kc, a, offA, b, offB, c, offC, ldc);
+			return;
+		}
+		DoubleVector c0 = DoubleVector.zero(TILE), c1 = DoubleVector.zero(TILE);
+		DoubleVector c2 = DoubleVector.zero(TILE), c3 = DoubleVector.zero(TILE);
+		int ia = offA, ib = offB;
+		for(int k=0; k<kc; k++) {
+			DoubleVector vb = DoubleVector.fromArray(TILE, b, ib);
+			c0 = vb.fma(DoubleVector.broadcast(TILE, a[ia]), c0);
+			c1 = vb.fma(DoubleVector.broadcast(TILE, a[ia+1]), c1);
+			c2 = vb.fma(DoubleVector.broadcast(TILE, a[ia+2]), c2);
+			c3 = vb.fma(DoubleVector.broadcast(TILE, a[ia+3]), c3);
+			ia += GemmKernel.MR;
+			ib += GemmKernel.NR;
+		}
+		int r0 = offC, r1 = r0+ldc, r2 = r1+ldc, r3 = r2+ldc;
+		c0.add(DoubleVector.fromArray(TILE, c, r0)).intoArray(c, r0);
+		c1.add(DoubleVector.fromArray(TILE, c, r1)).intoArray(c, r1);
+		c2.add(DoubleVector.fromArray(TILE, c, r2)).intoArray(c, r2);
+		c3.add(DoubleVector.fromArray(TILE, c, r3)).intoArray(c, r3);
+	}
+}
@@ -0,0 +1,105 @@
+package macierze;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import org.junit.jupiter.api.*;
+
+/**
+ * Testy zgodności jąder wektorowych z wersją skalarną: działania element po elemencie dają identyczne bity,
+ * iloczyn skalarny i mikrojądro GEMM różnią się najwyżej błędem zaokrągleń
+ */
+
+class VectorKernelsTest {
+	
+	private final Kernels scalar = new Kernels();
+	
+	private final Kernels vector = new VectorKernels();
+	
+	private final SplittableRandom random = new SplittableRandom(1);
+	
+	/**
+	 * Funkcja tworząca tablicę losowych wartości z przedziału [-1, 1)
+	 */
+	private double[] random(int n) {
+		double[] r = new double[n];
+		for(int j=0; j<n; j++) r[j] = random.nextDouble(-1, 1);
+		return r;
+	}
+	
+	@Test
+	void vectorKernelsAreLoaded() {
+		assertInstanceOf(VectorKernels.class, Kernels.INSTANCE);
+		assertTrue(Kernels.INSTANCE.name().startsWith("vector"));
+	}
+	
+	@Test
+	void elementwiseKernelsMatchScalarBitForBit() {
+		// Długości i przesunięcia niebędące wielokrotnością szerokości wektora sprawdzają pętlę końcową
+		for(int n : new int[] {0, 1, 3, 4, 7, 8, 9, 15, 16, 17, 31, 33, 1000}) {
+			for(int off : new int[] {0, 1, 3}) {
+				double[] x = random(n+off), y = random(n+off);
+				for(double beta : new double[] {1, -1, 0.37}) {
+					double[] rs = new double[n+off], rv = new double[n+off];
+					scalar.combine(n, x, off, beta, y, off, rs, off);
+					vector.combine(n, x, off, beta, y, off, rv, off);
+					assertArrayEquals(rs, rv);
+				}
+				double[] rs = new double[n+off], rv = new double[n+off];
+				scalar.scale(n, -2.5, x, off, rs, 0);
+				vector.scale(n, -2.5, x, off, rv, 0);
+				assertArrayEquals(rs, rv);
+				double[] ys = y.clone(), yv = y.clone();
+				scalar.axpy(n, 0.75, x, 0, ys, off);
+				vector.axpy(n, 0.75, x, 0, yv, off);
+				assertArrayEquals(ys, yv);
+			}
+		}
+	}
+	
+	@Test
+	void dotMatchesScalarWithinRounding() {
+		for(int n : new int[] {0, 1, 5, 8, 15, 16, 17, 63, 1000, 4097}) {
+			double[] x = random(n+2), y = random(n+2);
+			double s = scalar.dot(n, x, 2, y, 1), v = vector.dot(n, x, 2, y, 1);
+			assertEquals(s, v, 1e-15*n);
+		}
+	}
+	
+	@Test
+	void microKernelMatchesScalarWithinRounding() {
+		int mr = GemmKernel.MR, nr = GemmKernel.NR, ldc = nr+3;
+		for(int kc : new int[] {1, 2, 7, 256}) {
+			double[] a = random(mr*kc+1), b = random(nr*kc+2), c = random(mr*ldc+5);
+			double[] cs = c.clone(), cv = c.clone();
+			scalar.microKernel(kc, a, 1, b, 2, cs, 5, ldc);
+			vector.microKernel(kc, a, 1, b, 2, cv, 5, ldc);
+			assertArrayEquals(cs, cv, 1e-15*kc);
+			// Elementy poza kafelkiem pozostają bez zmian
+			for(int i=0; i<mr; i++) {
+				for(int j=nr; j<ldc; j++) {
+					int k = 5+i*ldc+j;
+					if(k < c.length) assertEquals(c[k], cv[k]);
+				}
+			}
+		}
+	}
+	
+	@Test
+	void matrixOperationsUseVectorKernels() throws MatrixSizeException {
+		MatrixGenerator g = new MatrixGenerator(2);
+		Macierz a = g.normal(67, 45), b = g.normal(67, 45), c = g.normal(45, 53);
+		double[] x = a.toFlatArray(), y = b.toFlatArray(), sum = new double[x.length];
+		for(int k=0; k<x.length; k++) sum[k] = x[k] + y[k];
+		assertArrayEquals(sum, Macierz.add(a, b).toFlatArray());
+		double[] p = new double[67*53], z = c.toFlatArray();
+		for(int i=0; i<67; i++) {
+			for(int j=0; j<53; j++) {
+				double s = 0;
+				for(int k=0; k<45; k++) s += x[i*45+k]*z[k*53+j];
+				p[i*53+j] = s;
+			}
+		}
+		assertArrayEquals(p, Macierz.product(a, c).toFlatArray(), 1e-12);
+	}
+}
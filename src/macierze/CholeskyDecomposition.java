@@ -0,0 +1,239 @@
+package macierze;
+
+/**
+ * Klasa z rozkładem Choleskiego A = L*L^T macierzy symetrycznej dodatnio określonej.
+ * Rozkład wymaga połowy działań rozkładu LU (n^3/3), nie potrzebuje wyboru elementów i jest numerycznie stabilny.
+ * Czytany jest tylko dolny trójkąt A. Duże macierze rozkładane są blokowo: pas PANEL kolumn liczony jest
+ * iloczynami skalarnymi wierszy, a reszta dolnego trójkąta aktualizowana równoległym jądrem GEMM.
+ */
+
+public class CholeskyDecomposition {
+	
+	/**
+	 * Rozmiar bloku wierszy przy podstawianiu w przód i w tył
+	 */
+	private static final int BLOCK = 64;
+	
+	/**
+	 * Szerokość pasa kolumn w blokowym rozkładzie
+	 */
+	private static final int PANEL = 128;
+	
+	/**
+	 * Wymiar do którego rozkład liczony jest bez bloków
+	 */
+	private static final int UNBLOCKED = 256;
+	
+	/**
+	 * Czynnik L zapisany wierszami w tablicy n*n, nad przekątną zera
+	 */
+	private final double[] l;
+	
+	/**
+	 * Wymiar macierzy
+	 */
+	private final int n;
+	
+	/**
+	 * Konstruktor wykonujący rozkład Choleskiego podanej macierzy
+	 * @param a Macierz symetryczna dodatnio określona, nie jest modyfikowana, czytany jest tylko dolny trójkąt
+	 * @throws MatrixSizeException Gdy macierz nie jest kwadratowa
+	 * @throws ArithmeticException Gdy macierz nie jest dodatnio określona
+	 */
+	public CholeskyDecomposition(Macierz a) throws MatrixSizeException {
+		if(a.getHeight() != a.getLength()) throw new MatrixSizeException(String.format("Size %d x %d not square", a.getHeight(), a.getLength()));
+		long start = Metrics.start();
+		this.n = a.getLength();
+		this.l = a.toFlatArray();
+		for(int i=0; i<n; i++) {
+			for(int j=i+1; j<n; j++) l[i*n+j] = 0;
+		}
+		if(n <= UNBLOCKED) {
+			factorPanel(0, n);
+			Metrics.end(start, Metrics.Operation.CHOLESKY, n, n, 1.0*n*n*n/3, 8L*n*n);
+			return;
+		}
+		for(int k=0; k<n; k+=PANEL) {
+			int nb = Math.min(PANEL, n-k);
+			factorPanel(k, k+nb);
+			// A22 = A22 - L21*L21^T, tylko dolny trójkąt: pasy wierszy do kolumny końca pasa
+			int c0 = k+nb;
+			for(int ib=c0; ib<n; ib+=PANEL) {
+				int rows = Math.min(PANEL, n-ib);
+				GemmKernel.multiplyAdd(rows, nb, ib+rows-c0, -1, l, ib*n+k, n, 1, l, c0*n+k, 1, n, l, ib*n+c0, n);
+			}
+		}
+		// Aktualizacja pasami liczy też kafelki nad przekątną w blokach przekątnych
+		for(int i=0; i<n; i++) {
+			for(int j=i+1; j<Math.min(n, (i/PANEL+1)*PANEL); j++) l[i*n+j] = 0;
+		}
+		Metrics.end(start, Metrics.Operation.CHOLESKY, n, n, 1.0*n*n*n/3, 8L*n*n);
+	}
+	
+	/**
+	 * Rozkład kolumn [k, end) na wierszach [k, n). Elementy liczone są iloczynami skalarnymi fragmentów wierszy
+	 * od kolumny k, bo wpływ wcześniejszych kolumn został już odjęty. Wiersze pod blokiem przekątnym są niezależne.
+	 */
+	private void factorPanel(int k, int end) {
+		Kernels kernels = Kernels.INSTANCE;
+		for(int j=k; j<end; j++) {
+			int rj = j*n;
+			double d = l[rj+j] - kernels.dot(j-k, l, rj+k, l, rj+k);
+			if(!(d > 0)) throw new ArithmeticException("Matrix is not positive definite");
+			d = Math.sqrt(d);
+			l[rj+j] = d;
+			for(int i=j+1; i<end; i++) {
+				int ri = i*n;
+				l[ri+j] = (l[ri+j] - kernels.dot(j-k, l, ri+k, l, rj+k))/d;
+			}
+		}
+		if(end == n) return;
+		if(Parallel.isSequential(n-end, 1, (long)(end-k)*(end-k))) panelRows(k, end, end, n);
+		else Parallel.forRange(end, n, (long)(end-k)*(end-k), (from, to) -> panelRows(k, end, from, to));
+	}
+	
+	/**
+	 * Funkcja obliczająca kolumny [k, end) wierszy [from, to) pod blokiem przekątnym, L21 = A21 * L11^-T
+	 */
+	private void panelRows(int k, int end, int from, int to) {
+		Kernels kernels = Kernels.INSTANCE;
+		for(int i=from; i<to; i++) {
+			int ri = i*n;
+			for(int j=k; j<end; j++) {
+				int rj = j*n;
+				l[ri+j] = (l[ri+j] - kernels.dot(j-k, l, ri+k, l, rj+k))/l[rj+j];
+			}
+		}
+	}
+	
+	/**
+	 * Funkcja zwracająca wymiar rozłożonej macierzy
+	 * @return int
+	 */
+	public int getSize() {
+		return n;
+	}
+	
+	/**
+	 * Funkcja zwracająca macierz trójkątną dolną L
+	 * @return Macierz
+	 */
+	public Macierz getL() {
+		return new Macierz(n, n, l.clone(), 0, n);
+	}
+	
+	/**
+	 * Funkcja zwracająca wyznacznik, kwadrat iloczynu przekątnej L
+	 * @return double
+	 */
+	public double determinant() {
+		double ret = 1;
+		for(int i=0; i<n; i++) ret = ret*l[i*n+i];
+		return ret*ret;
+	}
+	
+	/**
+	 * Funkcja zwracająca znak i logarytm wyznacznika, znak zawsze 1
+	 * @return double[] 0 - znak wyznacznika, 1 - logarytm naturalny z det
+	 */
+	public double[] logDeterminant() {
+		double log = 0;
+		for(int i=0; i<n; i++) log = log + Math.log(l[i*n+i]);
+		return new double[] {1, 2*log};
+	}
+	
+	/**
+	 * Funkcja rozwiązująca układ AX = B dla wielu prawych stron naraz
+	 * @param b Macierz prawych stron n x k
+	 * @return Macierz rozwiązań X
+	 * @throws MatrixSizeException Gdy liczba wierszy B nie jest równa wymiarowi A
+	 */
+	public Macierz solve(Macierz b) throws MatrixSizeException {
+		Macierz x = new Macierz(b.getHeight(), b.getLength());
+		solveInto(b, x);
+		return x;
+	}
+	
+	/**
+	 * Funkcja rozwiązująca układ AX = B z zapisem wyniku do podanej macierzy
+	 * @param b Macierz prawych stron n x k
+	 * @param dst Macierz n x k na rozwiązanie, może być macierzą b
+	 * @throws MatrixSizeException Gdy wymiary macierzy się nie zgadzają
+	 */
+	public void solveInto(Macierz b, Macierz dst) throws MatrixSizeException {
+		if(b.getHeight() != n) throw new MatrixSizeException(String.format("Incorrect size, a is %d x %d, b id %d x %d", n, n, b.getHeight(), b.getLength()));
+		if(dst.getHeight() != n || dst.getLength() != b.getLength()) throw new MatrixSizeException(String.format("Incorrect size of destination %d x %d for %d x %d", dst.getHeight(), dst.getLength(), n, b.getLength()));
+		Macierz.checkWritable(dst);
+		boolean same = Macierz.sameView(dst, b);
+		if(dst.colStride() != 1 || (Macierz.overlaps(dst, b) && !same)) {
+			// Widok transponowany lub widok nakładający się z b - rozwiązanie w kopii
+			Macierz tmp = Macierz.copyOf(b);
+			solveInto(tmp, tmp);
+			Macierz.copyInto(tmp, dst);
+			return;
+		}
+		if(!same) Macierz.copyInto(b, dst);
+		int q = b.getLength();
+		forward(dst.data(), dst.offset(), dst.stride(), q, false);
+		backward(dst.data(), dst.offset(), dst.stride(), q);
+	}
+	
+	/**
+	 * Funkcja zwracająca macierz odwrotną, symetryczną
+	 * @return Macierz
+	 */
+	public Macierz inverse() {
+		Macierz x = new Macierz(n, n);
+		double[] xd = x.data();
+		for(int i=0; i<n; i++) xd[i*n+i] = 1;
+		// L^-1 jest trójkątna dolna, podstawianie w przód pomija kolumny zer
+		forward(xd, 0, n, n, true);
+		backward(xd, 0, n, n);
+		return x;
+	}
+	
+	/**
+	 * Blokowe podstawianie w przód LY = X, wynik nadpisuje X
+	 * @param lower Czy X jest macierzą jednostkową, wtedy Y jest trójkątna dolna i wiersz i ma tylko kolumny do i
+	 */
+	private void forward(double[] x, int xo, int xs, int q, boolean lower) {
+		Kernels kernels = Kernels.INSTANCE;
+		for(int ib=0; ib<n; ib+=BLOCK) {
+			int nb = Math.min(BLOCK, n-ib);
+			int qb = lower ? ib+nb : q;
+			if(ib > 0) GemmKernel.multiplyAdd(nb, ib, qb, -1, l, ib*n, n, x, xo, xs, x, xo+ib*xs, xs);
+			for(int i=ib; i<ib+nb; i++) {
+				int row = xo+i*xs, qi = lower ? i+1 : q;
+				for(int k=ib; k<i; k++) {
+					double v = l[i*n+k];
+					if(v != 0) kernels.axpy(qi, -v, x, xo+k*xs, x, row);
+				}
+				kernels.scale(qi, 1/l[i*n+i], x, row, x, row);
+			}
+		}
+	}
+	
+	/**
+	 * Blokowe podstawianie w tył L^T X = Y, wynik nadpisuje Y. L^T czytane jest kolumnami L,
+	 * wpływ późniejszych bloków odejmowany jądrem GEMM z odległością kolumn n.
+	 */
+	private void backward(double[] x, int xo, int xs, int q) {
+		Kernels kernels = Kernels.INSTANCE;
+		int last = (n-1)/BLOCK*BLOCK;
+		for(int ib=last; ib>=0; ib-=BLOCK) {
+			int nb = Math.min(BLOCK, n-ib);
+			int end = ib+nb;
+			// (L^T)[ib.., end..] = L[end.., ib..]^T
+			if(end < n) GemmKernel.multiplyAdd(nb, n-end, q, -1, l, end*n+ib, 1, n, x, xo+end*xs, xs, 1, x, xo+ib*xs, xs);
+			for(int i=end-1; i>=ib; i--) {
+				int row = xo+i*xs;
+				kernels.scale(q, 1/l[i*n+i], x, row, x, row);
+				// Wiersz i gotowy, odjęcie go od wcześniejszych wierszy bloku, L[i][k] dla k < i
+				for(int k=ib; k<i; k++) {
+					double v = l[i*n+k];
+					if(v != 0) kernels.axpy(q, -v, x, row, x, xo+k*xs);
+				}
+			}
+		}
+	}
+}
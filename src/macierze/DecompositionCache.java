@@ -0,0 +1,243 @@
+package macierze;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Pamięć podręczna rozkładów LU, macierzy odwrotnych i wyznaczników dla macierzy liczonych wielokrotnie.
+ * Kluczem jest zawartość macierzy: przy pierwszym użyciu zapamiętywana jest jej zamrożona kopia (freeze),
+ * więc późniejsze zmiany macierzy podanej przez wywołującego nie psują pamięci. Przechowywane wartości
+ * nie są zmieniane po utworzeniu i mogą być współdzielone przez wątki.
+ * Liczba wpisów i szacowana liczba bajtów są ograniczone, po przekroczeniu usuwane są wpisy najdawniej używane (LRU).
+ * Odczyty nie blokują się nawzajem (ConcurrentHashMap), rozkład liczony jest poza blokadą,
+ * blokada chroni tylko usuwanie wpisów po przekroczeniu limitu.
+ */
+
+public class DecompositionCache {
+	
+	/**
+	 * Szacowany narzut jednego wpisu w bajtach (obiekty wpisu, klucza i mapy)
+	 */
+	private static final long ENTRY_OVERHEAD = 128;
+	
+	/**
+	 * Wpisy według zawartości macierzy
+	 */
+	private final ConcurrentHashMap<Macierz, Entry> entries = new ConcurrentHashMap<>();
+	
+	/**
+	 * Największa liczba wpisów
+	 */
+	private final int maxEntries;
+	
+	/**
+	 * Największa szacowana liczba bajtów wszystkich wpisów
+	 */
+	private final long maxBytes;
+	
+	/**
+	 * Szacowana liczba bajtów wszystkich wpisów
+	 */
+	private final AtomicLong bytes = new AtomicLong();
+	
+	/**
+	 * Blokada usuwania wpisów, żeby dwa wątki nie usuwały naraz
+	 */
+	private final Object evictLock = new Object();
+	
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	
+	/**
+	 * Wpis pamięci, rozkład LU i wyznacznik liczone od razu, macierz odwrotna przy pierwszym użyciu
+	 */
+	private static final class Entry {
+		final Macierz key;
+		final LUDecomposition lu;
+		final double determinant;
+		volatile Macierz inverse;
+		volatile long bytes;
+		volatile long lastAccess;
+		
+		Entry(Macierz key, LUDecomposition lu) {
+			this.key = key;
+			this.lu = lu;
+			this.determinant = lu.determinant();
+			long n = lu.getSize();
+			this.bytes = ENTRY_OVERHEAD + 16*n*n + 4*n;
+			this.lastAccess = System.nanoTime();
+		}
+	}
+	
+	/**
+	 * Konstruktor pamięci z podanymi limitami
+	 * @param maxEntries Największa liczba wpisów
+	 * @param maxBytes Największa szacowana liczba bajtów (klucz, czynniki LU i macierz odwrotna to po 8n^2 bajtów)
+	 */
+	public DecompositionCache(int maxEntries, long maxBytes) {
+		if(maxEntries < 0 || maxBytes < 0) throw new IllegalArgumentException(String.format("Incorrect limits %d entries, %d bytes", maxEntries, maxBytes));
+		this.maxEntries = maxEntries;
+		this.maxBytes = maxBytes;
+	}
+	
+	/**
+	 * Funkcja zwracająca rozkład LU macierzy, z pamięci lub nowy
+	 * @param a Macierz kwadratowa
+	 * @return LUDecomposition, współdzielony i niezmienny
+	 * @throws MatrixSizeException Gdy macierz nie jest kwadratowa
+	 */
+	public LUDecomposition lu(Macierz a) throws MatrixSizeException {
+		return entry(a).lu;
+	}
+	
+	/**
+	 * Funkcja zwracająca wyznacznik macierzy, z pamięci lub z nowego rozkładu
+	 * @param a Macierz kwadratowa
+	 * @return double
+	 * @throws MatrixSizeException Gdy macierz nie jest kwadratowa
+	 */
+	public double determinant(Macierz a) throws MatrixSizeException {
+		// Rozkład sprawdza wymiary, także dla macierzy bez elementów (0x0 ma wyznacznik 1)
+		return entry(a).determinant;
+	}
+	
+	/**
+	 * Funkcja zwracająca macierz odwrotną, z pamięci lub liczoną z zapamiętanego rozkładu.
+	 * Wynik jest zamrożony i współdzielony, do zmian trzeba go skopiować (Macierz.copyOf).
+	 * @param a Macierz kwadratowa
+	 * @return Macierz odwrotna, zamrożona
+	 * @throws MatrixSizeException Gdy macierz nie jest kwadratowa
+	 * @throws ArithmeticException Gdy macierz jest osobliwa
+	 */
+	public Macierz inverse(Macierz a) throws MatrixSizeException {
+		Entry e = entry(a);
+		Macierz inv = e.inverse;
+		if(inv == null) {
+			// Odwrotność liczona poza blokadą, przy wyścigu zapamiętana zostaje pierwsza (obie są równe)
+			inv = e.lu.inverse().freeze();
+			long n = e.lu.getSize();
+			synchronized(evictLock) {
+				if(e.inverse != null) return e.inverse;
+				e.inverse = inv;
+				if(entries.get(e.key) == e) {
+					e.bytes = e.bytes + 8*n*n;
+					bytes.addAndGet(8*n*n);
+				}
+			}
+			evict();
+		}
+		return inv;
+	}
+	
+	/**
+	 * Funkcja rozwiązująca układ AX = B z zapamiętanego rozkładu macierzy a
+	 * @param a Macierz współczynników
+	 * @param b Macierz wyrazów wolnych
+	 * @return Macierz rozwiązań
+	 * @throws MatrixSizeException Gdy macierz nie jest kwadratowa lub wymiary się nie zgadzają
+	 * @throws ArithmeticException Gdy macierz jest osobliwa
+	 */
+	public Macierz solve(Macierz a, Macierz b) throws MatrixSizeException {
+		return entry(a).lu.solve(b);
+	}
+	
+	/**
+	 * Funkcja zwracająca wpis dla macierzy, przy braku liczy rozkład poza blokadą i dodaje wpis
+	 */
+	private Entry entry(Macierz a) throws MatrixSizeException {
+		Entry e = entries.get(a);
+		if(e != null) {
+			hits.increment();
+			e.lastAccess = System.nanoTime();
+			return e;
+		}
+		misses.increment();
+		Macierz key = a.freeze();
+		Entry created = new Entry(key, new LUDecomposition(key));
+		e = entries.putIfAbsent(key, created);
+		if(e != null) return e;
+		bytes.addAndGet(created.bytes);
+		evict();
+		return created;
+	}
+	
+	/**
+	 * Funkcja usuwająca najdawniej używane wpisy, dopóki limity są przekroczone
+	 */
+	private void evict() {
+		if(entries.size() <= maxEntries && bytes.get() <= maxBytes) return;
+		synchronized(evictLock) {
+			while(!entries.isEmpty() && (entries.size() > maxEntries || bytes.get() > maxBytes)) {
+				Entry oldest = null;
+				for(Entry e : entries.values()) {
+					if(oldest == null || e.lastAccess < oldest.lastAccess) oldest = e;
+				}
+				if(oldest != null && entries.remove(oldest.key, oldest)) {
+					bytes.addAndGet(-oldest.bytes);
+					evictions.increment();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Funkcja usuwająca wszystkie wpisy, statystyki nie są zerowane
+	 */
+	public void clear() {
+		synchronized(evictLock) {
+			for(Entry e : entries.values()) {
+				if(entries.remove(e.key, e)) bytes.addAndGet(-e.bytes);
+			}
+		}
+	}
+	
+	/**
+	 * Funkcja zwracająca liczbę wpisów
+	 * @return int
+	 */
+	public int size() {
+		return entries.size();
+	}
+	
+	/**
+	 * Funkcja zwracająca szacowaną liczbę bajtów wszystkich wpisów
+	 * @return long
+	 */
+	public long getBytes() {
+		return bytes.get();
+	}
+	
+	/**
+	 * Funkcja zwracająca liczbę trafień
+	 * @return long
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+	
+	/**
+	 * Funkcja zwracająca liczbę chybień (nowych rozkładów)
+	 * @return long
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+	
+	/**
+	 * Funkcja zwracająca liczbę usuniętych wpisów
+	 * @return long
+	 */
+	public long getEvictions() {
+		return evictions.sum();
+	}
+	
+	/**
+	 * Funkcja zwracająca statystyki pamięci
+	 * @return String
+	 */
+	@Override
+	public String toString() {
+		return String.format("DecompositionCache[size=%d, bytes=%d, hits=%d, misses=%d, evictions=%d]", size(), getBytes(), getHits(), getMisses(), getEvictions());
+	}
+}
@@ -0,0 +1,353 @@
+package macierze;
+
+import java.util.*;
+
+/**
+ * Klasa leniwego wyrażenia na macierzach. Funkcje add, subtract, product i transpose nie liczą nic od razu,
+ * tylko zapamiętują drzewo wyrażenia. Dopiero evaluate oblicza całe drzewo jednym przejściem po pamięci
+ * do jednej macierzy wynikowej, bez macierzy pośrednich.
+ * Wszystkie działania są liniowe, więc drzewo sprowadza się do sumy c_k * X_k lub c_k * X_k^T,
+ * którą liczy się kafelkami, tak by fragment wyniku i odpowiadające mu fragmenty X_k były w pamięci podręcznej.
+ * Przykład: Expression.add(Expression.product(2.5, Expression.of(a)), Expression.subtract(Expression.of(b), Expression.of(c))).evaluate()
+ */
+
+public abstract class Expression {
+	
+	/**
+	 * Liczba wierszy kafelka
+	 */
+	private static final int TILE_ROWS = 64;
+	
+	/**
+	 * Liczba kolumn kafelka
+	 */
+	private static final int TILE_COLS = 256;
+	
+	/**
+	 * Liczba wierszy wyniku
+	 */
+	private final int height;
+	
+	/**
+	 * Liczba kolumn wyniku
+	 */
+	private final int length;
+	
+	/**
+	 * Konstruktor węzła o podanych wymiarach wyniku
+	 * @param n Liczba wierszy
+	 * @param m Liczba kolumn
+	 */
+	Expression(int n, int m) {
+		this.height = n;
+		this.length = m;
+	}
+	
+	/**
+	 * Funkcja zwracająca liczbę wierszy wyniku
+	 * @return int
+	 */
+	public int getHeight() {
+		return height;
+	}
+	
+	/**
+	 * Funkcja zwracająca liczbę kolumn wyniku
+	 * @return int
+	 */
+	public int getLength() {
+		return length;
+	}
+	
+	/**
+	 * Funkcja tworząca wyrażenie z macierzy, macierz nie jest kopiowana,
+	 * więc zmiany w niej przed evaluate są widoczne w wyniku
+	 * @param a Macierz
+	 * @return Expression
+	 */
+	public static Expression of(Macierz a) {
+		return new Leaf(a);
+	}
+	
+	/**
+	 * Funkcja tworząca wyrażenie a + b
+	 * @param a Pierwsze wyrażenie
+	 * @param b Drugie wyrażenie
+	 * @return Expression
+	 * @throws MatrixSizeException Gdy wymiary wyrażeń się nie zgadzają
+	 */
+	public static Expression add(Expression a, Expression b) throws MatrixSizeException {
+		return new Sum(a, 1, b);
+	}
+	
+	/**
+	 * Funkcja tworząca wyrażenie a - b
+	 * @param a Pierwsze wyrażenie
+	 * @param b Drugie wyrażenie
+	 * @return Expression
+	 * @throws MatrixSizeException Gdy wymiary wyrażeń się nie zgadzają
+	 */
+	public static Expression subtract(Expression a, Expression b) throws MatrixSizeException {
+		return new Sum(a, -1, b);
+	}
+	
+	/**
+	 * Funkcja tworząca wyrażenie a*b dla skalara a
+	 * @param a Skalar
+	 * @param b Wyrażenie
+	 * @return Expression
+	 */
+	public static Expression product(double a, Expression b) {
+		return new Scale(a, b);
+	}
+	
+	/**
+	 * Funkcja tworząca wyrażenie a^T
+	 * @param a Wyrażenie
+	 * @return Expression
+	 */
+	public static Expression transpose(Expression a) {
+		return new Transpose(a);
+	}
+	
+	/**
+	 * Funkcja obliczająca wyrażenie do nowej macierzy
+	 * @return Macierz
+	 */
+	public Macierz evaluate() {
+		Macierz ret = new Macierz(height, length);
+		Terms terms = new Terms();
+		collect(1, false, terms);
+		terms.evaluate(ret);
+		return ret;
+	}
+	
+	/**
+	 * Funkcja obliczająca wyrażenie do podanej macierzy. Macierz docelowa może występować w wyrażeniu,
+	 * bez transpozycji nie wymaga to dodatkowej pamięci (np. y = y + 2*x), w pozostałych przypadkach
+	 * wynik liczony jest najpierw do macierzy pomocniczej.
+	 * @param dst Macierz wynikowa
+	 * @throws MatrixSizeException Gdy wymiary macierzy wynikowej się nie zgadzają
+	 */
+	public void evaluateInto(Macierz dst) throws MatrixSizeException {
+		if(dst.getHeight() != height || dst.getLength() != length) throw new MatrixSizeException(String.format("Incorrect size of destination %d x %d for %d x %d", dst.getHeight(), dst.getLength(), height, length));
+		Macierz.checkWritable(dst);
+		Terms terms = new Terms();
+		collect(1, false, terms);
+		if(terms.prepare(dst)) {
+			terms.evaluate(dst);
+		} else {
+			Macierz tmp = new Macierz(height, length);
+			terms.evaluate(tmp);
+			Macierz.copyInto(tmp, dst);
+		}
+	}
+	
+	/**
+	 * Funkcja dopisująca składniki wyrażenia pomnożone przez coef do listy
+	 * @param coef Współczynnik całego węzła
+	 * @param transposed Czy węzeł jest transponowany przez węzły wyżej
+	 * @param out Lista składników
+	 */
+	abstract void collect(double coef, boolean transposed, Terms out);
+	
+	/**
+	 * Liść wyrażenia, macierz
+	 */
+	private static final class Leaf extends Expression {
+		
+		private final Macierz a;
+		
+		Leaf(Macierz a) {
+			super(a.getHeight(), a.getLength());
+			this.a = a;
+		}
+		
+		@Override
+		void collect(double coef, boolean transposed, Terms out) {
+			out.add(coef, a, transposed);
+		}
+	}
+	
+	/**
+	 * Węzeł a + sign*b
+	 */
+	private static final class Sum extends Expression {
+		
+		private final Expression a, b;
+		
+		private final double sign;
+		
+		Sum(Expression a, double sign, Expression b) throws MatrixSizeException {
+			super(a.getHeight(), a.getLength());
+			if(a.getHeight() != b.getHeight() || a.getLength() != b.getLength()) {
+				throw new MatrixSizeException(String.format("Incorrect size, a is %d x %d, b id %d x %d", a.getHeight(), a.getLength(), b.getHeight(), b.getLength()));
+			}
+			this.a = a;
+			this.b = b;
+			this.sign = sign;
+		}
+		
+		@Override
+		void collect(double coef, boolean transposed, Terms out) {
+			a.collect(coef, transposed, out);
+			b.collect(sign*coef, transposed, out);
+		}
+	}
+	
+	/**
+	 * Węzeł alpha*a
+	 */
+	private static final class Scale extends Expression {
+		
+		private final Expression a;
+		
+		private final double alpha;
+		
+		Scale(double alpha, Expression a) {
+			super(a.getHeight(), a.getLength());
+			this.a = a;
+			this.alpha = alpha;
+		}
+		
+		@Override
+		void collect(double coef, boolean transposed, Terms out) {
+			a.collect(alpha*coef, transposed, out);
+		}
+	}
+	
+	/**
+	 * Węzeł a^T
+	 */
+	private static final class Transpose extends Expression {
+		
+		private final Expression a;
+		
+		Transpose(Expression a) {
+			super(a.getLength(), a.getHeight());
+			this.a = a;
+		}
+		
+		@Override
+		void collect(double coef, boolean transposed, Terms out) {
+			a.collect(coef, !transposed, out);
+		}
+	}
+	
+	/**
+	 * Lista składników c_k * X_k lub c_k * X_k^T spłaszczonego wyrażenia
+	 */
+	static final class Terms {
+		
+		private double[] coef = new double[4];
+		
+		private Macierz[] x = new Macierz[4];
+		
+		private boolean[] transposed = new boolean[4];
+		
+		private int count = 0;
+		
+		/**
+		 * Funkcja dodająca składnik, te same dane w tej samej orientacji są łączone w jeden składnik.
+		 * Widok transponowany zapisywany jest jako transpozycja macierzy zapisanej wierszami.
+		 */
+		void add(double c, Macierz a, boolean t) {
+			if(a.colStride() != 1) {
+				if(a.stride() == 1 || a.getHeight() <= 1) {
+					a = a.transposedView();
+					t = !t;
+				} else a = Macierz.copyOf(a);
+			}
+			for(int k=0; k<count; k++) {
+				Macierz b = x[k];
+				if(transposed[k] == t && b.data() == a.data() && b.offset() == a.offset() && b.stride() == a.stride()) {
+					coef[k] = coef[k] + c;
+					return;
+				}
+			}
+			if(count == coef.length) {
+				coef = Arrays.copyOf(coef, 2*count);
+				x = Arrays.copyOf(x, 2*count);
+				transposed = Arrays.copyOf(transposed, 2*count);
+			}
+			coef[count] = c;
+			x[count] = a;
+			transposed[count] = t;
+			count++;
+		}
+		
+		/**
+		 * Funkcja przygotowująca składniki do zapisu w dst, składnik będący dokładnie dst przenoszony jest na początek
+		 * @return true gdy można liczyć bezpośrednio do dst, false gdy dst nakłada się z innym składnikiem lub jest widokiem transponowanym
+		 */
+		boolean prepare(Macierz dst) {
+			if(dst.colStride() != 1) return false;
+			for(int k=0; k<count; k++) {
+				Macierz a = x[k];
+				if(!Macierz.overlaps(a, dst)) continue;
+				if(transposed[k] || a.offset() != dst.offset() || a.stride() != dst.stride()) return false;
+				swap(0, k);
+			}
+			return true;
+		}
+		
+		private void swap(int p, int q) {
+			double c = coef[p];
+			coef[p] = coef[q];
+			coef[q] = c;
+			Macierz a = x[p];
+			x[p] = x[q];
+			x[q] = a;
+			boolean t = transposed[p];
+			transposed[p] = transposed[q];
+			transposed[q] = t;
+		}
+		
+		/**
+		 * Funkcja obliczająca sumę składników do dst, dzieląc pasy wierszy na wątki dla dużych macierzy
+		 */
+		void evaluate(Macierz dst) {
+			int n = dst.getHeight(), m = dst.getLength();
+			long cost = (long)Math.max(count, 1)*m;
+			if(Parallel.isSequential(n, TILE_ROWS, cost)) evaluateRows(dst, 0, n);
+			else Parallel.forRange(0, n, TILE_ROWS, cost, (from, to) -> evaluateRows(dst, from, to));
+		}
+		
+		/**
+		 * Funkcja obliczająca wiersze [from, to) wyniku kafelkami TILE_ROWS x TILE_COLS.
+		 * Pierwszy składnik zapisuje kafelek, kolejne do niego dodają, więc kafelek wyniku
+		 * trafia do pamięci głównej tylko raz.
+		 */
+		private void evaluateRows(Macierz dst, int from, int to) {
+			double[] d = dst.data();
+			int m = dst.getLength(), doff = dst.offset(), ds = dst.stride();
+			for(int ib=from; ib<to; ib+=TILE_ROWS) {
+				int ie = Math.min(ib+TILE_ROWS, to);
+				for(int jb=0; jb<m; jb+=TILE_COLS) {
+					int je = Math.min(jb+TILE_COLS, m);
+					if(count == 0) {
+						for(int i=ib; i<ie; i++) Arrays.fill(d, doff+i*ds+jb, doff+i*ds+je, 0);
+						continue;
+					}
+					for(int k=0; k<count; k++) {
+						double c = coef[k];
+						double[] s = x[k].data();
+						int so = x[k].offset(), ss = x[k].stride();
+						boolean first = k == 0;
+						for(int i=ib; i<ie; i++) {
+							int r = doff+i*ds;
+							if(transposed[k]) {
+								if(first) for(int j=jb; j<je; j++) d[r+j] = c*s[so+j*ss+i];
+								else for(int j=jb; j<je; j++) d[r+j] = d[r+j] + c*s[so+j*ss+i];
+							} else {
+								int sr = so+i*ss;
+								if(first) for(int j=jb; j<je; j++) d[r+j] = c*s[sr+j];
+								else for(int j=jb; j<je; j++) d[r+j] = d[r+j] + c*s[sr+j];
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+}
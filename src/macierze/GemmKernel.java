@@ -0,0 +1,261 @@
+package macierze;
+
+import java.util.*;
+
+/**
+ * Blokowe jądro mnożenia macierzy (GEMM) z pakowaniem paneli i mikrojądrem 4x4 na rejestrach
+ */
+
+final class GemmKernel {
+	
+	/**
+	 * Liczba wierszy mikrojądra
+	 */
+	static final int MR = 4;
+	
+	/**
+	 * Liczba kolumn mikrojądra
+	 */
+	static final int NR = 4;
+	
+	/**
+	 * Liczba wierszy bloku A trzymanego w pamięci L2
+	 */
+	static final int MC = 128;
+	
+	/**
+	 * Głębokość bloku (wspólny wymiar) trzymanego w pamięci L1/L2
+	 */
+	static final int KC = 256;
+	
+	/**
+	 * Liczba kolumn panelu B trzymanego w pamięci L3
+	 */
+	static final int NC = 2048;
+	
+	/**
+	 * Liczba operacji m*n*q od której opłaca się używać jądra blokowego
+	 */
+	static final long THRESHOLD = 48L*48*48;
+	
+	/**
+	 * Bufory na spakowany blok A i brzeg mikrojądra, jedne na wątek żeby uniknąć alokacji przy każdym wywołaniu
+	 */
+	private static final ThreadLocal<double[][]> BUFFERS = ThreadLocal.withInitial(() -> new double[][] {
+		new double[MC*KC], new double[MR*NR]
+	});
+	
+	/**
+	 * Bufor na spakowany panel B, jeden na wątek wywołujący, czytany przez wszystkie wątki liczące wiersze.
+	 * Na czas mnożenia wyjmowany jest z ThreadLocal, bo wątek puli czekający na podzadania może wykonać
+	 * inne mnożenie, które dostaje wtedy własny bufor.
+	 */
+	private static final ThreadLocal<double[]> PANEL = ThreadLocal.withInitial(() -> new double[KC*NC]);
+	
+	private GemmKernel() {}
+	
+	/**
+	 * Funkcja obliczająca C = A*B dla ciągłych tablic zapisanych wierszami, wiersze C dzielone są na wątki
+	 * @param n Liczba wierszy A
+	 * @param m Liczba kolumn A i wierszy B
+	 * @param q Liczba kolumn B
+	 * @param a Tablica A
+	 * @param offA Indeks elementu (0, 0) macierzy A
+	 * @param lda Odległość pomiędzy wierszami A
+	 * @param b Tablica B
+	 * @param offB Indeks elementu (0, 0) macierzy B
+	 * @param ldb Odległość pomiędzy wierszami B
+	 * @param c Tablica wynikowa, nadpisywana
+	 * @param offC Indeks elementu (0, 0) macierzy C
+	 * @param ldc Odległość pomiędzy wierszami C
+	 */
+	static void multiply(int n, int m, int q, double[] a, int offA, int lda, double[] b, int offB, int ldb, double[] c, int offC, int ldc) {
+		gemm(n, m, q, 1, a, offA, lda, 1, b, offB, ldb, 1, false, c, offC, ldc);
+	}
+	
+	/**
+	 * Funkcja obliczająca C = A*B gdy A lub B mają kolumny odległe o csA, csB (np. widoki transponowane).
+	 * Odległości uwzględniane są tylko przy pakowaniu, więc mikrojądro działa tak samo szybko.
+	 * @param n Liczba wierszy A
+	 * @param m Liczba kolumn A i wierszy B
+	 * @param q Liczba kolumn B
+	 * @param a Tablica A
+	 * @param offA Indeks elementu (0, 0) macierzy A
+	 * @param lda Odległość pomiędzy wierszami A
+	 * @param csA Odległość pomiędzy kolumnami A
+	 * @param b Tablica B
+	 * @param offB Indeks elementu (0, 0) macierzy B
+	 * @param ldb Odległość pomiędzy wierszami B
+	 * @param csB Odległość pomiędzy kolumnami B
+	 * @param c Tablica wynikowa, nadpisywana
+	 * @param offC Indeks elementu (0, 0) macierzy C
+	 * @param ldc Odległość pomiędzy wierszami C
+	 */
+	static void multiply(int n, int m, int q, double[] a, int offA, int lda, int csA, double[] b, int offB, int ldb, int csB, double[] c, int offC, int ldc) {
+		gemm(n, m, q, 1, a, offA, lda, csA, b, offB, ldb, csB, false, c, offC, ldc);
+	}
+	
+	/**
+	 * Funkcja obliczająca C = C + alpha*A*B dla ciągłych tablic zapisanych wierszami
+	 * @param n Liczba wierszy A
+	 * @param m Liczba kolumn A i wierszy B
+	 * @param q Liczba kolumn B
+	 * @param alpha Współczynnik iloczynu
+	 * @param a Tablica A
+	 * @param offA Indeks elementu (0, 0) macierzy A
+	 * @param lda Odległość pomiędzy wierszami A
+	 * @param b Tablica B
+	 * @param offB Indeks elementu (0, 0) macierzy B
+	 * @param ldb Odległość pomiędzy wierszami B
+	 * @param c Tablica wynikowa, do której dodawany jest iloczyn
+	 * @param offC Indeks elementu (0, 0) macierzy C
+	 * @param ldc Odległość pomiędzy wierszami C
+	 */
+	static void multiplyAdd(int n, int m, int q, double alpha, double[] a, int offA, int lda, double[] b, int offB, int ldb, double[] c, int offC, int ldc) {
+		gemm(n, m, q, alpha, a, offA, lda, 1, b, offB, ldb, 1, true, c, offC, ldc);
+	}
+	
+	/**
+	 * Funkcja obliczająca C = C + alpha*A*B gdy A lub B mają kolumny odległe o csA, csB (np. B = L^T w rozkładzie Choleskiego)
+	 */
+	static void multiplyAdd(int n, int m, int q, double alpha, double[] a, int offA, int lda, int csA, double[] b, int offB, int ldb, int csB, double[] c, int offC, int ldc) {
+		gemm(n, m, q, alpha, a, offA, lda, csA, b, offB, ldb, csB, true, c, offC, ldc);
+	}
+	
+	/**
+	 * Funkcja obliczająca C = alpha*A*B lub C = C + alpha*A*B. Każdy panel B pakowany jest raz,
+	 * a wiersze C dzielone są na wątki, które czytają ten sam spakowany panel.
+	 */
+	private static void gemm(int n, int m, int q, double alpha, double[] a, int offA, int lda, int csA, double[] b, int offB, int ldb, int csB, boolean accumulate, double[] c, int offC, int ldc) {
+		if(m == 0) {
+			if(!accumulate) {
+				for(int i=0; i<n; i++) Arrays.fill(c, offC+i*ldc, offC+i*ldc+q, 0);
+			}
+			return;
+		}
+		double[] packB = PANEL.get();
+		PANEL.set(null);
+		if(packB == null) packB = new double[KC*NC];
+		try {
+			for(int jc=0; jc<q; jc+=NC) {
+				int nc = Math.min(NC, q-jc);
+				for(int pc=0; pc<m; pc+=KC) {
+					int kc = Math.min(KC, m-pc);
+					packB(b, offB+pc*ldb+jc*csB, ldb, csB, kc, nc, packB);
+					// Pierwszy blok wspólnego wymiaru nadpisuje C, kolejne dodają do niego
+					boolean add = accumulate || pc > 0;
+					int oa = offA+pc*csA, oc = offC+jc;
+					double[] panel = packB;
+					if(Parallel.isSequential(n, MR, (long)kc*nc)) multiplyBlock(0, n, kc, nc, alpha, a, oa, lda, csA, panel, add, c, oc, ldc);
+					else Parallel.forRange(0, n, MR, (long)kc*nc, (from, to) -> multiplyBlock(from, to, kc, nc, alpha, a, oa, lda, csA, panel, add, c, oc, ldc));
+				}
+			}
+		} finally {
+			PANEL.set(packB);
+		}
+	}
+	
+	/**
+	 * Funkcja obliczająca wiersze [from, to) iloczynu bloku A (kc kolumn) przez spakowany panel B (kc x nc)
+	 */
+	private static void multiplyBlock(int from, int to, int kc, int nc, double alpha, double[] a, int offA, int lda, int csA, double[] packB, boolean add, double[] c, int offC, int ldc) {
+		if(!add) {
+			for(int i=from; i<to; i++) {
+				Arrays.fill(c, offC+i*ldc, offC+i*ldc+nc, 0);
+			}
+		}
+		double[][] buffers = BUFFERS.get();
+		double[] packA = buffers[0];
+		double[] edge = buffers[1];
+		for(int ic=from; ic<to; ic+=MC) {
+			int mc = Math.min(MC, to-ic);
+			packA(alpha, a, offA+ic*lda, lda, csA, mc, kc, packA);
+			macroKernel(mc, nc, kc, packA, packB, edge, c, offC+ic*ldc, ldc);
+		}
+	}
+	
+	/**
+	 * Funkcja pakująca blok A przemnożony przez alpha w paski po MR wierszy, uzupełniane zerami
+	 */
+	private static void packA(double alpha, double[] a, int off, int lda, int csa, int mc, int kc, double[] dst) {
+		int idx = 0;
+		for(int i=0; i<mc; i+=MR) {
+			int mr = Math.min(MR, mc-i);
+			int row = off+i*lda;
+			for(int k=0; k<kc; k++) {
+				for(int r=0; r<mr; r++) dst[idx+r] = alpha*a[row+r*lda+k*csa];
+				for(int r=mr; r<MR; r++) dst[idx+r] = 0;
+				idx += MR;
+			}
+		}
+	}
+	
+	/**
+	 * Funkcja pakująca panel B w paski po NR kolumn, uzupełniane zerami
+	 */
+	private static void packB(double[] b, int off, int ldb, int csb, int kc, int nc, double[] dst) {
+		int idx = 0;
+		for(int j=0; j<nc; j+=NR) {
+			int nr = Math.min(NR, nc-j);
+			for(int k=0; k<kc; k++) {
+				int row = off+k*ldb+j*csb;
+				for(int r=0; r<nr; r++) dst[idx+r] = b[row+r*csb];
+				for(int r=nr; r<NR; r++) dst[idx+r] = 0;
+				idx += NR;
+			}
+		}
+	}
+	
+	/**
+	 * Funkcja przechodząca po spakowanych blokach i wywołująca mikrojądro
+	 */
+	private static void macroKernel(int mc, int nc, int kc, double[] packA, double[] packB, double[] edge, double[] c, int offC, int ldc) {
+		for(int j=0; j<nc; j+=NR) {
+			int nr = Math.min(NR, nc-j);
+			int offB = j*kc;
+			for(int i=0; i<mc; i+=MR) {
+				int mr = Math.min(MR, mc-i);
+				if(mr == MR && nr == NR) Kernels.INSTANCE.microKernel(kc, packA, i*kc, packB, offB, c, offC+i*ldc+j, ldc);
+				else microKernel(kc, packA, i*kc, packB, offB, edge, c, offC+i*ldc+j, ldc, mr, nr);
+			}
+		}
+	}
+	
+	/**
+	 * Mikrojądro 4x4, sumy cząstkowe trzymane w zmiennych lokalnych (rejestrach).
+	 * Pełne kafelki liczone są przez Kernels, które może zastąpić je wersją wektorową.
+	 */
+	static void microKernel(int kc, double[] a, int offA, double[] b, int offB, double[] acc, double[] c, int offC, int ldc, int mr, int nr) {
+		double c00 = 0, c01 = 0, c02 = 0, c03 = 0;
+		double c10 = 0, c11 = 0, c12 = 0, c13 = 0;
+		double c20 = 0, c21 = 0, c22 = 0, c23 = 0;
+		double c30 = 0, c31 = 0, c32 = 0, c33 = 0;
+		int ia = offA, ib = offB;
+		for(int k=0; k<kc; k++) {
+			double a0 = a[ia], a1 = a[ia+1], a2 = a[ia+2], a3 = a[ia+3];
+			double b0 = b[ib], b1 = b[ib+1], b2 = b[ib+2], b3 = b[ib+3];
+			c00 += a0*b0; c01 += a0*b1; c02 += a0*b2; c03 += a0*b3;
+			c10 += a1*b0; c11 += a1*b1; c12 += a1*b2; c13 += a1*b3;
+			c20 += a2*b0; c21 += a2*b1; c22 += a2*b2; c23 += a2*b3;
+			c30 += a3*b0; c31 += a3*b1; c32 += a3*b2; c33 += a3*b3;
+			ia += MR;
+			ib += NR;
+		}
+		if(mr == MR && nr == NR) {
+			int r0 = offC, r1 = r0+ldc, r2 = r1+ldc, r3 = r2+ldc;
+			c[r0] += c00; c[r0+1] += c01; c[r0+2] += c02; c[r0+3] += c03;
+			c[r1] += c10; c[r1+1] += c11; c[r1+2] += c12; c[r1+3] += c13;
+			c[r2] += c20; c[r2+1] += c21; c[r2+2] += c22; c[r2+3] += c23;
+			c[r3] += c30; c[r3+1] += c31; c[r3+2] += c32; c[r3+3] += c33;
+		} else {
+			// Brzeg macierzy - zapis tylko istniejących elementów
+			acc[0] = c00; acc[1] = c01; acc[2] = c02; acc[3] = c03;
+			acc[4] = c10; acc[5] = c11; acc[6] = c12; acc[7] = c13;
+			acc[8] = c20; acc[9] = c21; acc[10] = c22; acc[11] = c23;
+			acc[12] = c30; acc[13] = c31; acc[14] = c32; acc[15] = c33;
+			for(int i=0; i<mr; i++) {
+				for(int j=0; j<nr; j++) c[offC+i*ldc+j] += acc[i*NR+j];
+			}
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package macierze;
+
+import java.util.*;
+
+/**
+ * Operator wstępnego uwarunkowania z niepełnego rozkładu LU bez wypełnienia, ILU(0).
+ * Czynniki L i U mają te same niezerowe pozycje co macierz A, więc zajmują tyle pamięci co A,
+ * a jedno użycie to podstawianie w przód i w tył w czasie O(nnz).
+ */
+
+public class ILU0Preconditioner implements Preconditioner {
+	
+	/**
+	 * Wymiar macierzy
+	 */
+	private final int n;
+	
+	/**
+	 * Struktura CSR macierzy A, wspólna z czynnikami
+	 */
+	private final int[] rowPtr, columns;
+	
+	/**
+	 * Czynniki L (pod przekątną, jedynki na przekątnej pominięte) i U (na i nad przekątną) w strukturze A
+	 */
+	private final double[] factors;
+	
+	/**
+	 * Pozycje elementów przekątnej w tablicy factors
+	 */
+	private final int[] diagonal;
+	
+	/**
+	 * Konstruktor wykonujący rozkład ILU(0) macierzy rzadkiej
+	 * @param a Macierz kwadratowa z niezerową przekątną
+	 * @throws MatrixSizeException Gdy macierz nie jest kwadratowa
+	 * @throws ArithmeticException Gdy w rozkładzie pojawi się zero na przekątnej
+	 */
+	public ILU0Preconditioner(MacierzRzadka a) throws MatrixSizeException {
+		if(a.getHeight() != a.getLength()) throw new MatrixSizeException(String.format("Size %d x %d not square", a.getHeight(), a.getLength()));
+		this.n = a.getHeight();
+		this.rowPtr = a.rowPtr();
+		this.columns = a.columns();
+		this.factors = a.values().clone();
+		this.diagonal = new int[n];
+		
+		// Pozycja każdej kolumny aktualnego wiersza, -1 gdy jej nie ma
+		int[] position = new int[n];
+		Arrays.fill(position, -1);
+		for(int i=0; i<n; i++) {
+			int start = rowPtr[i], end = rowPtr[i+1];
+			diagonal[i] = -1;
+			for(int p=start; p<end; p++) {
+				position[columns[p]] = p;
+				if(columns[p] == i) diagonal[i] = p;
+			}
+			if(diagonal[i] < 0) throw new ArithmeticException(String.format("Zero on diagonal at %d", i));
+			// Eliminacja elementów pod przekątną, tylko na istniejących pozycjach
+			for(int p=start; p<end && columns[p] < i; p++) {
+				int k = columns[p];
+				double l = factors[p]/factors[diagonal[k]];
+				factors[p] = l;
+				for(int q=diagonal[k]+1; q<rowPtr[k+1]; q++) {
+					int target = position[columns[q]];
+					if(target >= 0) factors[target] = factors[target] - l*factors[q];
+				}
+			}
+			if(factors[diagonal[i]] == 0) throw new ArithmeticException(String.format("Zero on diagonal at %d", i));
+			for(int p=start; p<end; p++) position[columns[p]] = -1;
+		}
+	}
+	
+	@Override
+	public void apply(double[] r, double[] z) {
+		// L*y = r, jedynki na przekątnej
+		for(int i=0; i<n; i++) {
+			double sum = r[i];
+			for(int p=rowPtr[i]; p<diagonal[i]; p++) sum = sum - factors[p]*z[columns[p]];
+			z[i] = sum;
+		}
+		// U*z = y
+		for(int i=n-1; i>=0; i--) {
+			double sum = z[i];
+			for(int p=diagonal[i]+1; p<rowPtr[i+1]; p++) sum = sum - factors[p]*z[columns[p]];
+			z[i] = sum/factors[diagonal[i]];
+		}
+	}
+}
@@ -0,0 +1,408 @@
+package macierze;
+
+import java.util.*;
+
+/**
+ * Klasa z iteracyjnymi metodami Kryłowa rozwiązywania układów A*x = b, które korzystają z A tylko
+ * przez mnożenie przez wektor (LinearOperator). Pamięć to kilka wektorów długości n (dla GMRES restart+1),
+ * bez rozkładu ani macierzy odwrotnej, więc nadają się do dużych macierzy rzadkich i operatorów liczonych w locie.
+ * Wektor x podany do metody jest przybliżeniem początkowym (warm start) i zostaje nadpisany rozwiązaniem.
+ * Iteracje kończą się gdy ||b - A*x|| <= tolerance*||b|| lub po maxIterations krokach.
+ * Obiekt przechowuje tylko ustawienia, więc jeden może być używany przez wiele wątków, jeśli nie są wtedy zmieniane.
+ */
+
+public class IterativeSolver {
+	
+	/**
+	 * Względna tolerancja residuum
+	 */
+	private double tolerance = 1e-8;
+	
+	/**
+	 * Największa liczba iteracji (mnożeń przez A, dla BiCGSTAB dwóch mnożeń)
+	 */
+	private int maxIterations = 1000;
+	
+	/**
+	 * Liczba iteracji GMRES pomiędzy restartami, wymiar przestrzeni Kryłowa
+	 */
+	private int restart = 30;
+	
+	/**
+	 * Operator wstępnego uwarunkowania, null gdy nie jest używany
+	 */
+	private Preconditioner preconditioner;
+	
+	/**
+	 * Wynik rozwiązania iteracyjnego
+	 */
+	public static final class Result {
+		
+		private final int iterations;
+		
+		private final double residual;
+		
+		private final boolean converged;
+		
+		Result(int iterations, double residual, boolean converged) {
+			this.iterations = iterations;
+			this.residual = residual;
+			this.converged = converged;
+		}
+		
+		/**
+		 * Funkcja zwracająca liczbę wykonanych iteracji
+		 * @return int
+		 */
+		public int getIterations() {
+			return iterations;
+		}
+		
+		/**
+		 * Funkcja zwracająca względne residuum ||b - A*x||/||b|| z ostatniej iteracji
+		 * @return double
+		 */
+		public double getResidual() {
+			return residual;
+		}
+		
+		/**
+		 * Funkcja sprawdzająca czy osiągnięto tolerancję
+		 * @return boolean
+		 */
+		public boolean isConverged() {
+			return converged;
+		}
+		
+		@Override
+		public String toString() {
+			return String.format("Result[iterations=%d, residual=%.3e, converged=%b]", iterations, residual, converged);
+		}
+	}
+	
+	/**
+	 * Konstruktor z domyślnymi ustawieniami: tolerancja 1e-8, 1000 iteracji, restart GMRES co 30, bez uwarunkowania
+	 */
+	public IterativeSolver() {}
+	
+	/**
+	 * Konstruktor z podaną tolerancją i liczbą iteracji
+	 * @param tolerance Względna tolerancja residuum
+	 * @param maxIterations Największa liczba iteracji
+	 */
+	public IterativeSolver(double tolerance, int maxIterations) {
+		setTolerance(tolerance);
+		setMaxIterations(maxIterations);
+	}
+	
+	/**
+	 * Funkcja ustawiająca względną tolerancję residuum
+	 * @param tolerance Tolerancja, nieujemna
+	 * @return IterativeSolver
+	 */
+	public IterativeSolver setTolerance(double tolerance) {
+		if(!(tolerance >= 0)) throw new IllegalArgumentException(String.format("Tolerance %s less than 0", tolerance));
+		this.tolerance = tolerance;
+		return this;
+	}
+	
+	/**
+	 * Funkcja ustawiająca największą liczbę iteracji
+	 * @param maxIterations Liczba iteracji, nieujemna
+	 * @return IterativeSolver
+	 */
+	public IterativeSolver setMaxIterations(int maxIterations) {
+		if(maxIterations < 0) throw new IllegalArgumentException(String.format("Iterations %d less than 0", maxIterations));
+		this.maxIterations = maxIterations;
+		return this;
+	}
+	
+	/**
+	 * Funkcja ustawiająca liczbę iteracji GMRES pomiędzy restartami
+	 * @param restart Wymiar przestrzeni Kryłowa, co najmniej 1
+	 * @return IterativeSolver
+	 */
+	public IterativeSolver setRestart(int restart) {
+		if(restart < 1) throw new IllegalArgumentException(String.format("Restart %d less than 1", restart));
+		this.restart = restart;
+		return this;
+	}
+	
+	/**
+	 * Funkcja ustawiająca operator wstępnego uwarunkowania
+	 * @param preconditioner Operator, null wyłącza uwarunkowanie
+	 * @return IterativeSolver
+	 */
+	public IterativeSolver setPreconditioner(Preconditioner preconditioner) {
+		this.preconditioner = preconditioner;
+		return this;
+	}
+	
+	/**
+	 * Funkcja zwracająca względną tolerancję residuum
+	 * @return double
+	 */
+	public double getTolerance() {
+		return tolerance;
+	}
+	
+	/**
+	 * Funkcja zwracająca największą liczbę iteracji
+	 * @return int
+	 */
+	public int getMaxIterations() {
+		return maxIterations;
+	}
+	
+	/**
+	 * Funkcja zwracająca liczbę iteracji GMRES pomiędzy restartami
+	 * @return int
+	 */
+	public int getRestart() {
+		return restart;
+	}
+	
+	/**
+	 * Funkcja zwracająca operator wstępnego uwarunkowania
+	 * @return Preconditioner lub null
+	 */
+	public Preconditioner getPreconditioner() {
+		return preconditioner;
+	}
+	
+	/**
+	 * Metoda gradientów sprzężonych (CG) z lewostronnym uwarunkowaniem, dla macierzy symetrycznych dodatnio określonych
+	 * (operator uwarunkowania też musi być symetryczny i dodatnio określony, np. Jacobiego)
+	 * @param a Operator kwadratowy
+	 * @param b Prawa strona
+	 * @param x Przybliżenie początkowe, nadpisywane rozwiązaniem
+	 * @return Result
+	 * @throws MatrixSizeException Gdy wymiary się nie zgadzają
+	 */
+	public Result cg(LinearOperator a, double[] b, double[] x) throws MatrixSizeException {
+		int n = checkSize(a, b, x);
+		Kernels k = Kernels.INSTANCE;
+		double bnorm = norm(b);
+		if(bnorm == 0) return zero(x);
+		double[] r = residual(a, b, x), z = new double[n], p = new double[n], q = new double[n];
+		precondition(r, z);
+		System.arraycopy(z, 0, p, 0, n);
+		double rz = k.dot(n, r, 0, z, 0);
+		double res = norm(r)/bnorm;
+		int it = 0;
+		while(res > tolerance && it < maxIterations) {
+			a.multiply(p, q);
+			double pq = k.dot(n, p, 0, q, 0);
+			if(pq == 0) break;
+			double alpha = rz/pq;
+			k.axpy(n, alpha, p, 0, x, 0);
+			k.axpy(n, -alpha, q, 0, r, 0);
+			it++;
+			res = norm(r)/bnorm;
+			if(res <= tolerance) {
+				// Residuum z rekurencji może odbiegać od prawdziwego, przy różnicy kierunek startuje od nowa
+				r = residual(a, b, x);
+				res = norm(r)/bnorm;
+				if(res <= tolerance) break;
+				precondition(r, z);
+				System.arraycopy(z, 0, p, 0, n);
+				rz = k.dot(n, r, 0, z, 0);
+				continue;
+			}
+			precondition(r, z);
+			double rzNew = k.dot(n, r, 0, z, 0);
+			double beta = rzNew/rz;
+			rz = rzNew;
+			// p = z + beta*p
+			k.combine(n, z, 0, beta, p, 0, p, 0);
+		}
+		return new Result(it, res, res <= tolerance);
+	}
+	
+	/**
+	 * Metoda BiCGSTAB z prawostronnym uwarunkowaniem, dla dowolnych macierzy nieosobliwych.
+	 * Jedna iteracja to dwa mnożenia przez A.
+	 * @param a Operator kwadratowy
+	 * @param b Prawa strona
+	 * @param x Przybliżenie początkowe, nadpisywane rozwiązaniem
+	 * @return Result
+	 * @throws MatrixSizeException Gdy wymiary się nie zgadzają
+	 */
+	public Result bicgstab(LinearOperator a, double[] b, double[] x) throws MatrixSizeException {
+		int n = checkSize(a, b, x);
+		Kernels k = Kernels.INSTANCE;
+		double bnorm = norm(b);
+		if(bnorm == 0) return zero(x);
+		double[] r = residual(a, b, x), rhat = r.clone();
+		double[] p = new double[n], v = new double[n], s = new double[n], t = new double[n];
+		double[] phat = new double[n], shat = new double[n];
+		double rho = 1, alpha = 1, omega = 1;
+		double res = norm(r)/bnorm;
+		int it = 0;
+		while(it < maxIterations) {
+			if(res <= tolerance) {
+				// Residuum z rekurencji może odbiegać od prawdziwego, przy różnicy metoda startuje od nowa z prawdziwym
+				r = residual(a, b, x);
+				res = norm(r)/bnorm;
+				if(res <= tolerance) break;
+				System.arraycopy(r, 0, rhat, 0, n);
+				Arrays.fill(p, 0);
+				Arrays.fill(v, 0);
+				rho = alpha = omega = 1;
+			}
+			double rhoNew = k.dot(n, rhat, 0, r, 0);
+			// Załamanie metody, r prostopadłe do rhat
+			if(rhoNew == 0) break;
+			double beta = (rhoNew/rho)*(alpha/omega);
+			rho = rhoNew;
+			// p = r + beta*(p - omega*v)
+			k.axpy(n, -omega, v, 0, p, 0);
+			k.combine(n, r, 0, beta, p, 0, p, 0);
+			precondition(p, phat);
+			a.multiply(phat, v);
+			double rv = k.dot(n, rhat, 0, v, 0);
+			if(rv == 0) break;
+			alpha = rho/rv;
+			// s = r - alpha*v
+			k.combine(n, r, 0, -alpha, v, 0, s, 0);
+			it++;
+			if(norm(s)/bnorm <= tolerance) {
+				k.axpy(n, alpha, phat, 0, x, 0);
+				System.arraycopy(s, 0, r, 0, n);
+				res = 0;
+				continue;
+			}
+			precondition(s, shat);
+			a.multiply(shat, t);
+			double tt = k.dot(n, t, 0, t, 0);
+			omega = (tt == 0) ? 0 : k.dot(n, t, 0, s, 0)/tt;
+			k.axpy(n, alpha, phat, 0, x, 0);
+			k.axpy(n, omega, shat, 0, x, 0);
+			// r = s - omega*t
+			k.combine(n, s, 0, -omega, t, 0, r, 0);
+			res = norm(r)/bnorm;
+			if(omega == 0) break;
+		}
+		if(res <= tolerance) res = norm(residual(a, b, x))/bnorm;
+		return new Result(it, res, res <= tolerance);
+	}
+	
+	/**
+	 * Metoda GMRES z restartem co restart iteracji i prawostronnym uwarunkowaniem, dla dowolnych macierzy nieosobliwych.
+	 * Baza przestrzeni Kryłowa ortogonalizowana jest zmodyfikowanym Gramem-Schmidtem, a mały problem
+	 * najmniejszych kwadratów rozwiązywany obrotami Givensa, więc residuum znane jest bez dodatkowych mnożeń.
+	 * @param a Operator kwadratowy
+	 * @param b Prawa strona
+	 * @param x Przybliżenie początkowe, nadpisywane rozwiązaniem
+	 * @return Result
+	 * @throws MatrixSizeException Gdy wymiary się nie zgadzają
+	 */
+	public Result gmres(LinearOperator a, double[] b, double[] x) throws MatrixSizeException {
+		int n = checkSize(a, b, x);
+		Kernels k = Kernels.INSTANCE;
+		double bnorm = norm(b);
+		if(bnorm == 0) return zero(x);
+		int m = Math.min(restart, Math.max(n, 1));
+		double[][] v = new double[m+1][];
+		double[][] h = new double[m+1][m];
+		double[] cs = new double[m], sn = new double[m], g = new double[m+1], y = new double[m];
+		double[] w = new double[n], z = new double[n];
+		double[] r = residual(a, b, x);
+		double res = norm(r)/bnorm;
+		int it = 0;
+		while(res > tolerance && it < maxIterations) {
+			double beta = norm(r);
+			if(v[0] == null) v[0] = new double[n];
+			k.scale(n, 1/beta, r, 0, v[0], 0);
+			Arrays.fill(g, 0);
+			g[0] = beta;
+			int j = 0;
+			while(j < m && it < maxIterations) {
+				precondition(v[j], z);
+				a.multiply(z, w);
+				for(int i=0; i<=j; i++) {
+					h[i][j] = k.dot(n, w, 0, v[i], 0);
+					k.axpy(n, -h[i][j], v[i], 0, w, 0);
+				}
+				h[j+1][j] = norm(w);
+				if(v[j+1] == null) v[j+1] = new double[n];
+				if(h[j+1][j] != 0) k.scale(n, 1/h[j+1][j], w, 0, v[j+1], 0);
+				// Poprzednie obroty Givensa na nowej kolumnie H, potem nowy obrót zerujący h[j+1][j]
+				for(int i=0; i<j; i++) {
+					double t = cs[i]*h[i][j] + sn[i]*h[i+1][j];
+					h[i+1][j] = -sn[i]*h[i][j] + cs[i]*h[i+1][j];
+					h[i][j] = t;
+				}
+				double d = Math.hypot(h[j][j], h[j+1][j]);
+				cs[j] = (d == 0) ? 1 : h[j][j]/d;
+				sn[j] = (d == 0) ? 0 : h[j+1][j]/d;
+				h[j][j] = d;
+				h[j+1][j] = 0;
+				g[j+1] = -sn[j]*g[j];
+				g[j] = cs[j]*g[j];
+				j++;
+				it++;
+				res = Math.abs(g[j])/bnorm;
+				if(res <= tolerance || d == 0) break;
+			}
+			// Rozwiązanie H*y = g (trójkątna górna) i x = x + M^-1 * V*y
+			for(int i=j-1; i>=0; i--) {
+				double sum = g[i];
+				for(int l=i+1; l<j; l++) sum = sum - h[i][l]*y[l];
+				y[i] = (h[i][i] == 0) ? 0 : sum/h[i][i];
+			}
+			Arrays.fill(w, 0);
+			for(int i=0; i<j; i++) k.axpy(n, y[i], v[i], 0, w, 0);
+			precondition(w, z);
+			k.axpy(n, 1, z, 0, x, 0);
+			// Prawdziwe residuum po restarcie, poprawia błędy zaokrągleń rekurencji
+			r = residual(a, b, x);
+			res = norm(r)/bnorm;
+			if(j == 0) break;
+		}
+		return new Result(it, res, res <= tolerance);
+	}
+	
+	/**
+	 * Funkcja sprawdzająca wymiary układu, zwraca n
+	 */
+	private static int checkSize(LinearOperator a, double[] b, double[] x) throws MatrixSizeException {
+		int n = a.getHeight(), m = a.getLength();
+		if(n != m) throw new MatrixSizeException(String.format("Size %d x %d not square", n, m));
+		if(b.length != n || x.length != n) throw new MatrixSizeException(String.format("Incorrect size, a is %d x %d, b id %d x 1", n, m, b.length));
+		return n;
+	}
+	
+	/**
+	 * Funkcja obliczająca r = b - A*x
+	 */
+	private static double[] residual(LinearOperator a, double[] b, double[] x) {
+		double[] r = new double[b.length];
+		a.multiply(x, r);
+		Kernels.INSTANCE.combine(b.length, b, 0, -1, r, 0, r, 0);
+		return r;
+	}
+	
+	/**
+	 * Funkcja obliczająca z = M^-1 * r lub kopiująca r bez uwarunkowania
+	 */
+	private void precondition(double[] r, double[] z) {
+		if(preconditioner == null) System.arraycopy(r, 0, z, 0, r.length);
+		else preconditioner.apply(r, z);
+	}
+	
+	/**
+	 * Rozwiązanie dla b = 0
+	 */
+	private static Result zero(double[] x) {
+		Arrays.fill(x, 0);
+		return new Result(0, 0, true);
+	}
+	
+	/**
+	 * Norma euklidesowa wektora
+	 */
+	private static double norm(double[] x) {
+		return Math.sqrt(Kernels.INSTANCE.dot(x.length, x, 0, x, 0));
+	}
+}
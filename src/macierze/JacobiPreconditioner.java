@@ -0,0 +1,63 @@
+package macierze;
+
+/**
+ * Operator wstępnego uwarunkowania Jacobiego, M = diag(A). Tani w budowie i użyciu,
+ * pomaga gdy elementy przekątnej mają bardzo różne rzędy wielkości.
+ */
+
+public class JacobiPreconditioner implements Preconditioner {
+	
+	/**
+	 * Odwrotności elementów przekątnej
+	 */
+	private final double[] inverseDiagonal;
+	
+	/**
+	 * Konstruktor z przekątnej macierzy rzadkiej
+	 * @param a Macierz kwadratowa
+	 * @throws MatrixSizeException Gdy macierz nie jest kwadratowa
+	 * @throws ArithmeticException Gdy na przekątnej jest zero
+	 */
+	public JacobiPreconditioner(MacierzRzadka a) throws MatrixSizeException {
+		if(a.getHeight() != a.getLength()) throw new MatrixSizeException(String.format("Size %d x %d not square", a.getHeight(), a.getLength()));
+		int n = a.getHeight();
+		int[] rowPtr = a.rowPtr(), columns = a.columns();
+		double[] values = a.values(), d = new double[n];
+		for(int i=0; i<n; i++) {
+			for(int p=rowPtr[i]; p<rowPtr[i+1]; p++) {
+				if(columns[p] == i) d[i] = values[p];
+			}
+		}
+		this.inverseDiagonal = invert(d);
+	}
+	
+	/**
+	 * Konstruktor z przekątnej macierzy gęstej
+	 * @param a Macierz kwadratowa
+	 * @throws MatrixSizeException Gdy macierz nie jest kwadratowa
+	 * @throws ArithmeticException Gdy na przekątnej jest zero
+	 */
+	public JacobiPreconditioner(Macierz a) throws MatrixSizeException {
+		if(a.getHeight() != a.getLength()) throw new MatrixSizeException(String.format("Size %d x %d not square", a.getHeight(), a.getLength()));
+		int n = a.getHeight();
+		double[] data = a.data(), d = new double[n];
+		for(int i=0; i<n; i++) d[i] = data[a.offset()+i*a.stride()+i*a.colStride()];
+		this.inverseDiagonal = invert(d);
+	}
+	
+	/**
+	 * Funkcja odwracająca elementy przekątnej w miejscu
+	 */
+	private static double[] invert(double[] d) {
+		for(int i=0; i<d.length; i++) {
+			if(d[i] == 0) throw new ArithmeticException(String.format("Zero on diagonal at %d", i));
+			d[i] = 1/d[i];
+		}
+		return d;
+	}
+	
+	@Override
+	public void apply(double[] r, double[] z) {
+		for(int i=0; i<inverseDiagonal.length; i++) z[i] = inverseDiagonal[i]*r[i];
+	}
+}
@@ -0,0 +1,94 @@
+package macierze;
+
+/**
+ * Podstawowe pętle na ciągłych fragmentach tablic, z których korzystają działania na macierzach.
+ * Ta klasa zawiera wersje skalarne. Gdy w classpath jest moduł matrices-simd, a JVM uruchomiono
+ * z --add-modules jdk.incubator.vector, używana jest podklasa VectorKernels z jawną wektoryzacją (AVX2/AVX-512).
+ * Wersję wektorową można wyłączyć właściwością -Dmacierze.simd=false.
+ */
+
+class Kernels {
+	
+	/**
+	 * Nazwa klasy z wersją wektorową, ładowanej przez refleksję
+	 */
+	private static final String VECTOR_KERNELS = "macierze.VectorKernels";
+	
+	/**
+	 * Używana implementacja, wybierana raz przy ładowaniu klasy
+	 */
+	static final Kernels INSTANCE = load();
+	
+	Kernels() {}
+	
+	/**
+	 * Funkcja wybierająca implementację, wersja wektorowa gdy jest dostępna i nie została wyłączona
+	 */
+	private static Kernels load() {
+		if(!Boolean.parseBoolean(System.getProperty("macierze.simd", "true"))) return new Kernels();
+		try {
+			return (Kernels)Class.forName(VECTOR_KERNELS).getDeclaredConstructor().newInstance();
+		} catch(ReflectiveOperationException | LinkageError | RuntimeException e) {
+			// Brak modułu jdk.incubator.vector lub klasy VectorKernels albo procesor bez SIMD
+			return new Kernels();
+		}
+	}
+	
+	/**
+	 * Funkcja zwracająca nazwę implementacji
+	 * @return String
+	 */
+	String name() {
+		return "scalar";
+	}
+	
+	/**
+	 * Funkcja obliczająca r = x + beta*y na n elementach
+	 */
+	void combine(int n, double[] x, int offX, double beta, double[] y, int offY, double[] r, int offR) {
+		if(beta == 1) {
+			for(int j=0; j<n; j++) r[offR+j] = x[offX+j] + y[offY+j];
+		} else if(beta == -1) {
+			for(int j=0; j<n; j++) r[offR+j] = x[offX+j] - y[offY+j];
+		} else {
+			for(int j=0; j<n; j++) r[offR+j] = x[offX+j] + beta*y[offY+j];
+		}
+	}
+	
+	/**
+	 * Funkcja obliczająca r = alpha*x na n elementach
+	 */
+	void scale(int n, double alpha, double[] x, int offX, double[] r, int offR) {
+		for(int j=0; j<n; j++) r[offR+j] = alpha*x[offX+j];
+	}
+	
+	/**
+	 * Funkcja obliczająca y = y + alpha*x na n elementach (aktualizacja wiersza w rozkładzie LU i podstawianiu)
+	 */
+	void axpy(int n, double alpha, double[] x, int offX, double[] y, int offY) {
+		for(int j=0; j<n; j++) y[offY+j] = y[offY+j] + alpha*x[offX+j];
+	}
+	
+	/**
+	 * Funkcja obliczająca iloczyn skalarny n elementów x i y
+	 */
+	double dot(int n, double[] x, int offX, double[] y, int offY) {
+		double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+		int j = 0;
+		for(; j+3<n; j+=4) {
+			s0 = s0 + x[offX+j]*y[offY+j];
+			s1 = s1 + x[offX+j+1]*y[offY+j+1];
+			s2 = s2 + x[offX+j+2]*y[offY+j+2];
+			s3 = s3 + x[offX+j+3]*y[offY+j+3];
+		}
+		for(; j<n; j++) s0 = s0 + x[offX+j]*y[offY+j];
+		return (s0 + s1) + (s2 + s3);
+	}
+	
+	/**
+	 * Mikrojądro GEMM dla pełnego kafelka MR x NR, C = C + A*B dla spakowanych pasków A i B
+	 */
+	void microKernel(int kc, double[] a, int offA, double[] b, int offB, double[] c, int offC, int ldc) {
+		GemmKernel.microKernel(kc, a, offA, b, offB, null, c, offC, ldc, GemmKernel.MR, GemmKernel.NR);
+	}
+}
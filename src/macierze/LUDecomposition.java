@@ -0,0 +1,364 @@
+package macierze;
+
+/**
+ * Klasa z rozkładem LU z częściowym wyborem elementów, PA = LU.
+ * Rozkład liczony jest raz, czynniki L i U trzymane są razem w jednej tablicy
+ * (L pod przekątną z jedynkami na przekątnej, U na i nad przekątną), a permutacja jako int[].
+ * Pozwala wielokrotnie rozwiązywać układy AX = B bez ponownego rozkładu.
+ * Duże macierze rozkładane są blokowo (right-looking): pas PANEL kolumn rozkładany jest eliminacją Gaussa,
+ * a reszta macierzy aktualizowana równoległym jądrem GEMM, które wykonuje większość działań.
+ */
+
+public class LUDecomposition {
+	
+	/**
+	 * Rozmiar bloku wierszy przy podstawianiu w przód i w tył
+	 */
+	private static final int BLOCK = 64;
+	
+	/**
+	 * Szerokość pasa kolumn w blokowym rozkładzie LU
+	 */
+	private static final int PANEL = 128;
+	
+	/**
+	 * Wymiar do którego rozkład liczony jest bez bloków
+	 */
+	private static final int UNBLOCKED = 256;
+	
+	/**
+	 * Czynniki L i U zapisane wierszami w jednej tablicy n*n
+	 */
+	private final double[] lu;
+	
+	/**
+	 * Permutacja wierszy, wiersz i rozkładu to wiersz piv[i] macierzy A
+	 */
+	private final int[] piv;
+	
+	/**
+	 * Wymiar macierzy
+	 */
+	private final int n;
+	
+	/**
+	 * Znak permutacji wierszy
+	 */
+	private final int sign;
+	
+	/**
+	 * Czy macierz jest osobliwa (zerowy element na przekątnej U)
+	 */
+	private final boolean singular;
+	
+	/**
+	 * Konstruktor wykonujący rozkład LU podanej macierzy
+	 * @param a Macierz kwadratowa do rozkładu, nie jest modyfikowana
+	 * @throws MatrixSizeException Gdy macierz nie jest kwadratowa
+	 */
+	public LUDecomposition(Macierz a) throws MatrixSizeException {
+		if(a.getHeight() != a.getLength()) throw new MatrixSizeException(String.format("Size %d x %d not square", a.getHeight(), a.getLength()));
+		long start = Metrics.start();
+		this.n = a.getLength();
+		this.lu = a.toFlatArray();
+		this.piv = new int[n];
+		for(int i=0; i<n; i++) piv[i] = i;
+		
+		int[] state = {1, 0};
+		if(n <= UNBLOCKED) {
+			factorPanel(0, n, state);
+		} else {
+			for(int k=0; k<n; k+=PANEL) {
+				int nb = Math.min(PANEL, n-k);
+				factorPanel(k, k+nb, state);
+				int rest = n-k-nb;
+				if(rest == 0) break;
+				// U12 = L11^-1 A12, kolumny niezależne, dzielone na wątki
+				int c0 = k+nb, k0 = k;
+				if(Parallel.isSequential(rest, GemmKernel.NR, (long)nb*nb)) solvePanelRows(k, nb, c0, n);
+				else Parallel.forRange(c0, n, GemmKernel.NR, (long)nb*nb, (from, to) -> solvePanelRows(k0, nb, from, to));
+				// A22 = A22 - L21*U12, równoległe jądro GEMM
+				GemmKernel.multiplyAdd(rest, nb, rest, -1, lu, c0*n+k, n, lu, k*n+c0, n, lu, c0*n+c0, n);
+			}
+		}
+		this.sign = state[0];
+		this.singular = state[1] != 0;
+		Metrics.end(start, Metrics.Operation.LU, n, n, 2.0*n*n*n/3, 8L*n*n + 4L*n);
+	}
+	
+	/**
+	 * Rozkład pasa kolumn [k, end) na wierszach [k, n) z wyborem elementów, bez bloków.
+	 * Zamiany wierszy obejmują całe wiersze, eliminacja tylko kolumny pasa, reszta wierszy
+	 * aktualizowana jest później blokowo. Dla end = n to zwykła eliminacja Gaussa.
+	 * @param state 0 - znak permutacji, 1 - czy znaleziono zerowy piwot
+	 */
+	private void factorPanel(int k, int end, int[] state) {
+		for(int i=k; i<end; i++) {
+			// Wybór piwota
+			int swap = i;
+			for(int r=i+1; r<n; r++) {
+				if(Math.abs(lu[r*n+i]) > Math.abs(lu[swap*n+i])) swap = r;
+			}
+			
+			// Permutacja
+			if(swap != i) {
+				Macierz.swapRows(lu, i*n, swap*n, n);
+				int tmp = piv[i];
+				piv[i] = piv[swap];
+				piv[swap] = tmp;
+				state[0] = -state[0];
+			}
+			double piwot = lu[i*n+i];
+			if(piwot == 0) {
+				state[1] = 1;
+				continue;
+			}
+			
+			// Wyzerowanie elementów, mnożniki zapisywane w miejscu zer jako L
+			int col = i, last = end;
+			if(Parallel.isSequential(n-i-1, 1, end-i)) eliminateRows(col, last, piwot, i+1, n);
+			else Parallel.forRange(i+1, n, end-i, (from, to) -> eliminateRows(col, last, piwot, from, to));
+		}
+	}
+	
+	/**
+	 * Funkcja eliminująca kolumnę i z wierszy [from, to), aktualizowane są kolumny (i, end)
+	 */
+	private void eliminateRows(int i, int end, double piwot, int from, int to) {
+		Kernels kernels = Kernels.INSTANCE;
+		int row = i*n;
+		for(int r=from; r<to; r++) {
+			int target = r*n;
+			double b = lu[target+i]/piwot;
+			lu[target+i] = b;
+			if(b == 0) continue;
+			kernels.axpy(end-i-1, -b, lu, row+i+1, lu, target+i+1);
+		}
+	}
+	
+	/**
+	 * Podstawianie w przód L11 U12 = A12 dla kolumn [from, to) wierszy pasa [k, k+nb)
+	 */
+	private void solvePanelRows(int k, int nb, int from, int to) {
+		Kernels kernels = Kernels.INSTANCE;
+		for(int i=k+1; i<k+nb; i++) {
+			for(int p=k; p<i; p++) {
+				double l = lu[i*n+p];
+				if(l == 0) continue;
+				kernels.axpy(to-from, -l, lu, p*n+from, lu, i*n+from);
+			}
+		}
+	}
+	
+	/**
+	 * Funkcja zwracająca wymiar rozłożonej macierzy
+	 * @return int
+	 */
+	public int getSize() {
+		return n;
+	}
+	
+	/**
+	 * Funkcja sprawdzająca czy rozłożona macierz jest osobliwa
+	 * @return boolean
+	 */
+	public boolean isSingular() {
+		return singular;
+	}
+	
+	/**
+	 * Funkcja zwracająca kopię permutacji wierszy, wiersz i rozkładu to wiersz piv[i] macierzy A
+	 * @return int[]
+	 */
+	public int[] getPivot() {
+		return piv.clone();
+	}
+	
+	/**
+	 * Funkcja zwracająca macierz trójkątną dolną L z jedynkami na przekątnej
+	 * @return Macierz
+	 */
+	public Macierz getL() {
+		Macierz l = new Macierz(n, n);
+		double[] ld = l.data();
+		for(int i=0; i<n; i++) {
+			System.arraycopy(lu, i*n, ld, i*n, i);
+			ld[i*n+i] = 1;
+		}
+		return l;
+	}
+	
+	/**
+	 * Funkcja zwracająca macierz trójkątną górną U
+	 * @return Macierz
+	 */
+	public Macierz getU() {
+		Macierz u = new Macierz(n, n);
+		double[] ud = u.data();
+		for(int i=0; i<n; i++) {
+			System.arraycopy(lu, i*n+i, ud, i*n+i, n-i);
+		}
+		return u;
+	}
+	
+	/**
+	 * Funkcja zwracająca macierz permutacji P, taką że PA = LU
+	 * @return Macierz
+	 */
+	public Macierz getP() {
+		Macierz p = new Macierz(n, n);
+		double[] pd = p.data();
+		for(int i=0; i<n; i++) pd[i*n+piv[i]] = 1;
+		return p;
+	}
+	
+	/**
+	 * Funkcja zwracająca wyznacznik rozłożonej macierzy
+	 * @return double
+	 */
+	public double determinant() {
+		if(singular) return 0;
+		double ret = sign;
+		for(int i=0; i<n; i++) ret = ret*lu[i*n+i];
+		return ret;
+	}
+	
+	/**
+	 * Funkcja zwracająca znak i logarytm wartości bezwzględnej wyznacznika
+	 * @return double[] 0 - znak wyznacznika (-1, 0 lub 1), 1 - logarytm naturalny z |det|
+	 */
+	public double[] logDeterminant() {
+		if(singular) return new double[] {0, Double.NEGATIVE_INFINITY};
+		double s = sign, log = 0;
+		for(int i=0; i<n; i++) {
+			double d = lu[i*n+i];
+			if(d < 0) s = -s;
+			log = log + Math.log(Math.abs(d));
+		}
+		return new double[] {s, log};
+	}
+	
+	/**
+	 * Funkcja rozwiązująca układ AX = B dla wielu prawych stron naraz
+	 * @param b Macierz prawych stron n x k
+	 * @return Macierz rozwiązań X
+	 * @throws MatrixSizeException Gdy liczba wierszy B nie jest równa wymiarowi A
+	 * @throws ArithmeticException Gdy macierz jest osobliwa
+	 */
+	public Macierz solve(Macierz b) throws MatrixSizeException {
+		Macierz x = new Macierz(b.getHeight(), b.getLength());
+		solveInto(b, x);
+		return x;
+	}
+	
+	/**
+	 * Funkcja rozwiązująca układ AX = B z zapisem wyniku do podanej macierzy
+	 * @param b Macierz prawych stron n x k
+	 * @param dst Macierz n x k na rozwiązanie, może być macierzą b
+	 * @throws MatrixSizeException Gdy wymiary macierzy się nie zgadzają
+	 * @throws ArithmeticException Gdy macierz jest osobliwa
+	 */
+	public void solveInto(Macierz b, Macierz dst) throws MatrixSizeException {
+		if(b.getHeight() != n) throw new MatrixSizeException(String.format("Incorrect size, a is %d x %d, b id %d x %d", n, n, b.getHeight(), b.getLength()));
+		if(dst.getHeight() != n || dst.getLength() != b.getLength()) throw new MatrixSizeException(String.format("Incorrect size of destination %d x %d for %d x %d", dst.getHeight(), dst.getLength(), n, b.getLength()));
+		Macierz.checkWritable(dst);
+		if(singular) throw new ArithmeticException("Matrix is singular");
+		boolean same = Macierz.sameView(dst, b);
+		if(b.colStride() != 1 || dst.colStride() != 1 || (Macierz.overlaps(dst, b) && !same)) {
+			// Widoki transponowane lub nakładające się widoki tej samej tablicy - rozwiązanie w kopii zapisanej wierszami i skopiowanie do dst
+			Macierz tmp = Macierz.copyOf(b);
+			solveInto(tmp, tmp);
+			Macierz.copyInto(tmp, dst);
+			return;
+		}
+		int q = b.getLength();
+		double[] x = dst.data();
+		int xo = dst.offset(), xs = dst.stride();
+		
+		// Permutacja prawych stron, X = PB
+		if(same) {
+			permuteInPlace(x, xo, xs, q);
+		} else {
+			double[] bd = b.data();
+			for(int i=0; i<n; i++) {
+				System.arraycopy(bd, b.offset()+piv[i]*b.stride(), x, xo+i*xs, q);
+			}
+		}
+		forward(x, xo, xs, q);
+		backward(x, xo, xs, q);
+	}
+	
+	/**
+	 * Funkcja zwracająca macierz odwrotną
+	 * @return Macierz
+	 * @throws ArithmeticException Gdy macierz jest osobliwa
+	 */
+	public Macierz inverse() {
+		Macierz x = new Macierz(n, n);
+		double[] xd = x.data();
+		for(int i=0; i<n; i++) xd[i*n+piv[i]] = 1;
+		if(singular) throw new ArithmeticException("Matrix is singular");
+		forward(xd, 0, n, n);
+		backward(xd, 0, n, n);
+		return x;
+	}
+	
+	/**
+	 * Funkcja permutująca wiersze według piv w miejscu, podążając za cyklami permutacji
+	 */
+	private void permuteInPlace(double[] x, int xo, int xs, int q) {
+		boolean[] done = new boolean[n];
+		for(int i=0; i<n; i++) {
+			if(done[i]) continue;
+			int j = i;
+			while(piv[j] != i) {
+				Macierz.swapRows(x, xo+j*xs, xo+piv[j]*xs, q);
+				done[j] = true;
+				j = piv[j];
+			}
+			done[j] = true;
+		}
+	}
+	
+	/**
+	 * Blokowe podstawianie w przód LY = X, wynik nadpisuje X.
+	 * Wpływ wcześniejszych bloków odejmowany jest jądrem GEMM, w bloku podstawianie wierszami.
+	 */
+	private void forward(double[] x, int xo, int xs, int q) {
+		for(int ib=0; ib<n; ib+=BLOCK) {
+			int nb = Math.min(BLOCK, n-ib);
+			if(ib > 0) GemmKernel.multiplyAdd(nb, ib, q, -1, lu, ib*n, n, x, xo, xs, x, xo+ib*xs, xs);
+			for(int i=ib; i<ib+nb; i++) {
+				int row = xo+i*xs;
+				for(int k=ib; k<i; k++) {
+					double l = lu[i*n+k];
+					if(l == 0) continue;
+					Kernels.INSTANCE.axpy(q, -l, x, xo+k*xs, x, row);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Blokowe podstawianie w tył UX = Y, wynik nadpisuje Y.
+	 * Wpływ późniejszych bloków odejmowany jest jądrem GEMM, w bloku podstawianie wierszami.
+	 */
+	private void backward(double[] x, int xo, int xs, int q) {
+		int last = (n-1)/BLOCK*BLOCK;
+		for(int ib=last; ib>=0; ib-=BLOCK) {
+			int nb = Math.min(BLOCK, n-ib);
+			int end = ib+nb;
+			if(end < n) GemmKernel.multiplyAdd(nb, n-end, q, -1, lu, ib*n+end, n, x, xo+end*xs, xs, x, xo+ib*xs, xs);
+			for(int i=end-1; i>=ib; i--) {
+				int row = xo+i*xs;
+				for(int k=i+1; k<end; k++) {
+					double u = lu[i*n+k];
+					if(u == 0) continue;
+					Kernels.INSTANCE.axpy(q, -u, x, xo+k*xs, x, row);
+				}
+				double d = lu[i*n+i];
+				for(int j=0; j<q; j++) x[row+j] = x[row+j]/d;
+			}
+		}
+	}
+}
@@ -0,0 +1,189 @@
+package macierze;
+
+/**
+ * Klasa z rozkładem LU z częściowym wyborem elementów dla MacierzFloat, PA = LU.
+ * Czynniki trzymane są we float tak jak w LUDecomposition (L pod przekątną, U na i nad przekątną),
+ * wyznacznik liczony jest w double, żeby nie przepełnić zakresu float dla dużych macierzy.
+ */
+
+public class LUDecompositionFloat {
+	
+	/**
+	 * Czynniki L i U zapisane wierszami w jednej tablicy n*n
+	 */
+	private final float[] lu;
+	
+	/**
+	 * Permutacja wierszy, wiersz i rozkładu to wiersz piv[i] macierzy A
+	 */
+	private final int[] piv;
+	
+	/**
+	 * Wymiar macierzy
+	 */
+	private final int n;
+	
+	/**
+	 * Znak permutacji wierszy
+	 */
+	private final int sign;
+	
+	/**
+	 * Czy macierz jest osobliwa (zerowy element na przekątnej U)
+	 */
+	private final boolean singular;
+	
+	/**
+	 * Konstruktor wykonujący rozkład LU podanej macierzy
+	 * @param a Macierz kwadratowa do rozkładu, nie jest modyfikowana
+	 * @throws MatrixSizeException Gdy macierz nie jest kwadratowa
+	 */
+	public LUDecompositionFloat(MacierzFloat a) throws MatrixSizeException {
+		if(a.getHeight() != a.getLength()) throw new MatrixSizeException(String.format("Size %d x %d not square", a.getHeight(), a.getLength()));
+		this.n = a.getLength();
+		this.lu = a.toFlatArray();
+		this.piv = new int[n];
+		for(int i=0; i<n; i++) piv[i] = i;
+		
+		int sign = 1;
+		boolean singular = false;
+		for(int i=0; i<n; i++) {
+			// Wybór piwota
+			int swap = i;
+			for(int k=i+1; k<n; k++) {
+				if(Math.abs(lu[k*n+i]) > Math.abs(lu[swap*n+i])) swap = k;
+			}
+			
+			// Permutacja
+			if(swap != i) {
+				swapRows(lu, i*n, swap*n, n);
+				int tmp = piv[i];
+				piv[i] = piv[swap];
+				piv[swap] = tmp;
+				sign = -sign;
+			}
+			float piwot = lu[i*n+i];
+			if(piwot == 0) {
+				singular = true;
+				continue;
+			}
+			
+			// Wyzerowanie elementów, mnożniki zapisywane w miejscu zer jako L
+			int row = i*n;
+			for(int k=i+1; k<n; k++) {
+				int target = k*n;
+				float b = lu[target+i]/piwot;
+				lu[target+i] = b;
+				if(b == 0) continue;
+				axpy(n-i-1, -b, lu, row+i+1, lu, target+i+1);
+			}
+		}
+		this.sign = sign;
+		this.singular = singular;
+	}
+	
+	/**
+	 * Funkcja zwracająca wymiar rozłożonej macierzy
+	 * @return int
+	 */
+	public int getSize() {
+		return n;
+	}
+	
+	/**
+	 * Funkcja sprawdzająca czy rozłożona macierz jest osobliwa
+	 * @return boolean
+	 */
+	public boolean isSingular() {
+		return singular;
+	}
+	
+	/**
+	 * Funkcja zwracająca kopię permutacji wierszy, wiersz i rozkładu to wiersz piv[i] macierzy A
+	 * @return int[]
+	 */
+	public int[] getPivot() {
+		return piv.clone();
+	}
+	
+	/**
+	 * Funkcja zwracająca wyznacznik rozłożonej macierzy, iloczyn liczony w double
+	 * @return double
+	 */
+	public double determinant() {
+		if(singular) return 0;
+		double ret = sign;
+		for(int i=0; i<n; i++) ret = ret*lu[i*n+i];
+		return ret;
+	}
+	
+	/**
+	 * Funkcja rozwiązująca układ AX = B dla wielu prawych stron naraz
+	 * @param b Macierz prawych stron n x k
+	 * @return MacierzFloat rozwiązań X
+	 * @throws MatrixSizeException Gdy liczba wierszy B nie jest równa wymiarowi A
+	 */
+	public MacierzFloat solve(MacierzFloat b) throws MatrixSizeException {
+		if(b.getHeight() != n) throw new MatrixSizeException(String.format("Incorrect size, a is %d x %d, b id %d x %d", n, n, b.getHeight(), b.getLength()));
+		if(singular) throw new ArithmeticException("Matrix is singular");
+		int q = b.getLength();
+		MacierzFloat x = new MacierzFloat(n, q);
+		float[] bd = b.data(), xd = x.data();
+		for(int i=0; i<n; i++) System.arraycopy(bd, piv[i]*q, xd, i*q, q);
+		substitute(xd, q);
+		return x;
+	}
+	
+	/**
+	 * Funkcja zwracająca macierz odwrotną
+	 * @return MacierzFloat
+	 * @throws ArithmeticException Gdy macierz jest osobliwa
+	 */
+	public MacierzFloat inverse() {
+		if(singular) throw new ArithmeticException("Matrix is singular");
+		MacierzFloat x = new MacierzFloat(n, n);
+		float[] xd = x.data();
+		for(int i=0; i<n; i++) xd[i*n+piv[i]] = 1;
+		substitute(xd, n);
+		return x;
+	}
+	
+	/**
+	 * Podstawianie w przód LY = X i w tył UX = Y wierszami, wynik nadpisuje X
+	 */
+	private void substitute(float[] x, int q) {
+		for(int i=0; i<n; i++) {
+			for(int k=0; k<i; k++) {
+				float l = lu[i*n+k];
+				if(l != 0) axpy(q, -l, x, k*q, x, i*q);
+			}
+		}
+		for(int i=n-1; i>=0; i--) {
+			int row = i*q;
+			for(int k=i+1; k<n; k++) {
+				float u = lu[i*n+k];
+				if(u != 0) axpy(q, -u, x, k*q, x, row);
+			}
+			float d = lu[i*n+i];
+			for(int j=0; j<q; j++) x[row+j] = x[row+j]/d;
+		}
+	}
+	
+	/**
+	 * Funkcja obliczająca y = y + alpha*x na n elementach
+	 */
+	private static void axpy(int n, float alpha, float[] x, int offX, float[] y, int offY) {
+		for(int j=0; j<n; j++) y[offY+j] = y[offY+j] + alpha*x[offX+j];
+	}
+	
+	/**
+	 * Funkcja zamieniająca miejscami dwa wiersze długości n
+	 */
+	private static void swapRows(float[] d, int r1, int r2, int n) {
+		for(int j=0; j<n; j++) {
+			float tmp = d[r1+j];
+			d[r1+j] = d[r2+j];
+			d[r2+j] = tmp;
+		}
+	}
+}
@@ -0,0 +1,29 @@
+package macierze;
+
+/**
+ * Interfejs operatora liniowego, czyli czegokolwiek co potrafi obliczyć y = A*x.
+ * Rozwiązania iteracyjne (IterativeSolver) potrzebują tylko tego działania, więc macierz nie musi być
+ * przechowywana w całości (np. MacierzRzadka, MacierzMapowana lub operator liczony w locie).
+ */
+
+public interface LinearOperator {
+	
+	/**
+	 * Funkcja zwracająca liczbę wierszy operatora (długość y)
+	 * @return int
+	 */
+	int getHeight();
+	
+	/**
+	 * Funkcja zwracająca liczbę kolumn operatora (długość x)
+	 * @return int
+	 */
+	int getLength();
+	
+	/**
+	 * Funkcja obliczająca y = A*x
+	 * @param x Wektor o długości równej liczbie kolumn, nie jest zmieniany
+	 * @param y Wektor wynikowy o długości równej liczbie wierszy, nadpisywany, nie może być tablicą x
+	 */
+	void multiply(double[] x, double[] y);
+}
@@ -1,18 +1,43 @@
 package macierze;
 
+import java.io.*;
 import java.util.*;
-import java.time.*;
 
 /**
- * Klasa z podstawowymi działaniami na macierzach
+ * Klasa z podstawowymi działaniami na macierzach.
+ * Elementy przechowywane są w jednej ciągłej tablicy wierszami,
+ * element (i, j) leży pod indeksem offset + i*stride + j*colStride.
+ * Zwykłe macierze mają colStride = 1, widoki (submatrix, row, column, transposedView)
+ * współdzielą tablicę z macierzą źródłową i mają własne offset, stride i colStride.
+ * Macierz zamrożona (freeze) nie pozwala na zmiany, więc może być współdzielona przez wątki i być kluczem w mapach.
  */
 
-public class Macierz {
+public class Macierz implements LinearOperator {
 	
 	/**
-	 * Macierz jako tablica dwu wymiarowa zmiennych przecinkowych
+	 * Rozmiar kafelka transpozycji, dwa kafelki 32 x 32 wartości double mieszczą się w pamięci podręcznej L1
 	 */
-	private double[][] matrix;
+	private static final int TRANSPOSE_TILE = 32;
+	
+	/**
+	 * Ciągła tablica z wartościami macierzy zapisanymi wierszami
+	 */
+	private double[] data;
+	
+	/**
+	 * Indeks elementu (0, 0) w tablicy danych
+	 */
+	private int offset;
+	
+	/**
+	 * Odległość w tablicy danych pomiędzy początkami kolejnych wierszy
+	 */
+	private int stride;
+	
+	/**
+	 * Odległość w tablicy danych pomiędzy kolejnymi kolumnami, 1 poza widokami transponowanymi
+	 */
+	private int colStride;
 	
 	/**
 	 * Liczba kolumn macierzy
@@ -24,6 +49,21 @@ public class Macierz {
 	 */
 	private int height;
 	
+	/**
+	 * Czy macierz jest zamrożona, wtedy wszystkie działania zmieniające ją rzucają UnsupportedOperationException
+	 */
+	private boolean frozen;
+	
+	/**
+	 * Zapamiętany hash macierzy zamrożonej, 0 gdy jeszcze nie obliczony
+	 */
+	private int hash;
+	
+	/**
+	 * Czy obliczony hash macierzy zamrożonej wynosi 0
+	 */
+	private boolean hashIsZero;
+	
 	/**
 	 * Konstruktor zerowej macerzy 3x3
 	 */
@@ -36,15 +76,7 @@ public class Macierz {
 	 * @param n Wymiar macierzy NxN
 	 */
 	public Macierz(int n) {
-		double[][] matrix = (n == 0) ? null : new double[n][n];
-		for(int i=0; i<n; i++) {
-			for(int j=0; j<n; j++) {
-				matrix[i][j] = 0;
-			}
-		}
-		this.matrix = matrix;
-		this.length = n;
-		this.height = n;
+		zeros(n, n);
 	}
 	
 	/**
@@ -57,7 +89,7 @@ public class Macierz {
 	}
 	
 	/**
-	 * Konstruktor dla macierzy z daną zawartoscią w postaci tablicy dwuwymiarowej
+	 * Konstruktor dla macierzy z daną zawartoscią w postaci tablicy dwuwymiarowej, wartości są kopiowane
 	 * @param n Liczba wierszy
 	 * @param m Liczba kolumn
 	 * @param matrix Tablica dwuwimiarowa wartości macierzy
@@ -65,17 +97,68 @@ public class Macierz {
 	 */
 	public Macierz(int n, int m, double[][] matrix) throws MatrixSizeException{
 		if(n == 0 || m == 0 || matrix.length == 0) {
-			this.matrix = null;
-			this.height = 0;
-			this.length = 0;
+			zeros(0, 0);
 		} else if(n != matrix.length || m != matrix[0].length) {
 			throw new MatrixSizeException(String.format("Incorrect size %d x %d for size %d x %d", n, m, matrix.length, matrix[0].length));
 		}
 		else {
-			this.matrix = matrix;
-			this.height = n;
-			this.length = m;
+			zeros(n, m);
+			for(int i=0; i<n; i++) {
+				if(matrix[i].length != m) throw new MatrixSizeException(String.format("Incorrect length %d of row %d for size %d x %d", matrix[i].length, i, n, m));
+				System.arraycopy(matrix[i], 0, this.data, i*m, m);
+			}
+		}
+	}
+	
+	/**
+	 * Konstruktor dla macierzy z daną zawartością w postaci ciągłej tablicy zapisanej wierszami, tablica nie jest kopiowana
+	 * @param n Liczba wierszy
+	 * @param m Liczba kolumn
+	 * @param data Tablica n*m wartości macierzy, wiersz po wierszu
+	 * @throws MatrixSizeException Gdy długość tablicy nie jest równa n*m
+	 */
+	public Macierz(int n, int m, double[] data) throws MatrixSizeException{
+		if(n < 0 || m < 0 || (long)n*m != data.length) {
+			throw new MatrixSizeException(String.format("Incorrect size %d x %d for array of length %d", n, m, data.length));
 		}
+		this.data = data;
+		this.offset = 0;
+		this.stride = m;
+		this.colStride = 1;
+		this.height = n;
+		this.length = m;
+	}
+	
+	/**
+	 * Konstruktor macierzy korzystającej z fragmentu istniejącej tablicy danych
+	 * @param n Liczba wierszy
+	 * @param m Liczba kolumn
+	 * @param data Tablica danych
+	 * @param offset Indeks elementu (0, 0)
+	 * @param stride Odległość pomiędzy początkami wierszy
+	 */
+	Macierz(int n, int m, double[] data, int offset, int stride) {
+		this(n, m, data, offset, stride, 1);
+	}
+	
+	/**
+	 * Konstruktor widoku na fragment istniejącej tablicy danych z dowolnymi odległościami wierszy i kolumn
+	 * @param n Liczba wierszy
+	 * @param m Liczba kolumn
+	 * @param data Tablica danych
+	 * @param offset Indeks elementu (0, 0)
+	 * @param stride Odległość pomiędzy początkami wierszy
+	 * @param colStride Odległość pomiędzy kolejnymi kolumnami
+	 */
+	Macierz(int n, int m, double[] data, int offset, int stride, int colStride) {
+		// Pusty widok zachowuje wymiary n x m, ale żaden wiersz nie może wskazywać po za tablicę
+		boolean empty = n == 0 || m == 0;
+		this.data = data;
+		this.offset = empty ? 0 : offset;
+		this.stride = empty ? 0 : stride;
+		this.colStride = (m <= 1) ? 1 : colStride;
+		this.height = n;
+		this.length = m;
 	}
 	
 	/**
@@ -114,16 +197,10 @@ public class Macierz {
 	 * @param m Liczba kolumn
 	 */
 	private void identity(int n, int m) {
-		double[][] matrix = (n == 0 || m == 0) ? null : new double[n][m];
-		for(int i=0; i<n; i++) {
-			for(int j=0; j<m; j++) {
-				if(i == j) matrix[i][j] = 1;
-				else matrix[i][j] = 0;
-			}
+		zeros(n, m);
+		for(int i=0; i<Math.min(n, m); i++) {
+			data[i*m+i] = 1;
 		}
-		this.matrix = matrix;
-		this.length = m;
-		this.height = n;
 	}
 	
 	/**
@@ -132,15 +209,8 @@ public class Macierz {
 	 * @param m Liczba kolumn
 	 */
 	private void ones(int n, int m) {
-		double[][] matrix = (n == 0 || m == 0) ? null : new double[n][m];
-		for(int i=0; i<n; i++) {
-			for(int j=0; j<m; j++) {
-				matrix[i][j] = 1;
-			}
-		}
-		this.matrix = matrix;
-		this.length = m;
-		this.height = n;
+		zeros(n, m);
+		Arrays.fill(data, 1);
 	}
 	
 	/**
@@ -149,13 +219,10 @@ public class Macierz {
 	 * @param m Liczba kolumn
 	 */
 	private void zeros(int n, int m) {
-		double[][] matrix = (n == 0 || m == 0) ? null : new double[n][m];
-		for(int i=0; i<n; i++) {
-			for(int j=0; j<m; j++) {
-				matrix[i][j] = 0;
-			}
-		}
-		this.matrix = matrix;
+		this.data = new double[n*m];
+		this.offset = 0;
+		this.stride = m;
+		this.colStride = 1;
 		this.length = m;
 		this.height = n;
 	}
@@ -168,34 +235,237 @@ public class Macierz {
 	 */
 	private void hilbert(int n, int m) throws MatrixSizeException{
 		if(n != m) throw new MatrixSizeException(String.format("Size %d x %d not square", n, m));
-		double[][] matrix = (n == 0 || m == 0) ? null : new double[n][m];
-		for(int i=0; i<n; i++) {
-			for(int j=0; j<m; j++) {
-				matrix[i][j] = (double)1/(i+j+1);
+		zeros(n, m);
+		double[] d = data;
+		if(Parallel.isSequential(n, 1, m)) hilbertRows(d, n, 0, n);
+		else Parallel.forRange(0, n, m, (from, to) -> hilbertRows(d, n, from, to));
+	}
+	
+	/**
+	 * Funkcja wypełniająca wiersze [from, to) macierzy Hilberta n x n
+	 */
+	private static void hilbertRows(double[] d, int n, int from, int to) {
+		for(int i=from; i<to; i++) {
+			for(int j=0; j<n; j++) {
+				d[i*n+j] = (double)1/(i+j+1);
 			}
 		}
-		this.matrix = matrix;
-		this.length = m;
-		this.height = n;
 	}
 	
 	/**
-	 * Funckja pomocnicza do towrzenia macierzy z liczbami losowymi
+	 * Funckja pomocnicza do towrzenia macierzy z liczbami losowymi o standardowym rozkładzie normalnym.
+	 * Każde wywołanie ma nowe losowe ziarno, powtarzalne macierze daje MatrixGenerator z podanym ziarnem.
 	 * @param n Liczba wierszy
 	 * @param m Liczba kolumn
 	 */
 	private void random(int n, int m) {
-		Clock seed = Clock.systemUTC();
-		Random rand = new Random(seed.millis());
-		double[][] matrix = (n == 0 || m == 0) ? null : new double[n][m];
-		for(int i=0; i<n; i++) {
-			for(int j=0; j<m; j++) {
-				matrix[i][j] = (double)rand.nextGaussian();
+		zeros(n, m);
+		new MatrixGenerator().fillNormal(this, 0, 1);
+	}
+	
+	/**
+	 * Funkcja zwracająca zawartość macierzy jako nową tablicę dwuwymiarową
+	 * @return double[][]
+	 */
+	public double[][] toArray() {
+		double[][] ret = new double[height][];
+		for(int i=0; i<height; i++) {
+			if(colStride == 1) ret[i] = Arrays.copyOfRange(data, offset+i*stride, offset+i*stride+length);
+			else {
+				ret[i] = new double[length];
+				for(int j=0; j<length; j++) ret[i][j] = data[offset+i*stride+j*colStride];
 			}
 		}
-		this.matrix = matrix;
-		this.length = m;
-		this.height = n;
+		return ret;
+	}
+	
+	/**
+	 * Funkcja zwracająca zawartość macierzy jako nową ciągłą tablicę zapisaną wierszami
+	 * @return double[]
+	 */
+	public double[] toFlatArray() {
+		double[] ret = new double[height*length];
+		for(int i=0; i<height; i++) {
+			if(colStride == 1) System.arraycopy(data, offset+i*stride, ret, i*length, length);
+			else for(int j=0; j<length; j++) ret[i*length+j] = data[offset+i*stride+j*colStride];
+		}
+		return ret;
+	}
+	
+	/**
+	 * Funkcja zwracająca tablicę danych macierzy (bez kopiowania)
+	 * @return double[]
+	 */
+	double[] data() {
+		return data;
+	}
+	
+	/**
+	 * Funkcja zwracająca indeks elementu (0, 0) w tablicy danych
+	 * @return int
+	 */
+	int offset() {
+		return offset;
+	}
+	
+	/**
+	 * Funkcja zwracająca odległość pomiędzy początkami wierszy w tablicy danych
+	 * @return int
+	 */
+	int stride() {
+		return stride;
+	}
+	
+	/**
+	 * Funkcja zwracająca odległość pomiędzy kolejnymi kolumnami w tablicy danych
+	 * @return int
+	 */
+	int colStride() {
+		return colStride;
+	}
+	
+	/**
+	 * Funkcja zwracająca macierz zapisaną wierszami (colStride = 1) z tą samą zawartością,
+	 * samą macierz jeśli już jest tak zapisana lub jej kopię
+	 * @param a Macierz
+	 * @return Macierz
+	 */
+	static Macierz rowMajor(Macierz a) {
+		return (a.colStride == 1) ? a : copyOf(a);
+	}
+	
+	/**
+	 * Funkcja sprawdzająca czy dwie macierze mogą mieć wspólne elementy w tej samej tablicy danych.
+	 * Porównywane są przedziały adresów od pierwszego do ostatniego elementu, a dla bloków o tej samej
+	 * odległości wierszy także zakresy kolumn, więc rozłączne bloki jednej macierzy się nie nakładają.
+	 * Wynik true nie gwarantuje, że wspólny element istnieje.
+	 * @param a Pierwsza macierz
+	 * @param b Druga macierz
+	 * @return boolean
+	 */
+	static boolean overlaps(Macierz a, Macierz b) {
+		if(a.data != b.data || a.height == 0 || a.length == 0 || b.height == 0 || b.length == 0) return false;
+		long a0 = a.offset, a1 = a0 + (long)(a.height-1)*a.stride + (long)(a.length-1)*a.colStride;
+		long b0 = b.offset, b1 = b0 + (long)(b.height-1)*b.stride + (long)(b.length-1)*b.colStride;
+		if(a1 < b0 || b1 < a0) return false;
+		// Ciągłe odcinki (wiersze, a w widoku transponowanym kolumny) zajmują w każdym wierszu tablicy o odległości s
+		// te same pozycje offset % s, więc bloki o rozłącznych zakresach pozycji nie mają wspólnych elementów
+		int s = (a.colStride == 1) ? a.stride : (a.stride == 1) ? a.colStride : 0;
+		int t = (b.colStride == 1) ? b.stride : (b.stride == 1) ? b.colStride : 0;
+		if(s > 0 && s == t) {
+			long ca = a.offset % s, cb = b.offset % s;
+			long ea = ca + ((a.colStride == 1) ? a.length : a.height), eb = cb + ((b.colStride == 1) ? b.length : b.height);
+			if(ea <= s && eb <= s && (ea <= cb || eb <= ca)) return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Funkcja sprawdzająca czy dwie macierze są tym samym widokiem tej samej tablicy,
+	 * czyli element (i, j) obu macierzy leży pod tym samym adresem
+	 * @param a Pierwsza macierz
+	 * @param b Druga macierz
+	 * @return boolean
+	 */
+	static boolean sameView(Macierz a, Macierz b) {
+		return a.data == b.data && a.offset == b.offset && a.stride == b.stride && a.colStride == b.colStride;
+	}
+	
+	/**
+	 * Funkcja zwracająca liczbę wierszy
+	 * @return int
+	 */
+	public int getHeight() {
+		return height;
+	}
+	
+	/**
+	 * Funkcja zwracająca liczbę kolumn
+	 * @return int
+	 */
+	public int getLength() {
+		return length;
+	}
+	
+	/**
+	 * Funkcja zwracająca zamrożoną kopię macierzy (lub samą macierz, gdy już jest zamrożona).
+	 * Kopia nie współdzieli danych z żadną zmienną macierzą, a jej hash jest liczony raz, od razu.
+	 * Po bezpiecznej publikacji (np. w polu final lub w ConcurrentHashMap) wiele wątków może ją czytać bez kopiowania,
+	 * widoki zamrożonej macierzy też są zamrożone.
+	 * @return Macierz zamrożona
+	 */
+	public Macierz freeze() {
+		if(frozen) return this;
+		Macierz ret = copyOf(this);
+		ret.frozen = true;
+		ret.hashCode();
+		return ret;
+	}
+	
+	/**
+	 * Funkcja sprawdzająca czy macierz jest zamrożona
+	 * @return boolean
+	 */
+	public boolean isFrozen() {
+		return frozen;
+	}
+	
+	/**
+	 * Funkcja sprawdzająca czy do macierzy można zapisywać
+	 * @param a Macierz zmieniana przez działanie
+	 * @throws UnsupportedOperationException Gdy macierz jest zamrożona
+	 */
+	static void checkWritable(Macierz a) {
+		if(a.frozen) throw new UnsupportedOperationException("Matrix is frozen");
+	}
+	
+	/**
+	 * Funkcja zwracająca widok bloku macierzy bez kopiowania, zmiany w widoku są widoczne w macierzy i odwrotnie.
+	 * Widok może być argumentem i wynikiem wszystkich działań.
+	 * @param row Pierwszy wiersz bloku
+	 * @param col Pierwsza kolumna bloku
+	 * @param n Liczba wierszy bloku
+	 * @param m Liczba kolumn bloku
+	 * @return Macierz widok n x m
+	 * @throws MatrixIndexOutOfBoundsException Gdy blok wychodzi po za wymiary
+	 */
+	public Macierz submatrix(int row, int col, int n, int m) throws MatrixIndexOutOfBoundsException {
+		if(row < 0 || col < 0 || n < 0 || m < 0 || row > height-n || col > length-m) {
+			throw new MatrixIndexOutOfBoundsException(String.format("Block %d x %d at %d, %d out of bound for size %d x %d", n, m, row, col, height, length));
+		}
+		Macierz ret = new Macierz(n, m, data, offset+row*stride+col*colStride, stride, colStride);
+		ret.frozen = frozen;
+		return ret;
+	}
+	
+	/**
+	 * Funkcja zwracająca widok wiersza jako macierz 1 x m bez kopiowania
+	 * @param i Wiersz
+	 * @return Macierz widok
+	 * @throws MatrixIndexOutOfBoundsException Gdy wiersz jest po za wymiarami
+	 */
+	public Macierz row(int i) throws MatrixIndexOutOfBoundsException {
+		return submatrix(i, 0, 1, length);
+	}
+	
+	/**
+	 * Funkcja zwracająca widok kolumny jako macierz n x 1 bez kopiowania
+	 * @param j Kolumna
+	 * @return Macierz widok
+	 * @throws MatrixIndexOutOfBoundsException Gdy kolumna jest po za wymiarami
+	 */
+	public Macierz column(int j) throws MatrixIndexOutOfBoundsException {
+		return submatrix(0, j, height, 1);
+	}
+	
+	/**
+	 * Funkcja zwracająca widok macierzy transponowanej bez kopiowania, zamienia odległości wierszy i kolumn
+	 * @return Macierz widok m x n
+	 */
+	public Macierz transposedView() {
+		Macierz ret = new Macierz(length, height, data, offset, colStride, stride);
+		ret.frozen = frozen;
+		return ret;
 	}
 	
 	/**
@@ -209,24 +479,7 @@ public class Macierz {
 		if(n < 0 || n >= this.height || m < 0 || m >= this.length) {
 			throw new MatrixIndexOutOfBoundsException(String.format("Index %d or %d out of bound for size %d x %d", n, m, this.height, this.length));
 		}
-		return this.matrix[n][m];
-	}
-	
-	/**
-	 * Funkcja zwaracająca kolumne macierzy indeksy od 0
-	 * @param n Kolumna macierzy do zwrócenia
-	 * @return Macierz kokumna wyrana
-	 * @throws MatrixIndexOutOfBoundsException Gdy wybrana kolumna jest po za wymiarem
-	 */
-	private Macierz getColumn(int n) throws MatrixIndexOutOfBoundsException{
-		if(n < 0 || n >= this.length) {
-			throw new MatrixIndexOutOfBoundsException(String.format("Index %d out of bound for lenght %d", n, this.length));
-		}
-		Macierz res = new Macierz(height, 1);
-		for(int i=0; i<height; i++) {
-			res.matrix[i][0] = this.matrix[i][n];
-		}
-		return res;
+		return this.data[offset+n*stride+m*colStride];
 	}
 	
 	/**
@@ -239,11 +492,13 @@ public class Macierz {
 		if(a < 0 || a >= this.length || b < 0 || b >= this.length) {
 			throw new MatrixIndexOutOfBoundsException(String.format("Index %d or %d out of bound for lenght %d", a, b, this.length));
 		}
+		checkWritable(this);
 		double tmp = 0;
 		for(int i=0; i<this.height; i++) {
-			tmp = this.matrix[i][a];
-			this.matrix[i][a] = this.matrix[i][b];
-			this.matrix[i][b] = tmp;
+			int row = offset+i*stride;
+			tmp = this.data[row+a*colStride];
+			this.data[row+a*colStride] = this.data[row+b*colStride];
+			this.data[row+b*colStride] = tmp;
 		}
 	}
 	
@@ -251,12 +506,14 @@ public class Macierz {
 	 * Fukncja odwracająca aktualną macierz lewo-prawo
 	 */
 	public void flipLR() {
+		checkWritable(this);
 		double tmp = 0;
 		for(int j=0; j<height; j++) {
+			int row = offset+j*stride;
 			for(int i=0; i<(int)length/2; i++) {
-				tmp = matrix[j][i];
-				matrix[j][i] = matrix[j][length-i-1];
-				matrix[j][length-i-1] = tmp;
+				tmp = data[row+i*colStride];
+				data[row+i*colStride] = data[row+(length-i-1)*colStride];
+				data[row+(length-i-1)*colStride] = tmp;
 			}
 		}
 	}
@@ -271,21 +528,56 @@ public class Macierz {
 		if(a < 0 || a >= this.height || b < 0 || b >= this.height) {
 			throw new MatrixIndexOutOfBoundsException(String.format("Index %d or %d out of bound for height %d", a, b, this.height));
 		}
-		double[] tmp = new double[this.length];
-		tmp = this.matrix[a];
-		this.matrix[a] = this.matrix[b];
-		this.matrix[b] = tmp;
+		checkWritable(this);
+		swapRows(this.data, offset+a*stride, offset+b*stride, length, colStride);
 	}
 	
 	/**
 	 * Funkcja odwracająca aktualną macierz góra-dół
 	 */
 	public void flipUD() {
-		double[] tmp;
+		checkWritable(this);
 		for(int j=0; j<(int)height/2; j++) {
-			tmp = matrix[j];
-			matrix[j] = matrix[height-j-1];
-			matrix[height-j-1] = tmp;
+			swapRows(data, offset+j*stride, offset+(height-j-1)*stride, length, colStride);
+		}
+	}
+	
+	/**
+	 * Funkcja pomocnicza zamieniająca zawartość dwóch wierszy w ciągłej tablicy
+	 * @param data Tablica danych
+	 * @param a Początek pierwszego wiersza
+	 * @param b Początek drugiego wiersza
+	 * @param length Długość wierszy
+	 */
+	static void swapRows(double[] data, int a, int b, int length) {
+		if(a == b) return;
+		double tmp = 0;
+		for(int j=0; j<length; j++) {
+			tmp = data[a+j];
+			data[a+j] = data[b+j];
+			data[b+j] = tmp;
+		}
+	}
+	
+	/**
+	 * Funkcja pomocnicza zamieniająca zawartość dwóch wierszy o elementach odległych o step
+	 * @param data Tablica danych
+	 * @param a Początek pierwszego wiersza
+	 * @param b Początek drugiego wiersza
+	 * @param length Długość wierszy
+	 * @param step Odległość pomiędzy kolejnymi elementami wiersza
+	 */
+	static void swapRows(double[] data, int a, int b, int length, int step) {
+		if(step == 1) {
+			swapRows(data, a, b, length);
+			return;
+		}
+		if(a == b) return;
+		double tmp = 0;
+		for(int j=0; j<length; j++) {
+			tmp = data[a+j*step];
+			data[a+j*step] = data[b+j*step];
+			data[b+j*step] = tmp;
 		}
 	}
 	
@@ -297,18 +589,28 @@ public class Macierz {
 	 * @throws MatrixSizeException Gdy wymiary dodawanych macierzy się nie zgadzają
 	 */
 	public static Macierz add(Macierz a, Macierz b) throws MatrixSizeException {
-		int n = a.height, p = b.height;
-		int m = a.length, q = b.length;
-		double[][] ret = new double[n][m];
-		if(m != q || n != p) throw new MatrixSizeException(String.format("Incorrect size, a is %d x %d, b id %d x %d", n, m, p, q));
-		else {
-			for(int i=0; i<n; i++) {
-				for(int j=0; j<m; j++) {
-					ret[i][j] = a.matrix[i][j] + b.matrix[i][j];
-				}
-			}
-		}
-		return new Macierz(n, m, ret);
+		checkSameSize(a, b);
+		long start = Metrics.start();
+		Macierz ret = new Macierz(a.height, a.length);
+		combine(a, 1, b, ret);
+		Metrics.end(start, Metrics.Operation.ADD, a.height, a.length, (double)a.height*a.length, 8L*a.height*a.length);
+		return ret;
+	}
+	
+	/**
+	 * Funkcja do dodawania macierzy z zapisem wyniku do podanej macierzy, bez alokacji
+	 * @param a Macierz po lewej stronie
+	 * @param b Macierz po prawej stronie
+	 * @param dst Macierz do której zapisać wynik, może być jedną z macierzy a lub b albo nakładać się z nimi
+	 * @throws MatrixSizeException Gdy wymiary macierzy się nie zgadzają
+	 */
+	public static void addInto(Macierz a, Macierz b, Macierz dst) throws MatrixSizeException {
+		checkSameSize(a, b);
+		checkSameSize(a, dst);
+		checkWritable(dst);
+		long start = Metrics.start();
+		combine(a, 1, b, dst);
+		Metrics.end(start, Metrics.Operation.ADD, a.height, a.length, (double)a.height*a.length, 0);
 	}
 	
 	/**
@@ -319,18 +621,90 @@ public class Macierz {
 	 * @throws MatrixSizeException Gdy wymiary dodawanych macierzy się nie zgadzają
 	 */
 	public static Macierz subtract(Macierz a, Macierz b) throws MatrixSizeException {
+		checkSameSize(a, b);
+		long start = Metrics.start();
+		Macierz ret = new Macierz(a.height, a.length);
+		combine(a, -1, b, ret);
+		Metrics.end(start, Metrics.Operation.SUBTRACT, a.height, a.length, (double)a.height*a.length, 8L*a.height*a.length);
+		return ret;
+	}
+	
+	/**
+	 * Funkcja do odejmowania macierzy z zapisem wyniku do podanej macierzy, bez alokacji
+	 * @param a Macierz po lewej stronie
+	 * @param b Macierz po prawej stronie
+	 * @param dst Macierz do której zapisać wynik, może być jedną z macierzy a lub b albo nakładać się z nimi
+	 * @throws MatrixSizeException Gdy wymiary macierzy się nie zgadzają
+	 */
+	public static void subtractInto(Macierz a, Macierz b, Macierz dst) throws MatrixSizeException {
+		checkSameSize(a, b);
+		checkSameSize(a, dst);
+		checkWritable(dst);
+		long start = Metrics.start();
+		combine(a, -1, b, dst);
+		Metrics.end(start, Metrics.Operation.SUBTRACT, a.height, a.length, (double)a.height*a.length, 0);
+	}
+	
+	/**
+	 * Funkcja dodająca do macierzy y macierz x przemnożoną przez skalar, y = y + alpha*x
+	 * @param alpha Skalar
+	 * @param x Macierz dodawana
+	 * @param y Macierz do której dodać, nadpisywana
+	 * @throws MatrixSizeException Gdy wymiary macierzy się nie zgadzają
+	 */
+	public static void axpy(double alpha, Macierz x, Macierz y) throws MatrixSizeException {
+		checkSameSize(y, x);
+		checkWritable(y);
+		combine(y, alpha, x, y);
+	}
+	
+	/**
+	 * Funkcja sprawdzająca czy macierze mają takie same wymiary
+	 * @param a Pierwsza macierz
+	 * @param b Druga macierz
+	 * @throws MatrixSizeException Gdy wymiary macierzy się nie zgadzają
+	 */
+	private static void checkSameSize(Macierz a, Macierz b) throws MatrixSizeException {
 		int n = a.height, p = b.height;
 		int m = a.length, q = b.length;
-		double[][] ret = new double[n][m];
 		if(m != q || n != p) throw new MatrixSizeException(String.format("Incorrect size, a is %d x %d, b id %d x %d", n, m, p, q));
-		else {
-			for(int i=0; i<n; i++) {
-				for(int j=0; j<m; j++) {
-					ret[i][j] = a.matrix[i][j] - b.matrix[i][j];
-				}
+	}
+	
+	/**
+	 * Funkcja obliczająca dst = a + beta*b, dzieląc wiersze na wątki dla dużych macierzy
+	 * @param a Macierz a
+	 * @param beta Współczynnik macierzy b
+	 * @param b Macierz b
+	 * @param dst Macierz wynikowa
+	 */
+	private static void combine(Macierz a, double beta, Macierz b, Macierz dst) {
+		if((overlaps(a, dst) && !sameView(a, dst)) || (overlaps(b, dst) && !sameView(b, dst))) {
+			// Wynik nakłada się z argumentem inaczej niż element w element - obliczenie w kopii
+			Macierz tmp = new Macierz(dst.height, dst.length);
+			combine(a, beta, b, tmp);
+			copyElements(tmp, dst);
+			return;
+		}
+		if(Parallel.isSequential(a.height, 1, a.length)) combineRows(a, beta, b, dst, 0, a.height);
+		else Parallel.forRange(0, a.height, a.length, (from, to) -> combineRows(a, beta, b, dst, from, to));
+	}
+	
+	/**
+	 * Funkcja obliczająca wiersze [from, to) wyrażenia dst = a + beta*b
+	 */
+	private static void combineRows(Macierz a, double beta, Macierz b, Macierz dst, int from, int to) {
+		double[] r = dst.data, x = a.data, y = b.data;
+		int m = a.length;
+		int ca = a.colStride, cb = b.colStride, cr = dst.colStride;
+		for(int i=from; i<to; i++) {
+			int ia = a.offset+i*a.stride, ib = b.offset+i*b.stride, ir = dst.offset+i*dst.stride;
+			if(ca != 1 || cb != 1 || cr != 1) {
+				// Widoki transponowane - ogólny dostęp z odległościami kolumn
+				for(int j=0; j<m; j++) r[ir+j*cr] = x[ia+j*ca] + beta*y[ib+j*cb];
+			} else {
+				Kernels.INSTANCE.combine(m, x, ia, beta, y, ib, r, ir);
 			}
 		}
-		return new Macierz(n, m, ret);
 	}
 	
 	/**
@@ -341,22 +715,120 @@ public class Macierz {
 	 * @throws MatrixSizeException Gdy nie zgadzają się wymiary mnożenia
 	 */
 	public static Macierz product(Macierz a, Macierz b) throws MatrixSizeException{
+		if(a.height == 1 && a.length == 1) return product(a.data[a.offset], b);
+		if(a.length != b.height) throw new MatrixSizeException(String.format("Incorrect size, a is %d x %d, b id %d x %d", a.height, a.length, b.height, b.length));
+		long start = Metrics.start();
+		Macierz ret = new Macierz(a.height, b.length);
+		multiplyInto(a, b, ret);
+		Metrics.end(start, Metrics.Operation.PRODUCT, a.height, b.length, 2.0*a.height*a.length*b.length, 8L*a.height*b.length);
+		return ret;
+	}
+	
+	/**
+	 * Funkcja do mnożenia dwóch macierzy z zapisem wyniku do podanej macierzy, bez alokacji
+	 * @param a Macierz po lewej stronie mnożenia
+	 * @param b Macierz po prawej stronie mnożenia
+	 * @param dst Macierz do której zapisać wynik, może być rozłącznym blokiem tej samej tablicy co a lub b,
+	 * gdy się z nimi nakłada wynik liczony jest w kopii
+	 * @throws MatrixSizeException Gdy nie zgadzają się wymiary mnożenia
+	 */
+	public static void productInto(Macierz a, Macierz b, Macierz dst) throws MatrixSizeException{
+		long start = Metrics.start();
+		multiplyInto(a, b, dst);
+		Metrics.end(start, Metrics.Operation.PRODUCT, a.height, b.length, 2.0*a.height*a.length*b.length, 0);
+	}
+	
+	/**
+	 * Funkcja mnożąca macierze bez pomiaru, wspólna dla product i productInto
+	 */
+	private static void multiplyInto(Macierz a, Macierz b, Macierz dst) throws MatrixSizeException{
 		int n = a.height, p = b.height;
 		int m = a.length, q = b.length;
-		double[][] ret = new double[n][q];
+		if(m != p) throw new MatrixSizeException(String.format("Incorrect size, a is %d x %d, b id %d x %d", n, m, p, q));
+		if(dst.height != n || dst.length != q) throw new MatrixSizeException(String.format("Incorrect size of destination %d x %d for %d x %d", dst.height, dst.length, n, q));
+		checkWritable(dst);
+		if(overlaps(dst, a) || overlaps(dst, b)) {
+			// Wynik nadpisywałby czytane jeszcze elementy argumentu
+			Macierz tmp = new Macierz(n, q);
+			multiplyInto(a, b, tmp);
+			copyElements(tmp, dst);
+			return;
+		}
+		if(dst.colStride != 1) {
+			if(dst.stride == 1 || dst.height <= 1) {
+				// Wynik zapisany kolumnami (widok transponowany), C^T = B^T A^T jest zapisane wierszami
+				multiplyInto(b.transposedView(), a.transposedView(), dst.transposedView());
+			} else {
+				Macierz tmp = new Macierz(n, q);
+				multiplyInto(a, b, tmp);
+				copyElements(tmp, dst);
+			}
+			return;
+		}
+		double[] r = dst.data, x = a.data, y = b.data;
+		int ca = a.colStride, cb = b.colStride;
 		double sum = 0;
-		if(n == 1 && m == 1) return product(a.matrix[0][0], b);
-		else if(m != p) throw new MatrixSizeException(String.format("Incorrect size, a is %d x %d, b id %d x %d", n, m, p, q));
+		if(ca == 1 && cb == 1 && Strassen.isWorthwhile(n, m, q)) {
+			// Bardzo duże macierze - algorytm Strassena-Winograda
+			Strassen.multiply(n, m, q, x, a.offset, a.stride, y, b.offset, b.stride, r, dst.offset, dst.stride);
+		}
+		else if((long)n*m*q >= GemmKernel.THRESHOLD) {
+			// Duże macierze - jądro blokowe przyjazne dla pamięci podręcznej, widoki obsługiwane przy pakowaniu
+			GemmKernel.multiply(n, m, q, x, a.offset, a.stride, ca, y, b.offset, b.stride, cb, r, dst.offset, dst.stride);
+		}
+		else if(cb == 1) {
+			// Małe macierze - wiersz wyniku jako suma wierszy b, ta sama kolejność sumowania co iloczyn skalarny
+			Kernels kernels = Kernels.INSTANCE;
+			for(int i=0; i<n; i++) {
+				int ia = a.offset+i*a.stride, ir = dst.offset+i*dst.stride;
+				Arrays.fill(r, ir, ir+q, 0);
+				for(int k=0; k<m; k++) kernels.axpy(q, x[ia+k*ca], y, b.offset+k*b.stride, r, ir);
+			}
+		}
+		else if(ca == 1 && b.stride == 1) {
+			// Kolumny b ciągłe w pamięci (widok transponowany) - iloczyny skalarne
+			Kernels kernels = Kernels.INSTANCE;
+			for(int i=0; i<n; i++) {
+				int ia = a.offset+i*a.stride, ir = dst.offset+i*dst.stride;
+				for(int j=0; j<q; j++) r[ir+j] = kernels.dot(m, x, ia, y, b.offset+j*cb);
+			}
+		}
 		else {
 			for(int i=0; i<n; i++) {
+				int ia = a.offset+i*a.stride, ir = dst.offset+i*dst.stride;
 				for(int j=0; j<q; j++) {
 					sum = 0;
-					for(int k=0; k<m; k++) sum = sum + a.matrix[i][k]*b.matrix[k][j];
-					ret[i][j] = sum;
+					for(int k=0; k<m; k++) sum = sum + x[ia+k*ca]*y[b.offset+k*b.stride+j*cb];
+					r[ir+j] = sum;
 				}
 			}
 		}
-		return new Macierz(n, q, ret);
+	}
+	
+	/**
+	 * Funkcja obliczająca y = A*x dla wektorów w postaci tablic, wiersze dzielone są na wątki dla dużych macierzy
+	 * @param x Wektor o długości równej liczbie kolumn
+	 * @param y Wektor wynikowy o długości równej liczbie wierszy, nadpisywany, nie może być tablicą x
+	 */
+	public void multiply(double[] x, double[] y) {
+		if(Parallel.isSequential(height, 1, length)) multiplyRows(x, y, 0, height);
+		else Parallel.forRange(0, height, length, (from, to) -> multiplyRows(x, y, from, to));
+	}
+	
+	/**
+	 * Funkcja obliczająca wiersze [from, to) wektora y = A*x
+	 */
+	private void multiplyRows(double[] x, double[] y, int from, int to) {
+		for(int i=from; i<to; i++) {
+			int row = offset+i*stride;
+			if(colStride == 1) {
+				y[i] = Kernels.INSTANCE.dot(length, data, row, x, 0);
+			} else {
+				double sum = 0;
+				for(int j=0; j<length; j++) sum = sum + data[row+j*colStride]*x[j];
+				y[i] = sum;
+			}
+		}
 	}
 	
 	/**
@@ -367,15 +839,51 @@ public class Macierz {
 	 * @throws MatrixSizeException Gdy nie zgadzają się wymiary mnożenia
 	 */
 	public static Macierz product(double a, Macierz b) throws MatrixSizeException{
-		int p = b.height;
+		Macierz ret = new Macierz(b.height, b.length);
+		productInto(a, b, ret);
+		return ret;
+	}
+	
+	/**
+	 * Funkcja do mnożenia skalara z macierzą z zapisem wyniku do podanej macierzy, bez alokacji
+	 * @param a Skalar
+	 * @param b Macierz
+	 * @param dst Macierz do której zapisać wynik, może być macierzą b
+	 * @throws MatrixSizeException Gdy wymiary macierzy się nie zgadzają
+	 */
+	public static void productInto(double a, Macierz b, Macierz dst) throws MatrixSizeException{
+		checkSameSize(b, dst);
+		checkWritable(dst);
+		if(Parallel.isSequential(b.height, 1, b.length)) scaleRows(a, b, dst, 0, b.height);
+		else Parallel.forRange(0, b.height, b.length, (from, to) -> scaleRows(a, b, dst, from, to));
+	}
+	
+	/**
+	 * Funkcja mnożąca macierz przez skalar w miejscu
+	 * @param a Skalar
+	 * @param b Macierz do przemnożenia, nadpisywana
+	 */
+	public static void scaleInPlace(double a, Macierz b) {
+		checkWritable(b);
+		if(Parallel.isSequential(b.height, 1, b.length)) scaleRows(a, b, b, 0, b.height);
+		else Parallel.forRange(0, b.height, b.length, (from, to) -> scaleRows(a, b, b, from, to));
+	}
+	
+	/**
+	 * Funkcja obliczająca wiersze [from, to) wyrażenia dst = a*b
+	 */
+	private static void scaleRows(double a, Macierz b, Macierz dst, int from, int to) {
+		double[] r = dst.data, y = b.data;
 		int q = b.length;
-		double[][] ret = new double[p][q];
-		for(int i=0; i<p; i++) {
-			for(int j=0; j<q; j++) {
-				ret[i][j] = a*b.matrix[i][j];
+		int cb = b.colStride, cr = dst.colStride;
+		for(int i=from; i<to; i++) {
+			int ib = b.offset+i*b.stride, ir = dst.offset+i*dst.stride;
+			if(cb != 1 || cr != 1) {
+				for(int j=0; j<q; j++) r[ir+j*cr] = a*y[ib+j*cb];
+				continue;
 			}
+			Kernels.INSTANCE.scale(q, a, y, ib, r, ir);
 		}
-		return new Macierz(p, q, ret);
 	}
 	
 	/**
@@ -384,85 +892,180 @@ public class Macierz {
 	 */
 	@Override
 	public String toString() {
-		String ret = "";
+		StringBuilder ret = new StringBuilder(height*(14*length+3));
+		try {
+			writeTo(ret);
+		} catch(IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return ret.toString();
+	}
+	
+	/**
+	 * Funkcja zapisująca widok macierzy w postaci naukowej (jak toString) wierszami do podanego celu,
+	 * bez budowania całego tekstu w pamięci
+	 * @param out Cel zapisu, np. Writer lub StringBuilder
+	 * @throws IOException Gdy zapis się nie powiedzie
+	 */
+	public void writeTo(Appendable out) throws IOException {
+		StringBuilder row = new StringBuilder(14*length+3), tmp = new StringBuilder(32);
 		for(int i=0; i<height; i++) {
-			ret = ret + "| ";
+			row.setLength(0);
+			row.append("| ");
 			for(int j=0; j<length; j++) {
-				ret = ret + String.format("%.5e",matrix[i][j]) + " ";
+				MatrixIO.appendScientific(row, tmp, data[offset+i*stride+j*colStride], 5);
+				row.append(' ');
 			}
-			ret = ret + "|\n";
+			row.append("|\n");
+			out.append(row);
 		}
-		return ret;
 	}
 	
 	/**
-	 * Funkcja sprawdzająca dana macierz jest równa aktualnej macierzy
+	 * Funkcja sprawdzająca dana macierz jest równa aktualnej macierzy.
+	 * Elementy są równe gdy są równe jako liczby (0.0 i -0.0) lub oba są NaN, tak że equals jest zgodne z hashCode.
+	 * Dwie macierze zamrożone o różnych hashach są od razu różne, wiersze porównywane są przez Arrays.mismatch.
 	 * @param b Macierz do porównania
 	 * @return boolean
 	 */
 	@Override
 	public boolean equals(Object b) {
+		if(this == b) return true;
+		if(!(b instanceof Macierz)) return false;
 		Macierz a = (Macierz)b;
-		try {
-			if(a == null) return false;
-			else {
-				if(a.length == this.length && a.height == this.height) {
-					for(int i=0; i<this.height; i++) {
-						for(int j=0; j<this.length; j++) {
-							if(this.get(i, j) != a.get(i, j)) return false;
-						}
-					}
-					return true;
-				} else return false;
+		if(a.length != length || a.height != height) return false;
+		if(frozen && a.frozen && hashCode() != a.hashCode()) return false;
+		for(int i=0; i<height; i++) {
+			int p = offset+i*stride, q = a.offset+i*a.stride;
+			if(colStride == 1 && a.colStride == 1) {
+				if(!rowEquals(data, p, a.data, q, length)) return false;
+			} else {
+				for(int j=0; j<length; j++) {
+					double x = data[p+j*colStride], y = a.data[q+j*a.colStride];
+					if(x != y && !(x != x && y != y)) return false;
+				}
 			}
-		} catch(MatrixIndexOutOfBoundsException e) {
-			e.printStackTrace();
 		}
-		return false;
+		return true;
 	}
 	
 	/**
-	 * Funckja do obliczenia HashCode dla Macierzy
+	 * Funkcja porównująca dwa ciągłe fragmenty tablic długości n. Arrays.mismatch porównuje bity
+	 * (NaN równe NaN), więc różnica znaleziona przez nią jest sprawdzana jeszcze raz jako liczby (0.0 i -0.0)
+	 */
+	private static boolean rowEquals(double[] x, int p, double[] y, int q, int n) {
+		while(n > 0) {
+			int k = Arrays.mismatch(x, p, p+n, y, q, q+n);
+			if(k < 0) return true;
+			if(x[p+k] != y[q+k]) return false;
+			p = p+k+1;
+			q = q+k+1;
+			n = n-k-1;
+		}
+		return true;
+	}
+	
+	/**
+	 * Funckja do obliczenia HashCode dla Macierzy z bitów wszystkich elementów (-0.0 jak 0.0, każde NaN jednakowo),
+	 * wymieszanych mnożeniem 64 bitowym. Dla macierzy zamrożonej hash liczony jest raz i zapamiętywany.
 	 * @return int
 	 */
 	@Override
 	public int hashCode() {
-		long a = 0;
-		for(int i=0; i<this.height; i++) {
-			for(int j=0; j<this.length; j++) {
-				a = a + (long)(this.length*this.height*matrix[i][j]);
+		int h = hash;
+		if(h != 0 || hashIsZero) return h;
+		long a = 31L*height + length;
+		for(int i=0; i<height; i++) {
+			int row = offset+i*stride;
+			for(int j=0; j<length; j++) {
+				a = (a + Double.doubleToLongBits(data[row+j*colStride] + 0.0))*0x9E3779B97F4A7C15L;
+				a = a ^ (a >>> 29);
+			}
+		}
+		a = (a ^ (a >>> 33))*0xFF51AFD7ED558CCDL;
+		a = a ^ (a >>> 33);
+		h = (int)(a ^ (a >>> 32));
+		if(frozen) {
+			if(h == 0) hashIsZero = true;
+			else hash = h;
+		}
+		return h;
+	}
+	
+	/**
+	 * Funkcja sprawdzająca czy macierz jest kwadratowa i symetryczna (dokładnie, bez tolerancji).
+	 * Kończy przy pierwszej różnicy, więc dla zwykłych macierzy niesymetrycznych kosztuje kilka porównań.
+	 * @param a Macierz do sprawdzenia
+	 * @return boolean
+	 */
+	public static boolean isSymmetric(Macierz a) {
+		if(a.height != a.length) return false;
+		double[] x = a.data;
+		int s = a.stride, c = a.colStride;
+		for(int ib=0; ib<a.height; ib+=TRANSPOSE_TILE) {
+			int ie = Math.min(ib+TRANSPOSE_TILE, a.height);
+			for(int jb=0; jb<=ib; jb+=TRANSPOSE_TILE) {
+				int je = Math.min(jb+TRANSPOSE_TILE, a.height);
+				for(int i=ib; i<ie; i++) {
+					int p = a.offset+i*s, q = a.offset+i*c;
+					for(int j=jb; j<Math.min(je, i); j++) {
+						if(x[p+j*c] != x[q+j*s]) return false;
+					}
+				}
 			}
 		}
-		return (int) a;
+		return true;
+	}
+	
+	/**
+	 * Funkcja zwracająca rozkład Choleskiego, gdy macierz jest symetryczna i dodatnio określona, w przeciwnym razie null.
+	 * Najpierw sprawdzana jest dodatniość przekątnej (warunek konieczny) i symetria, oba kosztują O(n^2)
+	 * i zwykle kończą się po kilku porównaniach, dopiero potem rozkład, przerywany przy ujemnym piwocie.
+	 */
+	private static CholeskyDecomposition cholesky(Macierz a) throws MatrixSizeException {
+		if(a.height != a.length) return null;
+		for(int i=0; i<a.height; i++) {
+			if(!(a.data[a.offset+i*a.stride+i*a.colStride] > 0)) return null;
+		}
+		if(!isSymmetric(a)) return null;
+		try {
+			return new CholeskyDecomposition(a);
+		} catch(ArithmeticException e) {
+			return null;
+		}
 	}
 	
 	/**
-	 * Funkcja do obliczania wyznacznika macierzy
+	 * Funkcja do obliczania wyznacznika macierzy. Dla macierzy symetrycznej dodatnio określonej używany jest
+	 * rozkład Choleskiego (dwa razy mniej działań), dla pozostałych rozkład LU, iloczyn przekątnej U razy znak permutacji
 	 * @param a Macierz z której obliczyc wyznacznik
 	 * @return double
 	 * @throws MatrixSizeException Gdy podana macierz nie jest kwadratowa
 	 */
 	public static double determinant(Macierz a) throws MatrixSizeException{
-		if(a.length != a.height) throw new MatrixSizeException(String.format("Size %d x %d not square", a.height, a.length));
-		if(a == null || a.length == 0) return 1;
-		double ret = 0;
-		double[][] tmp = new double[a.height-1][a.length-1];
-		int p = 0;
-		for(int i=0; i<a.height; i++) {
-			p = 0;
-			for(int j=0; j<a.height; j++) {
-				if(j==i) {
-					p = 1;
-					continue;
-				}
-				for(int k=1; k<a.length; k++) {
-					tmp[j-p][k-1] = a.matrix[j][k];
-				}
-			}
-			p = ((i+1)%2 == 0) ? -1 : 1;
-			ret = ret + p*a.matrix[i][0]*determinant(new Macierz(a.height-1, a.length-1, tmp));
-		}
-		return ret;
+		if(a.height != a.length) throw new MatrixSizeException(String.format("Size %d x %d not square", a.height, a.length));
+		if(a.length == 0) return 1;
+		long start = Metrics.start();
+		CholeskyDecomposition c = cholesky(a);
+		double det = c != null ? c.determinant() : new LUDecomposition(a).determinant();
+		Metrics.end(start, Metrics.Operation.DETERMINANT, a.height, a.length, (c != null ? 1.0 : 2.0)*a.length*a.length*a.length/3, 0);
+		return det;
+	}
+	
+	/**
+	 * Funkcja do obliczania logarytmu wartości bezwzględnej wyznacznika, odporna na przepełnienie dla dużych macierzy
+	 * @param a Macierz z której obliczyc wyznacznik
+	 * @return double[] 0 - znak wyznacznika (-1, 0 lub 1), 1 - logarytm naturalny z |det|
+	 * @throws MatrixSizeException Gdy podana macierz nie jest kwadratowa
+	 */
+	public static double[] logDeterminant(Macierz a) throws MatrixSizeException{
+		if(a.height != a.length) throw new MatrixSizeException(String.format("Size %d x %d not square", a.height, a.length));
+		if(a.length == 0) return new double[] {1, 0};
+		long start = Metrics.start();
+		CholeskyDecomposition c = cholesky(a);
+		double[] det = c != null ? c.logDeterminant() : new LUDecomposition(a).logDeterminant();
+		Metrics.end(start, Metrics.Operation.DETERMINANT, a.height, a.length, (c != null ? 1.0 : 2.0)*a.length*a.length*a.length/3, 0);
+		return det;
 	}
 	
 	/**
@@ -472,128 +1075,156 @@ public class Macierz {
 	 * @throws MatrixSizeException Gdy nie zgadzają się wymiary mnożenia
 	 */
 	public static Macierz transpose(Macierz a) throws MatrixSizeException{
-		double[][] ret = new double[a.length][a.height];
-		for(int i=0; i<a.height; i++) {
-			for(int j=0; j<a.length; j++) {
-				ret[j][i] = a.matrix[i][j];
+		long start = Metrics.start();
+		Macierz ret = new Macierz(a.length, a.height);
+		transposeElements(a, ret);
+		Metrics.end(start, Metrics.Operation.TRANSPOSE, a.height, a.length, 0, 8L*ret.height*ret.length);
+		return ret;
+	}
+	
+	/**
+	 * Funkcja do transponowania macierzy z zapisem wyniku do podanej macierzy, bez alokacji.
+	 * Macierz dzielona jest na kafelki TRANSPOSE_TILE x TRANSPOSE_TILE, tak by czytany i zapisywany kafelek
+	 * mieściły się w pamięci podręcznej, a na wątki dzielony jest dłuższy wymiar, więc także macierze
+	 * wysokie i wąskie (lub niskie i szerokie) liczone są równolegle.
+	 * @param a Macierz do transponowania
+	 * @param dst Macierz do której zapisać wynik, nie może nakładać się z a, chyba że jest tą samą macierzą kwadratową
+	 * @throws MatrixSizeException Gdy wymiary macierzy wynikowej nie są odwrotne do wymiarów a
+	 */
+	public static void transposeInto(Macierz a, Macierz dst) throws MatrixSizeException{
+		if(dst.height != a.length || dst.length != a.height) throw new MatrixSizeException(String.format("Incorrect size of destination %d x %d for %d x %d", dst.height, dst.length, a.length, a.height));
+		checkWritable(dst);
+		if(overlaps(a, dst)) {
+			if(sameView(a, dst)) {
+				transposeInPlace(a);
+				return;
 			}
+			throw new IllegalArgumentException("Destination shares data with argument");
 		}
-		return new Macierz(a.length, a.height, ret);
+		long start = Metrics.start();
+		transposeElements(a, dst);
+		Metrics.end(start, Metrics.Operation.TRANSPOSE, a.height, a.length, 0, 0);
 	}
 	
 	/**
-	 * Funkcja do oblicenia macierzy odwrotnej korzystając z rozkładu LU
-	 * @param a Macierz do odwrócenia
-	 * @return Macierz odwrotna
-	 * @throws MatrixSizeException Gdy macierz nie jest kwadratowa
-	 * @throws MatrixIndexOutOfBoundsException Gdy kolumna jest po za zakresem
+	 * Funkcja transponująca macierz do macierzy o odwrotnych wymiarach, bez sprawdzania i pomiaru
 	 */
-	public static Macierz inverse(Macierz a) throws MatrixSizeException, MatrixIndexOutOfBoundsException{
-		if(a.length != a.height) throw new MatrixSizeException(String.format("Size %d x %d not square", a.height, a.length));
-		double[][] res = new double[a.height][a.length];
-		Macierz[] lup = partialLU(a);
-		Macierz tmp = new Macierz(a.height, 1), y;
-		for(int i=0; i<a.length; i++) {
-			tmp = lup[2].getColumn(i);
-			y = forwardRow(lup[0], tmp);
-			tmp = backwardRow(lup[1], y);
-			for(int j=0; j<a.height; j++) res[j][i] = tmp.matrix[j][0];
+	private static void transposeElements(Macierz a, Macierz dst) {
+		int n = a.height, m = a.length;
+		if(n >= m) {
+			if(Parallel.isSequential(n, TRANSPOSE_TILE, m)) transposeBlock(a, dst, 0, n, 0, m);
+			else Parallel.forRange(0, n, TRANSPOSE_TILE, m, (from, to) -> transposeBlock(a, dst, from, to, 0, m));
+		} else {
+			if(Parallel.isSequential(m, TRANSPOSE_TILE, n)) transposeBlock(a, dst, 0, n, 0, m);
+			else Parallel.forRange(0, m, TRANSPOSE_TILE, n, (from, to) -> transposeBlock(a, dst, 0, n, from, to));
 		}
-		return new Macierz(a.height, a.length, res);
 	}
 	
 	/**
-	 * Funkcja do wykonania podstawiania w przód
-	 * @param a Macierz współczynników
-	 * @param b Macierz wyrazów wolnych
-	 * @return Macierz rozwiązań
+	 * Funkcja transponująca blok [i0, i1) x [j0, j1) macierzy a do macierzy dst kafelkami
 	 */
-	private static Macierz forwardRow(Macierz a, Macierz b) {
-		Macierz x = new Macierz(a.height, 1);
-		x.matrix[0][0] = b.matrix[0][0]/a.matrix[0][0];
-		double t = 0;
-		int n = a.length;
-		
-		for(int i=1; i<n; i++) {
-			t = 0;
-			for(int j=0; j<i; j++) t = t + x.matrix[j][0]*a.matrix[i][j];
-			x.matrix[i][0] = (b.matrix[i][0] - t)/a.matrix[i][i];
+	private static void transposeBlock(Macierz a, Macierz dst, int i0, int i1, int j0, int j1) {
+		double[] r = dst.data, x = a.data;
+		int sa = a.stride, ca = a.colStride, sd = dst.stride, cd = dst.colStride;
+		for(int ib=i0; ib<i1; ib+=TRANSPOSE_TILE) {
+			int ie = Math.min(ib+TRANSPOSE_TILE, i1);
+			for(int jb=j0; jb<j1; jb+=TRANSPOSE_TILE) {
+				int je = Math.min(jb+TRANSPOSE_TILE, j1);
+				if(ca == 1 && cd == 1) {
+					for(int j=jb; j<je; j++) {
+						int ir = dst.offset+j*sd, ia = a.offset+j;
+						for(int i=ib; i<ie; i++) r[ir+i] = x[ia+i*sa];
+					}
+				} else {
+					for(int j=jb; j<je; j++) {
+						int ir = dst.offset+j*sd, ia = a.offset+j*ca;
+						for(int i=ib; i<ie; i++) r[ir+i*cd] = x[ia+i*sa];
+					}
+				}
+			}
 		}
-		return x;
 	}
 	
 	/**
-	 * Funkcja do wykonania podstawiania w tył
-	 * @param a Macierz współczynników
-	 * @param b Macierz wyrazów wolnych
-	 * @return Macierz rozwiązań
+	 * Funkcja transponująca macierz kwadratową w miejscu, bez dodatkowej pamięci.
+	 * Kafelki nad przekątną zamieniane są z odpowiadającymi im kafelkami pod przekątną,
+	 * pasy kafelków dzielone są na wątki dla dużych macierzy.
+	 * @param a Macierz kwadratowa do transponowania, może być widokiem
+	 * @throws MatrixSizeException Gdy macierz nie jest kwadratowa
+	 */
+	public static void transposeInPlace(Macierz a) throws MatrixSizeException{
+		if(a.height != a.length) throw new MatrixSizeException(String.format("Size %d x %d not square", a.height, a.length));
+		checkWritable(a);
+		long start = Metrics.start();
+		int n = a.height;
+		if(Parallel.isSequential(n, TRANSPOSE_TILE, n/2)) transposeSwap(a, 0, n);
+		else Parallel.forRange(0, n, TRANSPOSE_TILE, n/2, (from, to) -> transposeSwap(a, from, to));
+		Metrics.end(start, Metrics.Operation.TRANSPOSE, n, n, 0, 0);
+	}
+	
+	/**
+	 * Funkcja zamieniająca kafelki z pasa wierszy [from, to) leżące na i nad przekątną z kafelkami symetrycznymi
 	 */
-	private static Macierz backwardRow(Macierz a, Macierz b) {
-		Macierz x = new Macierz(a.height, 1);
-		int n = a.length;
-		x.matrix[n-1][0] = b.matrix[n-1][0]/a.matrix[n-1][n-1];
-		double t = 0;
-		
-		for(int i=n-1; i>=0; i--) {
-			t = 0;
-			for(int j=n-1; j>i; j--) t = t + x.matrix[j][0]*a.matrix[i][j];
-			x.matrix[i][0] = (b.matrix[i][0] - t)/a.matrix[i][i];
-		}
-		return x;
-	}
-	
-	/**
-	 * Funkcja do wykonania rozkładu LU z częsciowym wyborem elementów
-	 * @param a Macierz na której wykonac rozkład
-	 * @return Macierz[] 0 - L, 1 - U, 2 - P
-	 * @throws MatrixSizeException Gdy nie zgadzają się wymairy macierzy
-	 * @throws MatrixIndexOutOfBoundsException Gdy dany indeks jest po za wymiarami macierzy
-	 */
-	private static Macierz[] partialLU(Macierz a) throws MatrixSizeException, MatrixIndexOutOfBoundsException{
-		Macierz[] lup = new Macierz[3];
-		Macierz u = Macierz.copyOf(a);
-		int n = a.length;
-		Macierz l = new Macierz(n, n, "identity");
-		Macierz p = new Macierz(n, n, "identity");
-		int swap = 1;
-		double piwot = 0, b = 0;
-		
-		for(int i=0; i<n-1; i++) {
-			// Wybór piwota
-			piwot = u.matrix[i][i];
-			swap = 0;
-			for(int k=i; k<n; k++) {
-				if(Math.abs(u.matrix[k][i]) > Math.abs(piwot)) {
-					piwot = u.matrix[k][i];
-					swap = k;
+	private static void transposeSwap(Macierz a, int from, int to) {
+		double[] x = a.data;
+		int n = a.height, s = a.stride, c = a.colStride;
+		for(int ib=from; ib<to; ib+=TRANSPOSE_TILE) {
+			int ie = Math.min(ib+TRANSPOSE_TILE, to);
+			for(int jb=ib; jb<n; jb+=TRANSPOSE_TILE) {
+				int je = Math.min(jb+TRANSPOSE_TILE, n);
+				for(int i=ib; i<ie; i++) {
+					int p = a.offset+i*s, q = a.offset+i*c;
+					for(int j=Math.max(jb, i+1); j<je; j++) {
+						double t = x[p+j*c];
+						x[p+j*c] = x[q+j*s];
+						x[q+j*s] = t;
+					}
 				}
 			}
-			
-			// Permutacja
-			u.swapRow(swap, i);
-			p.swapRow(i, swap);
-			
-			// Wyzerowanie elementów
-			for(int k=i+1; k<n; k++) {
-				b = -u.matrix[k][i]/piwot;
-				for(int j=i; j<n; j++) u.matrix[k][j] = u.matrix[k][j] + b*u.matrix[i][j];
-				u.matrix[k][i] = -b;
-			}
 		}
-		
-		// Split
-		for(int i=1; i<n; i++) {
-			for(int j=0; j<i; j++) {
-				l.matrix[i][j] = u.matrix[i][j];
-				u.matrix[i][j] = 0;
-			}
+	}
+	
+	/**
+	 * Funkcja do oblicenia macierzy odwrotnej korzystając z rozkładu Choleskiego dla macierzy symetrycznej
+	 * dodatnio określonej, a w pozostałych przypadkach z rozkładu LU
+	 * @param a Macierz do odwrócenia
+	 * @return Macierz odwrotna
+	 * @throws MatrixSizeException Gdy macierz nie jest kwadratowa
+	 * @throws MatrixIndexOutOfBoundsException Gdy kolumna jest po za zakresem
+	 * @throws ArithmeticException Gdy macierz jest osobliwa (wcześniej wynik zawierał Inf i NaN)
+	 */
+	public static Macierz inverse(Macierz a) throws MatrixSizeException, MatrixIndexOutOfBoundsException{
+		long start = Metrics.start();
+		CholeskyDecomposition c = cholesky(a);
+		Macierz ret = c != null ? c.inverse() : new LUDecomposition(a).inverse();
+		double n = a.length;
+		Metrics.end(start, Metrics.Operation.INVERSE, a.height, a.length, c != null ? 5*n*n*n/3 : 2*n*n*n, 8L*a.length*a.length);
+		return ret;
+	}
+	
+	/**
+	 * Funkcja rozwiązująca układ równań AX = B bez liczenia macierzy odwrotnej. Rozkład wybierany jest według budowy A:
+	 * Cholesky dla macierzy symetrycznej dodatnio określonej, LU dla pozostałych kwadratowych,
+	 * a dla macierzy wysokiej (więcej wierszy niż kolumn) QR i rozwiązanie w sensie najmniejszych kwadratów
+	 * @param a Macierz współczynników
+	 * @param b Macierz wyrazów wolnych, może mieć wiele kolumn
+	 * @return Macierz rozwiązań
+	 * @throws MatrixSizeException Gdy macierz ma mniej wierszy niż kolumn lub wymiary się nie zgadzają
+	 * @throws ArithmeticException Gdy macierz kwadratowa jest osobliwa lub macierz wysoka nie ma pełnego rzędu
+	 */
+	public static Macierz solve(Macierz a, Macierz b) throws MatrixSizeException{
+		long start = Metrics.start();
+		Macierz ret;
+		double n = a.length, m = a.height, q = b.length;
+		if(a.height > a.length) {
+			ret = new QRDecomposition(a).solve(b);
+			Metrics.end(start, Metrics.Operation.SOLVE, a.height, b.length, 2*m*n*n - 2*n*n*n/3 + 4*m*n*q, 8L*b.height*b.length);
+			return ret;
 		}
-		
-		lup[0] = Macierz.copyOf(l);
-		lup[1] = Macierz.copyOf(u);
-		lup[2] = Macierz.copyOf(p);
-		
-		return lup;
+		CholeskyDecomposition c = cholesky(a);
+		ret = c != null ? c.solve(b) : new LUDecomposition(a).solve(b);
+		Metrics.end(start, Metrics.Operation.SOLVE, a.height, b.length, (c != null ? n*n*n/3 : 2*n*n*n/3) + 2*n*n*q, 8L*b.height*b.length);
+		return ret;
 	}
 	
 	/**
@@ -602,12 +1233,43 @@ public class Macierz {
 	 * @return Macierz kopia macierzy
 	 */
 	public static Macierz copyOf(Macierz a) {
+		long start = Metrics.start();
 		Macierz res = new Macierz(a.height, a.length);
+		copyElements(a, res);
+		Metrics.end(start, Metrics.Operation.COPY, a.height, a.length, 0, 8L*res.height*res.length);
+		return res;
+	}
+	
+	/**
+	 * Funkcja do skopiowania zawartości macierzy do innej macierzy, bez alokacji
+	 * @param a Macierz do kopiowania
+	 * @param dst Macierz do której skopiować wartości, może nakładać się z a
+	 * @throws MatrixSizeException Gdy wymiary macierzy się nie zgadzają
+	 */
+	public static void copyInto(Macierz a, Macierz dst) throws MatrixSizeException {
+		checkSameSize(a, dst);
+		checkWritable(dst);
+		long start = Metrics.start();
+		copyElements(a, dst);
+		Metrics.end(start, Metrics.Operation.COPY, a.height, a.length, 0, 0);
+	}
+	
+	/**
+	 * Funkcja kopiująca wartości macierzy o tych samych wymiarach, bez sprawdzania i pomiaru
+	 */
+	private static void copyElements(Macierz a, Macierz dst) {
+		if(sameView(a, dst)) return;
+		if(overlaps(a, dst)) {
+			// Kopia źródła, żeby zapis nie nadpisał jeszcze nieskopiowanych elementów
+			Macierz tmp = new Macierz(a.height, a.length);
+			copyElements(a, tmp);
+			a = tmp;
+		}
+		int ca = a.colStride, cr = dst.colStride;
 		for(int i=0; i<a.height; i++) {
-			for(int j=0; j<a.length; j++) {
-				res.matrix[i][j] = a.matrix[i][j];
-			}
+			int ia = a.offset+i*a.stride, ir = dst.offset+i*dst.stride;
+			if(ca == 1 && cr == 1) System.arraycopy(a.data, ia, dst.data, ir, a.length);
+			else for(int j=0; j<a.length; j++) dst.data[ir+j*cr] = a.data[ia+j*ca];
 		}
-		return res;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,262 @@
+package macierze;
+
+/**
+ * Klasa macierzy 2x2 z rozwiniętymi działaniami, bez tablic i sprawdzania wymiarów.
+ * Wyznacznik i odwrotność liczone są wzorami jawnymi. Funkcje ...Into pozwalają,
+ * by macierz wynikowa była jednym z argumentów.
+ */
+
+public final class Macierz2 {
+	
+	private double m00, m01;
+	private double m10, m11;
+	
+	/**
+	 * Konstruktor macierzy zerowej 2x2
+	 */
+	public Macierz2() {}
+	
+	/**
+	 * Konstruktor macierzy 2x2 z podanych wartości, podawanych wierszami
+	 */
+	public Macierz2(double m00, double m01,
+			double m10, double m11) {
+		this.m00 = m00; this.m01 = m01;
+		this.m10 = m10; this.m11 = m11;
+	}
+	
+	/**
+	 * Funkcja tworząca macierz jednostkową 2x2
+	 * @return Macierz2
+	 */
+	public static Macierz2 identity() {
+		return new Macierz2(1, 0, 0, 1);
+	}
+	
+	/**
+	 * Funkcja tworząca macierz 2x2 z macierzy Macierz
+	 * @param a Macierz o wymiarach 2x2
+	 * @return Macierz2
+	 * @throws MatrixSizeException Gdy macierz nie jest 2x2
+	 */
+	public static Macierz2 fromMacierz(Macierz a) throws MatrixSizeException {
+		if(a.getHeight() != 2 || a.getLength() != 2) throw new MatrixSizeException(String.format("Incorrect size %d x %d, expected 2 x 2", a.getHeight(), a.getLength()));
+		double[] d = a.data();
+		int r0 = a.offset(), r1 = r0+a.stride(), c = a.colStride();
+		return new Macierz2(d[r0], d[r0+c],
+				d[r1], d[r1+c]);
+	}
+	
+	/**
+	 * Funkcja zwracająca kopię jako Macierz
+	 * @return Macierz
+	 */
+	public Macierz toMacierz() {
+		return new Macierz(2, 2, new double[] {m00, m01, m10, m11}, 0, 2);
+	}
+	
+	/**
+	 * Funkcja zwracająca element (i, j)
+	 * @param i Wiersz
+	 * @param j Kolumna
+	 * @return double
+	 * @throws MatrixIndexOutOfBoundsException Gdy pozycja jest po za wymiarami
+	 */
+	public double get(int i, int j) throws MatrixIndexOutOfBoundsException {
+		if(i < 0 || i > 1 || j < 0 || j > 1) throw new MatrixIndexOutOfBoundsException(String.format("Index %d or %d out of bound for size 2 x 2", i, j));
+		switch(2*i+j) {
+			case 0: return m00;
+			case 1: return m01;
+			case 2: return m10;
+			default: return m11;
+		}
+	}
+	
+	/**
+	 * Funkcja ustawiająca element (i, j)
+	 * @param i Wiersz
+	 * @param j Kolumna
+	 * @param v Wartość
+	 * @throws MatrixIndexOutOfBoundsException Gdy pozycja jest po za wymiarami
+	 */
+	public void set(int i, int j, double v) throws MatrixIndexOutOfBoundsException {
+		if(i < 0 || i > 1 || j < 0 || j > 1) throw new MatrixIndexOutOfBoundsException(String.format("Index %d or %d out of bound for size 2 x 2", i, j));
+		switch(2*i+j) {
+			case 0: m00 = v; break;
+			case 1: m01 = v; break;
+			case 2: m10 = v; break;
+			default: m11 = v;
+		}
+	}
+	
+	/**
+	 * Funkcja obliczająca y = A*x, x i y mogą być tą samą tablicą
+	 * @param x Wektor o długości 2
+	 * @param y Wektor wynikowy o długości 2
+	 */
+	public void multiply(double[] x, double[] y) {
+		double x0 = x[0], x1 = x[1];
+		y[0] = m00*x0 + m01*x1;
+		y[1] = m10*x0 + m11*x1;
+	}
+	
+	/**
+	 * Funkcja dodająca dwie macierze
+	 * @param a Pierwsza macierz
+	 * @param b Druga macierz
+	 * @return Macierz2
+	 */
+	public static Macierz2 add(Macierz2 a, Macierz2 b) {
+		return new Macierz2(a.m00+b.m00, a.m01+b.m01,
+				a.m10+b.m10, a.m11+b.m11);
+	}
+	
+	/**
+	 * Funkcja odejmująca dwie macierze
+	 * @param a Pierwsza macierz
+	 * @param b Druga macierz
+	 * @return Macierz2
+	 */
+	public static Macierz2 subtract(Macierz2 a, Macierz2 b) {
+		return new Macierz2(a.m00-b.m00, a.m01-b.m01,
+				a.m10-b.m10, a.m11-b.m11);
+	}
+	
+	/**
+	 * Funkcja mnożąca macierz przez skalar
+	 * @param a Skalar
+	 * @param b Macierz
+	 * @return Macierz2
+	 */
+	public static Macierz2 product(double a, Macierz2 b) {
+		return new Macierz2(a*b.m00, a*b.m01,
+				a*b.m10, a*b.m11);
+	}
+	
+	/**
+	 * Funkcja mnożąca dwie macierze
+	 * @param a Pierwsza macierz
+	 * @param b Druga macierz
+	 * @return Macierz2
+	 */
+	public static Macierz2 product(Macierz2 a, Macierz2 b) {
+		Macierz2 ret = new Macierz2();
+		productInto(a, b, ret);
+		return ret;
+	}
+	
+	/**
+	 * Funkcja mnożąca dwie macierze z zapisem wyniku do dst, dst może być a lub b
+	 * @param a Pierwsza macierz
+	 * @param b Druga macierz
+	 * @param dst Macierz wynikowa
+	 */
+	public static void productInto(Macierz2 a, Macierz2 b, Macierz2 dst) {
+		double r00 = a.m00*b.m00 + a.m01*b.m10;
+		double r01 = a.m00*b.m01 + a.m01*b.m11;
+		double r10 = a.m10*b.m00 + a.m11*b.m10;
+		double r11 = a.m10*b.m01 + a.m11*b.m11;
+		dst.m00 = r00; dst.m01 = r01;
+		dst.m10 = r10; dst.m11 = r11;
+	}
+	
+	/**
+	 * Funkcja do transponowania macierzy
+	 * @param a Macierz do transponowania
+	 * @return Macierz2 transponowana
+	 */
+	public static Macierz2 transpose(Macierz2 a) {
+		return new Macierz2(a.m00, a.m10,
+				a.m01, a.m11);
+	}
+	
+	/**
+	 * Funkcja obliczająca wyznacznik
+	 * @param a Macierz
+	 * @return double
+	 */
+	public static double determinant(Macierz2 a) {
+		return a.m00*a.m11 - a.m01*a.m10;
+	}
+	
+	/**
+	 * Funkcja obliczająca macierz odwrotną
+	 * @param a Macierz do odwrócenia
+	 * @return Macierz2 odwrotna
+	 * @throws ArithmeticException Gdy macierz jest osobliwa
+	 */
+	public static Macierz2 inverse(Macierz2 a) {
+		Macierz2 ret = new Macierz2();
+		inverseInto(a, ret);
+		return ret;
+	}
+	
+	/**
+	 * Funkcja obliczająca macierz odwrotną z zapisem do dst, dst może być a.
+	 * Odwrotność to macierz dołączona podzielona przez wyznacznik.
+	 * @param a Macierz do odwrócenia
+	 * @param dst Macierz wynikowa
+	 * @throws ArithmeticException Gdy macierz jest osobliwa
+	 */
+	public static void inverseInto(Macierz2 a, Macierz2 dst) {
+		double det = determinant(a);
+		if(det == 0 || !Double.isFinite(det)) throw new ArithmeticException("Matrix is singular");
+		double inv = 1/det;
+		double r00 = a.m11*inv, r01 = -a.m01*inv;
+		double r10 = -a.m10*inv, r11 = a.m00*inv;
+		dst.m00 = r00; dst.m01 = r01;
+		dst.m10 = r10; dst.m11 = r11;
+	}
+	
+	/**
+	 * Funkcja zwracająca widok String macierzy
+	 * @return String
+	 */
+	@Override
+	public String toString() {
+		return toMacierz().toString();
+	}
+	
+	/**
+	 * Funkcja sprawdzająca czy dana macierz jest równa aktualnej
+	 * @param b Macierz do porównania
+	 * @return boolean
+	 */
+	@Override
+	public boolean equals(Object b) {
+		if(this == b) return true;
+		if(!(b instanceof Macierz2)) return false;
+		Macierz2 a = (Macierz2)b;
+		return same(a.m00, m00) && same(a.m01, m01)
+				&& same(a.m10, m10) && same(a.m11, m11);
+	}
+	
+	/**
+	 * Funckja do obliczenia HashCode dla macierzy
+	 * @return int
+	 */
+	@Override
+	public int hashCode() {
+		int h = 2;
+		h = 31*h + hash(m00);
+		h = 31*h + hash(m01);
+		h = 31*h + hash(m10);
+		h = 31*h + hash(m11);
+		return h;
+	}
+	
+	/**
+	 * Funkcja porównująca wartości tak jak hash: -0.0 równe 0.0, NaN równe NaN
+	 */
+	static boolean same(double x, double y) {
+		return Double.doubleToLongBits(x + 0.0) == Double.doubleToLongBits(y + 0.0);
+	}
+	
+	/**
+	 * Funkcja haszująca wartość, -0.0 i 0.0 mają ten sam hash, bo są równe w equals
+	 */
+	static int hash(double v) {
+		long bits = Double.doubleToLongBits(v + 0.0);
+		return (int)(bits ^ (bits >>> 32));
+	}
+}
@@ -0,0 +1,285 @@
+package macierze;
+
+/**
+ * Klasa macierzy 3x3 z rozwiniętymi działaniami, bez tablic i sprawdzania wymiarów.
+ * Wyznacznik i odwrotność liczone są wzorami jawnymi. Funkcje ...Into pozwalają,
+ * by macierz wynikowa była jednym z argumentów.
+ */
+
+public final class Macierz3 {
+	
+	private double m00, m01, m02;
+	private double m10, m11, m12;
+	private double m20, m21, m22;
+	
+	/**
+	 * Konstruktor macierzy zerowej 3x3
+	 */
+	public Macierz3() {}
+	
+	/**
+	 * Konstruktor macierzy 3x3 z podanych wartości, podawanych wierszami
+	 */
+	public Macierz3(double m00, double m01, double m02,
+			double m10, double m11, double m12,
+			double m20, double m21, double m22) {
+		this.m00 = m00; this.m01 = m01; this.m02 = m02;
+		this.m10 = m10; this.m11 = m11; this.m12 = m12;
+		this.m20 = m20; this.m21 = m21; this.m22 = m22;
+	}
+	
+	/**
+	 * Funkcja tworząca macierz jednostkową 3x3
+	 * @return Macierz3
+	 */
+	public static Macierz3 identity() {
+		return new Macierz3(1, 0, 0, 0, 1, 0, 0, 0, 1);
+	}
+	
+	/**
+	 * Funkcja tworząca macierz 3x3 z macierzy Macierz
+	 * @param a Macierz o wymiarach 3x3
+	 * @return Macierz3
+	 * @throws MatrixSizeException Gdy macierz nie jest 3x3
+	 */
+	public static Macierz3 fromMacierz(Macierz a) throws MatrixSizeException {
+		if(a.getHeight() != 3 || a.getLength() != 3) throw new MatrixSizeException(String.format("Incorrect size %d x %d, expected 3 x 3", a.getHeight(), a.getLength()));
+		double[] d = a.data();
+		int r0 = a.offset(), r1 = r0+a.stride(), r2 = r1+a.stride(), c = a.colStride();
+		return new Macierz3(d[r0], d[r0+c], d[r0+2*c],
+				d[r1], d[r1+c], d[r1+2*c],
+				d[r2], d[r2+c], d[r2+2*c]);
+	}
+	
+	/**
+	 * Funkcja zwracająca kopię jako Macierz
+	 * @return Macierz
+	 */
+	public Macierz toMacierz() {
+		return new Macierz(3, 3, new double[] {m00, m01, m02, m10, m11, m12, m20, m21, m22}, 0, 3);
+	}
+	
+	/**
+	 * Funkcja zwracająca element (i, j)
+	 * @param i Wiersz
+	 * @param j Kolumna
+	 * @return double
+	 * @throws MatrixIndexOutOfBoundsException Gdy pozycja jest po za wymiarami
+	 */
+	public double get(int i, int j) throws MatrixIndexOutOfBoundsException {
+		if(i < 0 || i > 2 || j < 0 || j > 2) throw new MatrixIndexOutOfBoundsException(String.format("Index %d or %d out of bound for size 3 x 3", i, j));
+		switch(3*i+j) {
+			case 0: return m00;
+			case 1: return m01;
+			case 2: return m02;
+			case 3: return m10;
+			case 4: return m11;
+			case 5: return m12;
+			case 6: return m20;
+			case 7: return m21;
+			default: return m22;
+		}
+	}
+	
+	/**
+	 * Funkcja ustawiająca element (i, j)
+	 * @param i Wiersz
+	 * @param j Kolumna
+	 * @param v Wartość
+	 * @throws MatrixIndexOutOfBoundsException Gdy pozycja jest po za wymiarami
+	 */
+	public void set(int i, int j, double v) throws MatrixIndexOutOfBoundsException {
+		if(i < 0 || i > 2 || j < 0 || j > 2) throw new MatrixIndexOutOfBoundsException(String.format("Index %d or %d out of bound for size 3 x 3", i, j));
+		switch(3*i+j) {
+			case 0: m00 = v; break;
+			case 1: m01 = v; break;
+			case 2: m02 = v; break;
+			case 3: m10 = v; break;
+			case 4: m11 = v; break;
+			case 5: m12 = v; break;
+			case 6: m20 = v; break;
+			case 7: m21 = v; break;
+			default: m22 = v;
+		}
+	}
+	
+	/**
+	 * Funkcja obliczająca y = A*x, x i y mogą być tą samą tablicą
+	 * @param x Wektor o długości 3
+	 * @param y Wektor wynikowy o długości 3
+	 */
+	public void multiply(double[] x, double[] y) {
+		double x0 = x[0], x1 = x[1], x2 = x[2];
+		y[0] = m00*x0 + m01*x1 + m02*x2;
+		y[1] = m10*x0 + m11*x1 + m12*x2;
+		y[2] = m20*x0 + m21*x1 + m22*x2;
+	}
+	
+	/**
+	 * Funkcja dodająca dwie macierze
+	 * @param a Pierwsza macierz
+	 * @param b Druga macierz
+	 * @return Macierz3
+	 */
+	public static Macierz3 add(Macierz3 a, Macierz3 b) {
+		return new Macierz3(a.m00+b.m00, a.m01+b.m01, a.m02+b.m02,
+				a.m10+b.m10, a.m11+b.m11, a.m12+b.m12,
+				a.m20+b.m20, a.m21+b.m21, a.m22+b.m22);
+	}
+	
+	/**
+	 * Funkcja odejmująca dwie macierze
+	 * @param a Pierwsza macierz
+	 * @param b Druga macierz
+	 * @return Macierz3
+	 */
+	public static Macierz3 subtract(Macierz3 a, Macierz3 b) {
+		return new Macierz3(a.m00-b.m00, a.m01-b.m01, a.m02-b.m02,
+				a.m10-b.m10, a.m11-b.m11, a.m12-b.m12,
+				a.m20-b.m20, a.m21-b.m21, a.m22-b.m22);
+	}
+	
+	/**
+	 * Funkcja mnożąca macierz przez skalar
+	 * @param a Skalar
+	 * @param b Macierz
+	 * @return Macierz3
+	 */
+	public static Macierz3 product(double a, Macierz3 b) {
+		return new Macierz3(a*b.m00, a*b.m01, a*b.m02,
+				a*b.m10, a*b.m11, a*b.m12,
+				a*b.m20, a*b.m21, a*b.m22);
+	}
+	
+	/**
+	 * Funkcja mnożąca dwie macierze
+	 * @param a Pierwsza macierz
+	 * @param b Druga macierz
+	 * @return Macierz3
+	 */
+	public static Macierz3 product(Macierz3 a, Macierz3 b) {
+		Macierz3 ret = new Macierz3();
+		productInto(a, b, ret);
+		return ret;
+	}
+	
+	/**
+	 * Funkcja mnożąca dwie macierze z zapisem wyniku do dst, dst może być a lub b
+	 * @param a Pierwsza macierz
+	 * @param b Druga macierz
+	 * @param dst Macierz wynikowa
+	 */
+	public static void productInto(Macierz3 a, Macierz3 b, Macierz3 dst) {
+		double r00 = a.m00*b.m00 + a.m01*b.m10 + a.m02*b.m20;
+		double r01 = a.m00*b.m01 + a.m01*b.m11 + a.m02*b.m21;
+		double r02 = a.m00*b.m02 + a.m01*b.m12 + a.m02*b.m22;
+		double r10 = a.m10*b.m00 + a.m11*b.m10 + a.m12*b.m20;
+		double r11 = a.m10*b.m01 + a.m11*b.m11 + a.m12*b.m21;
+		double r12 = a.m10*b.m02 + a.m11*b.m12 + a.m12*b.m22;
+		double r20 = a.m20*b.m00 + a.m21*b.m10 + a.m22*b.m20;
+		double r21 = a.m20*b.m01 + a.m21*b.m11 + a.m22*b.m21;
+		double r22 = a.m20*b.m02 + a.m21*b.m12 + a.m22*b.m22;
+		dst.m00 = r00; dst.m01 = r01; dst.m02 = r02;
+		dst.m10 = r10; dst.m11 = r11; dst.m12 = r12;
+		dst.m20 = r20; dst.m21 = r21; dst.m22 = r22;
+	}
+	
+	/**
+	 * Funkcja do transponowania macierzy
+	 * @param a Macierz do transponowania
+	 * @return Macierz3 transponowana
+	 */
+	public static Macierz3 transpose(Macierz3 a) {
+		return new Macierz3(a.m00, a.m10, a.m20,
+				a.m01, a.m11, a.m21,
+				a.m02, a.m12, a.m22);
+	}
+	
+	/**
+	 * Funkcja obliczająca wyznacznik rozwinięciem Laplace'a względem pierwszego wiersza
+	 * @param a Macierz
+	 * @return double
+	 */
+	public static double determinant(Macierz3 a) {
+		return a.m00*(a.m11*a.m22 - a.m12*a.m21)
+				- a.m01*(a.m10*a.m22 - a.m12*a.m20)
+				+ a.m02*(a.m10*a.m21 - a.m11*a.m20);
+	}
+	
+	/**
+	 * Funkcja obliczająca macierz odwrotną
+	 * @param a Macierz do odwrócenia
+	 * @return Macierz3 odwrotna
+	 * @throws ArithmeticException Gdy macierz jest osobliwa
+	 */
+	public static Macierz3 inverse(Macierz3 a) {
+		Macierz3 ret = new Macierz3();
+		inverseInto(a, ret);
+		return ret;
+	}
+	
+	/**
+	 * Funkcja obliczająca macierz odwrotną z zapisem do dst, dst może być a.
+	 * Odwrotność to macierz dołączona (transponowane dopełnienia algebraiczne) podzielona przez wyznacznik.
+	 * @param a Macierz do odwrócenia
+	 * @param dst Macierz wynikowa
+	 * @throws ArithmeticException Gdy macierz jest osobliwa
+	 */
+	public static void inverseInto(Macierz3 a, Macierz3 dst) {
+		double c00 = a.m11*a.m22 - a.m12*a.m21;
+		double c01 = a.m12*a.m20 - a.m10*a.m22;
+		double c02 = a.m10*a.m21 - a.m11*a.m20;
+		double det = a.m00*c00 + a.m01*c01 + a.m02*c02;
+		if(det == 0 || !Double.isFinite(det)) throw new ArithmeticException("Matrix is singular");
+		double inv = 1/det;
+		double r00 = c00*inv, r01 = (a.m02*a.m21 - a.m01*a.m22)*inv, r02 = (a.m01*a.m12 - a.m02*a.m11)*inv;
+		double r10 = c01*inv, r11 = (a.m00*a.m22 - a.m02*a.m20)*inv, r12 = (a.m02*a.m10 - a.m00*a.m12)*inv;
+		double r20 = c02*inv, r21 = (a.m01*a.m20 - a.m00*a.m21)*inv, r22 = (a.m00*a.m11 - a.m01*a.m10)*inv;
+		dst.m00 = r00; dst.m01 = r01; dst.m02 = r02;
+		dst.m10 = r10; dst.m11 = r11; dst.m12 = r12;
+		dst.m20 = r20; dst.m21 = r21; dst.m22 = r22;
+	}
+	
+	/**
+	 * Funkcja zwracająca widok String macierzy
+	 * @return String
+	 */
+	@Override
+	public String toString() {
+		return toMacierz().toString();
+	}
+	
+	/**
+	 * Funkcja sprawdzająca czy dana macierz jest równa aktualnej
+	 * @param b Macierz do porównania
+	 * @return boolean
+	 */
+	@Override
+	public boolean equals(Object b) {
+		if(this == b) return true;
+		if(!(b instanceof Macierz3)) return false;
+		Macierz3 a = (Macierz3)b;
+		return Macierz2.same(a.m00, m00) && Macierz2.same(a.m01, m01) && Macierz2.same(a.m02, m02)
+				&& Macierz2.same(a.m10, m10) && Macierz2.same(a.m11, m11) && Macierz2.same(a.m12, m12)
+				&& Macierz2.same(a.m20, m20) && Macierz2.same(a.m21, m21) && Macierz2.same(a.m22, m22);
+	}
+	
+	/**
+	 * Funckja do obliczenia HashCode dla macierzy
+	 * @return int
+	 */
+	@Override
+	public int hashCode() {
+		int h = 3;
+		h = 31*h + Macierz2.hash(m00);
+		h = 31*h + Macierz2.hash(m01);
+		h = 31*h + Macierz2.hash(m02);
+		h = 31*h + Macierz2.hash(m10);
+		h = 31*h + Macierz2.hash(m11);
+		h = 31*h + Macierz2.hash(m12);
+		h = 31*h + Macierz2.hash(m20);
+		h = 31*h + Macierz2.hash(m21);
+		h = 31*h + Macierz2.hash(m22);
+		return h;
+	}
+}
@@ -0,0 +1,357 @@
+package macierze;
+
+/**
+ * Klasa macierzy 4x4 z rozwiniętymi działaniami, bez tablic i sprawdzania wymiarów.
+ * Wyznacznik i odwrotność liczone są wzorami jawnymi. Funkcje ...Into pozwalają,
+ * by macierz wynikowa była jednym z argumentów.
+ */
+
+public final class Macierz4 {
+	
+	private double m00, m01, m02, m03;
+	private double m10, m11, m12, m13;
+	private double m20, m21, m22, m23;
+	private double m30, m31, m32, m33;
+	
+	/**
+	 * Konstruktor macierzy zerowej 4x4
+	 */
+	public Macierz4() {}
+	
+	/**
+	 * Konstruktor macierzy 4x4 z podanych wartości, podawanych wierszami
+	 */
+	public Macierz4(double m00, double m01, double m02, double m03,
+			double m10, double m11, double m12, double m13,
+			double m20, double m21, double m22, double m23,
+			double m30, double m31, double m32, double m33) {
+		this.m00 = m00; this.m01 = m01; this.m02 = m02; this.m03 = m03;
+		this.m10 = m10; this.m11 = m11; this.m12 = m12; this.m13 = m13;
+		this.m20 = m20; this.m21 = m21; this.m22 = m22; this.m23 = m23;
+		this.m30 = m30; this.m31 = m31; this.m32 = m32; this.m33 = m33;
+	}
+	
+	/**
+	 * Funkcja tworząca macierz jednostkową 4x4
+	 * @return Macierz4
+	 */
+	public static Macierz4 identity() {
+		return new Macierz4(1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1);
+	}
+	
+	/**
+	 * Funkcja tworząca macierz 4x4 z macierzy Macierz
+	 * @param a Macierz o wymiarach 4x4
+	 * @return Macierz4
+	 * @throws MatrixSizeException Gdy macierz nie jest 4x4
+	 */
+	public static Macierz4 fromMacierz(Macierz a) throws MatrixSizeException {
+		if(a.getHeight() != 4 || a.getLength() != 4) throw new MatrixSizeException(String.format("Incorrect size %d x %d, expected 4 x 4", a.getHeight(), a.getLength()));
+		double[] d = a.data();
+		int r0 = a.offset(), r1 = r0+a.stride(), r2 = r1+a.stride(), r3 = r2+a.stride(), c = a.colStride();
+		return new Macierz4(d[r0], d[r0+c], d[r0+2*c], d[r0+3*c],
+				d[r1], d[r1+c], d[r1+2*c], d[r1+3*c],
+				d[r2], d[r2+c], d[r2+2*c], d[r2+3*c],
+				d[r3], d[r3+c], d[r3+2*c], d[r3+3*c]);
+	}
+	
+	/**
+	 * Funkcja zwracająca kopię jako Macierz
+	 * @return Macierz
+	 */
+	public Macierz toMacierz() {
+		return new Macierz(4, 4, new double[] {m00, m01, m02, m03, m10, m11, m12, m13, m20, m21, m22, m23, m30, m31, m32, m33}, 0, 4);
+	}
+	
+	/**
+	 * Funkcja zwracająca element (i, j)
+	 * @param i Wiersz
+	 * @param j Kolumna
+	 * @return double
+	 * @throws MatrixIndexOutOfBoundsException Gdy pozycja jest po za wymiarami
+	 */
+	public double get(int i, int j) throws MatrixIndexOutOfBoundsException {
+		if(i < 0 || i > 3 || j < 0 || j > 3) throw new MatrixIndexOutOfBoundsException(String.format("Index %d or %d out of bound for size 4 x 4", i, j));
+		switch(4*i+j) {
+			case 0: return m00;
+			case 1: return m01;
+			case 2: return m02;
+			case 3: return m03;
+			case 4: return m10;
+			case 5: return m11;
+			case 6: return m12;
+			case 7: return m13;
+			case 8: return m20;
+			case 9: return m21;
+			case 10: return m22;
+			case 11: return m23;
+			case 12: return m30;
+			case 13: return m31;
+			case 14: return m32;
+			default: return m33;
+		}
+	}
+	
+	/**
+	 * Funkcja ustawiająca element (i, j)
+	 * @param i Wiersz
+	 * @param j Kolumna
+	 * @param v Wartość
+	 * @throws MatrixIndexOutOfBoundsException Gdy pozycja jest po za wymiarami
+	 */
+	public void set(int i, int j, double v) throws MatrixIndexOutOfBoundsException {
+		if(i < 0 || i > 3 || j < 0 || j > 3) throw new MatrixIndexOutOfBoundsException(String.format("Index %d or %d out of bound for size 4 x 4", i, j));
+		switch(4*i+j) {
+			case 0: m00 = v; break;
+			case 1: m01 = v; break;
+			case 2: m02 = v; break;
+			case 3: m03 = v; break;
+			case 4: m10 = v; break;
+			case 5: m11 = v; break;
+			case 6: m12 = v; break;
+			case 7: m13 = v; break;
+			case 8: m20 = v; break;
+			case 9: m21 = v; break;
+			case 10: m22 = v; break;
+			case 11: m23 = v; break;
+			case 12: m30 = v; break;
+			case 13: m31 = v; break;
+			case 14: m32 = v; break;
+			default: m33 = v;
+		}
+	}
+	
+	/**
+	 * Funkcja obliczająca y = A*x, x i y mogą być tą samą tablicą
+	 * @param x Wektor o długości 4
+	 * @param y Wektor wynikowy o długości 4
+	 */
+	public void multiply(double[] x, double[] y) {
+		double x0 = x[0], x1 = x[1], x2 = x[2], x3 = x[3];
+		y[0] = m00*x0 + m01*x1 + m02*x2 + m03*x3;
+		y[1] = m10*x0 + m11*x1 + m12*x2 + m13*x3;
+		y[2] = m20*x0 + m21*x1 + m22*x2 + m23*x3;
+		y[3] = m30*x0 + m31*x1 + m32*x2 + m33*x3;
+	}
+	
+	/**
+	 * Funkcja dodająca dwie macierze
+	 * @param a Pierwsza macierz
+	 * @param b Druga macierz
+	 * @return Macierz4
+	 */
+	public static Macierz4 add(Macierz4 a, Macierz4 b) {
+		return new Macierz4(a.m00+b.m00, a.m01+b.m01, a.m02+b.m02, a.m03+b.m03,
+				a.m10+b.m10, a.m11+b.m11, a.m12+b.m12, a.m13+b.m13,
+				a.m20+b.m20, a.m21+b.m21, a.m22+b.m22, a.m23+b.m23,
+				a.m30+b.m30, a.m31+b.m31, a.m32+b.m32, a.m33+b.m33);
+	}
+	
+	/**
+	 * Funkcja odejmująca dwie macierze
+	 * @param a Pierwsza macierz
+	 * @param b Druga macierz
+	 * @return Macierz4
+	 */
+	public static Macierz4 subtract(Macierz4 a, Macierz4 b) {
+		return new Macierz4(a.m00-b.m00, a.m01-b.m01, a.m02-b.m02, a.m03-b.m03,
+				a.m10-b.m10, a.m11-b.m11, a.m12-b.m12, a.m13-b.m13,
+				a.m20-b.m20, a.m21-b.m21, a.m22-b.m22, a.m23-b.m23,
+				a.m30-b.m30, a.m31-b.m31, a.m32-b.m32, a.m33-b.m33);
+	}
+	
+	/**
+	 * Funkcja mnożąca macierz przez skalar
+	 * @param a Skalar
+	 * @param b Macierz
+	 * @return Macierz4
+	 */
+	public static Macierz4 product(double a, Macierz4 b) {
+		return new Macierz4(a*b.m00, a*b.m01, a*b.m02, a*b.m03,
+				a*b.m10, a*b.m11, a*b.m12, a*b.m13,
+				a*b.m20, a*b.m21, a*b.m22, a*b.m23,
+				a*b.m30, a*b.m31, a*b.m32, a*b.m33);
+	}
+	
+	/**
+	 * Funkcja mnożąca dwie macierze
+	 * @param a Pierwsza macierz
+	 * @param b Druga macierz
+	 * @return Macierz4
+	 */
+	public static Macierz4 product(Macierz4 a, Macierz4 b) {
+		Macierz4 ret = new Macierz4();
+		productInto(a, b, ret);
+		return ret;
+	}
+	
+	/**
+	 * Funkcja mnożąca dwie macierze z zapisem wyniku do dst, dst może być a lub b
+	 * @param a Pierwsza macierz
+	 * @param b Druga macierz
+	 * @param dst Macierz wynikowa
+	 */
+	public static void productInto(Macierz4 a, Macierz4 b, Macierz4 dst) {
+		double r00 = a.m00*b.m00 + a.m01*b.m10 + a.m02*b.m20 + a.m03*b.m30;
+		double r01 = a.m00*b.m01 + a.m01*b.m11 + a.m02*b.m21 + a.m03*b.m31;
+		double r02 = a.m00*b.m02 + a.m01*b.m12 + a.m02*b.m22 + a.m03*b.m32;
+		double r03 = a.m00*b.m03 + a.m01*b.m13 + a.m02*b.m23 + a.m03*b.m33;
+		double r10 = a.m10*b.m00 + a.m11*b.m10 + a.m12*b.m20 + a.m13*b.m30;
+		double r11 = a.m10*b.m01 + a.m11*b.m11 + a.m12*b.m21 + a.m13*b.m31;
+		double r12 = a.m10*b.m02 + a.m11*b.m12 + a.m12*b.m22 + a.m13*b.m32;
+		double r13 = a.m10*b.m03 + a.m11*b.m13 + a.m12*b.m23 + a.m13*b.m33;
+		double r20 = a.m20*b.m00 + a.m21*b.m10 + a.m22*b.m20 + a.m23*b.m30;
+		double r21 = a.m20*b.m01 + a.m21*b.m11 + a.m22*b.m21 + a.m23*b.m31;
+		double r22 = a.m20*b.m02 + a.m21*b.m12 + a.m22*b.m22 + a.m23*b.m32;
+		double r23 = a.m20*b.m03 + a.m21*b.m13 + a.m22*b.m23 + a.m23*b.m33;
+		double r30 = a.m30*b.m00 + a.m31*b.m10 + a.m32*b.m20 + a.m33*b.m30;
+		double r31 = a.m30*b.m01 + a.m31*b.m11 + a.m32*b.m21 + a.m33*b.m31;
+		double r32 = a.m30*b.m02 + a.m31*b.m12 + a.m32*b.m22 + a.m33*b.m32;
+		double r33 = a.m30*b.m03 + a.m31*b.m13 + a.m32*b.m23 + a.m33*b.m33;
+		dst.m00 = r00; dst.m01 = r01; dst.m02 = r02; dst.m03 = r03;
+		dst.m10 = r10; dst.m11 = r11; dst.m12 = r12; dst.m13 = r13;
+		dst.m20 = r20; dst.m21 = r21; dst.m22 = r22; dst.m23 = r23;
+		dst.m30 = r30; dst.m31 = r31; dst.m32 = r32; dst.m33 = r33;
+	}
+	
+	/**
+	 * Funkcja do transponowania macierzy
+	 * @param a Macierz do transponowania
+	 * @return Macierz4 transponowana
+	 */
+	public static Macierz4 transpose(Macierz4 a) {
+		return new Macierz4(a.m00, a.m10, a.m20, a.m30,
+				a.m01, a.m11, a.m21, a.m31,
+				a.m02, a.m12, a.m22, a.m32,
+				a.m03, a.m13, a.m23, a.m33);
+	}
+	
+	/**
+	 * Funkcja obliczająca wyznacznik z wyznaczników 2x2 z dwóch górnych i dwóch dolnych wierszy (rozwinięcie Laplace'a)
+	 * @param a Macierz
+	 * @return double
+	 */
+	public static double determinant(Macierz4 a) {
+		double s0 = a.m00*a.m11 - a.m10*a.m01;
+		double s1 = a.m00*a.m12 - a.m10*a.m02;
+		double s2 = a.m00*a.m13 - a.m10*a.m03;
+		double s3 = a.m01*a.m12 - a.m11*a.m02;
+		double s4 = a.m01*a.m13 - a.m11*a.m03;
+		double s5 = a.m02*a.m13 - a.m12*a.m03;
+		double c5 = a.m22*a.m33 - a.m32*a.m23;
+		double c4 = a.m21*a.m33 - a.m31*a.m23;
+		double c3 = a.m21*a.m32 - a.m31*a.m22;
+		double c2 = a.m20*a.m33 - a.m30*a.m23;
+		double c1 = a.m20*a.m32 - a.m30*a.m22;
+		double c0 = a.m20*a.m31 - a.m30*a.m21;
+		return s0*c5 - s1*c4 + s2*c3 + s3*c2 - s4*c1 + s5*c0;
+	}
+	
+	/**
+	 * Funkcja obliczająca macierz odwrotną
+	 * @param a Macierz do odwrócenia
+	 * @return Macierz4 odwrotna
+	 * @throws ArithmeticException Gdy macierz jest osobliwa
+	 */
+	public static Macierz4 inverse(Macierz4 a) {
+		Macierz4 ret = new Macierz4();
+		inverseInto(a, ret);
+		return ret;
+	}
+	
+	/**
+	 * Funkcja obliczająca macierz odwrotną z zapisem do dst, dst może być a.
+	 * Wyznaczniki 2x2 z dwóch górnych (s) i dwóch dolnych (c) wierszy dają zarówno wyznacznik, jak i wszystkie dopełnienia algebraiczne.
+	 * @param a Macierz do odwrócenia
+	 * @param dst Macierz wynikowa
+	 * @throws ArithmeticException Gdy macierz jest osobliwa
+	 */
+	public static void inverseInto(Macierz4 a, Macierz4 dst) {
+		double s0 = a.m00*a.m11 - a.m10*a.m01;
+		double s1 = a.m00*a.m12 - a.m10*a.m02;
+		double s2 = a.m00*a.m13 - a.m10*a.m03;
+		double s3 = a.m01*a.m12 - a.m11*a.m02;
+		double s4 = a.m01*a.m13 - a.m11*a.m03;
+		double s5 = a.m02*a.m13 - a.m12*a.m03;
+		double c5 = a.m22*a.m33 - a.m32*a.m23;
+		double c4 = a.m21*a.m33 - a.m31*a.m23;
+		double c3 = a.m21*a.m32 - a.m31*a.m22;
+		double c2 = a.m20*a.m33 - a.m30*a.m23;
+		double c1 = a.m20*a.m32 - a.m30*a.m22;
+		double c0 = a.m20*a.m31 - a.m30*a.m21;
+		double det = s0*c5 - s1*c4 + s2*c3 + s3*c2 - s4*c1 + s5*c0;
+		if(det == 0 || !Double.isFinite(det)) throw new ArithmeticException("Matrix is singular");
+		double inv = 1/det;
+		double r00 = (a.m11*c5 - a.m12*c4 + a.m13*c3)*inv;
+		double r01 = (-a.m01*c5 + a.m02*c4 - a.m03*c3)*inv;
+		double r02 = (a.m31*s5 - a.m32*s4 + a.m33*s3)*inv;
+		double r03 = (-a.m21*s5 + a.m22*s4 - a.m23*s3)*inv;
+		double r10 = (-a.m10*c5 + a.m12*c2 - a.m13*c1)*inv;
+		double r11 = (a.m00*c5 - a.m02*c2 + a.m03*c1)*inv;
+		double r12 = (-a.m30*s5 + a.m32*s2 - a.m33*s1)*inv;
+		double r13 = (a.m20*s5 - a.m22*s2 + a.m23*s1)*inv;
+		double r20 = (a.m10*c4 - a.m11*c2 + a.m13*c0)*inv;
+		double r21 = (-a.m00*c4 + a.m01*c2 - a.m03*c0)*inv;
+		double r22 = (a.m30*s4 - a.m31*s2 + a.m33*s0)*inv;
+		double r23 = (-a.m20*s4 + a.m21*s2 - a.m23*s0)*inv;
+		double r30 = (-a.m10*c3 + a.m11*c1 - a.m12*c0)*inv;
+		double r31 = (a.m00*c3 - a.m01*c1 + a.m02*c0)*inv;
+		double r32 = (-a.m30*s3 + a.m31*s1 - a.m32*s0)*inv;
+		double r33 = (a.m20*s3 - a.m21*s1 + a.m22*s0)*inv;
+		dst.m00 = r00; dst.m01 = r01; dst.m02 = r02; dst.m03 = r03;
+		dst.m10 = r10; dst.m11 = r11; dst.m12 = r12; dst.m13 = r13;
+		dst.m20 = r20; dst.m21 = r21; dst.m22 = r22; dst.m23 = r23;
+		dst.m30 = r30; dst.m31 = r31; dst.m32 = r32; dst.m33 = r33;
+	}
+	
+	/**
+	 * Funkcja zwracająca widok String macierzy
+	 * @return String
+	 */
+	@Override
+	public String toString() {
+		return toMacierz().toString();
+	}
+	
+	/**
+	 * Funkcja sprawdzająca czy dana macierz jest równa aktualnej
+	 * @param b Macierz do porównania
+	 * @return boolean
+	 */
+	@Override
+	public boolean equals(Object b) {
+		if(this == b) return true;
+		if(!(b instanceof Macierz4)) return false;
+		Macierz4 a = (Macierz4)b;
+		return Macierz2.same(a.m00, m00) && Macierz2.same(a.m01, m01) && Macierz2.same(a.m02, m02) && Macierz2.same(a.m03, m03)
+				&& Macierz2.same(a.m10, m10) && Macierz2.same(a.m11, m11) && Macierz2.same(a.m12, m12) && Macierz2.same(a.m13, m13)
+				&& Macierz2.same(a.m20, m20) && Macierz2.same(a.m21, m21) && Macierz2.same(a.m22, m22) && Macierz2.same(a.m23, m23)
+				&& Macierz2.same(a.m30, m30) && Macierz2.same(a.m31, m31) && Macierz2.same(a.m32, m32) && Macierz2.same(a.m33, m33);
+	}
+	
+	/**
+	 * Funckja do obliczenia HashCode dla macierzy
+	 * @return int
+	 */
+	@Override
+	public int hashCode() {
+		int h = 4;
+		h = 31*h + Macierz2.hash(m00);
+		h = 31*h + Macierz2.hash(m01);
+		h = 31*h + Macierz2.hash(m02);
+		h = 31*h + Macierz2.hash(m03);
+		h = 31*h + Macierz2.hash(m10);
+		h = 31*h + Macierz2.hash(m11);
+		h = 31*h + Macierz2.hash(m12);
+		h = 31*h + Macierz2.hash(m13);
+		h = 31*h + Macierz2.hash(m20);
+		h = 31*h + Macierz2.hash(m21);
+		h = 31*h + Macierz2.hash(m22);
+		h = 31*h + Macierz2.hash(m23);
+		h = 31*h + Macierz2.hash(m30);
+		h = 31*h + Macierz2.hash(m31);
+		h = 31*h + Macierz2.hash(m32);
+		h = 31*h + Macierz2.hash(m33);
+		return h;
+	}
+}
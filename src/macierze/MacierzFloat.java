@@ -0,0 +1,504 @@
+package macierze;
+
+import java.util.*;
+
+/**
+ * Klasa macierzy pojedynczej precyzji (float). Elementy trzymane są wierszami w jednej ciągłej tablicy float[],
+ * więc macierz zajmuje połowę pamięci Macierz, a działania ograniczone przepustowością pamięci są do dwóch razy szybsze.
+ * Mnożenie i iloczyn skalarny mogą sumować w double (doubleAccumulation), co przy długich sumach
+ * daje dokładność bliską Macierz kosztem wolniejszej pętli.
+ * Konwersje z i do Macierz są jawne (fromMacierz, toMacierz).
+ */
+
+public class MacierzFloat {
+	
+	/**
+	 * Liczba kolumn B w bloku mnożenia, blok KC x NC z B mieści się w pamięci L2
+	 */
+	private static final int NC = 512;
+	
+	/**
+	 * Głębokość bloku mnożenia
+	 */
+	private static final int KC = 128;
+	
+	/**
+	 * Liczba wierszy wyniku liczonych razem na jednym bloku z B
+	 */
+	private static final int MC = 64;
+	
+	/**
+	 * Rozmiar kafelka transpozycji
+	 */
+	private static final int TRANSPOSE_TILE = 32;
+	
+	/**
+	 * Ciągła tablica z wartościami macierzy zapisanymi wierszami
+	 */
+	private final float[] data;
+	
+	/**
+	 * Liczba wierszy macierzy
+	 */
+	private final int height;
+	
+	/**
+	 * Liczba kolumn macierzy
+	 */
+	private final int length;
+	
+	/**
+	 * Konstruktor zerowej macierzy NxM
+	 * @param n Liczba wierszy
+	 * @param m Liczba kolumn
+	 */
+	public MacierzFloat(int n, int m) {
+		if(n < 0 || m < 0) throw new IllegalArgumentException(String.format("Incorrect size %d x %d", n, m));
+		this.data = new float[n*m];
+		this.height = n;
+		this.length = m;
+	}
+	
+	/**
+	 * Konstruktor macierzy korzystającej bezpośrednio z podanej tablicy (bez kopiowania)
+	 * @param n Liczba wierszy
+	 * @param m Liczba kolumn
+	 * @param data Tablica n*m wartości macierzy, wiersz po wierszu
+	 * @throws MatrixSizeException Gdy długość tablicy nie jest równa n*m
+	 */
+	public MacierzFloat(int n, int m, float[] data) throws MatrixSizeException {
+		if(n < 0 || m < 0 || (long)n*m != data.length) {
+			throw new MatrixSizeException(String.format("Incorrect size %d x %d for array of length %d", n, m, data.length));
+		}
+		this.data = data;
+		this.height = n;
+		this.length = m;
+	}
+	
+	/**
+	 * Funkcja tworząca macierz float z macierzy Macierz, wartości zaokrąglane są do najbliższego float
+	 * @param a Macierz do konwersji, może być widokiem
+	 * @return MacierzFloat
+	 */
+	public static MacierzFloat fromMacierz(Macierz a) {
+		int n = a.getHeight(), m = a.getLength();
+		MacierzFloat ret = new MacierzFloat(n, m);
+		double[] d = a.data();
+		int cs = a.colStride();
+		for(int i=0; i<n; i++) {
+			int r = a.offset()+i*a.stride();
+			for(int j=0; j<m; j++) ret.data[i*m+j] = (float)d[r+j*cs];
+		}
+		return ret;
+	}
+	
+	/**
+	 * Funkcja zwracająca kopię macierzy w podwójnej precyzji
+	 * @return Macierz
+	 */
+	public Macierz toMacierz() {
+		double[] d = new double[data.length];
+		for(int i=0; i<d.length; i++) d[i] = data[i];
+		return new Macierz(height, length, d, 0, length);
+	}
+	
+	/**
+	 * Funkcja zwracająca tablicę danych bez kopiowania
+	 */
+	float[] data() {
+		return data;
+	}
+	
+	/**
+	 * Funkcja zwracająca kopię wartości macierzy wierszami
+	 * @return float[]
+	 */
+	public float[] toFlatArray() {
+		return data.clone();
+	}
+	
+	/**
+	 * Funkcja zwracająca liczbę wierszy
+	 * @return int
+	 */
+	public int getHeight() {
+		return height;
+	}
+	
+	/**
+	 * Funkcja zwracająca liczbę kolumn
+	 * @return int
+	 */
+	public int getLength() {
+		return length;
+	}
+	
+	/**
+	 * Funkcja zwracająca element (i, j)
+	 * @param i Wiersz
+	 * @param j Kolumna
+	 * @return float
+	 * @throws MatrixIndexOutOfBoundsException Gdy pozycja jest po za wymiarami
+	 */
+	public float get(int i, int j) throws MatrixIndexOutOfBoundsException {
+		checkIndex(i, j);
+		return data[i*length+j];
+	}
+	
+	/**
+	 * Funkcja ustawiająca element (i, j)
+	 * @param i Wiersz
+	 * @param j Kolumna
+	 * @param v Wartość
+	 * @throws MatrixIndexOutOfBoundsException Gdy pozycja jest po za wymiarami
+	 */
+	public void set(int i, int j, float v) throws MatrixIndexOutOfBoundsException {
+		checkIndex(i, j);
+		data[i*length+j] = v;
+	}
+	
+	private void checkIndex(int i, int j) throws MatrixIndexOutOfBoundsException {
+		if(i < 0 || i >= height || j < 0 || j >= length) {
+			throw new MatrixIndexOutOfBoundsException(String.format("Index %d or %d out of bound for size %d x %d", i, j, height, length));
+		}
+	}
+	
+	/**
+	 * Funkcja do kopiowania macierzy
+	 * @param a Macierz do skopiowania
+	 * @return MacierzFloat
+	 */
+	public static MacierzFloat copyOf(MacierzFloat a) {
+		MacierzFloat ret = new MacierzFloat(a.height, a.length);
+		System.arraycopy(a.data, 0, ret.data, 0, a.data.length);
+		return ret;
+	}
+	
+	/**
+	 * Funkcja dodająca dwie macierze
+	 * @param a Pierwsza macierz
+	 * @param b Druga macierz
+	 * @return MacierzFloat
+	 * @throws MatrixSizeException Gdy wymiary macierzy się nie zgadzają
+	 */
+	public static MacierzFloat add(MacierzFloat a, MacierzFloat b) throws MatrixSizeException {
+		MacierzFloat ret = new MacierzFloat(a.height, a.length);
+		combine(a, 1, b, ret);
+		return ret;
+	}
+	
+	/**
+	 * Funkcja dodająca dwie macierze z zapisem do dst, dst może być a lub b
+	 * @param a Pierwsza macierz
+	 * @param b Druga macierz
+	 * @param dst Macierz wynikowa
+	 * @throws MatrixSizeException Gdy wymiary macierzy się nie zgadzają
+	 */
+	public static void addInto(MacierzFloat a, MacierzFloat b, MacierzFloat dst) throws MatrixSizeException {
+		combine(a, 1, b, dst);
+	}
+	
+	/**
+	 * Funkcja odejmująca dwie macierze
+	 * @param a Pierwsza macierz
+	 * @param b Druga macierz
+	 * @return MacierzFloat
+	 * @throws MatrixSizeException Gdy wymiary macierzy się nie zgadzają
+	 */
+	public static MacierzFloat subtract(MacierzFloat a, MacierzFloat b) throws MatrixSizeException {
+		MacierzFloat ret = new MacierzFloat(a.height, a.length);
+		combine(a, -1, b, ret);
+		return ret;
+	}
+	
+	/**
+	 * Funkcja odejmująca dwie macierze z zapisem do dst, dst może być a lub b
+	 * @param a Pierwsza macierz
+	 * @param b Druga macierz
+	 * @param dst Macierz wynikowa
+	 * @throws MatrixSizeException Gdy wymiary macierzy się nie zgadzają
+	 */
+	public static void subtractInto(MacierzFloat a, MacierzFloat b, MacierzFloat dst) throws MatrixSizeException {
+		combine(a, -1, b, dst);
+	}
+	
+	/**
+	 * Funkcja obliczająca dst = a + beta*b, wiersze dzielone są na wątki dla dużych macierzy
+	 */
+	private static void combine(MacierzFloat a, float beta, MacierzFloat b, MacierzFloat dst) throws MatrixSizeException {
+		if(a.height != b.height || a.length != b.length) throw new MatrixSizeException(String.format("Incorrect size, a is %d x %d, b id %d x %d", a.height, a.length, b.height, b.length));
+		if(dst.height != a.height || dst.length != a.length) throw new MatrixSizeException(String.format("Incorrect size of destination %d x %d for %d x %d", dst.height, dst.length, a.height, a.length));
+		int n = a.height, m = a.length;
+		if(Parallel.isSequential(n, 1, m)) combineRows(a.data, beta, b.data, dst.data, 0, n*m);
+		else Parallel.forRange(0, n, m, (from, to) -> combineRows(a.data, beta, b.data, dst.data, from*m, to*m));
+	}
+	
+	private static void combineRows(float[] x, float beta, float[] y, float[] r, int from, int to) {
+		if(beta == 1) {
+			for(int j=from; j<to; j++) r[j] = x[j] + y[j];
+		} else {
+			for(int j=from; j<to; j++) r[j] = x[j] + beta*y[j];
+		}
+	}
+	
+	/**
+	 * Funkcja mnożąca macierz przez skalar
+	 * @param a Skalar
+	 * @param b Macierz
+	 * @return MacierzFloat
+	 */
+	public static MacierzFloat product(float a, MacierzFloat b) {
+		MacierzFloat ret = new MacierzFloat(b.height, b.length);
+		float[] x = b.data, r = ret.data;
+		for(int j=0; j<x.length; j++) r[j] = a*x[j];
+		return ret;
+	}
+	
+	/**
+	 * Funkcja mnożąca dwie macierze z sumowaniem we float
+	 * @param a Macierz po lewej stronie mnożenia
+	 * @param b Macierz po prawej stronie mnożenia
+	 * @return MacierzFloat
+	 * @throws MatrixSizeException Gdy nie zgadzają się wymiary mnożenia
+	 */
+	public static MacierzFloat product(MacierzFloat a, MacierzFloat b) throws MatrixSizeException {
+		MacierzFloat ret = new MacierzFloat(a.height, b.length);
+		productInto(a, b, ret, false);
+		return ret;
+	}
+	
+	/**
+	 * Funkcja mnożąca dwie macierze z zapisem do dst. Wiersz wyniku liczony jest jako suma wierszy b
+	 * blokami KC x NC, co JIT wektoryzuje. Przy doubleAccumulation sumy cząstkowe trzymane są w double
+	 * i zaokrąglane do float raz, na końcu.
+	 * @param a Macierz po lewej stronie mnożenia
+	 * @param b Macierz po prawej stronie mnożenia
+	 * @param dst Macierz wynikowa, może być macierzą a lub b
+	 * @param doubleAccumulation Czy sumować w double
+	 * @throws MatrixSizeException Gdy nie zgadzają się wymiary mnożenia
+	 */
+	public static void productInto(MacierzFloat a, MacierzFloat b, MacierzFloat dst, boolean doubleAccumulation) throws MatrixSizeException {
+		int n = a.height, m = a.length, q = b.length;
+		if(m != b.height) throw new MatrixSizeException(String.format("Incorrect size, a is %d x %d, b id %d x %d", n, m, b.height, q));
+		if(dst.height != n || dst.length != q) throw new MatrixSizeException(String.format("Incorrect size of destination %d x %d for %d x %d", dst.height, dst.length, n, q));
+		if(dst.data.length > 0 && (dst.data == a.data || dst.data == b.data)) {
+			// MacierzFloat nie ma widoków, wspólna tablica oznacza tę samą macierz - obliczenie w kopii
+			MacierzFloat tmp = new MacierzFloat(n, q);
+			productInto(a, b, tmp, doubleAccumulation);
+			System.arraycopy(tmp.data, 0, dst.data, 0, tmp.data.length);
+			return;
+		}
+		long cost = 2L*m*q;
+		if(Parallel.isSequential(n, 1, cost)) productRows(a, b, dst, doubleAccumulation, 0, n);
+		else Parallel.forRange(0, n, cost, (from, to) -> productRows(a, b, dst, doubleAccumulation, from, to));
+	}
+	
+	/**
+	 * Funkcja obliczająca wiersze [from, to) iloczynu. Wiersze dzielone są na paski po MC,
+	 * a w pasku blok KC x NC z b używany jest dla wszystkich wierszy, póki jest w pamięci podręcznej.
+	 */
+	private static void productRows(MacierzFloat a, MacierzFloat b, MacierzFloat dst, boolean doubleAccumulation, int from, int to) {
+		int m = a.length, q = b.length;
+		float[] x = a.data, y = b.data, r = dst.data;
+		int nmax = Math.min(NC, q);
+		double[] acc = doubleAccumulation ? new double[MC*nmax] : null;
+		for(int ic=from; ic<to; ic+=MC) {
+			int mc = Math.min(MC, to-ic);
+			for(int jc=0; jc<q; jc+=NC) {
+				int nc = Math.min(NC, q-jc);
+				if(doubleAccumulation) Arrays.fill(acc, 0, mc*nc, 0);
+				else for(int i=ic; i<ic+mc; i++) Arrays.fill(r, i*q+jc, i*q+jc+nc, 0);
+				for(int pc=0; pc<m; pc+=KC) {
+					int kc = Math.min(KC, m-pc);
+					for(int i=ic; i<ic+mc; i++) {
+						int ia = i*m, k = pc, ke = pc+kc;
+						// Cztery wiersze b naraz, wiersz wyniku czytany i zapisywany raz na cztery kroki
+						for(; k+3<ke; k+=4) {
+							int ib = k*q+jc;
+							if(doubleAccumulation) axpy4(nc, x[ia+k], x[ia+k+1], x[ia+k+2], x[ia+k+3], y, ib, q, acc, (i-ic)*nc);
+							else axpy4(nc, x[ia+k], x[ia+k+1], x[ia+k+2], x[ia+k+3], y, ib, q, r, i*q+jc);
+						}
+						for(; k<ke; k++) {
+							if(doubleAccumulation) axpy(nc, x[ia+k], y, k*q+jc, acc, (i-ic)*nc);
+							else axpy(nc, x[ia+k], y, k*q+jc, r, i*q+jc);
+						}
+					}
+				}
+				if(doubleAccumulation) {
+					for(int i=ic; i<ic+mc; i++) {
+						int ir = i*q+jc, io = (i-ic)*nc;
+						for(int j=0; j<nc; j++) r[ir+j] = (float)acc[io+j];
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Funkcja obliczająca r = r + a0*x0 + a1*x1 + a2*x2 + a3*x3 na n elementach, gdzie xk to kolejne
+	 * wiersze x odległe o ld, sumowane w tej samej kolejności co cztery osobne kroki
+	 */
+	private static void axpy4(int n, float a0, float a1, float a2, float a3, float[] x, int offX, int ld, float[] r, int offR) {
+		int o1 = offX+ld, o2 = o1+ld, o3 = o2+ld;
+		for(int j=0; j<n; j++) r[offR+j] = r[offR+j] + a0*x[offX+j] + a1*x[o1+j] + a2*x[o2+j] + a3*x[o3+j];
+	}
+	
+	/**
+	 * Funkcja axpy4 z sumowaniem w double
+	 */
+	private static void axpy4(int n, double a0, double a1, double a2, double a3, float[] x, int offX, int ld, double[] r, int offR) {
+		int o1 = offX+ld, o2 = o1+ld, o3 = o2+ld;
+		for(int j=0; j<n; j++) r[offR+j] = r[offR+j] + a0*x[offX+j] + a1*x[o1+j] + a2*x[o2+j] + a3*x[o3+j];
+	}
+	
+	/**
+	 * Funkcja obliczająca r = r + alpha*x na n elementach
+	 */
+	private static void axpy(int n, float alpha, float[] x, int offX, float[] r, int offR) {
+		for(int j=0; j<n; j++) r[offR+j] = r[offR+j] + alpha*x[offX+j];
+	}
+	
+	/**
+	 * Funkcja axpy z sumowaniem w double
+	 */
+	private static void axpy(int n, double alpha, float[] x, int offX, double[] r, int offR) {
+		for(int j=0; j<n; j++) r[offR+j] = r[offR+j] + alpha*x[offX+j];
+	}
+	
+	/**
+	 * Funkcja obliczająca iloczyn skalarny macierzy tych samych wymiarów, suma a_ij * b_ij
+	 * (dla macierzy n x 1 zwykły iloczyn skalarny wektorów)
+	 * @param a Pierwsza macierz
+	 * @param b Druga macierz
+	 * @param doubleAccumulation Czy sumować w double, dokładniej dla długich wektorów
+	 * @return double
+	 * @throws MatrixSizeException Gdy wymiary macierzy się nie zgadzają
+	 */
+	public static double dot(MacierzFloat a, MacierzFloat b, boolean doubleAccumulation) throws MatrixSizeException {
+		if(a.height != b.height || a.length != b.length) throw new MatrixSizeException(String.format("Incorrect size, a is %d x %d, b id %d x %d", a.height, a.length, b.height, b.length));
+		float[] x = a.data, y = b.data;
+		int n = x.length, j = 0;
+		if(doubleAccumulation) {
+			double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+			for(; j+3<n; j+=4) {
+				s0 = s0 + (double)x[j]*y[j];
+				s1 = s1 + (double)x[j+1]*y[j+1];
+				s2 = s2 + (double)x[j+2]*y[j+2];
+				s3 = s3 + (double)x[j+3]*y[j+3];
+			}
+			for(; j<n; j++) s0 = s0 + (double)x[j]*y[j];
+			return (s0 + s1) + (s2 + s3);
+		}
+		float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+		for(; j+3<n; j+=4) {
+			s0 = s0 + x[j]*y[j];
+			s1 = s1 + x[j+1]*y[j+1];
+			s2 = s2 + x[j+2]*y[j+2];
+			s3 = s3 + x[j+3]*y[j+3];
+		}
+		for(; j<n; j++) s0 = s0 + x[j]*y[j];
+		return (s0 + s1) + (s2 + s3);
+	}
+	
+	/**
+	 * Funkcja do transponowania macierzy
+	 * @param a Macierz do transponowania
+	 * @return MacierzFloat transponowana
+	 */
+	public static MacierzFloat transpose(MacierzFloat a) {
+		MacierzFloat ret = new MacierzFloat(a.length, a.height);
+		int n = a.height, m = a.length;
+		if(Parallel.isSequential(n, TRANSPOSE_TILE, m)) transposeBlock(a, ret, 0, n);
+		else Parallel.forRange(0, n, TRANSPOSE_TILE, m, (from, to) -> transposeBlock(a, ret, from, to));
+		return ret;
+	}
+	
+	/**
+	 * Funkcja transponująca wiersze [from, to) kafelkami
+	 */
+	private static void transposeBlock(MacierzFloat a, MacierzFloat dst, int from, int to) {
+		int n = a.height, m = a.length;
+		float[] x = a.data, r = dst.data;
+		for(int ib=from; ib<to; ib+=TRANSPOSE_TILE) {
+			int ie = Math.min(ib+TRANSPOSE_TILE, to);
+			for(int jb=0; jb<m; jb+=TRANSPOSE_TILE) {
+				int je = Math.min(jb+TRANSPOSE_TILE, m);
+				for(int j=jb; j<je; j++) {
+					for(int i=ib; i<ie; i++) r[j*n+i] = x[i*m+j];
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Funkcja do obliczania wyznacznika z rozkładu LU
+	 * @param a Macierz kwadratowa
+	 * @return double
+	 * @throws MatrixSizeException Gdy macierz nie jest kwadratowa
+	 */
+	public static double determinant(MacierzFloat a) throws MatrixSizeException {
+		// Rozkład sprawdza wymiary, także dla macierzy bez elementów (0x0 ma wyznacznik 1)
+		return new LUDecompositionFloat(a).determinant();
+	}
+	
+	/**
+	 * Funkcja do obliczenia macierzy odwrotnej z rozkładu LU
+	 * @param a Macierz do odwrócenia
+	 * @return MacierzFloat odwrotna
+	 * @throws MatrixSizeException Gdy macierz nie jest kwadratowa
+	 * @throws ArithmeticException Gdy macierz jest osobliwa
+	 */
+	public static MacierzFloat inverse(MacierzFloat a) throws MatrixSizeException {
+		return new LUDecompositionFloat(a).inverse();
+	}
+	
+	/**
+	 * Funkcja rozwiązująca układ równań AX = B z rozkładu LU
+	 * @param a Macierz współczynników
+	 * @param b Macierz wyrazów wolnych
+	 * @return MacierzFloat rozwiązań
+	 * @throws MatrixSizeException Gdy wymiary macierzy się nie zgadzają
+	 * @throws ArithmeticException Gdy macierz jest osobliwa
+	 */
+	public static MacierzFloat solve(MacierzFloat a, MacierzFloat b) throws MatrixSizeException {
+		return new LUDecompositionFloat(a).solve(b);
+	}
+	
+	/**
+	 * Funkcja zwracająca widok String macierzy w postaci naukowej
+	 * @return String
+	 */
+	@Override
+	public String toString() {
+		return toMacierz().toString();
+	}
+	
+	/**
+	 * Funkcja sprawdzająca czy dana macierz jest równa aktualnej
+	 * @param b Macierz do porównania
+	 * @return boolean
+	 */
+	@Override
+	public boolean equals(Object b) {
+		if(this == b) return true;
+		if(!(b instanceof MacierzFloat)) return false;
+		MacierzFloat a = (MacierzFloat)b;
+		if(a.height != height || a.length != length) return false;
+		for(int i=0; i<data.length; i++) {
+			// Tak jak w hashCode: -0 równe 0, NaN równe NaN
+			if(Float.floatToIntBits(a.data[i] + 0.0f) != Float.floatToIntBits(data[i] + 0.0f)) return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Funckja do obliczenia HashCode dla macierzy
+	 * @return int
+	 */
+	@Override
+	public int hashCode() {
+		int h = 31*height + length;
+		for(float v : data) h = 31*h + Float.floatToIntBits(v + 0.0f);
+		return h;
+	}
+}
@@ -0,0 +1,390 @@
+package macierze;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+
+/**
+ * Klasa macierzy przechowywanej w pliku binarnym (format z MatrixFile) i odwzorowanej w pamięci.
+ * Otwarcie nie wczytuje danych, system operacyjny sprowadza strony pliku dopiero przy dostępie,
+ * więc macierz może być większa niż sterta. Plik mapowany jest fragmentami po 1 GiB, bo pojedynczy
+ * MappedByteBuffer nie może przekraczać 2 GiB. Zmiany w trybie do zapisu trafiają bezpośrednio do pliku.
+ * Odczyty mogą być wykonywane równolegle, zapisy do tych samych elementów trzeba synchronizować samemu.
+ */
+
+public class MacierzMapowana implements Closeable, LinearOperator {
+	
+	/**
+	 * Liczba bitów indeksu elementu wewnątrz jednego fragmentu, fragment ma 2^27 liczb (1 GiB)
+	 */
+	private static final int CHUNK_SHIFT = 27;
+	
+	/**
+	 * Maska indeksu elementu wewnątrz fragmentu
+	 */
+	private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+	
+	/**
+	 * Docelowa liczba elementów bloku wierszy wczytywanego przy mnożeniu
+	 */
+	private static final int BLOCK_ELEMENTS = 1 << 19;
+	
+	/**
+	 * Liczba wierszy macierzy
+	 */
+	private final int height;
+	
+	/**
+	 * Liczba kolumn macierzy
+	 */
+	private final int length;
+	
+	/**
+	 * Czy macierz jest otwarta do zapisu
+	 */
+	private final boolean writable;
+	
+	/**
+	 * Kanał pliku
+	 */
+	private final FileChannel channel;
+	
+	/**
+	 * Kolejne odwzorowane fragmenty danych widziane jako liczby little-endian
+	 */
+	private DoubleBuffer[] chunks;
+	
+	/**
+	 * Odwzorowania fragmentów, potrzebne do force()
+	 */
+	private MappedByteBuffer[] mapped;
+	
+	/**
+	 * Konstruktor mapujący dane pliku o sprawdzonym już nagłówku
+	 * @param channel Kanał pliku
+	 * @param n Liczba wierszy
+	 * @param m Liczba kolumn
+	 * @param writable Czy mapować do zapisu
+	 * @throws IOException Gdy mapowanie się nie powiedzie
+	 */
+	private MacierzMapowana(FileChannel channel, int n, int m, boolean writable) throws IOException {
+		this.channel = channel;
+		this.height = n;
+		this.length = m;
+		this.writable = writable;
+		long elements = (long)n*m;
+		int count = (int)((elements + CHUNK_MASK) >>> CHUNK_SHIFT);
+		this.chunks = new DoubleBuffer[count];
+		this.mapped = new MappedByteBuffer[count];
+		FileChannel.MapMode mode = writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+		for(int k=0; k<count; k++) {
+			long first = (long)k << CHUNK_SHIFT;
+			long size = Math.min(CHUNK_MASK+1, elements-first)*Double.BYTES;
+			mapped[k] = channel.map(mode, MatrixFile.HEADER_SIZE + first*Double.BYTES, size);
+			chunks[k] = mapped[k].order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+		}
+	}
+	
+	/**
+	 * Funkcja otwierająca istniejący plik macierzy
+	 * @param path Ścieżka pliku zapisanego przez MatrixFile.write lub create
+	 * @param writable true - zmiany zapisywane do pliku, false - tylko odczyt
+	 * @return MacierzMapowana
+	 * @throws IOException Gdy plik nie istnieje lub ma zły format
+	 */
+	public static MacierzMapowana open(Path path, boolean writable) throws IOException {
+		FileChannel ch = writable ? FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE) : FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			long[] dims = MatrixFile.readHeader(ch);
+			return new MacierzMapowana(ch, (int)dims[0], (int)dims[1], writable);
+		} catch(IOException | RuntimeException e) {
+			ch.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Funkcja tworząca nowy plik z macierzą zer NxM otwartą do zapisu
+	 * @param path Ścieżka pliku, nadpisywany jeśli istnieje
+	 * @param n Liczba wierszy
+	 * @param m Liczba kolumn
+	 * @return MacierzMapowana
+	 * @throws IOException Gdy utworzenie pliku się nie powiedzie
+	 */
+	public static MacierzMapowana create(Path path, int n, int m) throws IOException {
+		if(n < 0 || m < 0) throw new IllegalArgumentException(String.format("Incorrect size %d x %d", n, m));
+		FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		try {
+			ByteBuffer h = MatrixFile.header(n, m, MatrixFile.TYPE_DOUBLE);
+			while(h.hasRemaining()) ch.write(h);
+			return new MacierzMapowana(ch, n, m, true);
+		} catch(IOException | RuntimeException e) {
+			ch.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Funkcja zwracająca liczbę wierszy
+	 * @return int
+	 */
+	public int getHeight() {
+		return height;
+	}
+	
+	/**
+	 * Funkcja zwracająca liczbę kolumn
+	 * @return int
+	 */
+	public int getLength() {
+		return length;
+	}
+	
+	/**
+	 * Funkcja sprawdzająca czy macierz jest otwarta do zapisu
+	 * @return boolean
+	 */
+	public boolean isWritable() {
+		return writable;
+	}
+	
+	/**
+	 * Funkcja zwracająca dany element macierzy indeksy od 0
+	 * @param i Wiersz
+	 * @param j Kolumna
+	 * @return double
+	 * @throws MatrixIndexOutOfBoundsException Gdy pozycja jest po za wymiarami
+	 */
+	public double get(int i, int j) throws MatrixIndexOutOfBoundsException {
+		checkIndex(i, j);
+		long e = (long)i*length + j;
+		return buffers()[(int)(e >>> CHUNK_SHIFT)].get((int)(e & CHUNK_MASK));
+	}
+	
+	/**
+	 * Funkcja ustawiająca dany element macierzy indeksy od 0
+	 * @param i Wiersz
+	 * @param j Kolumna
+	 * @param value Nowa wartość
+	 * @throws MatrixIndexOutOfBoundsException Gdy pozycja jest po za wymiarami
+	 * @throws ReadOnlyBufferException Gdy macierz otwarta jest tylko do odczytu
+	 */
+	public void set(int i, int j, double value) throws MatrixIndexOutOfBoundsException {
+		checkIndex(i, j);
+		if(!writable) throw new ReadOnlyBufferException();
+		long e = (long)i*length + j;
+		buffers()[(int)(e >>> CHUNK_SHIFT)].put((int)(e & CHUNK_MASK), value);
+	}
+	
+	/**
+	 * Funkcja kopiująca wiersz do tablicy
+	 * @param i Wiersz
+	 * @param dst Tablica docelowa
+	 * @param off Pozycja w tablicy od której zapisywany jest wiersz
+	 * @throws MatrixIndexOutOfBoundsException Gdy wiersz jest po za wymiarami
+	 */
+	public void getRow(int i, double[] dst, int off) throws MatrixIndexOutOfBoundsException {
+		checkIndex(i, 0);
+		copyRows(i, 1, dst, off, false);
+	}
+	
+	/**
+	 * Funkcja zapisująca wiersz z tablicy
+	 * @param i Wiersz
+	 * @param src Tablica źródłowa
+	 * @param off Pozycja w tablicy od której czytany jest wiersz
+	 * @throws MatrixIndexOutOfBoundsException Gdy wiersz jest po za wymiarami
+	 * @throws ReadOnlyBufferException Gdy macierz otwarta jest tylko do odczytu
+	 */
+	public void setRow(int i, double[] src, int off) throws MatrixIndexOutOfBoundsException {
+		checkIndex(i, 0);
+		if(!writable) throw new ReadOnlyBufferException();
+		copyRows(i, 1, src, off, true);
+	}
+	
+	/**
+	 * Funkcja wczytująca blok wierszy na stertę
+	 * @param from Pierwszy wiersz
+	 * @param count Liczba wierszy
+	 * @return Macierz count x m
+	 * @throws MatrixIndexOutOfBoundsException Gdy blok wychodzi po za wymiary
+	 */
+	public Macierz readRows(int from, int count) throws MatrixIndexOutOfBoundsException {
+		checkRows(from, count);
+		Macierz a = new Macierz(count, length);
+		copyRows(from, count, a.data(), 0, false);
+		return a;
+	}
+	
+	/**
+	 * Funkcja zapisująca blok wierszy ze sterty
+	 * @param from Pierwszy wiersz
+	 * @param rows Macierz z wierszami do zapisania, o m kolumnach
+	 * @throws MatrixIndexOutOfBoundsException Gdy blok wychodzi po za wymiary
+	 * @throws MatrixSizeException Gdy liczba kolumn się nie zgadza
+	 * @throws ReadOnlyBufferException Gdy macierz otwarta jest tylko do odczytu
+	 */
+	public void writeRows(int from, Macierz rows) throws MatrixIndexOutOfBoundsException, MatrixSizeException {
+		if(rows.getLength() != length) throw new MatrixSizeException(String.format("Incorrect size, a is %d x %d, b id %d x %d", height, length, rows.getHeight(), rows.getLength()));
+		checkRows(from, rows.getHeight());
+		if(!writable) throw new ReadOnlyBufferException();
+		Macierz src = Macierz.rowMajor(rows);
+		for(int i=0; i<src.getHeight(); i++) {
+			copyRows(from+i, 1, src.data(), src.offset()+i*src.stride(), true);
+		}
+	}
+	
+	/**
+	 * Funkcja wczytująca całą macierz na stertę
+	 * @return Macierz
+	 * @throws MatrixSizeException Gdy macierz jest za duża by zmieścić ją w tablicy
+	 */
+	public Macierz toMacierz() throws MatrixSizeException {
+		if((long)height*length > Integer.MAX_VALUE - 8) throw new MatrixSizeException(String.format("Size %d x %d too large for heap matrix", height, length));
+		Macierz a = new Macierz(height, length);
+		copyRows(0, height, a.data(), 0, false);
+		return a;
+	}
+	
+	/**
+	 * Funkcja obliczająca y = A*x bez wczytywania macierzy na stertę
+	 * @param x Wektor o długości równej liczbie kolumn
+	 * @param y Wektor wynikowy o długości równej liczbie wierszy, nadpisywany
+	 */
+	public void multiply(double[] x, double[] y) {
+		DoubleBuffer[] b = buffers();
+		if(Parallel.isSequential(height, 1, length)) multiplyRows(b, x, y, 0, height);
+		else Parallel.forRange(0, height, length, (from, to) -> multiplyRows(b, x, y, from, to));
+	}
+	
+	/**
+	 * Funkcja obliczająca wiersze [from, to) wektora y = A*x
+	 */
+	private void multiplyRows(DoubleBuffer[] b, double[] x, double[] y, int from, int to) {
+		for(int i=from; i<to; i++) {
+			long e = (long)i*length;
+			double sum = 0;
+			for(int j=0; j<length; j++, e++) {
+				sum = sum + b[(int)(e >>> CHUNK_SHIFT)].get((int)(e & CHUNK_MASK))*x[j];
+			}
+			y[i] = sum;
+		}
+	}
+	
+	/**
+	 * Funkcja do mnożenia macierzy z pliku przez macierz na stercie.
+	 * A wczytywana jest blokami wierszy, więc na stercie jest naraz tylko jeden blok.
+	 * @param a Macierz z pliku
+	 * @param b Macierz na stercie
+	 * @return Macierz wynikowa a*b
+	 * @throws MatrixSizeException Gdy nie zgadzają się wymiary mnożenia lub wynik nie mieści się w tablicy
+	 */
+	public static Macierz product(MacierzMapowana a, Macierz b) throws MatrixSizeException {
+		if(a.length != b.getHeight()) throw new MatrixSizeException(String.format("Incorrect size, a is %d x %d, b id %d x %d", a.height, a.length, b.getHeight(), b.getLength()));
+		int n = a.height, m = a.length, q = b.getLength();
+		if((long)n*q > Integer.MAX_VALUE - 8) throw new MatrixSizeException(String.format("Size %d x %d too large for heap matrix", n, q));
+		Macierz ret = new Macierz(n, q);
+		if(n == 0 || q == 0) return ret;
+		int rows = Math.max(1, Math.min(n, BLOCK_ELEMENTS/Math.max(m, 1)));
+		double[] block = new double[rows*m];
+		double[] c = ret.data();
+		for(int i=0; i<n; i+=rows) {
+			int nb = Math.min(rows, n-i);
+			a.copyRows(i, nb, block, 0, false);
+			GemmKernel.multiply(nb, m, q, block, 0, m, 1, b.data(), b.offset(), b.stride(), b.colStride(), c, i*q, q);
+		}
+		return ret;
+	}
+	
+	/**
+	 * Funkcja wymuszająca zapis zmienionych stron na dysk
+	 */
+	public void force() {
+		if(!writable) return;
+		for(MappedByteBuffer m : mapped) m.force();
+	}
+	
+	/**
+	 * Funkcja zamykająca plik, po zamknięciu nie wolno korzystać z macierzy.
+	 * Zmiany w trybie do zapisu są zapisywane na dysk przed zamknięciem.
+	 * Samo odwzorowanie zwalniane jest przez odśmiecacz, gdy bufory przestaną być osiągalne.
+	 */
+	@Override
+	public void close() throws IOException {
+		if(chunks == null) return;
+		force();
+		chunks = null;
+		mapped = null;
+		channel.close();
+	}
+	
+	/**
+	 * Funkcja kopiująca count kolejnych wierszy od wiersza from pomiędzy plikiem a tablicą
+	 * @param write true - z tablicy do pliku, false - z pliku do tablicy
+	 */
+	private void copyRows(int from, int count, double[] array, int off, boolean write) {
+		copyElements((long)from*length, count*length, array, off, write);
+	}
+	
+	/**
+	 * Funkcja kopiująca count kolejnych elementów (wierszami) od elementu first pomiędzy plikiem a tablicą,
+	 * używana też przez MatrixGenerator do wypełniania pliku blokami
+	 * @param write true - z tablicy do pliku, false - z pliku do tablicy
+	 */
+	void copyElements(long first, int count, double[] array, int off, boolean write) {
+		DoubleBuffer[] b = buffers();
+		long e = first, end = e + count;
+		while(e < end) {
+			DoubleBuffer chunk = b[(int)(e >>> CHUNK_SHIFT)];
+			int pos = (int)(e & CHUNK_MASK);
+			int len = (int)Math.min(end-e, chunk.capacity()-pos);
+			DoubleBuffer view = chunk.duplicate();
+			view.position(pos);
+			if(write) view.put(array, off, len);
+			else view.get(array, off, len);
+			off = off + len;
+			e = e + len;
+		}
+	}
+	
+	/**
+	 * Funkcja zwracająca fragmenty lub rzucająca wyjątek gdy plik został zamknięty
+	 */
+	private DoubleBuffer[] buffers() {
+		DoubleBuffer[] b = chunks;
+		if(b == null) throw new IllegalStateException("Matrix file is closed");
+		return b;
+	}
+	
+	/**
+	 * Funkcja sprawdzająca czy pozycja mieści się w wymiarach
+	 */
+	private void checkIndex(int i, int j) throws MatrixIndexOutOfBoundsException {
+		if(i < 0 || i >= height || j < 0 || j >= length) {
+			throw new MatrixIndexOutOfBoundsException(String.format("Index %d or %d out of bound for size %d x %d", i, j, height, length));
+		}
+	}
+	
+	/**
+	 * Funkcja sprawdzająca czy blok wierszy mieści się w wymiarach
+	 */
+	private void checkRows(int from, int count) throws MatrixIndexOutOfBoundsException {
+		if(from < 0 || count < 0 || from > height - count) {
+			throw new MatrixIndexOutOfBoundsException(String.format("Rows %d to %d out of bound for size %d x %d", from, from+count, height, length));
+		}
+	}
+	
+	/**
+	 * Funkcja zwracająca macierz w postaci String (tylko dla macierzy mieszczących się na stercie)
+	 * @return String
+	 */
+	@Override
+	public String toString() {
+		try {
+			return toMacierz().toString();
+		} catch(MatrixSizeException e) {
+			return String.format("MacierzMapowana %d x %d", height, length);
+		}
+	}
+}
@@ -0,0 +1,569 @@
+package macierze;
+
+import java.util.*;
+
+/**
+ * Klasa macierzy rzadkiej w formacie CSR (compressed sparse row).
+ * Przechowywane są tylko niezerowe elementy, więc pamięć i czas działań zależą od ich liczby, a nie od n*m.
+ * Kolumny w każdym wierszu są posortowane rosnąco. Format CSR macierzy transponowanej
+ * jest formatem CSC (compressed sparse column) macierzy wyjściowej.
+ */
+
+public class MacierzRzadka implements LinearOperator {
+	
+	/**
+	 * Liczba wierszy macierzy
+	 */
+	private final int height;
+	
+	/**
+	 * Liczba kolumn macierzy
+	 */
+	private final int length;
+	
+	/**
+	 * Początki wierszy w tablicach columns i values, długość height+1
+	 */
+	private final int[] rowPtr;
+	
+	/**
+	 * Indeksy kolumn niezerowych elementów
+	 */
+	private final int[] columns;
+	
+	/**
+	 * Wartości niezerowych elementów
+	 */
+	private final double[] values;
+	
+	/**
+	 * Konstruktor macierzy z gotowych tablic CSR, tablice nie są kopiowane ani sprawdzane
+	 * @param n Liczba wierszy
+	 * @param m Liczba kolumn
+	 * @param rowPtr Początki wierszy
+	 * @param columns Indeksy kolumn, posortowane w każdym wierszu
+	 * @param values Wartości
+	 */
+	MacierzRzadka(int n, int m, int[] rowPtr, int[] columns, double[] values) {
+		this.height = n;
+		this.length = m;
+		this.rowPtr = rowPtr;
+		this.columns = columns;
+		this.values = values;
+	}
+	
+	/**
+	 * Konstruktor zerowej macierzy rzadkiej NxM
+	 * @param n Liczba wierszy
+	 * @param m Liczba kolumn
+	 */
+	public MacierzRzadka(int n, int m) {
+		this(n, m, new int[n+1], new int[0], new double[0]);
+	}
+	
+	/**
+	 * Klasa do budowania macierzy rzadkiej z trójek (wiersz, kolumna, wartość) w dowolnej kolejności.
+	 * Powtórzone pozycje są sumowane.
+	 */
+	public static class Builder {
+		
+		private final int height, length;
+		
+		private int[] rows, cols;
+		
+		private double[] vals;
+		
+		private int count;
+		
+		/**
+		 * Konstruktor budowniczego macierzy NxM
+		 * @param n Liczba wierszy
+		 * @param m Liczba kolumn
+		 */
+		public Builder(int n, int m) {
+			this(n, m, 16);
+		}
+		
+		/**
+		 * Konstruktor budowniczego macierzy NxM z przewidywaną liczbą elementów
+		 * @param n Liczba wierszy
+		 * @param m Liczba kolumn
+		 * @param capacity Przewidywana liczba niezerowych elementów
+		 */
+		public Builder(int n, int m, int capacity) {
+			this.height = n;
+			this.length = m;
+			capacity = Math.max(capacity, 1);
+			this.rows = new int[capacity];
+			this.cols = new int[capacity];
+			this.vals = new double[capacity];
+		}
+		
+		/**
+		 * Funkcja dodająca element, wartości na tej samej pozycji są sumowane
+		 * @param i Wiersz
+		 * @param j Kolumna
+		 * @param value Wartość
+		 * @return Builder
+		 * @throws MatrixIndexOutOfBoundsException Gdy pozycja jest po za wymiarami
+		 */
+		public Builder add(int i, int j, double value) throws MatrixIndexOutOfBoundsException {
+			if(i < 0 || i >= height || j < 0 || j >= length) {
+				throw new MatrixIndexOutOfBoundsException(String.format("Index %d or %d out of bound for size %d x %d", i, j, height, length));
+			}
+			if(value == 0) return this;
+			if(count == rows.length) {
+				int capacity = 2*count;
+				rows = Arrays.copyOf(rows, capacity);
+				cols = Arrays.copyOf(cols, capacity);
+				vals = Arrays.copyOf(vals, capacity);
+			}
+			rows[count] = i;
+			cols[count] = j;
+			vals[count] = value;
+			count++;
+			return this;
+		}
+		
+		/**
+		 * Funkcja tworząca macierz rzadką z dodanych elementów.
+		 * Sortowanie przez zliczanie najpierw po kolumnach, potem stabilnie po wierszach, O(nnz + n + m).
+		 * @return MacierzRzadka
+		 */
+		public MacierzRzadka build() {
+			// Po kolumnach
+			int[] colPtr = new int[length+1];
+			for(int k=0; k<count; k++) colPtr[cols[k]+1]++;
+			for(int j=0; j<length; j++) colPtr[j+1] += colPtr[j];
+			int[] byCol = new int[count];
+			int[] next = Arrays.copyOf(colPtr, length);
+			for(int k=0; k<count; k++) byCol[next[cols[k]]++] = k;
+			
+			// Stabilnie po wierszach
+			int[] rowPtr = new int[height+1];
+			for(int k=0; k<count; k++) rowPtr[rows[k]+1]++;
+			for(int i=0; i<height; i++) rowPtr[i+1] += rowPtr[i];
+			int[] columns = new int[count];
+			double[] values = new double[count];
+			next = Arrays.copyOf(rowPtr, height);
+			for(int t=0; t<count; t++) {
+				int k = byCol[t];
+				int pos = next[rows[k]]++;
+				columns[pos] = cols[k];
+				values[pos] = vals[k];
+			}
+			
+			// Sumowanie powtórzeń i usunięcie zer
+			int nnz = 0, start = 0;
+			for(int i=0; i<height; i++) {
+				int end = rowPtr[i+1];
+				rowPtr[i] = nnz;
+				for(int p=start; p<end; p++) {
+					if(nnz > rowPtr[i] && columns[nnz-1] == columns[p]) {
+						values[nnz-1] += values[p];
+					} else {
+						columns[nnz] = columns[p];
+						values[nnz] = values[p];
+						nnz++;
+					}
+				}
+				int w = rowPtr[i];
+				for(int p=rowPtr[i]; p<nnz; p++) {
+					if(values[p] != 0) {
+						columns[w] = columns[p];
+						values[w] = values[p];
+						w++;
+					}
+				}
+				nnz = w;
+				start = end;
+			}
+			rowPtr[height] = nnz;
+			return new MacierzRzadka(height, length, rowPtr, Arrays.copyOf(columns, nnz), Arrays.copyOf(values, nnz));
+		}
+	}
+	
+	/**
+	 * Funkcja tworząca macierz rzadką z niezerowych elementów macierzy gęstej
+	 * @param a Macierz gęsta
+	 * @return MacierzRzadka
+	 */
+	public static MacierzRzadka fromDense(Macierz a) {
+		int n = a.getHeight(), m = a.getLength();
+		double[] d = a.data();
+		int cs = a.colStride();
+		int[] rowPtr = new int[n+1];
+		for(int i=0; i<n; i++) {
+			int row = a.offset()+i*a.stride();
+			int c = 0;
+			for(int j=0; j<m; j++) if(d[row+j*cs] != 0) c++;
+			rowPtr[i+1] = rowPtr[i] + c;
+		}
+		int[] columns = new int[rowPtr[n]];
+		double[] values = new double[rowPtr[n]];
+		for(int i=0; i<n; i++) {
+			int row = a.offset()+i*a.stride();
+			int p = rowPtr[i];
+			for(int j=0; j<m; j++) {
+				if(d[row+j*cs] != 0) {
+					columns[p] = j;
+					values[p++] = d[row+j*cs];
+				}
+			}
+		}
+		return new MacierzRzadka(n, m, rowPtr, columns, values);
+	}
+	
+	/**
+	 * Funkcja tworząca macierz gęstą z macierzy rzadkiej
+	 * @return Macierz
+	 */
+	public Macierz toDense() {
+		Macierz ret = new Macierz(height, length);
+		double[] d = ret.data();
+		for(int i=0; i<height; i++) {
+			for(int p=rowPtr[i]; p<rowPtr[i+1]; p++) d[i*length+columns[p]] = values[p];
+		}
+		return ret;
+	}
+	
+	/**
+	 * Funkcja zwracająca liczbę wierszy
+	 * @return int
+	 */
+	public int getHeight() {
+		return height;
+	}
+	
+	/**
+	 * Funkcja zwracająca liczbę kolumn
+	 * @return int
+	 */
+	public int getLength() {
+		return length;
+	}
+	
+	/**
+	 * Funkcja zwracająca liczbę przechowywanych niezerowych elementów
+	 * @return int
+	 */
+	public int getNonZeros() {
+		return rowPtr[height];
+	}
+	
+	/**
+	 * Funkcja zwracająca tablicę początków wierszy (bez kopiowania)
+	 * @return int[]
+	 */
+	int[] rowPtr() {
+		return rowPtr;
+	}
+	
+	/**
+	 * Funkcja zwracająca tablicę indeksów kolumn (bez kopiowania)
+	 * @return int[]
+	 */
+	int[] columns() {
+		return columns;
+	}
+	
+	/**
+	 * Funkcja zwracająca tablicę wartości (bez kopiowania)
+	 * @return double[]
+	 */
+	double[] values() {
+		return values;
+	}
+	
+	/**
+	 * Funkcja zwracająca dany element macierzy indeksy od 0, wyszukiwanie binarne w wierszu
+	 * @param i Wiersz
+	 * @param j Kolumna
+	 * @return double
+	 * @throws MatrixIndexOutOfBoundsException Gdy pozycja jest po za wymiarami
+	 */
+	public double get(int i, int j) throws MatrixIndexOutOfBoundsException {
+		if(i < 0 || i >= height || j < 0 || j >= length) {
+			throw new MatrixIndexOutOfBoundsException(String.format("Index %d or %d out of bound for size %d x %d", i, j, height, length));
+		}
+		int p = Arrays.binarySearch(columns, rowPtr[i], rowPtr[i+1], j);
+		return (p >= 0) ? values[p] : 0;
+	}
+	
+	/**
+	 * Funkcja obliczająca y = A*x dla wektorów w postaci tablic
+	 * @param x Wektor o długości równej liczbie kolumn
+	 * @param y Wektor wynikowy o długości równej liczbie wierszy, nadpisywany
+	 */
+	public void multiply(double[] x, double[] y) {
+		if(Parallel.isSequential(height, 1, 1 + rowPtr[height]/Math.max(height, 1))) multiplyRows(x, y, 0, height);
+		else Parallel.forRange(0, height, 1 + rowPtr[height]/Math.max(height, 1), (from, to) -> multiplyRows(x, y, from, to));
+	}
+	
+	/**
+	 * Funkcja obliczająca wiersze [from, to) wektora y = A*x
+	 */
+	private void multiplyRows(double[] x, double[] y, int from, int to) {
+		for(int i=from; i<to; i++) {
+			double sum = 0;
+			for(int p=rowPtr[i]; p<rowPtr[i+1]; p++) sum = sum + values[p]*x[columns[p]];
+			y[i] = sum;
+		}
+	}
+	
+	/**
+	 * Funkcja do transponowania macierzy rzadkiej, sortowanie przez zliczanie O(nnz + n + m)
+	 * @param a Macierz do transponowania
+	 * @return MacierzRzadka transponowana
+	 */
+	public static MacierzRzadka transpose(MacierzRzadka a) {
+		int n = a.height, m = a.length, nnz = a.getNonZeros();
+		int[] rowPtr = new int[m+1];
+		for(int p=0; p<nnz; p++) rowPtr[a.columns[p]+1]++;
+		for(int j=0; j<m; j++) rowPtr[j+1] += rowPtr[j];
+		int[] next = Arrays.copyOf(rowPtr, m);
+		int[] columns = new int[nnz];
+		double[] values = new double[nnz];
+		for(int i=0; i<n; i++) {
+			for(int p=a.rowPtr[i]; p<a.rowPtr[i+1]; p++) {
+				int pos = next[a.columns[p]]++;
+				columns[pos] = i;
+				values[pos] = a.values[p];
+			}
+		}
+		return new MacierzRzadka(m, n, rowPtr, columns, values);
+	}
+	
+	/**
+	 * Funkcja do dodawania macierzy rzadkich, scalanie posortowanych wierszy
+	 * @param a Macierz po lewej stronie
+	 * @param b Macierz po prawej stronie
+	 * @return MacierzRzadka
+	 * @throws MatrixSizeException Gdy wymiary macierzy się nie zgadzają
+	 */
+	public static MacierzRzadka add(MacierzRzadka a, MacierzRzadka b) throws MatrixSizeException {
+		return combine(a, 1, b);
+	}
+	
+	/**
+	 * Funkcja do odejmowania macierzy rzadkich
+	 * @param a Macierz po lewej stronie
+	 * @param b Macierz po prawej stronie
+	 * @return MacierzRzadka
+	 * @throws MatrixSizeException Gdy wymiary macierzy się nie zgadzają
+	 */
+	public static MacierzRzadka subtract(MacierzRzadka a, MacierzRzadka b) throws MatrixSizeException {
+		return combine(a, -1, b);
+	}
+	
+	/**
+	 * Funkcja obliczająca a + beta*b przez scalanie posortowanych wierszy, zera z redukcji są pomijane
+	 */
+	private static MacierzRzadka combine(MacierzRzadka a, double beta, MacierzRzadka b) throws MatrixSizeException {
+		int n = a.height, p = b.height;
+		int m = a.length, q = b.length;
+		if(m != q || n != p) throw new MatrixSizeException(String.format("Incorrect size, a is %d x %d, b id %d x %d", n, m, p, q));
+		int capacity = a.getNonZeros() + b.getNonZeros();
+		int[] rowPtr = new int[n+1];
+		int[] columns = new int[capacity];
+		double[] values = new double[capacity];
+		int nnz = 0;
+		for(int i=0; i<n; i++) {
+			int pa = a.rowPtr[i], ea = a.rowPtr[i+1];
+			int pb = b.rowPtr[i], eb = b.rowPtr[i+1];
+			while(pa < ea || pb < eb) {
+				int ca = (pa < ea) ? a.columns[pa] : Integer.MAX_VALUE;
+				int cb = (pb < eb) ? b.columns[pb] : Integer.MAX_VALUE;
+				double v;
+				int c;
+				if(ca == cb) {
+					c = ca;
+					v = a.values[pa++] + beta*b.values[pb++];
+				} else if(ca < cb) {
+					c = ca;
+					v = a.values[pa++];
+				} else {
+					c = cb;
+					v = beta*b.values[pb++];
+				}
+				if(v != 0) {
+					columns[nnz] = c;
+					values[nnz++] = v;
+				}
+			}
+			rowPtr[i+1] = nnz;
+		}
+		return new MacierzRzadka(n, m, rowPtr, Arrays.copyOf(columns, nnz), Arrays.copyOf(values, nnz));
+	}
+	
+	/**
+	 * Funkcja do mnożenia skalara z macierzą rzadką
+	 * @param a Skalar
+	 * @param b Macierz rzadka
+	 * @return MacierzRzadka
+	 */
+	public static MacierzRzadka product(double a, MacierzRzadka b) {
+		if(a == 0) return new MacierzRzadka(b.height, b.length);
+		double[] values = new double[b.getNonZeros()];
+		for(int p=0; p<values.length; p++) values[p] = a*b.values[p];
+		return new MacierzRzadka(b.height, b.length, b.rowPtr.clone(), Arrays.copyOf(b.columns, values.length), values);
+	}
+	
+	/**
+	 * Funkcja do mnożenia macierzy rzadkiej z macierzą gęstą, O(nnz*q)
+	 * @param a Macierz rzadka po lewej stronie
+	 * @param b Macierz gęsta po prawej stronie
+	 * @return Macierz gęsta
+	 * @throws MatrixSizeException Gdy nie zgadzają się wymiary mnożenia
+	 */
+	public static Macierz product(MacierzRzadka a, Macierz b) throws MatrixSizeException {
+		int n = a.height, p = b.getHeight();
+		int m = a.length, q = b.getLength();
+		if(m != p) throw new MatrixSizeException(String.format("Incorrect size, a is %d x %d, b id %d x %d", n, m, p, q));
+		Macierz ret = new Macierz(n, q);
+		double[] r = ret.data(), y = b.data();
+		int bo = b.offset(), bs = b.stride(), bc = b.colStride();
+		long cost = (1 + a.getNonZeros()/Math.max(n, 1))*(long)q;
+		Parallel.forRange(0, n, cost, (from, to) -> {
+			for(int i=from; i<to; i++) {
+				int ir = i*q;
+				for(int k=a.rowPtr[i]; k<a.rowPtr[i+1]; k++) {
+					double v = a.values[k];
+					int ib = bo+a.columns[k]*bs;
+					for(int j=0; j<q; j++) r[ir+j] = r[ir+j] + v*y[ib+j*bc];
+				}
+			}
+		});
+		return ret;
+	}
+	
+	/**
+	 * Funkcja do mnożenia macierzy gęstej z macierzą rzadką, O(n*nnz)
+	 * @param a Macierz gęsta po lewej stronie
+	 * @param b Macierz rzadka po prawej stronie
+	 * @return Macierz gęsta
+	 * @throws MatrixSizeException Gdy nie zgadzają się wymiary mnożenia
+	 */
+	public static Macierz product(Macierz a, MacierzRzadka b) throws MatrixSizeException {
+		int n = a.getHeight(), p = b.height;
+		int m = a.getLength(), q = b.length;
+		if(m != p) throw new MatrixSizeException(String.format("Incorrect size, a is %d x %d, b id %d x %d", n, m, p, q));
+		Macierz ret = new Macierz(n, q);
+		double[] r = ret.data(), x = a.data();
+		int ao = a.offset(), as = a.stride(), ac = a.colStride();
+		long cost = 1 + b.getNonZeros();
+		Parallel.forRange(0, n, cost, (from, to) -> {
+			for(int i=from; i<to; i++) {
+				int ia = ao+i*as, ir = i*q;
+				for(int k=0; k<m; k++) {
+					double v = x[ia+k*ac];
+					if(v == 0) continue;
+					for(int t=b.rowPtr[k]; t<b.rowPtr[k+1]; t++) r[ir+b.columns[t]] += v*b.values[t];
+				}
+			}
+		});
+		return ret;
+	}
+	
+	/**
+	 * Funkcja do mnożenia dwóch macierzy rzadkich algorytmem Gustavsona.
+	 * Wiersz wyniku zbierany jest w gęstym akumulatorze z tablicą znaczników, koszt zależy od liczby mnożeń niezerowych elementów.
+	 * @param a Macierz po lewej stronie mnożenia
+	 * @param b Macierz po prawej stronie mnożenia
+	 * @return MacierzRzadka
+	 * @throws MatrixSizeException Gdy nie zgadzają się wymiary mnożenia
+	 */
+	public static MacierzRzadka product(MacierzRzadka a, MacierzRzadka b) throws MatrixSizeException {
+		int n = a.height, p = b.height;
+		int m = a.length, q = b.length;
+		if(m != p) throw new MatrixSizeException(String.format("Incorrect size, a is %d x %d, b id %d x %d", n, m, p, q));
+		double[] acc = new double[q];
+		int[] mark = new int[q];
+		Arrays.fill(mark, -1);
+		int[] rowPtr = new int[n+1];
+		int capacity = Math.max(16, a.getNonZeros() + b.getNonZeros());
+		int[] columns = new int[capacity];
+		double[] values = new double[capacity];
+		int nnz = 0;
+		for(int i=0; i<n; i++) {
+			int start = nnz;
+			for(int k=a.rowPtr[i]; k<a.rowPtr[i+1]; k++) {
+				double v = a.values[k];
+				int row = a.columns[k];
+				for(int t=b.rowPtr[row]; t<b.rowPtr[row+1]; t++) {
+					int c = b.columns[t];
+					if(mark[c] != i) {
+						mark[c] = i;
+						acc[c] = 0;
+						if(nnz == columns.length) {
+							columns = Arrays.copyOf(columns, 2*nnz);
+							values = Arrays.copyOf(values, 2*nnz);
+						}
+						columns[nnz++] = c;
+					}
+					acc[c] += v*b.values[t];
+				}
+			}
+			Arrays.sort(columns, start, nnz);
+			int w = start;
+			for(int t=start; t<nnz; t++) {
+				double v = acc[columns[t]];
+				if(v != 0) {
+					columns[w] = columns[t];
+					values[w++] = v;
+				}
+			}
+			nnz = w;
+			rowPtr[i+1] = nnz;
+		}
+		return new MacierzRzadka(n, q, rowPtr, Arrays.copyOf(columns, nnz), Arrays.copyOf(values, nnz));
+	}
+	
+	/**
+	 * Funkcja zwracająca widok String niezerowych elementów w postaci (wiersz, kolumna) wartość
+	 * @return String
+	 */
+	@Override
+	public String toString() {
+		StringBuilder ret = new StringBuilder();
+		ret.append(String.format("%d x %d, nnz %d\n", height, length, getNonZeros()));
+		for(int i=0; i<height; i++) {
+			for(int p=rowPtr[i]; p<rowPtr[i+1]; p++) {
+				ret.append(String.format("(%d, %d) %.5e\n", i, columns[p], values[p]));
+			}
+		}
+		return ret.toString();
+	}
+	
+	/**
+	 * Funkcja sprawdzająca czy dana macierz rzadka jest równa aktualnej
+	 * @param b Macierz do porównania
+	 * @return boolean
+	 */
+	@Override
+	public boolean equals(Object b) {
+		if(this == b) return true;
+		if(!(b instanceof MacierzRzadka)) return false;
+		MacierzRzadka a = (MacierzRzadka)b;
+		int nnz = getNonZeros();
+		return a.height == height && a.length == length
+				&& Arrays.equals(a.rowPtr, rowPtr)
+				&& Arrays.equals(a.columns, 0, nnz, columns, 0, nnz)
+				&& Arrays.equals(a.values, 0, nnz, values, 0, nnz);
+	}
+	
+	/**
+	 * Funckja do obliczenia HashCode dla macierzy rzadkiej
+	 * @return int
+	 */
+	@Override
+	public int hashCode() {
+		int h = 31*height + length;
+		for(int p=0; p<getNonZeros(); p++) {
+			long bits = Double.doubleToLongBits(values[p]);
+			h = 31*h + columns[p];
+			h = 31*h + (int)(bits ^ (bits >>> 32));
+		}
+		return h;
+	}
+}
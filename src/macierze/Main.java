@@ -77,6 +77,11 @@ public class Main {
 			
 			// Test wyznacznika
 			System.out.println("Wyznaczynik Jedynkowa\n" + Macierz.determinant(test1));
+			System.out.println("Wyznaczynik magic(3)\n" + Macierz.determinant(test));
+			
+			// Test logarytmu wyznacznika
+			double[] logDet = Macierz.logDeterminant(new Macierz(4, 4, "hilbert"));
+			System.out.println("Logarytm wyznacznika Hilberta\nznak " + logDet[0] + " log|det| " + logDet[1]);
 		} catch(Exception e) {
 			e.printStackTrace();
 			e.getMessage();
@@ -0,0 +1,296 @@
+package macierze;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Wykonawca asynchronicznych działań na macierzach, zwracający CompletableFuture.
+ * Zadania dzielone są według szacowanej liczby działań (FLOP): najmniejsze (poniżej VIRTUAL_COST) uruchamiane są
+ * na wątkach wirtualnych, gdy JVM je ma (Java 21+, ładowane przez refleksję, -Dmacierze.virtual=false wyłącza),
+ * a w przeciwnym razie w puli Parallel. Średnie (poniżej SMALL_COST) zawsze trafiają do puli Parallel, bo korzystają
+ * z jądra GemmKernel, którego bufory na wątek przydzielane byłyby od nowa w każdym nowym wątku wirtualnym.
+ * Duże uruchamiane są w ograniczonej puli largeThreads wątków,
+ * bo same dzielą pracę na wątki przez Parallel i więcej naraz tylko konkurowałoby o rdzenie.
+ * Liczba zadań oczekujących i wykonywanych jest ograniczona (maxPending), submit czeka na wolne miejsce,
+ * więc szybki producent nie zapełni pamięci kolejką (back-pressure).
+ * Anulowanie zwróconego CompletableFuture przed uruchomieniem zadania od razu zwalnia jego miejsce. Zadanie duże jest
+ * też usuwane z kolejki, w pozostałych pulach zostaje w kolejce do pobrania, ale nie jest już wykonywane.
+ * Wykonywane zadanie nie jest przerywane, bo działania na macierzach nie sprawdzają przerwania: kończy się, wynik jest
+ * pomijany, a miejsce zwalniane dopiero wtedy, więc limit maxPending i close obejmują także takie zadania.
+ * Macierze przekazane do zadań nie mogą być zmieniane aż do ich zakończenia, najprościej podawać macierze zamrożone (freeze).
+ */
+
+public final class MatrixExecutor implements AutoCloseable {
+	
+	/**
+	 * Szacowana liczba działań, od której zadanie uznawane jest za duże (iloczyn macierzy ok. 128 x 128)
+	 */
+	static final double SMALL_COST = 1 << 22;
+	
+	/**
+	 * Szacowana liczba działań, od której zadanie nie trafia na wątek wirtualny (iloczyn używający GemmKernel)
+	 */
+	static final double VIRTUAL_COST = 2.0*GemmKernel.THRESHOLD;
+	
+	/**
+	 * Numer kolejnego wykonawcy w nazwach wątków
+	 */
+	private static final AtomicInteger POOLS = new AtomicInteger();
+	
+	/**
+	 * Wykonawca małych zadań, wątki wirtualne lub pula Parallel
+	 */
+	private final Executor small;
+	
+	/**
+	 * Wykonawca wątków wirtualnych, null gdy nie są dostępne (wtedy small to pula Parallel, która nie jest zamykana)
+	 */
+	private final ExecutorService virtual;
+	
+	/**
+	 * Ograniczona pula dużych zadań
+	 */
+	private final ThreadPoolExecutor large;
+	
+	/**
+	 * Wolne miejsca na zadania oczekujące i wykonywane
+	 */
+	private final Semaphore permits;
+	
+	/**
+	 * Największa liczba zadań oczekujących i wykonywanych
+	 */
+	private final int maxPending;
+	
+	/**
+	 * Czy wykonawca został zamknięty
+	 */
+	private volatile boolean closed;
+	
+	/**
+	 * Konstruktor wykonawcy z min(4, liczba rdzeni) wątkami dużych zadań i 1024 miejscami na zadania
+	 */
+	public MatrixExecutor() {
+		this(Math.min(4, Runtime.getRuntime().availableProcessors()), 1024);
+	}
+	
+	/**
+	 * Konstruktor wykonawcy z podanymi limitami
+	 * @param largeThreads Liczba wątków dla dużych zadań
+	 * @param maxPending Największa liczba zadań oczekujących i wykonywanych, po jej osiągnięciu submit czeka
+	 */
+	public MatrixExecutor(int largeThreads, int maxPending) {
+		if(largeThreads < 1 || maxPending < 1) throw new IllegalArgumentException(String.format("Incorrect limits %d threads, %d pending", largeThreads, maxPending));
+		this.maxPending = maxPending;
+		this.permits = new Semaphore(maxPending);
+		this.virtual = loadVirtual();
+		this.small = virtual != null ? virtual : Parallel.getPool();
+		String name = "macierze-executor-" + POOLS.incrementAndGet() + "-";
+		AtomicInteger threads = new AtomicInteger();
+		this.large = new ThreadPoolExecutor(largeThreads, largeThreads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+			Thread t = new Thread(r, name + threads.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		});
+	}
+	
+	/**
+	 * Funkcja tworząca wykonawcę wątków wirtualnych przez refleksję, null gdy JVM ich nie ma lub zostały wyłączone
+	 */
+	private static ExecutorService loadVirtual() {
+		if(!Boolean.parseBoolean(System.getProperty("macierze.virtual", "true"))) return null;
+		try {
+			return (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch(ReflectiveOperationException | LinkageError | RuntimeException e) {
+			// Java starsza niż 21 lub wątki wirtualne jako wyłączona funkcja preview
+			return null;
+		}
+	}
+	
+	/**
+	 * Funkcja sprawdzająca czy małe zadania wykonywane są na wątkach wirtualnych
+	 * @return boolean
+	 */
+	public boolean isVirtual() {
+		return virtual != null;
+	}
+	
+	/**
+	 * Funkcja zwracająca liczbę wątków dużych zadań
+	 * @return int
+	 */
+	public int getLargeThreads() {
+		return large.getCorePoolSize();
+	}
+	
+	/**
+	 * Funkcja zwracająca największą liczbę zadań oczekujących i wykonywanych
+	 * @return int
+	 */
+	public int getMaxPending() {
+		return maxPending;
+	}
+	
+	/**
+	 * Funkcja zwracająca liczbę zadań oczekujących i wykonywanych
+	 * @return int
+	 */
+	public int getPending() {
+		return maxPending - permits.availablePermits();
+	}
+	
+	/**
+	 * Funkcja wysyłająca zadanie do wykonania, czeka gdy osiągnięto limit zadań
+	 * @param task Zadanie
+	 * @param cost Szacowana liczba działań zmiennoprzecinkowych, decyduje o wyborze puli
+	 * @return CompletableFuture z wynikiem lub wyjątkiem zadania
+	 * @throws RejectedExecutionException Gdy wykonawca został zamknięty lub wątek przerwano w czasie czekania
+	 */
+	public <T> CompletableFuture<T> submit(Callable<T> task, double cost) {
+		if(task == null) throw new NullPointerException("task");
+		if(closed) throw new RejectedExecutionException("Executor is closed");
+		try {
+			permits.acquire();
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RejectedExecutionException("Interrupted while waiting for capacity", e);
+		}
+		if(closed) {
+			permits.release();
+			throw new RejectedExecutionException("Executor is closed");
+		}
+		CompletableFuture<T> result = new CompletableFuture<>();
+		// 0 - w kolejce, 1 - ciało zadania uruchomione, 2 - anulowane przed uruchomieniem; miejsce zwalnia ten, kto zmienił 0
+		AtomicInteger state = new AtomicInteger();
+		FutureTask<Void> run = new FutureTask<Void>(() -> {
+			if(!state.compareAndSet(0, 1)) return;
+			try {
+				if(result.isDone()) return;
+				result.complete(task.call());
+			} catch(Throwable e) {
+				result.completeExceptionally(e);
+			} finally {
+				permits.release();
+			}
+		}, null) {
+			@Override
+			protected void done() {
+				// Wywoływane także przy anulowaniu w trakcie wykonania, wtedy miejsce zwalnia dopiero ciało zadania
+				if(isCancelled() && state.compareAndSet(0, 2)) permits.release();
+			}
+		};
+		result.whenComplete((r, e) -> {
+			if(result.isCancelled()) {
+				// Bez przerywania, jądra i tak go nie sprawdzają, a wątek może należeć do współdzielonej puli Parallel
+				run.cancel(false);
+				// ThreadPoolExecutor nie usuwa anulowanych zadań z kolejki sam
+				large.remove(run);
+			}
+		});
+		try {
+			executor(cost).execute(run);
+		} catch(RejectedExecutionException e) {
+			run.cancel(false);
+			result.completeExceptionally(e);
+		}
+		return result;
+	}
+	
+	/**
+	 * Funkcja wybierająca pulę dla zadania o podanym koszcie
+	 */
+	private Executor executor(double cost) {
+		if(cost < VIRTUAL_COST) return small;
+		if(cost < SMALL_COST) return Parallel.getPool();
+		return large;
+	}
+	
+	/**
+	 * Funkcja wysyłająca wiele zadań o podobnym koszcie, kolejno, z czekaniem na wolne miejsca
+	 * @param tasks Zadania
+	 * @param cost Szacowana liczba działań jednego zadania
+	 * @return List wyników w kolejności zadań
+	 */
+	public <T> List<CompletableFuture<T>> submitAll(List<? extends Callable<T>> tasks, double cost) {
+		List<CompletableFuture<T>> ret = new ArrayList<>(tasks.size());
+		for(Callable<T> task : tasks) ret.add(submit(task, cost));
+		return ret;
+	}
+	
+	/**
+	 * Funkcja łącząca wyniki w jeden, zakończony gdy zakończą się wszystkie, wyjątkiem gdy którykolwiek się nie powiedzie
+	 * @param futures Wyniki zadań
+	 * @return CompletableFuture z listą wyników w tej samej kolejności
+	 */
+	public static <T> CompletableFuture<List<T>> allOf(List<CompletableFuture<T>> futures) {
+		return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+			List<T> ret = new ArrayList<>(futures.size());
+			for(CompletableFuture<T> f : futures) ret.add(f.join());
+			return ret;
+		});
+	}
+	
+	/**
+	 * Funkcja mnożąca macierze asynchronicznie
+	 * @param a Macierz po lewej stronie mnożenia
+	 * @param b Macierz po prawej stronie mnożenia
+	 * @return CompletableFuture z iloczynem lub MatrixSizeException
+	 */
+	public CompletableFuture<Macierz> product(Macierz a, Macierz b) {
+		return submit(() -> Macierz.product(a, b), 2.0*a.getHeight()*a.getLength()*b.getLength());
+	}
+	
+	/**
+	 * Funkcja obliczająca macierz odwrotną asynchronicznie
+	 * @param a Macierz do odwrócenia
+	 * @return CompletableFuture z macierzą odwrotną, MatrixSizeException lub ArithmeticException
+	 */
+	public CompletableFuture<Macierz> inverse(Macierz a) {
+		double n = a.getLength();
+		return submit(() -> Macierz.inverse(a), 2*n*n*n);
+	}
+	
+	/**
+	 * Funkcja rozwiązująca układ AX = B asynchronicznie
+	 * @param a Macierz współczynników
+	 * @param b Macierz wyrazów wolnych
+	 * @return CompletableFuture z rozwiązaniem, MatrixSizeException lub ArithmeticException
+	 */
+	public CompletableFuture<Macierz> solve(Macierz a, Macierz b) {
+		double n = a.getLength();
+		return submit(() -> Macierz.solve(a, b), 2*n*n*n/3 + 2*n*n*b.getLength());
+	}
+	
+	/**
+	 * Funkcja obliczająca wyznacznik asynchronicznie
+	 * @param a Macierz kwadratowa
+	 * @return CompletableFuture z wyznacznikiem lub MatrixSizeException
+	 */
+	public CompletableFuture<Double> determinant(Macierz a) {
+		double n = a.getLength();
+		return submit(() -> Macierz.determinant(a), 2*n*n*n/3);
+	}
+	
+	/**
+	 * Funkcja zamykająca wykonawcę: nowe zadania są odrzucane, wysłane wcześniej kończą się, funkcja czeka na ich koniec
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		large.shutdown();
+		if(virtual != null) virtual.shutdown();
+		// Wszystkie miejsca wolne oznaczają koniec wszystkich zadań, także tych w puli Parallel
+		permits.acquireUninterruptibly(maxPending);
+		permits.release(maxPending);
+	}
+	
+	/**
+	 * Funkcja zwracająca stan wykonawcy
+	 * @return String
+	 */
+	@Override
+	public String toString() {
+		return String.format("MatrixExecutor[virtual=%b, largeThreads=%d, pending=%d/%d]", isVirtual(), getLargeThreads(), getPending(), maxPending);
+	}
+}
@@ -0,0 +1,135 @@
+package macierze;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+
+/**
+ * Klasa z binarnym formatem plików macierzy.
+ * Plik zaczyna się 32-bajtowym nagłówkiem (little-endian): magiczne "MACZ", wersja, typ danych,
+ * pole zarezerwowane, liczba wierszy (long) i liczba kolumn (long), po nim wartości zapisane wierszami jako little-endian.
+ */
+
+public final class MatrixFile {
+	
+	/**
+	 * Magiczna liczba na początku pliku, "MACZ"
+	 */
+	static final int MAGIC = 0x5A43414D;
+	
+	/**
+	 * Wersja formatu
+	 */
+	static final int VERSION = 1;
+	
+	/**
+	 * Typ danych: 64-bitowe liczby zmiennoprzecinkowe
+	 */
+	public static final int TYPE_DOUBLE = 1;
+	
+	/**
+	 * Rozmiar nagłówka w bajtach
+	 */
+	public static final int HEADER_SIZE = 32;
+	
+	/**
+	 * Rozmiar bufora przy zapisie i odczycie strumieniowym
+	 */
+	private static final int BUFFER_SIZE = 1 << 16;
+	
+	private MatrixFile() {}
+	
+	/**
+	 * Funkcja zapisująca macierz do pliku binarnego
+	 * @param a Macierz do zapisania
+	 * @param path Ścieżka pliku, nadpisywany jeśli istnieje
+	 * @throws IOException Gdy zapis się nie powiedzie
+	 */
+	public static void write(Macierz a, Path path) throws IOException {
+		try(FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ch.write(header(a.getHeight(), a.getLength(), TYPE_DOUBLE));
+			ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			double[] d = a.data();
+			int cs = a.colStride();
+			for(int i=0; i<a.getHeight(); i++) {
+				int row = a.offset()+i*a.stride();
+				for(int j=0; j<a.getLength(); j++) {
+					if(buf.remaining() < Double.BYTES) {
+						buf.flip();
+						while(buf.hasRemaining()) ch.write(buf);
+						buf.clear();
+					}
+					buf.putDouble(d[row+j*cs]);
+				}
+			}
+			buf.flip();
+			while(buf.hasRemaining()) ch.write(buf);
+		}
+	}
+	
+	/**
+	 * Funkcja odczytująca macierz z pliku binarnego na stertę
+	 * @param path Ścieżka pliku
+	 * @return Macierz
+	 * @throws IOException Gdy odczyt się nie powiedzie lub plik ma zły format
+	 * @throws MatrixSizeException Gdy macierz jest za duża by zmieścić ją w tablicy
+	 */
+	public static Macierz read(Path path) throws IOException, MatrixSizeException {
+		try(FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+			long[] dims = readHeader(ch);
+			if(dims[0]*dims[1] > Integer.MAX_VALUE - 8) throw new MatrixSizeException(String.format("Size %d x %d too large for heap matrix", dims[0], dims[1]));
+			double[] data = new double[(int)(dims[0]*dims[1])];
+			ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			int idx = 0;
+			while(idx < data.length) {
+				buf.clear();
+				buf.limit((int)Math.min(BUFFER_SIZE, (long)(data.length-idx)*Double.BYTES));
+				while(buf.hasRemaining()) {
+					if(ch.read(buf) < 0) throw new EOFException("Unexpected end of matrix file");
+				}
+				buf.flip();
+				while(buf.remaining() >= Double.BYTES) data[idx++] = buf.getDouble();
+			}
+			return new Macierz((int)dims[0], (int)dims[1], data);
+		}
+	}
+	
+	/**
+	 * Funkcja tworząca nagłówek pliku
+	 * @param n Liczba wierszy
+	 * @param m Liczba kolumn
+	 * @param type Typ danych
+	 * @return ByteBuffer gotowy do zapisu
+	 */
+	static ByteBuffer header(long n, long m, int type) {
+		ByteBuffer h = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		h.putInt(MAGIC).putInt(VERSION).putInt(type).putInt(0).putLong(n).putLong(m);
+		h.flip();
+		return h;
+	}
+	
+	/**
+	 * Funkcja odczytująca i sprawdzająca nagłówek pliku
+	 * @param ch Kanał ustawiony na początku pliku
+	 * @return long[] 0 - liczba wierszy, 1 - liczba kolumn
+	 * @throws IOException Gdy nagłówek jest niepoprawny lub rozmiar pliku się nie zgadza
+	 */
+	static long[] readHeader(FileChannel ch) throws IOException {
+		ByteBuffer h = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		while(h.hasRemaining()) {
+			if(ch.read(h) < 0) throw new EOFException("Matrix file shorter than header");
+		}
+		h.flip();
+		int magic = h.getInt(), version = h.getInt(), type = h.getInt();
+		h.getInt();
+		long n = h.getLong(), m = h.getLong();
+		if(magic != MAGIC) throw new IOException("Not a matrix file");
+		if(version != VERSION) throw new IOException(String.format("Unsupported matrix file version %d", version));
+		if(type != TYPE_DOUBLE) throw new IOException(String.format("Unsupported matrix data type %d", type));
+		if(n < 0 || m < 0 || n > Integer.MAX_VALUE || m > Integer.MAX_VALUE) throw new IOException(String.format("Incorrect size %d x %d in matrix file", n, m));
+		// n*m < 2^62, ale n*m*Double.BYTES może się przepełnić, dlatego porównanie liczby elementów
+		if(n*m > (ch.size()-HEADER_SIZE)/Double.BYTES) throw new IOException(String.format("Matrix file too short for size %d x %d", n, m));
+		return new long[] {n, m};
+	}
+}
@@ -0,0 +1,333 @@
+package macierze;
+
+import java.nio.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Generator macierzy losowych z ziarnem, powtarzalny i wielowątkowy.
+ * Elementy macierzy (w kolejności wierszami) dzielone są na bloki po BLOCK wartości, każdy blok ma własny
+ * SplittableRandom o ziarnie wyliczonym z ziarna generatora, numeru wywołania i numeru bloku. Dzięki temu
+ * wynik zależy tylko od ziarna i kolejności wywołań, a nie od liczby wątków ani podziału pracy, a bloki
+ * mogą być liczone równolegle bez wspólnego, blokującego się generatora.
+ * Kolejne wywołania zwracają różne macierze, generator o tym samym ziarnie zwraca ten sam ciąg macierzy.
+ * Macierz na stercie i macierz w pliku (MacierzMapowana) o tych samych wymiarach dostają te same wartości.
+ */
+
+public final class MatrixGenerator {
+	
+	/**
+	 * Liczba elementów jednego bloku z własnym strumieniem liczb losowych, parzysta dla par z rozkładu normalnego
+	 */
+	private static final int BLOCK = 4096;
+	
+	/**
+	 * Nieparzysta stała złotego podziału, odstęp kolejnych ziaren (jak w SplittableRandom)
+	 */
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+	
+	/**
+	 * Szacowany koszt wylosowania jednego elementu, w jednostkach progu Parallel
+	 */
+	private static final long COST = 4;
+	
+	/**
+	 * Ziarno generatora
+	 */
+	private final long seed;
+	
+	/**
+	 * Numer kolejnego wywołania, każde wywołanie ma własny ciąg bloków
+	 */
+	private final AtomicLong calls = new AtomicLong();
+	
+	/**
+	 * Konstruktor generatora z losowym ziarnem
+	 */
+	public MatrixGenerator() {
+		this(new SplittableRandom().nextLong());
+	}
+	
+	/**
+	 * Konstruktor generatora z podanym ziarnem
+	 * @param seed Ziarno, te same ziarno daje ten sam ciąg macierzy
+	 */
+	public MatrixGenerator(long seed) {
+		this.seed = seed;
+	}
+	
+	/**
+	 * Funkcja zwracająca ziarno generatora
+	 * @return long
+	 */
+	public long getSeed() {
+		return seed;
+	}
+	
+	/**
+	 * Funkcja tworząca macierz z wartościami o rozkładzie jednostajnym na [0, 1)
+	 * @param n Liczba wierszy
+	 * @param m Liczba kolumn
+	 * @return Macierz
+	 */
+	public Macierz uniform(int n, int m) {
+		return uniform(n, m, 0, 1);
+	}
+	
+	/**
+	 * Funkcja tworząca macierz z wartościami o rozkładzie jednostajnym na [lo, hi)
+	 * @param n Liczba wierszy
+	 * @param m Liczba kolumn
+	 * @param lo Dolna granica
+	 * @param hi Górna granica
+	 * @return Macierz
+	 */
+	public Macierz uniform(int n, int m, double lo, double hi) {
+		Macierz a = new Macierz(n, m);
+		fillUniform(a, lo, hi);
+		return a;
+	}
+	
+	/**
+	 * Funkcja tworząca macierz z wartościami o standardowym rozkładzie normalnym
+	 * @param n Liczba wierszy
+	 * @param m Liczba kolumn
+	 * @return Macierz
+	 */
+	public Macierz normal(int n, int m) {
+		return normal(n, m, 0, 1);
+	}
+	
+	/**
+	 * Funkcja tworząca macierz z wartościami o rozkładzie normalnym
+	 * @param n Liczba wierszy
+	 * @param m Liczba kolumn
+	 * @param mean Wartość oczekiwana
+	 * @param sd Odchylenie standardowe
+	 * @return Macierz
+	 */
+	public Macierz normal(int n, int m, double mean, double sd) {
+		Macierz a = new Macierz(n, m);
+		fillNormal(a, mean, sd);
+		return a;
+	}
+	
+	/**
+	 * Funkcja wypełniająca istniejącą macierz (także widok) wartościami o rozkładzie jednostajnym na [lo, hi)
+	 * @param dst Macierz do wypełnienia
+	 * @param lo Dolna granica
+	 * @param hi Górna granica
+	 */
+	public void fillUniform(Macierz dst, double lo, double hi) {
+		checkRange(lo, hi);
+		fill(dst, false, lo, hi-lo);
+	}
+	
+	/**
+	 * Funkcja wypełniająca istniejącą macierz (także widok) wartościami o rozkładzie normalnym
+	 * @param dst Macierz do wypełnienia
+	 * @param mean Wartość oczekiwana
+	 * @param sd Odchylenie standardowe
+	 */
+	public void fillNormal(Macierz dst, double mean, double sd) {
+		checkDeviation(sd);
+		fill(dst, true, mean, sd);
+	}
+	
+	/**
+	 * Funkcja wypełniająca macierz w pliku wartościami o rozkładzie jednostajnym na [lo, hi), bez wczytywania jej na stertę
+	 * @param dst Macierz otwarta do zapisu
+	 * @param lo Dolna granica
+	 * @param hi Górna granica
+	 * @throws ReadOnlyBufferException Gdy macierz otwarta jest tylko do odczytu
+	 */
+	public void fillUniform(MacierzMapowana dst, double lo, double hi) {
+		checkRange(lo, hi);
+		fill(dst, false, lo, hi-lo);
+	}
+	
+	/**
+	 * Funkcja wypełniająca macierz w pliku wartościami o rozkładzie normalnym, bez wczytywania jej na stertę
+	 * @param dst Macierz otwarta do zapisu
+	 * @param mean Wartość oczekiwana
+	 * @param sd Odchylenie standardowe
+	 * @throws ReadOnlyBufferException Gdy macierz otwarta jest tylko do odczytu
+	 */
+	public void fillNormal(MacierzMapowana dst, double mean, double sd) {
+		checkDeviation(sd);
+		fill(dst, true, mean, sd);
+	}
+	
+	/**
+	 * Funkcja tworząca losową macierz rzadką, każdy element jest niezerowy z prawdopodobieństwem density,
+	 * wartości niezerowe mają rozkład jednostajny na (0, 1]. Pozycje losowane są przez długości przerw
+	 * (rozkład geometryczny), więc koszt zależy od liczby niezerowych elementów, a nie od n*m.
+	 * Wiersze mają własne strumienie i liczone są równolegle, najpierw zliczane, potem wypełniane.
+	 * @param n Liczba wierszy
+	 * @param m Liczba kolumn
+	 * @param density Gęstość, z przedziału [0, 1]
+	 * @return MacierzRzadka
+	 */
+	public MacierzRzadka sparse(int n, int m, double density) {
+		if(!(density >= 0 && density <= 1)) throw new IllegalArgumentException(String.format("Density %s out of range [0, 1]", density));
+		if(n < 0 || m < 0) throw new IllegalArgumentException(String.format("Incorrect size %d x %d", n, m));
+		long base = nextCall();
+		int[] rowPtr = new int[n+1];
+		if(density == 0 || m == 0) return new MacierzRzadka(n, m, rowPtr, new int[0], new double[0]);
+		long cost = Math.max(1, (long)(density*m))*COST;
+		if(Parallel.isSequential(n, 1, cost)) sparseRows(base, m, density, rowPtr, null, null, 0, n);
+		else Parallel.forRange(0, n, cost, (from, to) -> sparseRows(base, m, density, rowPtr, null, null, from, to));
+		long nnz = 0;
+		for(int i=0; i<n; i++) {
+			nnz = nnz + rowPtr[i+1];
+			if(nnz > Integer.MAX_VALUE - 8) throw new IllegalArgumentException(String.format("Too many non-zeros for %d x %d with density %s", n, m, density));
+			rowPtr[i+1] = (int)nnz;
+		}
+		int[] columns = new int[(int)nnz];
+		double[] values = new double[(int)nnz];
+		if(Parallel.isSequential(n, 1, cost)) sparseRows(base, m, density, rowPtr, columns, values, 0, n);
+		else Parallel.forRange(0, n, cost, (from, to) -> sparseRows(base, m, density, rowPtr, columns, values, from, to));
+		return new MacierzRzadka(n, m, rowPtr, columns, values);
+	}
+	
+	/**
+	 * Funkcja losująca wiersze [from, to) macierzy rzadkiej. Bez tablic columns i values tylko zlicza
+	 * elementy wiersza i do rowPtr[i+1], z nimi zapisuje elementy od pozycji rowPtr[i]. Oba przejścia
+	 * losują te same liczby z tego samego strumienia wiersza.
+	 */
+	private static void sparseRows(long base, int m, double density, int[] rowPtr, int[] columns, double[] values, int from, int to) {
+		double logq = Math.log1p(-density);
+		for(int i=from; i<to; i++) {
+			SplittableRandom r = stream(base, i);
+			int count = 0, pos = columns == null ? 0 : rowPtr[i];
+			long j = -1;
+			while(true) {
+				// Przerwa do następnego niezerowego elementu, dla density = 1 zawsze 0
+				j = j + 1 + (density == 1 ? 0 : (long)(Math.log(1 - r.nextDouble())/logq));
+				if(j >= m) break;
+				double v = 1 - r.nextDouble();
+				if(columns != null) {
+					columns[pos+count] = (int)j;
+					values[pos+count] = v;
+				}
+				count++;
+			}
+			if(columns == null) rowPtr[i+1] = count;
+		}
+	}
+	
+	/**
+	 * Funkcja wypełniająca macierz blokami, równolegle. Wartość to shift + scale*x, gdzie x ma rozkład
+	 * jednostajny na [0, 1) lub standardowy normalny.
+	 */
+	private void fill(Macierz dst, boolean normal, double shift, double scale) {
+		Macierz.checkWritable(dst);
+		long base = nextCall();
+		int total = dst.getHeight()*dst.getLength();
+		int blocks = (total + BLOCK - 1)/BLOCK;
+		if(Parallel.isSequential(blocks, 1, BLOCK*COST)) fillBlocks(dst, base, normal, shift, scale, 0, blocks);
+		else Parallel.forRange(0, blocks, BLOCK*COST, (from, to) -> fillBlocks(dst, base, normal, shift, scale, from, to));
+	}
+	
+	/**
+	 * Funkcja wypełniająca bloki [from, to) macierzy, fragmenty bloku w kolejnych wierszach kopiowane są osobno
+	 */
+	private static void fillBlocks(Macierz dst, long base, boolean normal, double shift, double scale, int from, int to) {
+		double[] buf = new double[BLOCK], d = dst.data();
+		int m = dst.getLength(), total = dst.getHeight()*m;
+		int off = dst.offset(), s = dst.stride(), cs = dst.colStride();
+		for(int b=from; b<to; b++) {
+			int first = b*BLOCK, len = Math.min(BLOCK, total-first);
+			generate(stream(base, b), normal, shift, scale, buf, len);
+			for(int k=0; k<len; ) {
+				int e = first+k, i = e/m, j = e%m;
+				int part = Math.min(m-j, len-k);
+				int p = off+i*s+j*cs;
+				if(cs == 1) System.arraycopy(buf, k, d, p, part);
+				else for(int t=0; t<part; t++) d[p+t*cs] = buf[k+t];
+				k = k + part;
+			}
+		}
+	}
+	
+	/**
+	 * Funkcja wypełniająca macierz w pliku blokami, równolegle, tymi samymi wartościami co fill(Macierz)
+	 */
+	private void fill(MacierzMapowana dst, boolean normal, double shift, double scale) {
+		if(!dst.isWritable()) throw new ReadOnlyBufferException();
+		long base = nextCall();
+		long total = (long)dst.getHeight()*dst.getLength();
+		long blocks = (total + BLOCK - 1)/BLOCK;
+		if(blocks > Integer.MAX_VALUE) throw new IllegalArgumentException(String.format("Size %d x %d too large", dst.getHeight(), dst.getLength()));
+		int count = (int)blocks;
+		Parallel.RangeTask task = (from, to) -> {
+			double[] buf = new double[BLOCK];
+			for(int b=from; b<to; b++) {
+				long first = (long)b*BLOCK;
+				int len = (int)Math.min(BLOCK, total-first);
+				generate(stream(base, b), normal, shift, scale, buf, len);
+				dst.copyElements(first, len, buf, 0, true);
+			}
+		};
+		if(Parallel.isSequential(count, 1, BLOCK*COST)) task.run(0, count);
+		else Parallel.forRange(0, count, BLOCK*COST, task);
+	}
+	
+	/**
+	 * Funkcja losująca len wartości do bufora. Rozkład normalny metodą biegunową Marsaglii, po dwie wartości.
+	 */
+	private static void generate(SplittableRandom r, boolean normal, double shift, double scale, double[] buf, int len) {
+		if(!normal) {
+			for(int k=0; k<len; k++) buf[k] = shift + scale*r.nextDouble();
+			return;
+		}
+		for(int k=0; k<len; k+=2) {
+			double u, v, q;
+			do {
+				u = 2*r.nextDouble() - 1;
+				v = 2*r.nextDouble() - 1;
+				q = u*u + v*v;
+			} while(q >= 1 || q == 0);
+			double f = Math.sqrt(-2*Math.log(q)/q);
+			buf[k] = shift + scale*u*f;
+			if(k+1 < len) buf[k+1] = shift + scale*v*f;
+		}
+	}
+	
+	/**
+	 * Funkcja zwracająca ziarno ciągu bloków kolejnego wywołania
+	 */
+	private long nextCall() {
+		return mix64(seed + GOLDEN_GAMMA*calls.incrementAndGet());
+	}
+	
+	/**
+	 * Funkcja tworząca strumień bloku lub wiersza o numerze index w ciągu base
+	 */
+	private static SplittableRandom stream(long base, long index) {
+		return new SplittableRandom(mix64(base + GOLDEN_GAMMA*(index+1)));
+	}
+	
+	/**
+	 * Funkcja mieszająca bity (wariant MurmurHash3 używany przez SplittableRandom)
+	 */
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 30))*0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27))*0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+	
+	/**
+	 * Funkcja sprawdzająca granice rozkładu jednostajnego
+	 */
+	private static void checkRange(double lo, double hi) {
+		if(!(lo <= hi) || Double.isInfinite(hi-lo)) throw new IllegalArgumentException(String.format("Incorrect range [%s, %s)", lo, hi));
+	}
+	
+	/**
+	 * Funkcja sprawdzająca odchylenie standardowe
+	 */
+	private static void checkDeviation(double sd) {
+		if(!(sd >= 0) || Double.isInfinite(sd)) throw new IllegalArgumentException(String.format("Incorrect standard deviation %s", sd));
+	}
+}
@@ -0,0 +1,260 @@
+package macierze;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Klasa ze strumieniowym zapisem i odczytem macierzy w postaci tekstowej (CSV, TSV).
+ * Zapis idzie wierszami prosto do Appendable, odczyt buduje macierz wiersz po wierszu,
+ * więc w pamięci nie jest trzymany cały tekst, tylko wartości.
+ */
+
+public final class MatrixIO {
+	
+	/**
+	 * Separator kolumn w plikach CSV
+	 */
+	public static final char CSV = ',';
+	
+	/**
+	 * Separator kolumn w plikach TSV
+	 */
+	public static final char TSV = '\t';
+	
+	/**
+	 * Rozmiar bufora odczytu w znakach
+	 */
+	private static final int BUFFER_SIZE = 1 << 14;
+	
+	/**
+	 * Dokładnie reprezentowalne potęgi 10 do szybkiego parsowania liczb
+	 */
+	private static final double[] POW10 = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+	
+	private MatrixIO() {}
+	
+	/**
+	 * Funkcja zapisująca macierz jako tekst z podanym separatorem, wartości w najkrótszej postaci
+	 * odczytywanej z powrotem bez straty dokładności
+	 * @param a Macierz do zapisania
+	 * @param out Cel zapisu, np. Writer lub StringBuilder
+	 * @param separator Separator kolumn, np. CSV lub TSV
+	 * @throws IOException Gdy zapis się nie powiedzie
+	 */
+	public static void write(Macierz a, Appendable out, char separator) throws IOException {
+		double[] d = a.data();
+		int cs = a.colStride();
+		StringBuilder row = new StringBuilder(24*a.getLength()+1);
+		for(int i=0; i<a.getHeight(); i++) {
+			row.setLength(0);
+			int r = a.offset()+i*a.stride();
+			for(int j=0; j<a.getLength(); j++) {
+				if(j > 0) row.append(separator);
+				row.append(d[r+j*cs]);
+			}
+			row.append('\n');
+			out.append(row);
+		}
+	}
+	
+	/**
+	 * Funkcja zapisująca macierz do pliku tekstowego w UTF-8
+	 * @param a Macierz do zapisania
+	 * @param path Ścieżka pliku, nadpisywany jeśli istnieje
+	 * @param separator Separator kolumn, np. CSV lub TSV
+	 * @throws IOException Gdy zapis się nie powiedzie
+	 */
+	public static void write(Macierz a, Path path, char separator) throws IOException {
+		try(Writer w = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+			write(a, w, separator);
+		}
+	}
+	
+	/**
+	 * Funkcja odczytująca macierz z pliku tekstowego w UTF-8
+	 * @param path Ścieżka pliku
+	 * @param separator Separator kolumn, np. CSV lub TSV
+	 * @return Macierz
+	 * @throws IOException Gdy odczyt się nie powiedzie lub wartość nie jest liczbą
+	 * @throws MatrixSizeException Gdy wiersze mają różną liczbę wartości
+	 */
+	public static Macierz read(Path path, char separator) throws IOException, MatrixSizeException {
+		try(Reader r = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+			return read(r, separator);
+		}
+	}
+	
+	/**
+	 * Funkcja odczytująca macierz strumieniowo, wiersz tekstu to wiersz macierzy.
+	 * Puste linie są pomijane, białe znaki wokół wartości ignorowane.
+	 * @param in Źródło tekstu
+	 * @param separator Separator kolumn, np. CSV lub TSV
+	 * @return Macierz
+	 * @throws IOException Gdy odczyt się nie powiedzie lub wartość nie jest liczbą
+	 * @throws MatrixSizeException Gdy wiersze mają różną liczbę wartości
+	 */
+	public static Macierz read(Reader in, char separator) throws IOException, MatrixSizeException {
+		char[] buf = new char[BUFFER_SIZE];
+		char[] token = new char[64];
+		double[] values = new double[256];
+		int tlen = 0, count = 0, cols = -1, rows = 0, inRow = 0, line = 1;
+		boolean blank = true;
+		int read;
+		do {
+			read = in.read(buf);
+			int end = (read < 0) ? 1 : read;
+			for(int p=0; p<end; p++) {
+				char c = (read < 0) ? '\n' : buf[p];
+				if(c == separator || c == '\n') {
+					if(c == '\n' && blank && inRow == 0) {
+						tlen = 0;
+						line++;
+						continue;
+					}
+					if(count == values.length) values = Arrays.copyOf(values, 2*values.length);
+					values[count++] = parse(token, tlen, line);
+					tlen = 0;
+					inRow++;
+					if(c == '\n') {
+						if(cols < 0) cols = inRow;
+						else if(inRow != cols) throw new MatrixSizeException(String.format("Row %d has %d values, expected %d", rows+1, inRow, cols));
+						rows++;
+						inRow = 0;
+						line++;
+						blank = true;
+					}
+				} else if(c != '\r') {
+					if(tlen == token.length) token = Arrays.copyOf(token, 2*token.length);
+					token[tlen++] = c;
+					if(!Character.isWhitespace(c)) blank = false;
+				}
+			}
+		} while(read >= 0);
+		if(rows == 0) return new Macierz(0, 0);
+		return new Macierz(rows, cols, (values.length == count) ? values : Arrays.copyOf(values, count));
+	}
+	
+	/**
+	 * Funkcja parsująca liczbę z tablicy znaków. Liczby do 15 cyfr z wykładnikiem do 22
+	 * liczone są dokładnie jednym mnożeniem lub dzieleniem, pozostałe przez Double.parseDouble.
+	 */
+	private static double parse(char[] t, int len, int line) throws IOException {
+		int s = 0, e = len;
+		while(s < e && Character.isWhitespace(t[s])) s++;
+		while(e > s && Character.isWhitespace(t[e-1])) e--;
+		int p = s;
+		boolean negative = false;
+		if(p < e && (t[p] == '-' || t[p] == '+')) negative = t[p++] == '-';
+		long mantissa = 0;
+		int digits = 0, scale = 0;
+		boolean point = false, any = false;
+		for(; p<e; p++) {
+			char c = t[p];
+			if(c >= '0' && c <= '9') {
+				any = true;
+				if(mantissa == 0 && c == '0') {
+					if(point) scale--;
+					continue;
+				}
+				if(digits == 18) break;
+				mantissa = 10*mantissa + (c - '0');
+				digits++;
+				if(point) scale--;
+			} else if(c == '.' && !point) {
+				point = true;
+			} else break;
+		}
+		if(p < e && any && (t[p] == 'e' || t[p] == 'E')) {
+			int q = p+1, exp = 0;
+			boolean expNegative = false;
+			if(q < e && (t[q] == '-' || t[q] == '+')) expNegative = t[q++] == '-';
+			int first = q;
+			while(q < e && t[q] >= '0' && t[q] <= '9' && exp < 10000) exp = 10*exp + (t[q++] - '0');
+			if(q > first) {
+				scale = scale + (expNegative ? -exp : exp);
+				p = q;
+			}
+		}
+		if(p == e && any && digits <= 15 && scale >= -22 && scale <= 22) {
+			double v = (scale >= 0) ? mantissa*POW10[scale] : mantissa/POW10[-scale];
+			return negative ? -v : v;
+		}
+		String text = new String(t, s, e-s);
+		try {
+			return Double.parseDouble(text);
+		} catch(NumberFormatException ex) {
+			throw new IOException(String.format("Incorrect number \"%s\" in line %d", text, line), ex);
+		}
+	}
+	
+	/**
+	 * Funkcja dopisująca liczbę w postaci naukowej, wynik taki sam jak String.format("%." + precision + "e"),
+	 * ale zawsze z kropką i bez tworzenia obiektów. Cyfry brane są z najkrótszej postaci dziesiętnej
+	 * i zaokrąglane w górę od połowy, tak jak robi to Formatter.
+	 * @param dst Cel zapisu
+	 * @param tmp Bufor pomocniczy, jego zawartość jest nadpisywana
+	 * @param v Liczba
+	 * @param precision Liczba cyfr po kropce
+	 */
+	static void appendScientific(StringBuilder dst, StringBuilder tmp, double v, int precision) {
+		if(Double.isNaN(v) || Double.isInfinite(v)) {
+			dst.append(v);
+			return;
+		}
+		tmp.setLength(0);
+		tmp.append(v);
+		int end = tmp.length(), p = 0;
+		if(tmp.charAt(0) == '-') {
+			dst.append('-');
+			p = 1;
+		}
+		// Cyfry znaczące dopisywane są na końcu tmp, exp to wykładnik pierwszej z nich
+		int intDigits = 0, exp = 0;
+		boolean point = false;
+		for(; p<end; p++) {
+			char c = tmp.charAt(p);
+			if(c == '.') point = true;
+			else if(c == 'E') break;
+			else {
+				if(!point) intDigits++;
+				if(c == '0' && tmp.length() == end) exp--;
+				else tmp.append(c);
+			}
+		}
+		if(p < end) exp = exp + Integer.parseInt(tmp, p+1, end, 10);
+		int start = end, nd = tmp.length()-end;
+		if(nd == 0) {
+			dst.append('0');
+			if(precision > 0) dst.append('.');
+			for(int k=0; k<precision; k++) dst.append('0');
+			dst.append("e+00");
+			return;
+		}
+		exp = exp + intDigits - 1;
+		// Zaokrąglenie do precision+1 cyfr
+		if(nd > precision+1) {
+			nd = precision+1;
+			if(tmp.charAt(start+nd) >= '5') {
+				int k = start+nd-1;
+				while(k >= start && tmp.charAt(k) == '9') tmp.setCharAt(k--, '0');
+				if(k >= start) tmp.setCharAt(k, (char)(tmp.charAt(k)+1));
+				else {
+					tmp.setCharAt(start, '1');
+					exp++;
+				}
+			}
+		}
+		dst.append(tmp.charAt(start));
+		if(precision > 0) dst.append('.');
+		for(int k=1; k<=precision; k++) dst.append((k < nd) ? tmp.charAt(start+k) : '0');
+		dst.append('e').append((exp < 0) ? '-' : '+');
+		int abs = Math.abs(exp);
+		if(abs < 10) dst.append('0');
+		dst.append(abs);
+	}
+}
@@ -0,0 +1,82 @@
+package macierze;
+
+import jdk.jfr.*;
+
+/**
+ * Zdarzenie JDK Flight Recorder z pomiarem jednego działania na macierzach.
+ * Zdarzenia zapisywane są tylko gdy trwa nagrywanie JFR, klasa ładowana jest przez Metrics w bloku try,
+ * więc brak modułu jdk.jfr wyłącza zdarzenia, a nie bibliotekę.
+ */
+
+@Name("macierze.MatrixOperation")
+@Label("Matrix Operation")
+@Category("Macierze")
+@Description("Matrix operation with dimensions, elapsed time, estimated FLOPs and allocated bytes")
+@StackTrace(false)
+final class MatrixOperationEvent extends Event {
+	
+	@Label("Operation")
+	String operation;
+	
+	@Label("Rows")
+	int rows;
+	
+	@Label("Columns")
+	int cols;
+	
+	@Label("Elapsed")
+	@Timespan(Timespan.NANOSECONDS)
+	long elapsed;
+	
+	@Label("FLOPs")
+	double flops;
+	
+	@Label("Allocated")
+	@DataAmount
+	long bytes;
+	
+	/**
+	 * Funkcja rejestrująca odbiorcę zmian stanu nagrań, który włącza zdarzenia w Metrics gdy trwa jakiekolwiek nagranie
+	 */
+	static void register() {
+		FlightRecorder.addListener(new FlightRecorderListener() {
+			@Override
+			public void recorderInitialized(FlightRecorder recorder) {
+				update();
+			}
+			
+			@Override
+			public void recordingStateChanged(Recording recording) {
+				update();
+			}
+		});
+	}
+	
+	/**
+	 * Funkcja sprawdzająca czy trwa nagrywanie i przekazująca wynik do Metrics
+	 */
+	private static void update() {
+		boolean running = false;
+		if(FlightRecorder.isInitialized()) {
+			for(Recording r : FlightRecorder.getFlightRecorder().getRecordings()) {
+				if(r.getState() == RecordingState.RUNNING) running = true;
+			}
+		}
+		Metrics.setEvents(running);
+	}
+	
+	/**
+	 * Funkcja zapisująca zdarzenie, gdy ten typ zdarzeń jest włączony w ustawieniach nagrania
+	 */
+	static void emit(Metrics.Operation operation, int rows, int cols, long nanos, double flops, long bytes) {
+		MatrixOperationEvent e = new MatrixOperationEvent();
+		if(!e.isEnabled()) return;
+		e.operation = operation.name();
+		e.rows = rows;
+		e.cols = cols;
+		e.elapsed = nanos;
+		e.flops = flops;
+		e.bytes = bytes;
+		e.commit();
+	}
+}
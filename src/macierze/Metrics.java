@@ -0,0 +1,262 @@
+package macierze;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Klasa z pomiarami działań na macierzach: liczba wywołań, histogram wymiarów, czas, szacowana liczba
+ * działań zmiennoprzecinkowych (FLOP) i szacowana liczba zaalokowanych bajtów (wynik i tablice pomocnicze).
+ * Pomiary trafiają do liczników (getStats), do dodanych odbiorców (MetricsSink) i, gdy trwa nagrywanie
+ * JDK Flight Recorder, do zdarzeń macierze.MatrixOperation.
+ * Gdy pomiary i nagrywanie są wyłączone, mierzone działanie kosztuje jeden odczyt pola volatile i porównanie,
+ * więc pomiary mogą zostać w kodzie produkcyjnym. Włączane są przez setEnabled lub -Dmacierze.metrics=true.
+ * Czasy działań złożonych (np. inverse) obejmują działania wewnętrzne (rozkład), które mierzone są też osobno.
+ */
+
+public final class Metrics {
+	
+	/**
+	 * Rodzaje mierzonych działań
+	 */
+	public enum Operation {
+		PRODUCT, ADD, SUBTRACT, TRANSPOSE, COPY, DETERMINANT, INVERSE, SOLVE, LU, CHOLESKY, QR
+	}
+	
+	/**
+	 * Wartość zwracana przez start gdy pomiary są wyłączone
+	 */
+	static final long OFF = Long.MIN_VALUE;
+	
+	/**
+	 * Liczba przedziałów histogramu wymiarów
+	 */
+	private static final int BUCKETS = 32;
+	
+	/**
+	 * Czy liczniki i odbiorcy są włączeni
+	 */
+	private static volatile boolean enabled = Boolean.getBoolean("macierze.metrics");
+	
+	/**
+	 * Czy trwa nagrywanie JFR
+	 */
+	private static volatile boolean events;
+	
+	/**
+	 * Czy mierzyć czas, enabled lub events, jedyne pole czytane przez wyłączone pomiary
+	 */
+	private static volatile boolean active = enabled;
+	
+	/**
+	 * Liczniki według rodzaju działania
+	 */
+	private static final Stats[] STATS = new Stats[Operation.values().length];
+	
+	/**
+	 * Dodani odbiorcy pomiarów
+	 */
+	private static final CopyOnWriteArrayList<MetricsSink> sinks = new CopyOnWriteArrayList<>();
+	
+	static {
+		for(Operation op : Operation.values()) STATS[op.ordinal()] = new Stats(op);
+		try {
+			MatrixOperationEvent.register();
+		} catch(LinkageError | RuntimeException e) {
+			// Brak modułu jdk.jfr lub brak uprawnień, zdarzenia pozostają wyłączone
+		}
+	}
+	
+	private Metrics() {}
+	
+	/**
+	 * Funkcja włączająca lub wyłączająca liczniki i odbiorców pomiarów
+	 * @param enabled true gdy działania mają być mierzone
+	 */
+	public static synchronized void setEnabled(boolean enabled) {
+		Metrics.enabled = enabled;
+		Metrics.active = enabled || events;
+	}
+	
+	/**
+	 * Funkcja sprawdzająca czy liczniki i odbiorcy pomiarów są włączeni
+	 * @return boolean
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+	
+	/**
+	 * Funkcja włączająca zdarzenia JFR, wywoływana przy zmianie stanu nagrań
+	 */
+	static synchronized void setEvents(boolean events) {
+		Metrics.events = events;
+		Metrics.active = enabled || events;
+	}
+	
+	/**
+	 * Funkcja dodająca odbiorcę pomiarów, wywoływanego gdy pomiary są włączone
+	 * @param sink Odbiorca
+	 */
+	public static void addSink(MetricsSink sink) {
+		if(sink == null) throw new NullPointerException("sink");
+		sinks.add(sink);
+	}
+	
+	/**
+	 * Funkcja usuwająca odbiorcę pomiarów
+	 * @param sink Odbiorca
+	 * @return boolean true gdy odbiorca był dodany
+	 */
+	public static boolean removeSink(MetricsSink sink) {
+		return sinks.remove(sink);
+	}
+	
+	/**
+	 * Funkcja zwracająca liczniki podanego działania
+	 * @param operation Rodzaj działania
+	 * @return Stats
+	 */
+	public static Stats getStats(Operation operation) {
+		return STATS[operation.ordinal()];
+	}
+	
+	/**
+	 * Funkcja zerująca liczniki wszystkich działań
+	 */
+	public static void reset() {
+		for(Stats s : STATS) s.reset();
+	}
+	
+	/**
+	 * Funkcja rozpoczynająca pomiar
+	 * @return long Czas początku lub OFF gdy pomiary są wyłączone
+	 */
+	static long start() {
+		return active ? System.nanoTime() : OFF;
+	}
+	
+	/**
+	 * Funkcja kończąca pomiar rozpoczęty przez start, dla OFF nic nie robi
+	 */
+	static void end(long start, Operation operation, int rows, int cols, double flops, long bytes) {
+		if(start == OFF) return;
+		long nanos = System.nanoTime() - start;
+		if(enabled) {
+			STATS[operation.ordinal()].add(rows, cols, nanos, flops, bytes);
+			for(MetricsSink sink : sinks) sink.record(operation, rows, cols, nanos, flops, bytes);
+		}
+		if(events) MatrixOperationEvent.emit(operation, rows, cols, nanos, flops, bytes);
+	}
+	
+	/**
+	 * Funkcja zwracająca liczniki wszystkich działań, które były wywołane
+	 * @return String
+	 */
+	public static String summary() {
+		StringBuilder sb = new StringBuilder();
+		for(Stats s : STATS) {
+			if(s.getCalls() > 0) sb.append(s).append(System.lineSeparator());
+		}
+		return sb.toString();
+	}
+	
+	/**
+	 * Liczniki jednego rodzaju działania, aktualizowane bez blokad (LongAdder)
+	 */
+	public static final class Stats {
+		
+		private final Operation operation;
+		private final LongAdder calls = new LongAdder();
+		private final LongAdder nanos = new LongAdder();
+		private final LongAdder bytes = new LongAdder();
+		private final DoubleAdder flops = new DoubleAdder();
+		
+		/**
+		 * Histogram wymiarów, przedział k to działania, w których większy wymiar ma k bitów (od 2^(k-1) do 2^k - 1)
+		 */
+		private final LongAdder[] sizes = new LongAdder[BUCKETS];
+		
+		private Stats(Operation operation) {
+			this.operation = operation;
+			for(int k=0; k<BUCKETS; k++) sizes[k] = new LongAdder();
+		}
+		
+		private void add(int rows, int cols, long nanos, double flops, long bytes) {
+			calls.increment();
+			this.nanos.add(nanos);
+			this.flops.add(flops);
+			this.bytes.add(bytes);
+			sizes[Math.min(BUCKETS-1, 32 - Integer.numberOfLeadingZeros(Math.max(rows, cols)))].increment();
+		}
+		
+		private void reset() {
+			calls.reset();
+			nanos.reset();
+			bytes.reset();
+			flops.reset();
+			for(LongAdder a : sizes) a.reset();
+		}
+		
+		/**
+		 * Funkcja zwracająca rodzaj działania
+		 * @return Operation
+		 */
+		public Operation getOperation() {
+			return operation;
+		}
+		
+		/**
+		 * Funkcja zwracająca liczbę wywołań
+		 * @return long
+		 */
+		public long getCalls() {
+			return calls.sum();
+		}
+		
+		/**
+		 * Funkcja zwracająca łączny czas w nanosekundach
+		 * @return long
+		 */
+		public long getNanos() {
+			return nanos.sum();
+		}
+		
+		/**
+		 * Funkcja zwracająca łączną szacowaną liczbę działań zmiennoprzecinkowych
+		 * @return double
+		 */
+		public double getFlops() {
+			return flops.sum();
+		}
+		
+		/**
+		 * Funkcja zwracająca łączną szacowaną liczbę zaalokowanych bajtów
+		 * @return long
+		 */
+		public long getBytes() {
+			return bytes.sum();
+		}
+		
+		/**
+		 * Funkcja zwracająca kopię histogramu wymiarów, element k to liczba działań, w których
+		 * większy wymiar należy do przedziału [2^(k-1), 2^k)
+		 * @return long[]
+		 */
+		public long[] getSizeHistogram() {
+			long[] ret = new long[BUCKETS];
+			for(int k=0; k<BUCKETS; k++) ret[k] = sizes[k].sum();
+			return ret;
+		}
+		
+		/**
+		 * Funkcja zwracająca liczniki w postaci String
+		 * @return String
+		 */
+		@Override
+		public String toString() {
+			long n = getNanos();
+			return String.format(Locale.ROOT, "%s[calls=%d, time=%.3f ms, gflops=%.3f, bytes=%d]", operation, getCalls(), n/1e6, n == 0 ? 0 : getFlops()/n, getBytes());
+		}
+	}
+}
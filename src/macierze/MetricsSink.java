@@ -0,0 +1,21 @@
+package macierze;
+
+/**
+ * Interfejs odbiorcy pomiarów działań na macierzach, np. eksportu do systemu monitorowania.
+ * Wywoływany synchronicznie w wątku, który wykonał działanie, więc powinien być szybki i bezpieczny wątkowo.
+ */
+
+@FunctionalInterface
+public interface MetricsSink {
+	
+	/**
+	 * Funkcja wywoływana po zakończeniu każdego mierzonego działania
+	 * @param operation Rodzaj działania
+	 * @param rows Liczba wierszy wyniku lub argumentu
+	 * @param cols Liczba kolumn wyniku lub argumentu
+	 * @param nanos Czas działania w nanosekundach
+	 * @param flops Szacowana liczba działań zmiennoprzecinkowych
+	 * @param bytes Szacowana liczba zaalokowanych bajtów
+	 */
+	void record(Metrics.Operation operation, int rows, int cols, long nanos, double flops, long bytes);
+}
@@ -0,0 +1,541 @@
+package macierze;
+
+import java.util.*;
+
+/**
+ * Klasa pakietu wielu małych macierzy kwadratowych (2x2, 3x3 lub 4x4) zapisanych kolumnowo względem pakietu
+ * (structure of arrays): element (i, j) wszystkich macierzy leży w osobnej tablicy, macierz p pod indeksem p.
+ * Działania wykonują tę samą operację na całym pakiecie, a wewnętrzne pętle idą po kolejnych macierzach,
+ * więc JIT może je wektoryzować. Duże pakiety dzielone są na wątki.
+ * Funkcje ...Into pozwalają, by pakiet wynikowy był jednym z argumentów.
+ */
+
+public final class PakietMacierzy {
+	
+	/**
+	 * Liczba macierzy liczona naraz w mnożeniu, tablice pomocnicze mieszczą się w pamięci podręcznej L1
+	 */
+	private static final int BLOCK = 64;
+	
+	/**
+	 * Wymiar macierzy
+	 */
+	private final int size;
+	
+	/**
+	 * Liczba macierzy w pakiecie
+	 */
+	private final int count;
+	
+	/**
+	 * Tablice elementów, element (i, j) macierzy p to e[i*size+j][p]
+	 */
+	private final double[][] e;
+	
+	/**
+	 * Konstruktor pakietu macierzy zerowych
+	 * @param size Wymiar macierzy, 2, 3 lub 4
+	 * @param count Liczba macierzy
+	 */
+	public PakietMacierzy(int size, int count) {
+		if(size < 2 || size > 4) throw new IllegalArgumentException(String.format("Size %d not supported, expected 2, 3 or 4", size));
+		if(count < 0) throw new IllegalArgumentException(String.format("Count %d less than 0", count));
+		this.size = size;
+		this.count = count;
+		this.e = new double[size*size][count];
+	}
+	
+	/**
+	 * Funkcja tworząca pakiet macierzy jednostkowych
+	 * @param size Wymiar macierzy, 2, 3 lub 4
+	 * @param count Liczba macierzy
+	 * @return PakietMacierzy
+	 */
+	public static PakietMacierzy identity(int size, int count) {
+		PakietMacierzy ret = new PakietMacierzy(size, count);
+		for(int i=0; i<size; i++) Arrays.fill(ret.e[i*size+i], 1);
+		return ret;
+	}
+	
+	/**
+	 * Funkcja zwracająca wymiar macierzy
+	 * @return int
+	 */
+	public int getSize() {
+		return size;
+	}
+	
+	/**
+	 * Funkcja zwracająca liczbę macierzy w pakiecie
+	 * @return int
+	 */
+	public int getCount() {
+		return count;
+	}
+	
+	/**
+	 * Funkcja zwracająca tablicę elementu (i, j) wszystkich macierzy, bez kopiowania.
+	 * Pozwala wypełniać i czytać pakiet bez wywołań dla każdego elementu.
+	 * @param i Wiersz
+	 * @param j Kolumna
+	 * @return double[] o długości getCount()
+	 * @throws MatrixIndexOutOfBoundsException Gdy pozycja jest po za wymiarami
+	 */
+	public double[] component(int i, int j) throws MatrixIndexOutOfBoundsException {
+		checkIndex(i, j);
+		return e[i*size+j];
+	}
+	
+	/**
+	 * Funkcja zwracająca element (i, j) macierzy p
+	 * @param p Numer macierzy
+	 * @param i Wiersz
+	 * @param j Kolumna
+	 * @return double
+	 * @throws MatrixIndexOutOfBoundsException Gdy pozycja jest po za wymiarami
+	 */
+	public double get(int p, int i, int j) throws MatrixIndexOutOfBoundsException {
+		checkIndex(i, j);
+		return e[i*size+j][p];
+	}
+	
+	/**
+	 * Funkcja ustawiająca element (i, j) macierzy p
+	 * @param p Numer macierzy
+	 * @param i Wiersz
+	 * @param j Kolumna
+	 * @param v Wartość
+	 * @throws MatrixIndexOutOfBoundsException Gdy pozycja jest po za wymiarami
+	 */
+	public void set(int p, int i, int j, double v) throws MatrixIndexOutOfBoundsException {
+		checkIndex(i, j);
+		e[i*size+j][p] = v;
+	}
+	
+	/**
+	 * Funkcja zwracająca kopię macierzy p
+	 * @param p Numer macierzy
+	 * @return Macierz
+	 */
+	public Macierz get(int p) {
+		double[] d = new double[size*size];
+		for(int c=0; c<d.length; c++) d[c] = e[c][p];
+		return new Macierz(size, size, d, 0, size);
+	}
+	
+	/**
+	 * Funkcja ustawiająca macierz p
+	 * @param p Numer macierzy
+	 * @param a Macierz o wymiarze pakietu
+	 * @throws MatrixSizeException Gdy wymiar macierzy nie jest wymiarem pakietu
+	 */
+	public void set(int p, Macierz a) throws MatrixSizeException {
+		if(a.getHeight() != size || a.getLength() != size) throw new MatrixSizeException(String.format("Incorrect size %d x %d, expected %d x %d", a.getHeight(), a.getLength(), size, size));
+		double[] d = a.data();
+		for(int i=0; i<size; i++) {
+			int r = a.offset()+i*a.stride();
+			for(int j=0; j<size; j++) e[i*size+j][p] = d[r+j*a.colStride()];
+		}
+	}
+	
+	private void checkIndex(int i, int j) throws MatrixIndexOutOfBoundsException {
+		if(i < 0 || i >= size || j < 0 || j >= size) throw new MatrixIndexOutOfBoundsException(String.format("Index %d or %d out of bound for size %d x %d", i, j, size, size));
+	}
+	
+	private static void checkSize(PakietMacierzy a, PakietMacierzy b) throws MatrixSizeException {
+		if(a.size != b.size || a.count != b.count) throw new MatrixSizeException(String.format("Incorrect size, a is %d x %d x %d, b id %d x %d x %d", a.count, a.size, a.size, b.count, b.size, b.size));
+	}
+	
+	/**
+	 * Funkcja dodająca pakiety macierz po macierzy
+	 * @param a Pierwszy pakiet
+	 * @param b Drugi pakiet
+	 * @return PakietMacierzy
+	 * @throws MatrixSizeException Gdy wymiary lub liczby macierzy się nie zgadzają
+	 */
+	public static PakietMacierzy add(PakietMacierzy a, PakietMacierzy b) throws MatrixSizeException {
+		PakietMacierzy ret = new PakietMacierzy(a.size, a.count);
+		combineInto(a, 1, b, ret);
+		return ret;
+	}
+	
+	/**
+	 * Funkcja dodająca pakiety z zapisem do dst
+	 * @param a Pierwszy pakiet
+	 * @param b Drugi pakiet
+	 * @param dst Pakiet wynikowy
+	 * @throws MatrixSizeException Gdy wymiary lub liczby macierzy się nie zgadzają
+	 */
+	public static void addInto(PakietMacierzy a, PakietMacierzy b, PakietMacierzy dst) throws MatrixSizeException {
+		combineInto(a, 1, b, dst);
+	}
+	
+	/**
+	 * Funkcja odejmująca pakiety macierz po macierzy
+	 * @param a Pierwszy pakiet
+	 * @param b Drugi pakiet
+	 * @return PakietMacierzy
+	 * @throws MatrixSizeException Gdy wymiary lub liczby macierzy się nie zgadzają
+	 */
+	public static PakietMacierzy subtract(PakietMacierzy a, PakietMacierzy b) throws MatrixSizeException {
+		PakietMacierzy ret = new PakietMacierzy(a.size, a.count);
+		combineInto(a, -1, b, ret);
+		return ret;
+	}
+	
+	/**
+	 * Funkcja odejmująca pakiety z zapisem do dst
+	 * @param a Pierwszy pakiet
+	 * @param b Drugi pakiet
+	 * @param dst Pakiet wynikowy
+	 * @throws MatrixSizeException Gdy wymiary lub liczby macierzy się nie zgadzają
+	 */
+	public static void subtractInto(PakietMacierzy a, PakietMacierzy b, PakietMacierzy dst) throws MatrixSizeException {
+		combineInto(a, -1, b, dst);
+	}
+	
+	private static void combineInto(PakietMacierzy a, double sign, PakietMacierzy b, PakietMacierzy dst) throws MatrixSizeException {
+		checkSize(a, b);
+		checkSize(a, dst);
+		int n = a.count;
+		long cost = (long)a.size*a.size;
+		if(Parallel.isSequential(n, BLOCK, cost)) combineRange(a, sign, b, dst, 0, n);
+		else Parallel.forRange(0, n, BLOCK, cost, (from, to) -> combineRange(a, sign, b, dst, from, to));
+	}
+	
+	private static void combineRange(PakietMacierzy a, double sign, PakietMacierzy b, PakietMacierzy dst, int from, int to) {
+		for(int c=0; c<a.e.length; c++) {
+			double[] x = a.e[c], y = b.e[c], r = dst.e[c];
+			for(int p=from; p<to; p++) r[p] = x[p] + sign*y[p];
+		}
+	}
+	
+	/**
+	 * Funkcja mnożąca pakiety macierz po macierzy, dst_p = a_p * b_p
+	 * @param a Pierwszy pakiet
+	 * @param b Drugi pakiet
+	 * @return PakietMacierzy
+	 * @throws MatrixSizeException Gdy wymiary lub liczby macierzy się nie zgadzają
+	 */
+	public static PakietMacierzy product(PakietMacierzy a, PakietMacierzy b) throws MatrixSizeException {
+		PakietMacierzy ret = new PakietMacierzy(a.size, a.count);
+		productInto(a, b, ret);
+		return ret;
+	}
+	
+	/**
+	 * Funkcja mnożąca pakiety z zapisem do dst. Wszystkie elementy macierzy p z a i b wczytywane są
+	 * do zmiennych lokalnych przed zapisem jej wyniku, więc dst może być a lub b.
+	 * Wątki dostają rozłączne zakresy po BLOCK macierzy.
+	 * @param a Pierwszy pakiet
+	 * @param b Drugi pakiet
+	 * @param dst Pakiet wynikowy
+	 * @throws MatrixSizeException Gdy wymiary lub liczby macierzy się nie zgadzają
+	 */
+	public static void productInto(PakietMacierzy a, PakietMacierzy b, PakietMacierzy dst) throws MatrixSizeException {
+		checkSize(a, b);
+		checkSize(a, dst);
+		int n = a.count;
+		long cost = 2L*a.size*a.size*a.size;
+		if(Parallel.isSequential(n, BLOCK, cost)) productRange(a, b, dst, 0, n);
+		else Parallel.forRange(0, n, BLOCK, cost, (from, to) -> productRange(a, b, dst, from, to));
+	}
+	
+	/**
+	 * Funkcja mnożąca macierze [from, to), każda macierz wczytywana jest w całości przed zapisem wyniku
+	 */
+	private static void productRange(PakietMacierzy pa, PakietMacierzy pb, PakietMacierzy dst, int from, int to) {
+		double[][] a = pa.e, b = pb.e, r = dst.e;
+		switch(pa.size) {
+			case 2: {
+				double[] x00 = a[0], x01 = a[1];
+				double[] x10 = a[2], x11 = a[3];
+				double[] y00 = b[0], y01 = b[1];
+				double[] y10 = b[2], y11 = b[3];
+				double[] z00 = r[0], z01 = r[1];
+				double[] z10 = r[2], z11 = r[3];
+				for(int p=from; p<to; p++) {
+					double a00 = x00[p], a01 = x01[p];
+					double a10 = x10[p], a11 = x11[p];
+					double b00 = y00[p], b01 = y01[p];
+					double b10 = y10[p], b11 = y11[p];
+					z00[p] = a00*b00 + a01*b10;
+					z01[p] = a00*b01 + a01*b11;
+					z10[p] = a10*b00 + a11*b10;
+					z11[p] = a10*b01 + a11*b11;
+				}
+				break;
+			}
+			case 3: {
+				double[] x00 = a[0], x01 = a[1], x02 = a[2];
+				double[] x10 = a[3], x11 = a[4], x12 = a[5];
+				double[] x20 = a[6], x21 = a[7], x22 = a[8];
+				double[] y00 = b[0], y01 = b[1], y02 = b[2];
+				double[] y10 = b[3], y11 = b[4], y12 = b[5];
+				double[] y20 = b[6], y21 = b[7], y22 = b[8];
+				double[] z00 = r[0], z01 = r[1], z02 = r[2];
+				double[] z10 = r[3], z11 = r[4], z12 = r[5];
+				double[] z20 = r[6], z21 = r[7], z22 = r[8];
+				for(int p=from; p<to; p++) {
+					double a00 = x00[p], a01 = x01[p], a02 = x02[p];
+					double a10 = x10[p], a11 = x11[p], a12 = x12[p];
+					double a20 = x20[p], a21 = x21[p], a22 = x22[p];
+					double b00 = y00[p], b01 = y01[p], b02 = y02[p];
+					double b10 = y10[p], b11 = y11[p], b12 = y12[p];
+					double b20 = y20[p], b21 = y21[p], b22 = y22[p];
+					z00[p] = a00*b00 + a01*b10 + a02*b20;
+					z01[p] = a00*b01 + a01*b11 + a02*b21;
+					z02[p] = a00*b02 + a01*b12 + a02*b22;
+					z10[p] = a10*b00 + a11*b10 + a12*b20;
+					z11[p] = a10*b01 + a11*b11 + a12*b21;
+					z12[p] = a10*b02 + a11*b12 + a12*b22;
+					z20[p] = a20*b00 + a21*b10 + a22*b20;
+					z21[p] = a20*b01 + a21*b11 + a22*b21;
+					z22[p] = a20*b02 + a21*b12 + a22*b22;
+				}
+				break;
+			}
+			default: {
+				double[] x00 = a[0], x01 = a[1], x02 = a[2], x03 = a[3];
+				double[] x10 = a[4], x11 = a[5], x12 = a[6], x13 = a[7];
+				double[] x20 = a[8], x21 = a[9], x22 = a[10], x23 = a[11];
+				double[] x30 = a[12], x31 = a[13], x32 = a[14], x33 = a[15];
+				double[] y00 = b[0], y01 = b[1], y02 = b[2], y03 = b[3];
+				double[] y10 = b[4], y11 = b[5], y12 = b[6], y13 = b[7];
+				double[] y20 = b[8], y21 = b[9], y22 = b[10], y23 = b[11];
+				double[] y30 = b[12], y31 = b[13], y32 = b[14], y33 = b[15];
+				double[] z00 = r[0], z01 = r[1], z02 = r[2], z03 = r[3];
+				double[] z10 = r[4], z11 = r[5], z12 = r[6], z13 = r[7];
+				double[] z20 = r[8], z21 = r[9], z22 = r[10], z23 = r[11];
+				double[] z30 = r[12], z31 = r[13], z32 = r[14], z33 = r[15];
+				for(int p=from; p<to; p++) {
+					double a00 = x00[p], a01 = x01[p], a02 = x02[p], a03 = x03[p];
+					double a10 = x10[p], a11 = x11[p], a12 = x12[p], a13 = x13[p];
+					double a20 = x20[p], a21 = x21[p], a22 = x22[p], a23 = x23[p];
+					double a30 = x30[p], a31 = x31[p], a32 = x32[p], a33 = x33[p];
+					double b00 = y00[p], b01 = y01[p], b02 = y02[p], b03 = y03[p];
+					double b10 = y10[p], b11 = y11[p], b12 = y12[p], b13 = y13[p];
+					double b20 = y20[p], b21 = y21[p], b22 = y22[p], b23 = y23[p];
+					double b30 = y30[p], b31 = y31[p], b32 = y32[p], b33 = y33[p];
+					z00[p] = a00*b00 + a01*b10 + a02*b20 + a03*b30;
+					z01[p] = a00*b01 + a01*b11 + a02*b21 + a03*b31;
+					z02[p] = a00*b02 + a01*b12 + a02*b22 + a03*b32;
+					z03[p] = a00*b03 + a01*b13 + a02*b23 + a03*b33;
+					z10[p] = a10*b00 + a11*b10 + a12*b20 + a13*b30;
+					z11[p] = a10*b01 + a11*b11 + a12*b21 + a13*b31;
+					z12[p] = a10*b02 + a11*b12 + a12*b22 + a13*b32;
+					z13[p] = a10*b03 + a11*b13 + a12*b23 + a13*b33;
+					z20[p] = a20*b00 + a21*b10 + a22*b20 + a23*b30;
+					z21[p] = a20*b01 + a21*b11 + a22*b21 + a23*b31;
+					z22[p] = a20*b02 + a21*b12 + a22*b22 + a23*b32;
+					z23[p] = a20*b03 + a21*b13 + a22*b23 + a23*b33;
+					z30[p] = a30*b00 + a31*b10 + a32*b20 + a33*b30;
+					z31[p] = a30*b01 + a31*b11 + a32*b21 + a33*b31;
+					z32[p] = a30*b02 + a31*b12 + a32*b22 + a33*b32;
+					z33[p] = a30*b03 + a31*b13 + a32*b23 + a33*b33;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Funkcja mnożąca każdą macierz pakietu przez skalar, w miejscu
+	 * @param alpha Skalar
+	 */
+	public void scale(double alpha) {
+		for(double[] x : e) {
+			for(int p=0; p<count; p++) x[p] = alpha*x[p];
+		}
+	}
+	
+	/**
+	 * Funkcja transponująca każdą macierz pakietu, w miejscu, przez zamianę tablic elementów
+	 */
+	public void transpose() {
+		for(int i=0; i<size; i++) {
+			for(int j=i+1; j<size; j++) {
+				double[] t = e[i*size+j];
+				e[i*size+j] = e[j*size+i];
+				e[j*size+i] = t;
+			}
+		}
+	}
+	
+	/**
+	 * Funkcja przekształcająca wektory, y_p = A_p * x_p. Wektory zapisane są tak jak macierze,
+	 * współrzędna j wszystkich wektorów to tablica x[j].
+	 * @param x Tablice współrzędnych wektorów, size tablic o długości co najmniej getCount()
+	 * @param y Tablice wynikowe, mogą być tymi samymi tablicami co x
+	 */
+	public void multiply(double[][] x, double[][] y) {
+		long cost = 2L*size*size;
+		if(Parallel.isSequential(count, BLOCK, cost)) multiplyRange(x, y, 0, count);
+		else Parallel.forRange(0, count, BLOCK, cost, (from, to) -> multiplyRange(x, y, from, to));
+	}
+	
+	private void multiplyRange(double[][] x, double[][] y, int from, int to) {
+		int k = size;
+		double[][] t = new double[k][BLOCK];
+		for(int pb=from; pb<to; pb+=BLOCK) {
+			int len = Math.min(BLOCK, to-pb);
+			for(int i=0; i<k; i++) {
+				double[] r = t[i], m = e[i*k], v = x[0];
+				for(int p=0; p<len; p++) r[p] = m[pb+p]*v[pb+p];
+				for(int j=1; j<k; j++) {
+					m = e[i*k+j];
+					v = x[j];
+					for(int p=0; p<len; p++) r[p] = r[p] + m[pb+p]*v[pb+p];
+				}
+			}
+			for(int i=0; i<k; i++) System.arraycopy(t[i], 0, y[i], pb, len);
+		}
+	}
+	
+	/**
+	 * Funkcja obliczająca wyznaczniki wszystkich macierzy wzorami jawnymi
+	 * @param a Pakiet macierzy
+	 * @param det Tablica wynikowa o długości co najmniej a.getCount()
+	 */
+	public static void determinant(PakietMacierzy a, double[] det) {
+		int n = a.count;
+		long cost = 4L*a.size*a.size;
+		if(Parallel.isSequential(n, BLOCK, cost)) determinantRange(a, det, 0, n);
+		else Parallel.forRange(0, n, BLOCK, cost, (from, to) -> determinantRange(a, det, from, to));
+	}
+	
+	private static void determinantRange(PakietMacierzy a, double[] det, int from, int to) {
+		double[][] e = a.e;
+		switch(a.size) {
+			case 2: {
+				double[] a00 = e[0], a01 = e[1], a10 = e[2], a11 = e[3];
+				for(int p=from; p<to; p++) det[p] = a00[p]*a11[p] - a01[p]*a10[p];
+				break;
+			}
+			case 3: {
+				double[] a00 = e[0], a01 = e[1], a02 = e[2], a10 = e[3], a11 = e[4], a12 = e[5], a20 = e[6], a21 = e[7], a22 = e[8];
+				for(int p=from; p<to; p++) {
+					det[p] = a00[p]*(a11[p]*a22[p] - a12[p]*a21[p])
+							- a01[p]*(a10[p]*a22[p] - a12[p]*a20[p])
+							+ a02[p]*(a10[p]*a21[p] - a11[p]*a20[p]);
+				}
+				break;
+			}
+			default: {
+				for(int p=from; p<to; p++) {
+					double m00 = e[0][p], m01 = e[1][p], m02 = e[2][p], m03 = e[3][p];
+					double m10 = e[4][p], m11 = e[5][p], m12 = e[6][p], m13 = e[7][p];
+					double m20 = e[8][p], m21 = e[9][p], m22 = e[10][p], m23 = e[11][p];
+					double m30 = e[12][p], m31 = e[13][p], m32 = e[14][p], m33 = e[15][p];
+					double s0 = m00*m11 - m10*m01, s1 = m00*m12 - m10*m02, s2 = m00*m13 - m10*m03;
+					double s3 = m01*m12 - m11*m02, s4 = m01*m13 - m11*m03, s5 = m02*m13 - m12*m03;
+					double c5 = m22*m33 - m32*m23, c4 = m21*m33 - m31*m23, c3 = m21*m32 - m31*m22;
+					double c2 = m20*m33 - m30*m23, c1 = m20*m32 - m30*m22, c0 = m20*m31 - m30*m21;
+					det[p] = s0*c5 - s1*c4 + s2*c3 + s3*c2 - s4*c1 + s5*c0;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Funkcja odwracająca wszystkie macierze pakietu wzorami jawnymi
+	 * @param a Pakiet macierzy
+	 * @return PakietMacierzy odwrotnych
+	 * @throws ArithmeticException Gdy któraś macierz jest osobliwa
+	 */
+	public static PakietMacierzy inverse(PakietMacierzy a) {
+		PakietMacierzy ret = new PakietMacierzy(a.size, a.count);
+		invert(a, ret);
+		return ret;
+	}
+	
+	/**
+	 * Funkcja odwracająca wszystkie macierze pakietu z zapisem do dst, dst może być a.
+	 * Wyznaczniki sprawdzane są przed zapisem, więc przy macierzy osobliwej dst pozostaje niezmieniony.
+	 * @param a Pakiet macierzy
+	 * @param dst Pakiet wynikowy
+	 * @throws MatrixSizeException Gdy wymiary lub liczby macierzy się nie zgadzają
+	 * @throws ArithmeticException Gdy któraś macierz jest osobliwa
+	 */
+	public static void inverseInto(PakietMacierzy a, PakietMacierzy dst) throws MatrixSizeException {
+		checkSize(a, dst);
+		invert(a, dst);
+	}
+	
+	private static void invert(PakietMacierzy a, PakietMacierzy dst) {
+		int n = a.count;
+		double[] det = new double[n];
+		determinant(a, det);
+		for(int p=0; p<n; p++) {
+			if(det[p] == 0 || !Double.isFinite(det[p])) throw new ArithmeticException(String.format("Matrix %d is singular", p));
+		}
+		long cost = 8L*a.size*a.size;
+		if(Parallel.isSequential(n, BLOCK, cost)) inverseRange(a, det, dst, 0, n);
+		else Parallel.forRange(0, n, BLOCK, cost, (from, to) -> inverseRange(a, det, dst, from, to));
+	}
+	
+	private static void inverseRange(PakietMacierzy a, double[] det, PakietMacierzy dst, int from, int to) {
+		double[][] e = a.e, r = dst.e;
+		switch(a.size) {
+			case 2: {
+				double[] a00 = e[0], a01 = e[1], a10 = e[2], a11 = e[3];
+				double[] r00 = r[0], r01 = r[1], r10 = r[2], r11 = r[3];
+				for(int p=from; p<to; p++) {
+					double inv = 1/det[p];
+					double m00 = a00[p], m01 = a01[p], m10 = a10[p], m11 = a11[p];
+					r00[p] = m11*inv;
+					r01[p] = -m01*inv;
+					r10[p] = -m10*inv;
+					r11[p] = m00*inv;
+				}
+				break;
+			}
+			case 3: {
+				for(int p=from; p<to; p++) {
+					double inv = 1/det[p];
+					double m00 = e[0][p], m01 = e[1][p], m02 = e[2][p];
+					double m10 = e[3][p], m11 = e[4][p], m12 = e[5][p];
+					double m20 = e[6][p], m21 = e[7][p], m22 = e[8][p];
+					r[0][p] = (m11*m22 - m12*m21)*inv;
+					r[1][p] = (m02*m21 - m01*m22)*inv;
+					r[2][p] = (m01*m12 - m02*m11)*inv;
+					r[3][p] = (m12*m20 - m10*m22)*inv;
+					r[4][p] = (m00*m22 - m02*m20)*inv;
+					r[5][p] = (m02*m10 - m00*m12)*inv;
+					r[6][p] = (m10*m21 - m11*m20)*inv;
+					r[7][p] = (m01*m20 - m00*m21)*inv;
+					r[8][p] = (m00*m11 - m01*m10)*inv;
+				}
+				break;
+			}
+			default: {
+				for(int p=from; p<to; p++) {
+					double inv = 1/det[p];
+					double m00 = e[0][p], m01 = e[1][p], m02 = e[2][p], m03 = e[3][p];
+					double m10 = e[4][p], m11 = e[5][p], m12 = e[6][p], m13 = e[7][p];
+					double m20 = e[8][p], m21 = e[9][p], m22 = e[10][p], m23 = e[11][p];
+					double m30 = e[12][p], m31 = e[13][p], m32 = e[14][p], m33 = e[15][p];
+					double s0 = m00*m11 - m10*m01, s1 = m00*m12 - m10*m02, s2 = m00*m13 - m10*m03;
+					double s3 = m01*m12 - m11*m02, s4 = m01*m13 - m11*m03, s5 = m02*m13 - m12*m03;
+					double c5 = m22*m33 - m32*m23, c4 = m21*m33 - m31*m23, c3 = m21*m32 - m31*m22;
+					double c2 = m20*m33 - m30*m23, c1 = m20*m32 - m30*m22, c0 = m20*m31 - m30*m21;
+					r[0][p] = (m11*c5 - m12*c4 + m13*c3)*inv;
+					r[1][p] = (-m01*c5 + m02*c4 - m03*c3)*inv;
+					r[2][p] = (m31*s5 - m32*s4 + m33*s3)*inv;
+					r[3][p] = (-m21*s5 + m22*s4 - m23*s3)*inv;
+					r[4][p] = (-m10*c5 + m12*c2 - m13*c1)*inv;
+					r[5][p] = (m00*c5 - m02*c2 + m03*c1)*inv;
+					r[6][p] = (-m30*s5 + m32*s2 - m33*s1)*inv;
+					r[7][p] = (m20*s5 - m22*s2 + m23*s1)*inv;
+					r[8][p] = (m10*c4 - m11*c2 + m13*c0)*inv;
+					r[9][p] = (-m00*c4 + m01*c2 - m03*c0)*inv;
+					r[10][p] = (m30*s4 - m31*s2 + m33*s0)*inv;
+					r[11][p] = (-m20*s4 + m21*s2 - m23*s0)*inv;
+					r[12][p] = (-m10*c3 + m11*c1 - m12*c0)*inv;
+					r[13][p] = (m00*c3 - m01*c1 + m02*c0)*inv;
+					r[14][p] = (-m30*s3 + m31*s1 - m32*s0)*inv;
+					r[15][p] = (m20*s3 - m21*s1 + m22*s0)*inv;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,200 @@
+package macierze;
+
+import java.util.concurrent.*;
+
+/**
+ * Klasa z ustawieniami wielowątkowego wykonywania działań na macierzach.
+ * Praca dzielona jest na przedziały wierszy i wykonywana w puli ForkJoinPool,
+ * małe macierze (poniżej progu) liczone są sekwencyjnie.
+ */
+
+public final class Parallel {
+	
+	/**
+	 * Pula wątków w której wykonywane są działania
+	 */
+	private static volatile ForkJoinPool pool = ForkJoinPool.commonPool();
+	
+	/**
+	 * Pula utworzona przez setParallelism, zamykana gdy zostanie zastąpiona, null dla puli wspólnej lub podanej z zewnątrz
+	 */
+	private static ForkJoinPool owned;
+	
+	/**
+	 * Czy wykonywanie wielowątkowe jest włączone
+	 */
+	private static volatile boolean enabled = true;
+	
+	/**
+	 * Minimalna ilość pracy (liczba operacji na elementach) dla której działanie jest dzielone na wątki
+	 */
+	private static volatile long threshold = 1L << 16;
+	
+	private Parallel() {}
+	
+	/**
+	 * Funkcja zwracająca aktualną pulę wątków
+	 * @return ForkJoinPool
+	 */
+	public static ForkJoinPool getPool() {
+		return pool;
+	}
+	
+	/**
+	 * Funkcja ustawiająca własną pulę wątków. Podana pula należy do wywołującego, który ją zamyka,
+	 * a pula utworzona wcześniej przez setParallelism jest zamykana.
+	 * @param pool Pula wątków do użycia
+	 */
+	public static void setPool(ForkJoinPool pool) {
+		if(pool == null) throw new NullPointerException("pool");
+		replace(pool, null);
+	}
+	
+	/**
+	 * Funkcja tworząca nową pulę wątków o podanej liczbie wątków, poprzednia pula utworzona tą funkcją jest zamykana
+	 * @param parallelism Liczba wątków, 1 wyłącza wielowątkowość
+	 */
+	public static void setParallelism(int parallelism) {
+		if(parallelism < 1) throw new IllegalArgumentException(String.format("Parallelism %d less than 1", parallelism));
+		ForkJoinPool created = new ForkJoinPool(parallelism);
+		replace(created, created);
+	}
+	
+	/**
+	 * Funkcja zamieniająca pulę i zamykająca poprzednią, jeśli utworzyła ją biblioteka.
+	 * Zadania już wysłane do zamykanej puli kończą się normalnie.
+	 */
+	private static synchronized void replace(ForkJoinPool pool, ForkJoinPool created) {
+		ForkJoinPool previous = owned;
+		Parallel.pool = pool;
+		owned = created;
+		if(previous != null && previous != pool) previous.shutdown();
+	}
+	
+	/**
+	 * Funkcja zwracająca liczbę wątków aktualnej puli
+	 * @return int
+	 */
+	public static int getParallelism() {
+		return pool.getParallelism();
+	}
+	
+	/**
+	 * Funkcja włączająca lub wyłączająca wykonywanie wielowątkowe
+	 * @param enabled true gdy działania mają być dzielone na wątki
+	 */
+	public static void setEnabled(boolean enabled) {
+		Parallel.enabled = enabled;
+	}
+	
+	/**
+	 * Funkcja sprawdzająca czy wykonywanie wielowątkowe jest włączone
+	 * @return boolean
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+	
+	/**
+	 * Funkcja ustawiająca próg ilości pracy poniżej którego działania są sekwencyjne
+	 * @param threshold Liczba operacji na elementach
+	 */
+	public static void setThreshold(long threshold) {
+		if(threshold < 0) throw new IllegalArgumentException(String.format("Threshold %d less than 0", threshold));
+		Parallel.threshold = threshold;
+	}
+	
+	/**
+	 * Funkcja zwracająca próg ilości pracy poniżej którego działania są sekwencyjne
+	 * @return long
+	 */
+	public static long getThreshold() {
+		return threshold;
+	}
+	
+	/**
+	 * Interfejs fragmentu pracy na przedziale indeksów [from, to)
+	 */
+	@FunctionalInterface
+	interface RangeTask {
+		void run(int from, int to);
+	}
+	
+	/**
+	 * Funkcja sprawdzająca czy praca o podanym rozmiarze zostanie wykonana sekwencyjnie.
+	 * Pozwala pominąć tworzenie zadania (i alokację) dla małych macierzy.
+	 * @param n Liczba indeksów
+	 * @param step Najmniejszy niepodzielny kawałek przedziału
+	 * @param cost Ilość pracy przypadająca na jeden indeks
+	 * @return boolean
+	 */
+	static boolean isSequential(int n, int step, long cost) {
+		return !enabled || n <= step || (long)n*cost < threshold || pool.getParallelism() < 2;
+	}
+	
+	/**
+	 * Funkcja wykonująca pracę na przedziale [from, to), dzieląc go na wątki gdy jest wystarczająco duży
+	 * @param from Początek przedziału
+	 * @param to Koniec przedziału (wyłącznie)
+	 * @param cost Ilość pracy przypadająca na jeden indeks
+	 * @param task Praca do wykonania
+	 */
+	static void forRange(int from, int to, long cost, RangeTask task) {
+		forRange(from, to, 1, cost, task);
+	}
+	
+	/**
+	 * Funkcja wykonująca pracę na przedziale [from, to), dzieląc go na kawałki będące wielokrotnością step
+	 * @param from Początek przedziału
+	 * @param to Koniec przedziału (wyłącznie)
+	 * @param step Najmniejszy niepodzielny kawałek przedziału
+	 * @param cost Ilość pracy przypadająca na jeden indeks
+	 * @param task Praca do wykonania
+	 */
+	static void forRange(int from, int to, int step, long cost, RangeTask task) {
+		int n = to - from;
+		ForkJoinPool pool = Parallel.pool;
+		int parallelism = pool.getParallelism();
+		if(isSequential(n, step, cost)) {
+			task.run(from, to);
+			return;
+		}
+		// Kilka kawałków na wątek dla wyrównania obciążenia, ale nie mniejszych niż próg
+		long chunks = Math.min(4L*parallelism, (long)n*cost/Math.max(threshold, 1));
+		int grain = (int)Math.max(step, (n + Math.max(chunks, 1) - 1)/Math.max(chunks, 1));
+		grain = (grain + step - 1)/step*step;
+		RangeAction action = new RangeAction(from, to, grain, task);
+		if(ForkJoinTask.getPool() == pool) action.invoke();
+		else pool.invoke(action);
+	}
+	
+	/**
+	 * Zadanie ForkJoin dzielące przedział na połowy aż do osiągnięcia ziarna
+	 */
+	private static final class RangeAction extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final int from, to, grain;
+		
+		private final RangeTask task;
+		
+		RangeAction(int from, int to, int grain, RangeTask task) {
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+			this.task = task;
+		}
+		
+		@Override
+		protected void compute() {
+			if(to - from <= grain) {
+				task.run(from, to);
+				return;
+			}
+			int mid = from + ((to - from)/2 + grain - 1)/grain*grain;
+			if(mid >= to) mid = from + grain;
+			invokeAll(new RangeAction(from, mid, grain, task), new RangeAction(mid, to, grain, task));
+		}
+	}
+}
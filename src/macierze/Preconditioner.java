@@ -0,0 +1,16 @@
+package macierze;
+
+/**
+ * Interfejs operatora wstępnego uwarunkowania M dla rozwiązań iteracyjnych, przybliżenia A,
+ * dla którego łatwo rozwiązać układ M*z = r. Dobre M zmniejsza liczbę iteracji.
+ */
+
+public interface Preconditioner {
+	
+	/**
+	 * Funkcja obliczająca z = M^-1 * r
+	 * @param r Wektor, nie jest zmieniany
+	 * @param z Wektor wynikowy tej samej długości, nadpisywany, nie może być tablicą r
+	 */
+	void apply(double[] r, double[] z);
+}
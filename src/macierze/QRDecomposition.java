@@ -0,0 +1,212 @@
+package macierze;
+
+import java.util.*;
+
+/**
+ * Klasa z rozkładem QR odbiciami Householdera, A = QR dla macierzy m x n, m >= n.
+ * Służy głównie do zadań najmniejszych kwadratów dla macierzy wysokich (więcej równań niż niewiadomych),
+ * bo nie tworzy iloczynu A^T A i nie podnosi do kwadratu uwarunkowania.
+ * R zapisana jest na i nad przekątną, wektory odbić pod przekątną (pierwszy element równy 1 nie jest zapisywany),
+ * Q nie jest tworzona jawnie, tylko odbicia stosowane są do prawych stron.
+ * Odbicie stosowane jest wierszami (axpy), kolumny reszty macierzy dzielone są na wątki.
+ */
+
+public class QRDecomposition {
+	
+	/**
+	 * Wektory odbić pod przekątną i R na i nad przekątną, zapisane wierszami w tablicy m*n
+	 */
+	private final double[] qr;
+	
+	/**
+	 * Współczynniki odbić, H_k = I - tau[k]*v*v^T
+	 */
+	private final double[] tau;
+	
+	/**
+	 * Liczba wierszy
+	 */
+	private final int m;
+	
+	/**
+	 * Liczba kolumn
+	 */
+	private final int n;
+	
+	/**
+	 * Konstruktor wykonujący rozkład QR podanej macierzy
+	 * @param a Macierz m x n, m >= n, nie jest modyfikowana
+	 * @throws MatrixSizeException Gdy macierz ma mniej wierszy niż kolumn
+	 */
+	public QRDecomposition(Macierz a) throws MatrixSizeException {
+		if(a.getHeight() < a.getLength()) throw new MatrixSizeException(String.format("Size %d x %d has fewer rows than columns", a.getHeight(), a.getLength()));
+		long start = Metrics.start();
+		this.m = a.getHeight();
+		this.n = a.getLength();
+		this.qr = a.toFlatArray();
+		this.tau = new double[n];
+		for(int k=0; k<n; k++) {
+			reflector(k);
+			if(tau[k] == 0 || k == n-1) continue;
+			int col = k;
+			if(Parallel.isSequential(n-k-1, GemmKernel.NR, 2L*(m-k))) applyColumns(k, k+1, n);
+			else Parallel.forRange(k+1, n, GemmKernel.NR, 2L*(m-k), (from, to) -> applyColumns(col, from, to));
+		}
+		Metrics.end(start, Metrics.Operation.QR, m, n, 2.0*m*n*n - 2.0*n*n*n/3, 8L*m*n + 8L*n);
+	}
+	
+	/**
+	 * Funkcja wyznaczająca odbicie zerujące kolumnę k pod przekątną, beta = -sign(x0)*||x||.
+	 * Wektor v = x/(x0 - beta) zapisywany jest pod przekątną, beta na przekątnej.
+	 */
+	private void reflector(int k) {
+		double alpha = qr[k*n+k], scale = 0;
+		for(int i=k+1; i<m; i++) scale = Math.max(scale, Math.abs(qr[i*n+k]));
+		// Kolumna już wyzerowana, H_k = I
+		if(scale == 0) return;
+		scale = Math.max(scale, Math.abs(alpha));
+		// Norma liczona po przeskalowaniu, żeby kwadraty nie przepełniły zakresu
+		double sum = 0;
+		for(int i=k; i<m; i++) {
+			double v = qr[i*n+k]/scale;
+			sum = sum + v*v;
+		}
+		double beta = -Math.copySign(scale*Math.sqrt(sum), alpha);
+		tau[k] = (beta - alpha)/beta;
+		double f = 1/(alpha - beta);
+		for(int i=k+1; i<m; i++) qr[i*n+k] = qr[i*n+k]*f;
+		qr[k*n+k] = beta;
+	}
+	
+	/**
+	 * Funkcja stosująca odbicie k do kolumn [from, to), w = v^T A, A = A - tau*v*w
+	 */
+	private void applyColumns(int k, int from, int to) {
+		applyReflector(k, qr, k*n+from, n, to-from);
+	}
+	
+	/**
+	 * Funkcja stosująca odbicie k do q kolumn macierzy x zaczynających się od wiersza k w pozycji off,
+	 * kolejne wiersze co xs. Działania wierszami, w jest tymczasowym wierszem długości q.
+	 */
+	private void applyReflector(int k, double[] x, int off, int xs, int q) {
+		Kernels kernels = Kernels.INSTANCE;
+		double[] w = new double[q];
+		System.arraycopy(x, off, w, 0, q);
+		for(int i=k+1; i<m; i++) {
+			double v = qr[i*n+k];
+			if(v != 0) kernels.axpy(q, v, x, off+(i-k)*xs, w, 0);
+		}
+		double t = tau[k];
+		kernels.axpy(q, -t, w, 0, x, off);
+		for(int i=k+1; i<m; i++) {
+			double v = qr[i*n+k];
+			if(v != 0) kernels.axpy(q, -t*v, w, 0, x, off+(i-k)*xs);
+		}
+	}
+	
+	/**
+	 * Funkcja zwracająca liczbę wierszy rozłożonej macierzy
+	 * @return int
+	 */
+	public int getHeight() {
+		return m;
+	}
+	
+	/**
+	 * Funkcja zwracająca liczbę kolumn rozłożonej macierzy
+	 * @return int
+	 */
+	public int getLength() {
+		return n;
+	}
+	
+	/**
+	 * Funkcja sprawdzająca czy macierz ma pełny rząd kolumnowy. Przez błędy zaokrągleń przekątna R macierzy
+	 * o niepełnym rzędzie rzadko ma dokładne zera, dlatego za zero uznawane są elementy nie większe niż
+	 * max|R_ij| * m * epsilon (największy element R przybliża normę macierzy).
+	 * @return boolean
+	 */
+	public boolean isFullRank() {
+		double max = 0;
+		for(int i=0; i<n; i++) {
+			for(int j=i; j<n; j++) max = Math.max(max, Math.abs(qr[i*n+j]));
+		}
+		double eps = max*m*Math.ulp(1.0);
+		for(int k=0; k<n; k++) {
+			if(!(Math.abs(qr[k*n+k]) > eps)) return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Funkcja zwracająca macierz trójkątną górną R, n x n
+	 * @return Macierz
+	 */
+	public Macierz getR() {
+		Macierz r = new Macierz(n, n);
+		double[] rd = r.data();
+		for(int i=0; i<n; i++) System.arraycopy(qr, i*n+i, rd, i*n+i, n-i);
+		return r;
+	}
+	
+	/**
+	 * Funkcja zwracająca macierz Q o ortonormalnych kolumnach, m x n (rozkład ekonomiczny)
+	 * @return Macierz
+	 */
+	public Macierz getQ() {
+		Macierz q = new Macierz(m, n);
+		double[] qd = q.data();
+		for(int i=0; i<n; i++) qd[i*n+i] = 1;
+		// Q = H_0 H_1 ... H_(n-1) I, odbicie k zmienia tylko wiersze i kolumny od k
+		for(int k=n-1; k>=0; k--) {
+			if(tau[k] != 0) applyReflector(k, qd, k*n+k, n, n-k);
+		}
+		return q;
+	}
+	
+	/**
+	 * Funkcja zwracająca wyznacznik macierzy kwadratowej, iloczyn przekątnej R razy (-1) dla każdego odbicia
+	 * @return double
+	 * @throws MatrixSizeException Gdy macierz nie jest kwadratowa
+	 */
+	public double determinant() throws MatrixSizeException {
+		if(m != n) throw new MatrixSizeException(String.format("Size %d x %d not square", m, n));
+		double ret = 1;
+		for(int k=0; k<n; k++) {
+			ret = ret*qr[k*n+k];
+			if(tau[k] != 0) ret = -ret;
+		}
+		return ret;
+	}
+	
+	/**
+	 * Funkcja rozwiązująca zadanie najmniejszych kwadratów min ||AX - B|| dla wielu prawych stron naraz,
+	 * dla macierzy kwadratowej to rozwiązanie układu AX = B
+	 * @param b Macierz prawych stron m x k
+	 * @return Macierz rozwiązań X, n x k
+	 * @throws MatrixSizeException Gdy liczba wierszy B nie jest równa liczbie wierszy A
+	 * @throws ArithmeticException Gdy macierz nie ma pełnego rzędu kolumnowego
+	 */
+	public Macierz solve(Macierz b) throws MatrixSizeException {
+		if(b.getHeight() != m) throw new MatrixSizeException(String.format("Incorrect size, a is %d x %d, b id %d x %d", m, n, b.getHeight(), b.getLength()));
+		if(!isFullRank()) throw new ArithmeticException("Matrix is rank deficient");
+		int q = b.getLength();
+		double[] y = b.toFlatArray();
+		// Y = Q^T B
+		for(int k=0; k<n; k++) {
+			if(tau[k] != 0) applyReflector(k, y, k*q, q, q);
+		}
+		// RX = Y[0..n), podstawianie w tył wierszami
+		Kernels kernels = Kernels.INSTANCE;
+		for(int i=n-1; i>=0; i--) {
+			int row = i*q;
+			for(int k=i+1; k<n; k++) {
+				double r = qr[i*n+k];
+				if(r != 0) kernels.axpy(q, -r, y, k*q, y, row);
+			}
+			kernels.scale(q, 1/qr[i*n+i], y, row, y, row);
+		}
+		return new Macierz(n, q, Arrays.copyOf(y, n*q), 0, q);
+	}
+}
@@ -0,0 +1,265 @@
+package macierze;
+
+/**
+ * Klasa z mnożeniem macierzy algorytmem Strassena w wariancie Winograda (7 mnożeń i 15 dodawań na poziom).
+ * Rekurencja schodzi do rozmiaru cutoff, poniżej którego liczy klasyczne jądro GemmKernel.
+ * Nieparzyste wymiary obsługiwane są przez odcięcie ostatniego wiersza lub kolumny (peeling),
+ * których wkład liczony jest osobno klasycznym mnożeniem.
+ * Sekwencyjnie używany jest harmonogram z trzema macierzami tymczasowymi na poziom
+ * (Boyer, Dumas, Pernet, Zhou, "Memory efficient scheduling of Strassen-Winograd's matrix multiplication algorithm").
+ * Na najwyższym poziomie siedem iloczynów może być liczonych równolegle kosztem większej pamięci.
+ * Macierz.product wybiera ten algorytm automatycznie, gdy najmniejszy wymiar mnożenia jest co najmniej równy progowi.
+ * Wynik różni się od klasycznego mnożenia błędami zaokrągleń, algorytm jest nieco mniej stabilny numerycznie.
+ */
+
+public final class Strassen {
+	
+	/**
+	 * Rozmiar poniżej którego rekurencja przechodzi na klasyczne mnożenie
+	 */
+	private static volatile int cutoff = 512;
+	
+	/**
+	 * Najmniejszy wymiar mnożenia od którego Macierz.product automatycznie używa tego algorytmu
+	 */
+	private static volatile int threshold = 4096;
+	
+	/**
+	 * Czy siedem iloczynów najwyższego poziomu liczyć równolegle
+	 */
+	private static volatile boolean parallel = true;
+	
+	private Strassen() {}
+	
+	/**
+	 * Funkcja zwracająca rozmiar poniżej którego rekurencja przechodzi na klasyczne mnożenie
+	 * @return int
+	 */
+	public static int getCutoff() {
+		return cutoff;
+	}
+	
+	/**
+	 * Funkcja ustawiająca rozmiar poniżej którego rekurencja przechodzi na klasyczne mnożenie
+	 * @param cutoff Rozmiar, co najmniej 16
+	 */
+	public static void setCutoff(int cutoff) {
+		if(cutoff < 16) throw new IllegalArgumentException(String.format("Cutoff %d less than 16", cutoff));
+		Strassen.cutoff = cutoff;
+	}
+	
+	/**
+	 * Funkcja zwracająca próg automatycznego wyboru algorytmu w Macierz.product
+	 * @return int
+	 */
+	public static int getThreshold() {
+		return threshold;
+	}
+	
+	/**
+	 * Funkcja ustawiająca próg automatycznego wyboru algorytmu w Macierz.product,
+	 * Integer.MAX_VALUE wyłącza automatyczny wybór
+	 * @param threshold Najmniejszy wymiar mnożenia
+	 */
+	public static void setThreshold(int threshold) {
+		if(threshold < 1) throw new IllegalArgumentException(String.format("Threshold %d less than 1", threshold));
+		Strassen.threshold = threshold;
+	}
+	
+	/**
+	 * Funkcja sprawdzająca czy iloczyny najwyższego poziomu liczone są równolegle
+	 * @return boolean
+	 */
+	public static boolean isParallel() {
+		return parallel;
+	}
+	
+	/**
+	 * Funkcja włączająca lub wyłączająca równoległe liczenie iloczynów najwyższego poziomu
+	 * @param parallel true - równolegle, false - sekwencyjnie z mniejszym zużyciem pamięci
+	 */
+	public static void setParallel(boolean parallel) {
+		Strassen.parallel = parallel;
+	}
+	
+	/**
+	 * Funkcja do mnożenia dwóch macierzy algorytmem Strassena-Winograda niezależnie od progu
+	 * @param a Macierz po lewej stronie mnożenia
+	 * @param b Macierz po prawej stronie mnożenia
+	 * @return Macierz
+	 * @throws MatrixSizeException Gdy nie zgadzają się wymiary mnożenia
+	 */
+	public static Macierz product(Macierz a, Macierz b) throws MatrixSizeException {
+		Macierz ret = new Macierz(a.getHeight(), b.getLength());
+		productInto(a, b, ret);
+		return ret;
+	}
+	
+	/**
+	 * Funkcja do mnożenia dwóch macierzy algorytmem Strassena-Winograda z zapisem wyniku do podanej macierzy
+	 * @param a Macierz po lewej stronie mnożenia
+	 * @param b Macierz po prawej stronie mnożenia
+	 * @param dst Macierz do której zapisać wynik, może być rozłącznym blokiem tej samej tablicy co a lub b,
+	 * gdy się z nimi nakłada wynik liczony jest w kopii
+	 * @throws MatrixSizeException Gdy nie zgadzają się wymiary mnożenia
+	 */
+	public static void productInto(Macierz a, Macierz b, Macierz dst) throws MatrixSizeException {
+		int n = a.getHeight(), p = b.getHeight();
+		int m = a.getLength(), q = b.getLength();
+		if(m != p) throw new MatrixSizeException(String.format("Incorrect size, a is %d x %d, b id %d x %d", n, m, p, q));
+		if(dst.getHeight() != n || dst.getLength() != q) throw new MatrixSizeException(String.format("Incorrect size of destination %d x %d for %d x %d", dst.getHeight(), dst.getLength(), n, q));
+		Macierz.checkWritable(dst);
+		// Widoki transponowane kopiowane są do zapisu wierszami, rekurencja i tak kopiuje bloki
+		a = Macierz.rowMajor(a);
+		b = Macierz.rowMajor(b);
+		boolean direct = dst.colStride() == 1 && !Macierz.overlaps(dst, a) && !Macierz.overlaps(dst, b);
+		Macierz c = direct ? dst : new Macierz(n, q);
+		multiply(n, m, q, a.data(), a.offset(), a.stride(), b.data(), b.offset(), b.stride(), c.data(), c.offset(), c.stride());
+		if(c != dst) Macierz.copyInto(c, dst);
+	}
+	
+	/**
+	 * Funkcja sprawdzająca czy Macierz.product powinien użyć tego algorytmu dla podanych wymiarów
+	 */
+	static boolean isWorthwhile(int n, int m, int q) {
+		return Math.min(n, Math.min(m, q)) >= threshold;
+	}
+	
+	/**
+	 * Funkcja obliczająca C = A*B dla tablic zapisanych wierszami, parametry jak w GemmKernel.multiply
+	 */
+	static void multiply(int n, int m, int q, double[] a, int offA, int lda, double[] b, int offB, int ldb, double[] c, int offC, int ldc) {
+		int cut = cutoff;
+		if(parallel && Parallel.isEnabled() && Math.min(n, Math.min(m, q)) > cut) {
+			winogradParallel(n, m, q, a, offA, lda, b, offB, ldb, c, offC, ldc, cut);
+		} else {
+			winograd(n, m, q, a, offA, lda, b, offB, ldb, c, offC, ldc, cut);
+		}
+	}
+	
+	/**
+	 * Jeden poziom rekurencji z harmonogramem na trzech macierzach tymczasowych X, Y, Z
+	 */
+	private static void winograd(int n, int m, int q, double[] a, int offA, int lda, double[] b, int offB, int ldb, double[] c, int offC, int ldc, int cut) {
+		if(Math.min(n, Math.min(m, q)) <= cut) {
+			GemmKernel.multiply(n, m, q, a, offA, lda, b, offB, ldb, c, offC, ldc);
+			return;
+		}
+		int h = n/2, k = m/2, w = q/2;
+		int a11 = offA, a12 = offA+k, a21 = offA+h*lda, a22 = a21+k;
+		int b11 = offB, b12 = offB+w, b21 = offB+k*ldb, b22 = b21+w;
+		int c11 = offC, c12 = offC+w, c21 = offC+h*ldc, c22 = c21+w;
+		double[] x = new double[h*k], y = new double[k*w], z = new double[h*w];
+		
+		subtract(h, k, a, a11, lda, a, a21, lda, x, 0, k);         // X = S3 = A11 - A21
+		subtract(k, w, b, b22, ldb, b, b12, ldb, y, 0, w);         // Y = T3 = B22 - B12
+		winograd(h, k, w, x, 0, k, y, 0, w, c, c21, ldc, cut);      // C21 = P7 = S3*T3
+		add(h, k, a, a21, lda, a, a22, lda, x, 0, k);              // X = S1 = A21 + A22
+		subtract(k, w, b, b12, ldb, b, b11, ldb, y, 0, w);         // Y = T1 = B12 - B11
+		winograd(h, k, w, x, 0, k, y, 0, w, c, c22, ldc, cut);      // C22 = P5 = S1*T1
+		subtract(h, k, x, 0, k, a, a11, lda, x, 0, k);             // X = S2 = S1 - A11
+		subtract(k, w, b, b22, ldb, y, 0, w, y, 0, w);             // Y = T2 = B22 - T1
+		winograd(h, k, w, x, 0, k, y, 0, w, c, c12, ldc, cut);      // C12 = P6 = S2*T2
+		subtract(h, k, a, a12, lda, x, 0, k, x, 0, k);             // X = S4 = A12 - S2
+		winograd(h, k, w, x, 0, k, b, b22, ldb, c, c11, ldc, cut);  // C11 = P3 = S4*B22
+		winograd(h, k, w, a, a11, lda, b, b11, ldb, z, 0, w, cut);  // Z = P1 = A11*B11
+		add(h, w, z, 0, w, c, c12, ldc, c, c12, ldc);              // C12 = U2 = P1 + P6
+		add(h, w, c, c12, ldc, c, c21, ldc, c, c21, ldc);          // C21 = U3 = U2 + P7
+		add(h, w, c, c12, ldc, c, c22, ldc, c, c12, ldc);          // C12 = U4 = U2 + P5
+		add(h, w, c, c21, ldc, c, c22, ldc, c, c22, ldc);          // C22 = U7 = U3 + P5
+		add(h, w, c, c12, ldc, c, c11, ldc, c, c12, ldc);          // C12 = U5 = U4 + P3
+		subtract(k, w, y, 0, w, b, b21, ldb, y, 0, w);             // Y = T4 = T2 - B21
+		winograd(h, k, w, a, a22, lda, y, 0, w, c, c11, ldc, cut);  // C11 = P4 = A22*T4
+		subtract(h, w, c, c21, ldc, c, c11, ldc, c, c21, ldc);     // C21 = U6 = U3 - P4
+		winograd(h, k, w, a, a12, lda, b, b21, ldb, c, c11, ldc, cut);  // C11 = P2 = A12*B21
+		add(h, w, z, 0, w, c, c11, ldc, c, c11, ldc);              // C11 = U1 = P1 + P2
+		
+		peel(n, m, q, a, offA, lda, b, offB, ldb, c, offC, ldc);
+	}
+	
+	/**
+	 * Jeden poziom rekurencji z siedmioma niezależnymi iloczynami liczonymi równolegle,
+	 * niższe poziomy liczone są harmonogramem sekwencyjnym
+	 */
+	private static void winogradParallel(int n, int m, int q, double[] a, int offA, int lda, double[] b, int offB, int ldb, double[] c, int offC, int ldc, int cut) {
+		int h = n/2, k = m/2, w = q/2;
+		int a11 = offA, a12 = offA+k, a21 = offA+h*lda, a22 = a21+k;
+		int b11 = offB, b12 = offB+w, b21 = offB+k*ldb, b22 = b21+w;
+		int c11 = offC, c12 = offC+w, c21 = offC+h*ldc, c22 = c21+w;
+		double[] s1 = new double[h*k], s2 = new double[h*k], s3 = new double[h*k], s4 = new double[h*k];
+		double[] t1 = new double[k*w], t2 = new double[k*w], t3 = new double[k*w], t4 = new double[k*w];
+		add(h, k, a, a21, lda, a, a22, lda, s1, 0, k);
+		subtract(h, k, s1, 0, k, a, a11, lda, s2, 0, k);
+		subtract(h, k, a, a11, lda, a, a21, lda, s3, 0, k);
+		subtract(h, k, a, a12, lda, s2, 0, k, s4, 0, k);
+		subtract(k, w, b, b12, ldb, b, b11, ldb, t1, 0, w);
+		subtract(k, w, b, b22, ldb, t1, 0, w, t2, 0, w);
+		subtract(k, w, b, b22, ldb, b, b12, ldb, t3, 0, w);
+		subtract(k, w, t2, 0, w, b, b21, ldb, t4, 0, w);
+		
+		double[][] p = new double[7][h*w];
+		Parallel.forRange(0, 7, (long)h*k*w, (from, to) -> {
+			for(int i=from; i<to; i++) {
+				switch(i) {
+				case 0: winograd(h, k, w, a, a11, lda, b, b11, ldb, p[0], 0, w, cut); break;
+				case 1: winograd(h, k, w, a, a12, lda, b, b21, ldb, p[1], 0, w, cut); break;
+				case 2: winograd(h, k, w, s4, 0, k, b, b22, ldb, p[2], 0, w, cut); break;
+				case 3: winograd(h, k, w, a, a22, lda, t4, 0, w, p[3], 0, w, cut); break;
+				case 4: winograd(h, k, w, s1, 0, k, t1, 0, w, p[4], 0, w, cut); break;
+				case 5: winograd(h, k, w, s2, 0, k, t2, 0, w, p[5], 0, w, cut); break;
+				default: winograd(h, k, w, s3, 0, k, t3, 0, w, p[6], 0, w, cut); break;
+				}
+			}
+		});
+		
+		// C11 = P1 + P2, C12 = P1 + P6 + P5 + P3, C21 = P1 + P6 + P7 - P4, C22 = P1 + P6 + P7 + P5
+		for(int i=0; i<h; i++) {
+			int r = i*w;
+			int r11 = c11+i*ldc, r12 = c12+i*ldc, r21 = c21+i*ldc, r22 = c22+i*ldc;
+			for(int j=0; j<w; j++) {
+				double u2 = p[0][r+j] + p[5][r+j];
+				double u3 = u2 + p[6][r+j];
+				c[r11+j] = p[0][r+j] + p[1][r+j];
+				c[r12+j] = u2 + p[4][r+j] + p[2][r+j];
+				c[r21+j] = u3 - p[3][r+j];
+				c[r22+j] = u3 + p[4][r+j];
+			}
+		}
+		
+		peel(n, m, q, a, offA, lda, b, offB, ldb, c, offC, ldc);
+	}
+	
+	/**
+	 * Funkcja uzupełniająca wynik o wkład odciętego ostatniego wiersza i kolumny przy nieparzystych wymiarach.
+	 * Parzysta część C jest już policzona z parzystych części A i B.
+	 */
+	private static void peel(int n, int m, int q, double[] a, int offA, int lda, double[] b, int offB, int ldb, double[] c, int offC, int ldc) {
+		int n2 = n & ~1, m2 = m & ~1, q2 = q & ~1;
+		// C[0:n2, 0:q2] += A[0:n2, m2] * B[m2, 0:q2]
+		if(m2 != m) GemmKernel.multiplyAdd(n2, 1, q2, 1, a, offA+m2, lda, b, offB+m2*ldb, ldb, c, offC, ldc);
+		// C[0:n2, q2] = A[0:n2, :] * B[:, q2]
+		if(q2 != q) GemmKernel.multiply(n2, m, 1, a, offA, lda, b, offB+q2, ldb, c, offC+q2, ldc);
+		// C[n2, :] = A[n2, :] * B
+		if(n2 != n) GemmKernel.multiply(1, m, q, a, offA+n2*lda, lda, b, offB, ldb, c, offC+n2*ldc, ldc);
+	}
+	
+	/**
+	 * Funkcja obliczająca dst = x + y dla bloków n x m, dst może być jednym z argumentów
+	 */
+	private static void add(int n, int m, double[] x, int ox, int lx, double[] y, int oy, int ly, double[] dst, int od, int ld) {
+		for(int i=0; i<n; i++) {
+			int rx = ox+i*lx, ry = oy+i*ly, rd = od+i*ld;
+			for(int j=0; j<m; j++) dst[rd+j] = x[rx+j] + y[ry+j];
+		}
+	}
+	
+	/**
+	 * Funkcja obliczająca dst = x - y dla bloków n x m, dst może być jednym z argumentów
+	 */
+	private static void subtract(int n, int m, double[] x, int ox, int lx, double[] y, int oy, int ly, double[] dst, int od, int ld) {
+		for(int i=0; i<n; i++) {
+			int rx = ox+i*lx, ry = oy+i*ly, rd = od+i*ld;
+			for(int j=0; j<m; j++) dst[rd+j] = x[rx+j] - y[ry+j];
+		}
+	}
+}
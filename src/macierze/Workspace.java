@@ -0,0 +1,97 @@
+package macierze;
+
+import java.util.*;
+
+/**
+ * Klasa przechowująca macierze tymczasowe do ponownego użycia w pętlach obliczeniowych.
+ * Razem z funkcjami *Into pozwala na pętle, które po rozgrzaniu nic nie alokują.
+ * Obiekt nie jest bezpieczny wątkowo, każdy wątek powinien mieć własny.
+ */
+
+public class Workspace {
+	
+	/**
+	 * Wolne macierze gotowe do ponownego użycia
+	 */
+	private Macierz[] free;
+	
+	/**
+	 * Liczba wolnych macierzy
+	 */
+	private int count;
+	
+	/**
+	 * Konstruktor pustego obszaru roboczego
+	 */
+	public Workspace() {
+		this.free = new Macierz[8];
+		this.count = 0;
+	}
+	
+	/**
+	 * Funkcja zwracająca macierz o podanych wymiarach, wcześniej zwolnioną lub nową.
+	 * Zawartość ponownie użytej macierzy jest nieokreślona.
+	 * @param n Liczba wierszy
+	 * @param m Liczba kolumn
+	 * @return Macierz
+	 */
+	public Macierz acquire(int n, int m) {
+		for(int i=count-1; i>=0; i--) {
+			Macierz a = free[i];
+			if(a.getHeight() == n && a.getLength() == m) {
+				free[i] = free[count-1];
+				free[--count] = null;
+				return a;
+			}
+		}
+		return new Macierz(n, m);
+	}
+	
+	/**
+	 * Funkcja zwracająca macierz zer o podanych wymiarach, wcześniej zwolnioną lub nową
+	 * @param n Liczba wierszy
+	 * @param m Liczba kolumn
+	 * @return Macierz
+	 */
+	public Macierz acquireZeros(int n, int m) {
+		Macierz a = acquire(n, m);
+		double[] d = a.data();
+		for(int i=0; i<n; i++) {
+			int row = a.offset()+i*a.stride();
+			if(a.colStride() == 1) Arrays.fill(d, row, row+m, 0);
+			else for(int j=0; j<m; j++) d[row+j*a.colStride()] = 0;
+		}
+		return a;
+	}
+	
+	/**
+	 * Funkcja oddająca macierz do ponownego użycia, po oddaniu nie wolno z niej korzystać.
+	 * Macierze zamrożone są pomijane, bo nie można ich nadpisać.
+	 * @param a Macierz do oddania
+	 */
+	public void release(Macierz a) {
+		if(a == null || a.isFrozen()) return;
+		if(count == free.length) {
+			Macierz[] tmp = new Macierz[2*free.length];
+			System.arraycopy(free, 0, tmp, 0, count);
+			free = tmp;
+		}
+		free[count++] = a;
+	}
+	
+	/**
+	 * Funkcja zwracająca liczbę macierzy czekających na ponowne użycie
+	 * @return int
+	 */
+	public int size() {
+		return count;
+	}
+	
+	/**
+	 * Funkcja usuwająca wszystkie przechowywane macierze
+	 */
+	public void clear() {
+		for(int i=0; i<count; i++) free[i] = null;
+		count = 0;
+	}
+}
@@ -0,0 +1,113 @@
+package macierze;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import org.junit.jupiter.api.*;
+
+/**
+ * Testy pamięci rozkładów: trafienia po zawartości macierzy, niezależność od późniejszych zmian klucza i usuwanie LRU
+ */
+
+class DecompositionCacheTest {
+	
+	@Test
+	void equalContentHitsCache() throws MatrixSizeException {
+		DecompositionCache cache = new DecompositionCache(8, Long.MAX_VALUE);
+		Macierz a = new MatrixGenerator(1).normal(20, 20);
+		double det = cache.determinant(a);
+		assertEquals(Macierz.determinant(a), det, 1e-12*Math.abs(det));
+		assertEquals(det, cache.determinant(Macierz.copyOf(a)));
+		assertSame(cache.lu(a), cache.lu(a.freeze()));
+		assertEquals(1, cache.getMisses());
+		assertEquals(3, cache.getHits());
+		assertEquals(1, cache.size());
+	}
+	
+	@Test
+	void changingCallerMatrixDoesNotChangeEntry() throws MatrixSizeException {
+		DecompositionCache cache = new DecompositionCache(8, Long.MAX_VALUE);
+		Macierz a = new MatrixGenerator(2).normal(10, 10), before = Macierz.copyOf(a);
+		double det = cache.determinant(a);
+		Macierz.scaleInPlace(2, a);
+		assertEquals(det, cache.determinant(before));
+		assertEquals(1024*det, cache.determinant(a), 1e-9*Math.abs(1024*det));
+		assertEquals(2, cache.size());
+	}
+	
+	@Test
+	void inverseAndSolveAreCorrect() throws MatrixSizeException {
+		DecompositionCache cache = new DecompositionCache(8, Long.MAX_VALUE);
+		Macierz a = new MatrixGenerator(3).normal(30, 30), b = new MatrixGenerator(4).normal(30, 2);
+		Macierz inv = cache.inverse(a);
+		assertTrue(inv.isFrozen());
+		assertSame(inv, cache.inverse(a));
+		Reference.assertClose(new Macierz(30, 30, "identity"), Reference.product(a, inv), 1e-10);
+		Reference.assertClose(b, Reference.product(a, cache.solve(a, b)), 1e-10);
+	}
+	
+	@Test
+	void evictsLeastRecentlyUsedByCount() throws MatrixSizeException, InterruptedException {
+		DecompositionCache cache = new DecompositionCache(2, Long.MAX_VALUE);
+		MatrixGenerator g = new MatrixGenerator(5);
+		Macierz a = g.normal(5, 5), b = g.normal(5, 5), c = g.normal(5, 5);
+		cache.lu(a);
+		cache.lu(b);
+		Thread.sleep(1);
+		cache.lu(a);
+		cache.lu(c);
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getEvictions());
+		long misses = cache.getMisses();
+		cache.lu(a);
+		assertEquals(misses, cache.getMisses());
+		cache.lu(b);
+		assertEquals(misses+1, cache.getMisses());
+	}
+	
+	@Test
+	void evictsByBytes() throws MatrixSizeException {
+		// Jeden wpis 50x50 to ok. 16*50*50 bajtów, limit mieści dwa
+		DecompositionCache cache = new DecompositionCache(100, 100_000);
+		MatrixGenerator g = new MatrixGenerator(6);
+		for(int i=0; i<5; i++) cache.lu(g.normal(50, 50));
+		assertTrue(cache.getBytes() <= 100_000, cache::toString);
+		assertEquals(2, cache.size());
+		cache.clear();
+		assertEquals(0, cache.size());
+		assertEquals(0, cache.getBytes());
+	}
+	
+	@Test
+	void concurrentAccessComputesCorrectResults() throws Exception {
+		DecompositionCache cache = new DecompositionCache(4, Long.MAX_VALUE);
+		MatrixGenerator g = new MatrixGenerator(7);
+		List<Macierz> keys = new ArrayList<>();
+		for(int i=0; i<6; i++) keys.add(g.normal(15, 15).freeze());
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Boolean>> results = new ArrayList<>();
+			for(int t=0; t<200; t++) {
+				Macierz a = keys.get(t%keys.size());
+				results.add(pool.submit(() -> {
+					double det = Macierz.determinant(a);
+					return Math.abs(cache.determinant(a) - det) <= 1e-12*Math.abs(det);
+				}));
+			}
+			for(Future<Boolean> f : results) assertTrue(f.get());
+		} finally {
+			pool.shutdown();
+		}
+		assertTrue(cache.size() <= 4);
+	}
+	
+	@Test
+	void nonSquareMatrixThrows() throws MatrixSizeException {
+		DecompositionCache cache = new DecompositionCache(4, Long.MAX_VALUE);
+		assertThrows(MatrixSizeException.class, () -> cache.determinant(new Macierz(3, 0)));
+		assertThrows(MatrixSizeException.class, () -> cache.inverse(new Macierz(2, 3)));
+		assertEquals(1, cache.determinant(new Macierz(0, 0)));
+		assertThrows(ArithmeticException.class, () -> cache.inverse(new Macierz(3, 3)));
+	}
+}
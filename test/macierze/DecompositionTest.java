@@ -0,0 +1,107 @@
+package macierze;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+
+/**
+ * Testy rozkładów LU, Choleskiego i QR dla macierzy większych niż 256, czyli w wersjach blokowych
+ * (kilka paneli i aktualizacja reszty macierzy przez GemmKernel)
+ */
+
+class DecompositionTest {
+	
+	private static final int N = 300;
+	
+	@Test
+	void luReconstructsPermutedMatrix() throws MatrixSizeException {
+		Macierz a = new MatrixGenerator(1).normal(N, N);
+		LUDecomposition lu = new LUDecomposition(a);
+		assertFalse(lu.isSingular());
+		Reference.assertClose(Reference.product(lu.getP(), a), Reference.product(lu.getL(), lu.getU()), 1e-12);
+	}
+	
+	@Test
+	void luSolveAndInverse() throws MatrixSizeException {
+		Macierz a = new MatrixGenerator(2).normal(N, N);
+		Macierz b = new MatrixGenerator(3).normal(N, 3);
+		LUDecomposition lu = new LUDecomposition(a);
+		Reference.assertClose(b, Reference.product(a, lu.solve(b)), 1e-9);
+		Reference.assertClose(new Macierz(N, N, "identity"), Reference.product(a, lu.inverse()), 1e-9);
+		Reference.assertClose(b, Reference.product(a, Macierz.solve(a, b)), 1e-9);
+	}
+	
+	@Test
+	void luSolveIntoRightHandSide() throws MatrixSizeException {
+		Macierz a = new MatrixGenerator(4).normal(N, N);
+		Macierz b = new MatrixGenerator(5).normal(N, 4), x = Macierz.copyOf(b);
+		new LUDecomposition(a).solveInto(x, x);
+		Reference.assertClose(b, Reference.product(a, x), 1e-9);
+	}
+	
+	@Test
+	void luOfSingularMatrixThrowsOnSolve() throws MatrixSizeException, MatrixIndexOutOfBoundsException {
+		Macierz a = new MatrixGenerator(6).normal(N, N);
+		Macierz.copyInto(a.row(7), a.row(N-1));
+		LUDecomposition lu = new LUDecomposition(a);
+		assertTrue(lu.isSingular());
+		assertEquals(0, lu.determinant());
+		assertThrows(ArithmeticException.class, () -> lu.solve(new Macierz(N, 1)));
+		assertThrows(ArithmeticException.class, () -> Macierz.inverse(a));
+	}
+	
+	@Test
+	void choleskyReconstructsMatrix() throws MatrixSizeException {
+		Macierz a = Reference.spd(N, 7);
+		Macierz l = new CholeskyDecomposition(a).getL();
+		Reference.assertClose(a, Reference.product(l, l.transposedView()), 1e-12);
+	}
+	
+	@Test
+	void choleskySolveInverseAndDeterminant() throws MatrixSizeException {
+		Macierz a = Reference.spd(N, 8);
+		Macierz b = new MatrixGenerator(9).normal(N, 2);
+		CholeskyDecomposition c = new CholeskyDecomposition(a);
+		Reference.assertClose(b, Reference.product(a, c.solve(b)), 1e-9);
+		Reference.assertClose(new Macierz(N, N, "identity"), Reference.product(a, c.inverse()), 1e-9);
+		double[] log = c.logDeterminant(), logLU = new LUDecomposition(a).logDeterminant();
+		assertEquals(logLU[0], log[0]);
+		assertEquals(logLU[1], log[1], 1e-9*Math.abs(logLU[1]));
+	}
+	
+	@Test
+	void choleskyRejectsIndefiniteMatrix() throws MatrixSizeException {
+		Macierz a = Macierz.subtract(Reference.spd(N, 10), Macierz.product(4.0*N, new Macierz(N, N, "identity")));
+		assertThrows(ArithmeticException.class, () -> new CholeskyDecomposition(a));
+	}
+	
+	@Test
+	void qrReconstructsTallMatrix() throws MatrixSizeException {
+		int m = N + 20, n = N - 10;
+		Macierz a = new MatrixGenerator(11).normal(m, n);
+		QRDecomposition qr = new QRDecomposition(a);
+		Macierz q = qr.getQ();
+		assertTrue(qr.isFullRank());
+		Reference.assertClose(a, Reference.product(q, qr.getR()), 1e-12);
+		Reference.assertClose(new Macierz(n, n, "identity"), Reference.product(q.transposedView(), q), 1e-12);
+	}
+	
+	@Test
+	void qrLeastSquaresSatisfiesNormalEquations() throws MatrixSizeException {
+		int m = N + 20, n = N - 10;
+		Macierz a = new MatrixGenerator(12).normal(m, n);
+		Macierz b = new MatrixGenerator(13).normal(m, 2);
+		Macierz x = Macierz.solve(a, b);
+		// A^T (A X - B) = 0 dla rozwiązania w sensie najmniejszych kwadratów
+		Macierz r = Macierz.subtract(Reference.product(a, x), b);
+		Macierz g = Reference.product(a.transposedView(), r);
+		Reference.assertClose(new Macierz(n, 2), g, 1e-9*m);
+	}
+	
+	@Test
+	void qrDeterminantMatchesLU() throws MatrixSizeException {
+		Macierz a = new MatrixGenerator(14).normal(60, 60);
+		double lu = new LUDecomposition(a).determinant();
+		assertEquals(lu, new QRDecomposition(a).determinant(), 1e-9*Math.abs(lu));
+	}
+}
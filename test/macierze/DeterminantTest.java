@@ -0,0 +1,80 @@
+package macierze;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+
+/**
+ * Testy wyznacznika z rozkładu LU (lub Choleskiego), porównywanego z rozwinięciem Laplace'a dla małych macierzy
+ */
+
+class DeterminantTest {
+	
+	/**
+	 * Funkcja obliczająca wyznacznik rozwinięciem Laplace'a względem pierwszego wiersza
+	 */
+	private static double cofactor(double[][] a) {
+		int n = a.length;
+		if(n == 1) return a[0][0];
+		double ret = 0;
+		for(int j=0; j<n; j++) {
+			double[][] minor = new double[n-1][n-1];
+			for(int i=1; i<n; i++) {
+				for(int k=0, c=0; k<n; k++) {
+					if(k != j) minor[i-1][c++] = a[i][k];
+				}
+			}
+			ret += ((j%2 == 0) ? 1 : -1)*a[0][j]*cofactor(minor);
+		}
+		return ret;
+	}
+	
+	@Test
+	void determinantMatchesCofactorExpansion() throws MatrixSizeException {
+		for(int n=1; n<=7; n++) {
+			Macierz a = new MatrixGenerator(n).normal(n, n);
+			double expected = cofactor(a.toArray());
+			assertEquals(expected, Macierz.determinant(a), 1e-12*Math.max(1, Math.abs(expected)), "n = " + n);
+			double[] log = Macierz.logDeterminant(a);
+			assertEquals(Math.signum(expected), log[0], "n = " + n);
+			assertEquals(Math.log(Math.abs(expected)), log[1], 1e-12*Math.max(1, Math.abs(log[1])), "n = " + n);
+		}
+	}
+	
+	@Test
+	void determinantOfSymmetricPositiveDefinite() throws MatrixSizeException {
+		Macierz a = Reference.spd(6, 1);
+		double expected = cofactor(a.toArray());
+		assertEquals(expected, Macierz.determinant(a), 1e-12*Math.abs(expected));
+	}
+	
+	@Test
+	void determinantOfSingularMatrixIsZero() throws MatrixSizeException {
+		Macierz a = new Macierz(3, 3, new double[] {1, 2, 3, 4, 5, 6, 7, 8, 9});
+		assertEquals(0, Macierz.determinant(a), 1e-12);
+		assertEquals(0, Macierz.determinant(new Macierz(4, 4)));
+		assertEquals(0, Macierz.logDeterminant(new Macierz(4, 4))[0]);
+	}
+	
+	@Test
+	void logDeterminantDoesNotOverflow() throws MatrixSizeException {
+		Macierz a = Macierz.product(1e10, new Macierz(50, 50, "identity"));
+		assertEquals(Double.POSITIVE_INFINITY, Macierz.determinant(a));
+		assertEquals(1, Macierz.logDeterminant(a)[0]);
+		assertEquals(500*Math.log(10), Macierz.logDeterminant(a)[1], 1e-9);
+	}
+	
+	@Test
+	void emptySquareMatrixHasDeterminantOne() throws MatrixSizeException {
+		assertEquals(1, Macierz.determinant(new Macierz(0, 0)));
+		assertArrayEquals(new double[] {1, 0}, Macierz.logDeterminant(new Macierz(0, 0)));
+	}
+	
+	@Test
+	void nonSquareMatrixThrows() {
+		assertThrows(MatrixSizeException.class, () -> Macierz.determinant(new Macierz(3, 4)));
+		assertThrows(MatrixSizeException.class, () -> Macierz.determinant(new Macierz(3, 0)));
+		assertThrows(MatrixSizeException.class, () -> Macierz.logDeterminant(new Macierz(0, 2)));
+		assertThrows(NullPointerException.class, () -> Macierz.determinant(null));
+	}
+}
@@ -0,0 +1,73 @@
+package macierze;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.*;
+import org.junit.jupiter.params.provider.*;
+
+/**
+ * Testy leniwych wyrażeń: wynik obliczony jednym przejściem porównywany z działaniami wykonywanymi po kolei
+ */
+
+class ExpressionTest {
+	
+	@ParameterizedTest
+	@CsvSource({"3, 4", "70, 300", "257, 513"})
+	void fusedEvaluationMatchesEager(int n, int m) throws MatrixSizeException {
+		MatrixGenerator g = new MatrixGenerator(n + m);
+		Macierz a = g.normal(n, m), b = g.normal(n, m), c = g.normal(m, n);
+		Expression e = Expression.add(Expression.product(2.5, Expression.of(a)),
+				Expression.subtract(Expression.of(b), Expression.transpose(Expression.of(c))));
+		assertEquals(n, e.getHeight());
+		assertEquals(m, e.getLength());
+		Macierz eager = Macierz.add(Macierz.product(2.5, a), Macierz.subtract(b, Macierz.transpose(c)));
+		Reference.assertClose(eager, e.evaluate(), 1e-14);
+	}
+	
+	@Test
+	void nestedTransposeAndRepeatedTerms() throws MatrixSizeException {
+		MatrixGenerator g = new MatrixGenerator(1);
+		Macierz a = g.normal(30, 20), b = g.normal(20, 30);
+		// (a + b^T)^T - 3*(a^T) + a^T = b - a^T
+		Expression e = Expression.add(Expression.subtract(Expression.transpose(Expression.add(Expression.of(a), Expression.transpose(Expression.of(b)))),
+				Expression.product(3, Expression.transpose(Expression.of(a)))), Expression.transpose(Expression.of(a)));
+		Reference.assertClose(Macierz.subtract(b, Macierz.transpose(a)), e.evaluate(), 1e-14);
+		Reference.assertClose(Macierz.product(2, a), Expression.add(Expression.of(a), Expression.of(a)).evaluate(), 0);
+	}
+	
+	@Test
+	void evaluateIntoDestinationUsedInExpression() throws MatrixSizeException, MatrixIndexOutOfBoundsException {
+		MatrixGenerator g = new MatrixGenerator(2);
+		Macierz x = g.normal(40, 40), y = g.normal(40, 40), copy = Macierz.copyOf(y);
+		// y = y + 2*x liczone w miejscu
+		Expression.add(Expression.of(y), Expression.product(2, Expression.of(x))).evaluateInto(y);
+		Reference.assertClose(Macierz.add(copy, Macierz.product(2, x)), y, 1e-14);
+		// y = y^T - x wymaga macierzy pomocniczej
+		copy = Macierz.copyOf(y);
+		Expression.subtract(Expression.transpose(Expression.of(y)), Expression.of(x)).evaluateInto(y);
+		Reference.assertClose(Macierz.subtract(Macierz.transpose(copy), x), y, 1e-14);
+		// Wynik w rozłącznym bloku tej samej tablicy
+		Macierz p = g.normal(10, 20), pc = Macierz.copyOf(p);
+		Expression.product(-1, Expression.of(p.submatrix(0, 0, 10, 10))).evaluateInto(p.submatrix(0, 10, 10, 10));
+		assertEquals(Macierz.product(-1, pc.submatrix(0, 0, 10, 10)), p.submatrix(0, 10, 10, 10));
+		assertEquals(pc.submatrix(0, 0, 10, 10), p.submatrix(0, 0, 10, 10));
+	}
+	
+	@Test
+	void leafSeesChangesBeforeEvaluate() throws MatrixSizeException {
+		Macierz a = new Macierz(2, 2, "ones");
+		Expression e = Expression.product(2, Expression.of(a));
+		Macierz.scaleInPlace(3, a);
+		assertEquals(new Macierz(2, 2, new double[] {6, 6, 6, 6}), e.evaluate());
+	}
+	
+	@Test
+	void sizeMismatchThrows() {
+		Expression a = Expression.of(new Macierz(2, 3)), b = Expression.of(new Macierz(3, 2));
+		assertThrows(MatrixSizeException.class, () -> Expression.add(a, b));
+		assertThrows(MatrixSizeException.class, () -> Expression.subtract(a, b));
+		assertThrows(MatrixSizeException.class, () -> a.evaluateInto(new Macierz(3, 2)));
+		assertThrows(UnsupportedOperationException.class, () -> a.evaluateInto(new Macierz(2, 3).freeze()));
+	}
+}
@@ -0,0 +1,85 @@
+package macierze;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.function.*;
+
+/**
+ * Testy macierzy zamrożonych: blokada zapisu, zapamiętany hash i porównywanie z macierzami zmiennymi
+ */
+
+class FreezeTest {
+	
+	@Test
+	void freezeCopiesAndIsIdempotent() throws MatrixSizeException, MatrixIndexOutOfBoundsException {
+		Macierz a = new MatrixGenerator(1).normal(6, 7), frozen = a.freeze();
+		assertFalse(a.isFrozen());
+		assertTrue(frozen.isFrozen());
+		assertSame(frozen, frozen.freeze());
+		assertEquals(a, frozen);
+		assertFalse(Macierz.overlaps(a, frozen));
+		// Zmiana oryginału nie zmienia kopii zamrożonej
+		Macierz.scaleInPlace(2, a);
+		assertNotEquals(a, frozen);
+		assertTrue(frozen.submatrix(1, 1, 3, 3).isFrozen());
+		assertTrue(frozen.row(2).isFrozen());
+		assertTrue(frozen.column(2).isFrozen());
+		assertTrue(frozen.transposedView().isFrozen());
+		assertFalse(Macierz.copyOf(frozen).isFrozen());
+	}
+	
+	@Test
+	void everyWriteToFrozenMatrixThrows() throws MatrixSizeException, MatrixIndexOutOfBoundsException {
+		Macierz a = new MatrixGenerator(2).normal(4, 4), f = a.freeze(), view = f.submatrix(0, 0, 2, 2);
+		List<Executable> writes = List.of(
+				() -> f.swapRow(0, 1), () -> f.swapColumn(0, 1), f::flipLR, f::flipUD,
+				() -> Macierz.addInto(a, a, f), () -> Macierz.subtractInto(a, a, f), () -> Macierz.axpy(1, a, f),
+				() -> Macierz.productInto(a, a, f), () -> Macierz.productInto(2, a, f), () -> Macierz.scaleInPlace(2, f),
+				() -> Macierz.transposeInto(a, f), () -> Macierz.transposeInPlace(f), () -> Macierz.copyInto(a, f),
+				() -> Macierz.scaleInPlace(2, view), () -> Macierz.transposeInPlace(f.transposedView()),
+				() -> new LUDecomposition(a).solveInto(a, f), () -> Strassen.productInto(a, a, f));
+		Macierz copy = Macierz.copyOf(f);
+		for(Executable w : writes) {
+			UnsupportedOperationException e = assertThrows(UnsupportedOperationException.class, w);
+			assertEquals("Matrix is frozen", e.getMessage());
+		}
+		assertEquals(copy, f);
+	}
+	
+	@Test
+	void cachedHashMatchesFreshHash() throws MatrixSizeException, MatrixIndexOutOfBoundsException {
+		MatrixGenerator g = new MatrixGenerator(3);
+		for(int k=0; k<20; k++) {
+			Macierz a = g.normal(1+k, 20-k), f = a.freeze();
+			assertEquals(a.hashCode(), f.hashCode());
+			assertEquals(Macierz.copyOf(f).hashCode(), f.hashCode());
+			assertEquals(Macierz.transpose(a).hashCode(), f.transposedView().hashCode());
+		}
+		Macierz zero = new Macierz(0, 3).freeze();
+		assertEquals(new Macierz(0, 3).hashCode(), zero.hashCode());
+		assertEquals(zero.hashCode(), zero.hashCode());
+	}
+	
+	@Test
+	void equalsBetweenFrozenAndMutable() throws MatrixSizeException {
+		Macierz a = new MatrixGenerator(4).normal(30, 30), b = Macierz.copyOf(a);
+		double[] d = b.toFlatArray();
+		d[17*30+4] += 1e-12;
+		Macierz c = new Macierz(30, 30, d);
+		assertEquals(a.freeze(), b.freeze());
+		assertEquals(a.freeze(), b);
+		assertEquals(a, b.freeze());
+		assertNotEquals(a.freeze(), c.freeze());
+		assertNotEquals(a.freeze(), c);
+		assertNotEquals(a.freeze(), "macierz");
+		assertNotEquals(a.freeze(), null);
+		// Zamrożone macierze jako klucze mapy
+		Map<Macierz, Integer> map = new HashMap<>();
+		map.put(a.freeze(), 1);
+		map.put(c.freeze(), 2);
+		assertEquals(1, map.get(b));
+		assertEquals(2, map.get(c));
+	}
+}
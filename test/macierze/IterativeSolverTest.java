@@ -0,0 +1,113 @@
+package macierze;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+
+/**
+ * Testy metod Kryłowa CG, BiCGSTAB i GMRES na macierzach rzadkich siatek, porównywane ze znanym rozwiązaniem
+ * i z rozwiązaniem bezpośrednim Macierz.solve
+ */
+
+class IterativeSolverTest {
+	
+	private static final int GRID = 20;
+	
+	/**
+	 * Funkcja tworząca macierz różnic skończonych dla -laplasjanu (plus konwekcja w kierunku x) na siatce GRID x GRID
+	 */
+	private static MacierzRzadka grid(double convection) throws MatrixIndexOutOfBoundsException {
+		int n = GRID*GRID;
+		MacierzRzadka.Builder b = new MacierzRzadka.Builder(n, n, 5*n);
+		for(int y=0; y<GRID; y++) {
+			for(int x=0; x<GRID; x++) {
+				int i = y*GRID+x;
+				b.add(i, i, 4);
+				if(x > 0) b.add(i, i-1, -1-convection);
+				if(x < GRID-1) b.add(i, i+1, -1+convection);
+				if(y > 0) b.add(i, i-GRID, -1);
+				if(y < GRID-1) b.add(i, i+GRID, -1);
+			}
+		}
+		return b.build();
+	}
+	
+	private static double[] solution(int n) {
+		double[] x = new double[n];
+		for(int i=0; i<n; i++) x[i] = Math.sin(0.1*i) + 1;
+		return x;
+	}
+	
+	private static double[] rightHandSide(LinearOperator a, double[] x) {
+		double[] b = new double[x.length];
+		a.multiply(x, b);
+		return b;
+	}
+	
+	@Test
+	void cgSolvesLaplacian() throws MatrixSizeException, MatrixIndexOutOfBoundsException {
+		MacierzRzadka a = grid(0);
+		double[] expected = solution(a.getHeight()), x = new double[a.getHeight()];
+		IterativeSolver.Result r = new IterativeSolver(1e-10, 1000).cg(a, rightHandSide(a, expected), x);
+		assertTrue(r.isConverged(), r::toString);
+		assertEquals(0, Reference.maxDifference(expected, x), 1e-7);
+	}
+	
+	@Test
+	void preconditionedCgNeedsFewerIterations() throws MatrixSizeException, MatrixIndexOutOfBoundsException {
+		MacierzRzadka a = grid(0);
+		double[] b = rightHandSide(a, solution(a.getHeight()));
+		IterativeSolver plain = new IterativeSolver(1e-10, 1000);
+		IterativeSolver ilu = new IterativeSolver(1e-10, 1000).setPreconditioner(new ILU0Preconditioner(a));
+		IterativeSolver.Result r0 = plain.cg(a, b, new double[b.length]);
+		IterativeSolver.Result r1 = ilu.cg(a, b, new double[b.length]);
+		assertTrue(r1.isConverged(), r1::toString);
+		assertTrue(r1.getIterations() < r0.getIterations(), () -> r0 + " " + r1);
+	}
+	
+	@Test
+	void bicgstabSolvesNonsymmetricSystem() throws MatrixSizeException, MatrixIndexOutOfBoundsException {
+		MacierzRzadka a = grid(0.4);
+		double[] expected = solution(a.getHeight()), x = new double[a.getHeight()];
+		IterativeSolver s = new IterativeSolver(1e-10, 1000).setPreconditioner(new JacobiPreconditioner(a));
+		IterativeSolver.Result r = s.bicgstab(a, rightHandSide(a, expected), x);
+		assertTrue(r.isConverged(), r::toString);
+		assertEquals(0, Reference.maxDifference(expected, x), 1e-7);
+	}
+	
+	@Test
+	void gmresWithRestartSolvesNonsymmetricSystem() throws MatrixSizeException, MatrixIndexOutOfBoundsException {
+		MacierzRzadka a = grid(0.4);
+		double[] expected = solution(a.getHeight()), x = new double[a.getHeight()];
+		IterativeSolver s = new IterativeSolver(1e-10, 2000).setRestart(20).setPreconditioner(new ILU0Preconditioner(a));
+		IterativeSolver.Result r = s.gmres(a, rightHandSide(a, expected), x);
+		assertTrue(r.isConverged(), r::toString);
+		assertEquals(0, Reference.maxDifference(expected, x), 1e-7);
+	}
+	
+	@Test
+	void solversAgreeWithDirectSolveOnDenseMatrix() throws MatrixSizeException {
+		Macierz a = Reference.spd(80, 1);
+		Macierz b = new MatrixGenerator(2).normal(80, 1);
+		double[] direct = Macierz.solve(a, b).toFlatArray(), rhs = b.toFlatArray();
+		IterativeSolver s = new IterativeSolver(1e-12, 500);
+		double[] x = new double[80];
+		assertTrue(s.cg(a, rhs, x).isConverged());
+		assertEquals(0, Reference.maxDifference(direct, x), 1e-9);
+		x = new double[80];
+		assertTrue(s.bicgstab(a, rhs, x).isConverged());
+		assertEquals(0, Reference.maxDifference(direct, x), 1e-9);
+		x = new double[80];
+		assertTrue(s.gmres(a, rhs, x).isConverged());
+		assertEquals(0, Reference.maxDifference(direct, x), 1e-9);
+	}
+	
+	@Test
+	void zeroRightHandSideGivesZero() throws MatrixSizeException, MatrixIndexOutOfBoundsException {
+		MacierzRzadka a = grid(0);
+		double[] x = solution(a.getHeight());
+		IterativeSolver.Result r = new IterativeSolver().gmres(a, new double[x.length], x);
+		assertTrue(r.isConverged());
+		assertEquals(0, Reference.maxDifference(new double[x.length], x));
+	}
+}
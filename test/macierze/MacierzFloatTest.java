@@ -0,0 +1,75 @@
+package macierze;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import org.junit.jupiter.api.*;
+
+/**
+ * Testy macierzy pojedynczej precyzji: iloczyn i rozkład LU porównywane z wynikami w double
+ */
+
+class MacierzFloatTest {
+	
+	@Test
+	void productMatchesDouble() throws MatrixSizeException {
+		MatrixGenerator g = new MatrixGenerator(1);
+		Macierz a = g.normal(70, 130), b = g.normal(130, 90);
+		MacierzFloat x = MacierzFloat.fromMacierz(a), y = MacierzFloat.fromMacierz(b);
+		Macierz expected = Reference.product(x.toMacierz(), y.toMacierz());
+		Reference.assertClose(expected, MacierzFloat.product(x, y).toMacierz(), 1e-5);
+		MacierzFloat dst = new MacierzFloat(70, 90);
+		MacierzFloat.productInto(x, y, dst, true);
+		Reference.assertClose(expected, dst.toMacierz(), 1e-6);
+	}
+	
+	@Test
+	void addAndTransposeMatchDouble() throws MatrixSizeException {
+		MatrixGenerator g = new MatrixGenerator(2);
+		MacierzFloat a = MacierzFloat.fromMacierz(g.normal(45, 67)), b = MacierzFloat.fromMacierz(g.normal(45, 67));
+		// Suma dwóch float policzona w double i zaokrąglona do float jest równa sumie we float
+		assertEquals(MacierzFloat.fromMacierz(Macierz.add(a.toMacierz(), b.toMacierz())), MacierzFloat.add(a, b));
+		assertEquals(Macierz.transpose(a.toMacierz()), MacierzFloat.transpose(a).toMacierz());
+	}
+	
+	@Test
+	void luSolveAndDeterminant() throws MatrixSizeException {
+		MatrixGenerator g = new MatrixGenerator(3);
+		MacierzFloat a = MacierzFloat.fromMacierz(Reference.spd(40, 4)), b = MacierzFloat.fromMacierz(g.normal(40, 3));
+		MacierzFloat x = MacierzFloat.solve(a, b);
+		Reference.assertClose(b.toMacierz(), Reference.product(a.toMacierz(), x.toMacierz()), 1e-5);
+		Reference.assertClose(new Macierz(40, 40, "identity"), Reference.product(a.toMacierz(), MacierzFloat.inverse(a).toMacierz()), 1e-5);
+		double det = Macierz.determinant(a.toMacierz());
+		assertEquals(det, MacierzFloat.determinant(a), 1e-5*Math.abs(det));
+	}
+	
+	@Test
+	void determinantChecksShapeFirst() throws MatrixSizeException {
+		assertEquals(1, MacierzFloat.determinant(new MacierzFloat(0, 0)));
+		assertThrows(MatrixSizeException.class, () -> MacierzFloat.determinant(new MacierzFloat(3, 0)));
+		assertThrows(MatrixSizeException.class, () -> MacierzFloat.determinant(new MacierzFloat(2, 3)));
+		assertThrows(NullPointerException.class, () -> MacierzFloat.determinant(null));
+	}
+	
+	@Test
+	void emptyShapesArePreserved() throws MatrixSizeException {
+		MacierzFloat a = new MacierzFloat(3, 0), b = new MacierzFloat(0, 4, new float[0]);
+		assertEquals(3, a.getHeight());
+		assertEquals(0, a.getLength());
+		assertEquals(0, b.getHeight());
+		assertEquals(4, b.getLength());
+		assertNotEquals(a, new MacierzFloat(0, 0));
+		MacierzFloat c = MacierzFloat.product(a, b);
+		assertEquals(3, c.getHeight());
+		assertEquals(4, c.getLength());
+		assertArrayEquals(new float[12], c.toFlatArray());
+	}
+	
+	@Test
+	void equalsTreatsNaNAndSignedZeroLikeHashCode() throws MatrixSizeException {
+		MacierzFloat a = new MacierzFloat(1, 2, new float[] {Float.NaN, 0.0f}), b = new MacierzFloat(1, 2, new float[] {Float.NaN, -0.0f});
+		assertEquals(a, b);
+		assertEquals(a.hashCode(), b.hashCode());
+		assertTrue(new HashSet<>(List.of(a)).contains(b));
+	}
+}
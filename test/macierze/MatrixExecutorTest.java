@@ -0,0 +1,114 @@
+package macierze;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import org.junit.jupiter.api.*;
+
+/**
+ * Testy wykonawcy asynchronicznego: wyniki zgodne z wywołaniami bezpośrednimi, limit zadań
+ * i zwalnianie miejsc przy anulowaniu
+ */
+
+class MatrixExecutorTest {
+	
+	/**
+	 * Koszt kierujący zadanie do puli dużych zadań
+	 */
+	private static final double LARGE = MatrixExecutor.SMALL_COST;
+	
+	@Test
+	void resultsMatchDirectCalls() throws Exception {
+		try(MatrixExecutor ex = new MatrixExecutor(2, 16)) {
+			MatrixGenerator g = new MatrixGenerator(1);
+			List<CompletableFuture<Macierz>> products = new ArrayList<>();
+			List<Macierz> expected = new ArrayList<>();
+			for(int n : new int[] {3, 40, 200}) {
+				Macierz a = g.normal(n, n), b = g.normal(n, n);
+				products.add(ex.product(a, b));
+				expected.add(Macierz.product(a, b));
+			}
+			assertEquals(expected, MatrixExecutor.allOf(products).get());
+			Macierz a = Reference.spd(30, 2), b = g.normal(30, 2);
+			assertEquals(Macierz.inverse(a), ex.inverse(a).get());
+			assertEquals(Macierz.solve(a, b), ex.solve(a, b).get());
+			assertEquals(Macierz.determinant(a), ex.determinant(a).get());
+		}
+	}
+	
+	@Test
+	void taskExceptionCompletesFuture() {
+		try(MatrixExecutor ex = new MatrixExecutor(1, 4)) {
+			CompletableFuture<Macierz> f = ex.product(new Macierz(2, 3), new Macierz(2, 3));
+			ExecutionException e = assertThrows(ExecutionException.class, f::get);
+			assertInstanceOf(MatrixSizeException.class, e.getCause());
+		}
+	}
+	
+	@Test
+	void cancelledQueuedTaskFreesSlotAndDoesNotRun() throws Exception {
+		try(MatrixExecutor ex = new MatrixExecutor(1, 4)) {
+			CountDownLatch started = new CountDownLatch(1), release = new CountDownLatch(1);
+			CompletableFuture<Object> blocker = ex.submit(() -> {
+				started.countDown();
+				return release.await(10, TimeUnit.SECONDS);
+			}, LARGE);
+			assertTrue(started.await(10, TimeUnit.SECONDS));
+			AtomicBoolean ran = new AtomicBoolean();
+			CompletableFuture<Object> queued = ex.submit(() -> ran.getAndSet(true), LARGE);
+			assertEquals(2, ex.getPending());
+			queued.cancel(false);
+			assertEquals(1, ex.getPending());
+			release.countDown();
+			assertEquals(true, blocker.get());
+			ex.close();
+			assertFalse(ran.get());
+			assertEquals(0, ex.getPending());
+		}
+	}
+	
+	@Test
+	void cancelledRunningTaskKeepsSlotUntilItEnds() throws Exception {
+		MatrixExecutor ex = new MatrixExecutor(1, 1);
+		CountDownLatch started = new CountDownLatch(1), release = new CountDownLatch(1);
+		AtomicBoolean interrupted = new AtomicBoolean();
+		CompletableFuture<Object> running = ex.submit(() -> {
+			started.countDown();
+			// Czekanie bez reakcji na przerwanie, tak jak jądra działań na macierzach
+			while(!release.await(10, TimeUnit.MILLISECONDS)) {
+				if(Thread.currentThread().isInterrupted()) interrupted.set(true);
+			}
+			return null;
+		}, LARGE);
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+		running.cancel(true);
+		assertTrue(running.isCancelled());
+		assertEquals(1, ex.getPending());
+		
+		// Limit 1 jest zajęty przez anulowane, ale wciąż wykonywane zadanie, więc submit czeka
+		CompletableFuture<CompletableFuture<Integer>> next = CompletableFuture.supplyAsync(() -> ex.submit(() -> 42, 1));
+		Thread.sleep(100);
+		assertFalse(next.isDone());
+		CompletableFuture<Void> closing = CompletableFuture.runAsync(ex::close);
+		Thread.sleep(100);
+		assertFalse(closing.isDone());
+		
+		release.countDown();
+		closing.get(10, TimeUnit.SECONDS);
+		assertFalse(interrupted.get());
+		// Wysłanie, które czekało na miejsce, dostaje je już po zamknięciu i zostaje odrzucone
+		ExecutionException e = assertThrows(ExecutionException.class, () -> next.get(10, TimeUnit.SECONDS));
+		assertInstanceOf(RejectedExecutionException.class, e.getCause());
+		assertEquals(0, ex.getPending());
+	}
+	
+	@Test
+	void submitAfterCloseIsRejected() {
+		MatrixExecutor ex = new MatrixExecutor(1, 2);
+		ex.close();
+		assertThrows(RejectedExecutionException.class, () -> ex.submit(() -> 1, 1));
+		assertThrows(IllegalArgumentException.class, () -> new MatrixExecutor(0, 1));
+	}
+}
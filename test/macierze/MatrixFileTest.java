@@ -0,0 +1,110 @@
+package macierze;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+
+/**
+ * Testy binarnego formatu pliku macierzy i macierzy odwzorowanej w pamięci
+ */
+
+class MatrixFileTest {
+	
+	@TempDir
+	Path dir;
+	
+	@Test
+	void roundTripIsExact() throws IOException, MatrixSizeException {
+		Macierz a = new MatrixGenerator(1).normal(123, 45);
+		Path file = dir.resolve("a.mat");
+		MatrixFile.write(a, file);
+		assertEquals(MatrixFile.HEADER_SIZE + 123*45*Double.BYTES, Files.size(file));
+		assertEquals(a, MatrixFile.read(file));
+		MatrixFile.write(a.transposedView(), file);
+		assertEquals(Macierz.transpose(a), MatrixFile.read(file));
+	}
+	
+	@Test
+	void emptyShapesArePreserved() throws IOException, MatrixSizeException {
+		Path file = dir.resolve("empty.mat");
+		MatrixFile.write(new Macierz(5, 0), file);
+		Macierz a = MatrixFile.read(file);
+		assertEquals(5, a.getHeight());
+		assertEquals(0, a.getLength());
+		MatrixFile.write(new Macierz(0, 7), file);
+		a = MatrixFile.read(file);
+		assertEquals(0, a.getHeight());
+		assertEquals(7, a.getLength());
+	}
+	
+	@Test
+	void corruptHeadersAreRejected() throws IOException {
+		Path file = dir.resolve("bad.mat");
+		// Iloczyn wymiarów razy 8 bajtów przepełnia long, a plik nie ma żadnych danych
+		writeHeader(file, 2147352580L, 1073807362L);
+		assertThrows(IOException.class, () -> MatrixFile.read(file));
+		assertThrows(IOException.class, () -> MacierzMapowana.open(file, false));
+		writeHeader(file, -1, 3);
+		assertThrows(IOException.class, () -> MatrixFile.read(file));
+		Files.write(file, new byte[MatrixFile.HEADER_SIZE]);
+		assertThrows(IOException.class, () -> MatrixFile.read(file));
+		Files.write(file, new byte[5]);
+		assertThrows(EOFException.class, () -> MatrixFile.read(file));
+	}
+	
+	@Test
+	void mappedMatrixReadsAndWritesFile() throws IOException, MatrixSizeException, MatrixIndexOutOfBoundsException {
+		Macierz a = new MatrixGenerator(2).normal(60, 40);
+		Path file = dir.resolve("mapped.mat");
+		MatrixFile.write(a, file);
+		try(MacierzMapowana m = MacierzMapowana.open(file, true)) {
+			assertEquals(60, m.getHeight());
+			assertEquals(40, m.getLength());
+			assertEquals(a, m.toMacierz());
+			assertEquals(a.submatrix(10, 0, 5, 40), m.readRows(10, 5));
+			m.set(3, 4, 42);
+			m.writeRows(50, new Macierz(2, 40, "ones"));
+			assertEquals(42, m.get(3, 4));
+			assertThrows(MatrixIndexOutOfBoundsException.class, () -> m.get(60, 0));
+			assertThrows(MatrixIndexOutOfBoundsException.class, () -> m.readRows(58, 3));
+		}
+		Macierz b = MatrixFile.read(file);
+		assertEquals(42, b.toArray()[3][4]);
+		assertEquals(new Macierz(2, 40, "ones"), b.submatrix(50, 0, 2, 40));
+		try(MacierzMapowana m = MacierzMapowana.open(file, false)) {
+			assertThrows(ReadOnlyBufferException.class, () -> m.set(0, 0, 1));
+		}
+	}
+	
+	@Test
+	void mappedProductMatchesHeap() throws IOException, MatrixSizeException, MatrixIndexOutOfBoundsException {
+		MatrixGenerator g = new MatrixGenerator(3);
+		Macierz a = g.normal(70, 50), b = g.normal(50, 20);
+		try(MacierzMapowana m = MacierzMapowana.create(dir.resolve("product.mat"), 70, 50)) {
+			m.writeRows(0, a);
+			Reference.assertClose(Reference.product(a, b), MacierzMapowana.product(m, b), 1e-12);
+			double[] x = b.submatrix(0, 0, 50, 1).toFlatArray(), y = new double[70];
+			m.multiply(x, y);
+			assertArrayEquals(Reference.product(a, b).submatrix(0, 0, 70, 1).toFlatArray(), y, 1e-12);
+		}
+	}
+	
+	@Test
+	void closedMatrixThrows() throws IOException {
+		MacierzMapowana m = MacierzMapowana.create(dir.resolve("closed.mat"), 2, 2);
+		m.close();
+		m.close();
+		assertThrows(IllegalStateException.class, () -> m.multiply(new double[2], new double[2]));
+	}
+	
+	private static void writeHeader(Path file, long n, long m) throws IOException {
+		try(FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ch.write(MatrixFile.header(n, m, MatrixFile.TYPE_DOUBLE));
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package macierze;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.*;
+import java.util.function.*;
+import org.junit.jupiter.api.*;
+
+/**
+ * Testy generatora macierzy losowych: ten sam seed daje te same macierze niezależnie od liczby wątków
+ */
+
+class MatrixGeneratorTest {
+	
+	private ForkJoinPool pool;
+	
+	private long threshold;
+	
+	@BeforeEach
+	void saveParallel() {
+		pool = Parallel.getPool();
+		threshold = Parallel.getThreshold();
+	}
+	
+	@AfterEach
+	void restoreParallel() {
+		// Pula utworzona przez setParallelism zamykana jest przy zamianie
+		Parallel.setPool(pool);
+		Parallel.setThreshold(threshold);
+	}
+	
+	/**
+	 * Funkcja generująca wynik sekwencyjnie i na kilku wątkach z najmniejszym progiem podziału
+	 */
+	private <T> void assertSameForThreadCounts(Function<MatrixGenerator, T> generate) {
+		Parallel.setEnabled(false);
+		T sequential;
+		try {
+			sequential = generate.apply(new MatrixGenerator(42));
+		} finally {
+			Parallel.setEnabled(true);
+		}
+		for(int threads : new int[] {2, 3, 8}) {
+			Parallel.setParallelism(threads);
+			Parallel.setThreshold(0);
+			assertEquals(sequential, generate.apply(new MatrixGenerator(42)), "threads " + threads);
+		}
+	}
+	
+	@Test
+	void uniformIndependentOfThreadCount() {
+		assertSameForThreadCounts(g -> g.uniform(301, 257, -2, 3));
+	}
+	
+	@Test
+	void normalIndependentOfThreadCount() {
+		// Kolejne wywołania tego samego generatora też muszą się zgadzać
+		assertSameForThreadCounts(g -> {
+			g.normal(3, 5);
+			return g.normal(517, 129);
+		});
+	}
+	
+	@Test
+	void sparseIndependentOfThreadCount() {
+		assertSameForThreadCounts(g -> g.sparse(2000, 1500, 0.003));
+	}
+	
+	@Test
+	void fillOfViewMatchesFillOfCopy() throws MatrixIndexOutOfBoundsException {
+		Macierz a = new Macierz(40, 50), b = new Macierz(30, 20);
+		new MatrixGenerator(7).fillUniform(a.submatrix(5, 10, 30, 20), 0, 1);
+		new MatrixGenerator(7).fillUniform(b, 0, 1);
+		assertEquals(b, a.submatrix(5, 10, 30, 20));
+	}
+	
+	@Test
+	void differentSeedsGiveDifferentMatrices() {
+		assertNotEquals(new MatrixGenerator(1).normal(10, 10), new MatrixGenerator(2).normal(10, 10));
+	}
+	
+	@Test
+	void uniformStaysInRange() {
+		double[] v = new MatrixGenerator(3).uniform(100, 100, -1, 2).toFlatArray();
+		for(double x : v) assertTrue(x >= -1 && x < 2, () -> "value " + x);
+	}
+	
+	@Test
+	void sparseHasExpectedDensity() {
+		MacierzRzadka s = new MatrixGenerator(4).sparse(1000, 1000, 0.01);
+		assertEquals(10000, s.getNonZeros(), 500);
+	}
+}
@@ -0,0 +1,77 @@
+package macierze;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+
+/**
+ * Testy zapisu liczb w postaci naukowej i odczytu oraz zapisu macierzy w plikach CSV/TSV
+ */
+
+class MatrixIOTest {
+	
+	private static String scientific(double v, int precision) {
+		StringBuilder dst = new StringBuilder(), tmp = new StringBuilder();
+		MatrixIO.appendScientific(dst, tmp, v, precision);
+		return dst.toString();
+	}
+	
+	private static void assertScientific(double v, int precision) {
+		assertEquals(String.format(Locale.ROOT, "%." + precision + "e", v), scientific(v, precision), () -> "value " + v + ", precision " + precision);
+	}
+	
+	@Test
+	void appendScientificMatchesFormatForSpecialValues() {
+		double[] values = {0.0, -0.0, 1, -1, 0.5, 0.125, 0.00125, 9.999995, 9.9999949, 99999.5, 1e-5, 1e22, 1e-300,
+				Double.MIN_VALUE, Double.MIN_NORMAL, Double.MAX_VALUE, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+		for(double v : values) {
+			for(int precision=0; precision<=12; precision++) assertScientific(v, precision);
+		}
+	}
+	
+	@Test
+	void appendScientificMatchesFormatForRandomValues() {
+		SplittableRandom r = new SplittableRandom(1);
+		for(int i=0; i<20000; i++) {
+			// Losowe bity dają wartości z całego zakresu wykładników, także podnormalne
+			double v = Double.longBitsToDouble(r.nextLong());
+			if(i%2 == 0) v = r.nextDouble(-1e6, 1e6);
+			assertScientific(v, r.nextInt(0, 17));
+		}
+	}
+	
+	@Test
+	void appendScientificRoundsHalfUp() {
+		// Ostatnia cyfra 5 w najkrótszym zapisie dziesiętnym zaokrąglana jest w górę, tak jak w Formatter
+		for(double v : new double[] {0.125, 2.5, 1.05, 1.005, 0.000015}) {
+			for(int precision=0; precision<4; precision++) assertScientific(v, precision);
+		}
+	}
+	
+	@Test
+	void csvRoundTripIsExact() throws IOException, MatrixSizeException, MatrixIndexOutOfBoundsException {
+		Macierz a = new MatrixGenerator(2).normal(37, 23);
+		Macierz.scaleInPlace(1e-200, a.submatrix(0, 0, 5, 23));
+		Macierz.scaleInPlace(1e200, a.submatrix(5, 0, 5, 23));
+		StringWriter out = new StringWriter();
+		MatrixIO.write(a, out, MatrixIO.CSV);
+		assertEquals(a, MatrixIO.read(new StringReader(out.toString()), MatrixIO.CSV));
+	}
+	
+	@Test
+	void tsvRoundTripOfTransposedView(@TempDir Path dir) throws IOException, MatrixSizeException {
+		Macierz a = new MatrixGenerator(3).uniform(19, 41).transposedView();
+		Path file = dir.resolve("a.tsv");
+		MatrixIO.write(a, file, MatrixIO.TSV);
+		assertEquals(a, MatrixIO.read(file, MatrixIO.TSV));
+	}
+	
+	@Test
+	void readRejectsRaggedRows() {
+		assertThrows(MatrixSizeException.class, () -> MatrixIO.read(new StringReader("1,2,3\n4,5\n"), MatrixIO.CSV));
+	}
+}
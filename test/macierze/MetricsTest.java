@@ -0,0 +1,118 @@
+package macierze;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import org.junit.jupiter.api.*;
+
+/**
+ * Testy pomiarów działań: liczniki, histogram wymiarów, odbiorcy pomiarów i wyłączone pomiary
+ */
+
+class MetricsTest {
+	
+	private boolean enabled;
+	
+	@BeforeEach
+	void enableMetrics() {
+		enabled = Metrics.isEnabled();
+		Metrics.setEnabled(true);
+		Metrics.reset();
+	}
+	
+	@AfterEach
+	void restoreMetrics() {
+		Metrics.setEnabled(enabled);
+		Metrics.reset();
+	}
+	
+	@Test
+	void countersRecordCallsFlopsAndBytes() throws MatrixSizeException {
+		Macierz a = new Macierz(3, 5, "ones"), b = new Macierz(5, 7, "ones"), dst = new Macierz(3, 7);
+		Macierz.product(a, b);
+		Macierz.productInto(a, b, dst);
+		Metrics.Stats product = Metrics.getStats(Metrics.Operation.PRODUCT);
+		assertEquals(2, product.getCalls());
+		assertEquals(2*2.0*3*5*7, product.getFlops());
+		// Tylko wersja alokująca zgłasza bajty wyniku
+		assertEquals(8L*3*7, product.getBytes());
+		assertTrue(product.getNanos() >= 0);
+		Macierz.add(a, a);
+		Macierz.subtractInto(a, a, new Macierz(3, 5));
+		assertEquals(1, Metrics.getStats(Metrics.Operation.ADD).getCalls());
+		assertEquals(1, Metrics.getStats(Metrics.Operation.SUBTRACT).getCalls());
+		assertEquals(0, Metrics.getStats(Metrics.Operation.INVERSE).getCalls());
+		assertTrue(Metrics.summary().contains(product.toString()));
+		Metrics.reset();
+		assertEquals(0, product.getCalls());
+		assertEquals("", Metrics.summary());
+	}
+	
+	@Test
+	void histogramBucketsByLargerDimension() throws MatrixSizeException {
+		Macierz.transpose(new Macierz(3, 1));
+		Macierz.transpose(new Macierz(2, 3));
+		Macierz.transpose(new Macierz(100, 4));
+		long[] h = Metrics.getStats(Metrics.Operation.TRANSPOSE).getSizeHistogram();
+		// 3 ma długość bitową 2, a 100 długość 7
+		assertEquals(2, h[2]);
+		assertEquals(1, h[7]);
+		assertEquals(3, Arrays.stream(h).sum());
+	}
+	
+	@Test
+	void sinkReceivesEveryMeasurement() throws MatrixSizeException, MatrixIndexOutOfBoundsException {
+		List<String> records = new CopyOnWriteArrayList<>();
+		MetricsSink sink = (op, rows, cols, nanos, flops, bytes) -> records.add(op + " " + rows + "x" + cols + " " + bytes);
+		Macierz a = Reference.spd(4, 1);
+		Metrics.addSink(sink);
+		try {
+			Macierz.copyOf(a);
+			Macierz.inverse(a);
+		} finally {
+			assertTrue(Metrics.removeSink(sink));
+		}
+		assertEquals("COPY 4x4 128", records.get(0));
+		assertTrue(records.contains("CHOLESKY 4x4 128"));
+		assertEquals("INVERSE 4x4 128", records.get(records.size()-1));
+		assertFalse(Metrics.removeSink(sink));
+		assertThrows(NullPointerException.class, () -> Metrics.addSink(null));
+	}
+	
+	@Test
+	void disabledMetricsRecordNothing() throws MatrixSizeException {
+		List<Metrics.Operation> records = new ArrayList<>();
+		MetricsSink sink = (op, rows, cols, nanos, flops, bytes) -> records.add(op);
+		Metrics.addSink(sink);
+		Metrics.setEnabled(false);
+		try {
+			assertFalse(Metrics.isEnabled());
+			Macierz.product(new Macierz(2, 2), new Macierz(2, 2));
+		} finally {
+			Metrics.removeSink(sink);
+		}
+		assertEquals(0, Metrics.getStats(Metrics.Operation.PRODUCT).getCalls());
+		assertTrue(records.isEmpty());
+	}
+	
+	@Test
+	void concurrentCallsAreAllCounted() throws Exception {
+		Macierz a = new Macierz(4, 4, "identity");
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for(int t=0; t<4; t++) {
+				futures.add(pool.submit(() -> {
+					for(int k=0; k<1000; k++) Macierz.add(a, a);
+					return null;
+				}));
+			}
+			for(Future<?> f : futures) f.get();
+		} finally {
+			pool.shutdown();
+		}
+		assertEquals(4000, Metrics.getStats(Metrics.Operation.ADD).getCalls());
+		assertEquals(4000L*8*16, Metrics.getStats(Metrics.Operation.ADD).getBytes());
+	}
+}
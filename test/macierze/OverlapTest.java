@@ -0,0 +1,131 @@
+package macierze;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.*;
+import org.junit.jupiter.params.provider.*;
+
+/**
+ * Testy działań *Into, gdy wynik jest widokiem tej samej tablicy co argument: rozłączne bloki
+ * liczone są bezpośrednio, a nakładające się widoki dają ten sam wynik co działanie na kopiach
+ */
+
+class OverlapTest {
+	
+	@Test
+	void overlapsComparesAddressRanges() throws MatrixIndexOutOfBoundsException {
+		Macierz p = new Macierz(10, 20);
+		Macierz left = p.submatrix(0, 0, 10, 8), right = p.submatrix(0, 10, 10, 10), top = p.submatrix(0, 0, 4, 20);
+		assertFalse(Macierz.overlaps(left, right));
+		assertFalse(Macierz.overlaps(left.transposedView(), right.transposedView()));
+		assertFalse(Macierz.overlaps(p.submatrix(0, 0, 5, 20), p.submatrix(5, 0, 5, 20)));
+		assertFalse(Macierz.overlaps(p, new Macierz(10, 20)));
+		assertTrue(Macierz.overlaps(left, top));
+		assertTrue(Macierz.overlaps(p, p.transposedView()));
+		assertTrue(Macierz.overlaps(p.submatrix(0, 0, 9, 20), p.submatrix(1, 0, 9, 20)));
+		assertTrue(Macierz.sameView(p, p.submatrix(0, 0, 10, 20)));
+		assertFalse(Macierz.sameView(p, p.transposedView()));
+	}
+	
+	@ParameterizedTest
+	@ValueSource(ints = {3, 40, 300})
+	void addIntoTransposedViewOfDestination(int n) throws MatrixSizeException {
+		Macierz a = new MatrixGenerator(n).normal(n, n), copy = Macierz.copyOf(a);
+		Macierz expected = Macierz.add(copy, Macierz.transpose(copy));
+		Macierz.addInto(a, a.transposedView(), a);
+		assertEquals(expected, a);
+		a = Macierz.copyOf(copy);
+		Macierz.subtractInto(a.transposedView(), a, a);
+		assertEquals(Macierz.subtract(Macierz.transpose(copy), copy), a);
+		a = Macierz.copyOf(copy);
+		Macierz.axpy(2, a.transposedView(), a);
+		assertEquals(Macierz.add(copy, Macierz.product(2, Macierz.transpose(copy))), a);
+	}
+	
+	@Test
+	void combineShiftedViews() throws MatrixSizeException, MatrixIndexOutOfBoundsException {
+		Macierz p = new MatrixGenerator(1).normal(30, 25), copy = Macierz.copyOf(p);
+		Macierz upper = p.submatrix(0, 0, 29, 25), lower = p.submatrix(1, 0, 29, 25);
+		Macierz expected = Macierz.add(copy.submatrix(0, 0, 29, 25), copy.submatrix(1, 0, 29, 25));
+		Macierz.addInto(upper, lower, lower);
+		assertEquals(expected, lower);
+		assertEquals(copy.submatrix(0, 0, 1, 25), p.submatrix(0, 0, 1, 25));
+	}
+	
+	@Test
+	void copyIntoOverlappingViews() throws MatrixSizeException, MatrixIndexOutOfBoundsException {
+		Macierz p = new MatrixGenerator(2).normal(20, 20), copy = Macierz.copyOf(p);
+		Macierz.copyInto(p.submatrix(0, 0, 15, 15), p.submatrix(3, 2, 15, 15));
+		assertEquals(copy.submatrix(0, 0, 15, 15), p.submatrix(3, 2, 15, 15));
+		p = Macierz.copyOf(copy);
+		Macierz.copyInto(p.submatrix(3, 2, 15, 15), p.submatrix(0, 0, 15, 15));
+		assertEquals(copy.submatrix(3, 2, 15, 15), p.submatrix(0, 0, 15, 15));
+		p = Macierz.copyOf(copy);
+		Macierz.copyInto(p.transposedView(), p);
+		assertEquals(Macierz.transpose(copy), p);
+		Macierz.copyInto(p, p);
+		assertEquals(Macierz.transpose(copy), p);
+	}
+	
+	@ParameterizedTest
+	@ValueSource(ints = {5, 60, 150})
+	void productIntoDisjointBlockOfSameArray(int n) throws MatrixSizeException, MatrixIndexOutOfBoundsException {
+		Macierz p = new MatrixGenerator(n).normal(n, 3*n), b = new MatrixGenerator(n+1).normal(n, n);
+		Macierz a = p.submatrix(0, 0, n, n), dst = p.submatrix(0, 2*n, n, n), copy = Macierz.copyOf(a);
+		Macierz.productInto(a, b, dst);
+		Reference.assertClose(Reference.product(copy, b), dst, 1e-12);
+		assertEquals(copy, a);
+		Macierz.productInto(a.transposedView(), p.submatrix(0, n, n, n), p.submatrix(0, 2*n, n, n).transposedView());
+		Reference.assertClose(Macierz.transpose(Reference.product(copy.transposedView(), p.submatrix(0, n, n, n))), p.submatrix(0, 2*n, n, n), 1e-12);
+	}
+	
+	@ParameterizedTest
+	@ValueSource(ints = {5, 60, 150})
+	void productIntoOverlappingDestination(int n) throws MatrixSizeException, MatrixIndexOutOfBoundsException {
+		Macierz a = new MatrixGenerator(n).normal(n, n), b = new MatrixGenerator(n+1).normal(n, n), copy = Macierz.copyOf(a);
+		Macierz.productInto(a, b, a);
+		Reference.assertClose(Reference.product(copy, b), a, 1e-12);
+		a = Macierz.copyOf(copy);
+		Macierz.productInto(a, a, a.transposedView());
+		Reference.assertClose(Macierz.transpose(Reference.product(copy, copy)), a, 1e-12);
+		Macierz p = new MatrixGenerator(n+2).normal(n+1, n+1), pc = Macierz.copyOf(p);
+		Macierz.productInto(p.submatrix(0, 0, n, n), b, p.submatrix(1, 1, n, n));
+		Reference.assertClose(Reference.product(pc.submatrix(0, 0, n, n), b), p.submatrix(1, 1, n, n), 1e-12);
+	}
+	
+	@Test
+	void strassenProductIntoSharedArray() throws MatrixSizeException, MatrixIndexOutOfBoundsException {
+		int cutoff = Strassen.getCutoff();
+		Strassen.setCutoff(16);
+		try {
+			Macierz p = new MatrixGenerator(3).normal(70, 140), b = new MatrixGenerator(4).normal(70, 70);
+			Macierz a = p.submatrix(0, 0, 70, 70), copy = Macierz.copyOf(a);
+			Strassen.productInto(a, b, p.submatrix(0, 70, 70, 70));
+			Reference.assertClose(Reference.product(copy, b), p.submatrix(0, 70, 70, 70), 1e-11);
+			Strassen.productInto(a, b, a);
+			Reference.assertClose(Reference.product(copy, b), a, 1e-11);
+		} finally {
+			Strassen.setCutoff(cutoff);
+		}
+	}
+	
+	@Test
+	void floatProductIntoArgument() throws MatrixSizeException {
+		MacierzFloat a = MacierzFloat.fromMacierz(new MatrixGenerator(5).normal(30, 30));
+		MacierzFloat expected = MacierzFloat.product(a, a);
+		MacierzFloat.productInto(a, a, a, false);
+		assertEquals(expected, a);
+	}
+	
+	@Test
+	void transposeAndSolveIntoDisjointBlock() throws MatrixSizeException, MatrixIndexOutOfBoundsException {
+		Macierz p = new MatrixGenerator(6).normal(20, 40), copy = Macierz.copyOf(p);
+		Macierz.transposeInto(p.submatrix(0, 0, 20, 20), p.submatrix(0, 20, 20, 20));
+		assertEquals(Macierz.transpose(copy.submatrix(0, 0, 20, 20)), p.submatrix(0, 20, 20, 20));
+		assertThrows(IllegalArgumentException.class, () -> Macierz.transposeInto(p.submatrix(0, 0, 20, 20), p.submatrix(0, 10, 20, 20)));
+		Macierz a = Reference.spd(20, 7);
+		new LUDecomposition(a).solveInto(p.submatrix(0, 0, 20, 20), p.submatrix(0, 20, 20, 20));
+		Reference.assertClose(copy.submatrix(0, 0, 20, 20), Reference.product(a, p.submatrix(0, 20, 20, 20)), 1e-10);
+	}
+}
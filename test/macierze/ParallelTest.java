@@ -0,0 +1,77 @@
+package macierze;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.*;
+import org.junit.jupiter.api.*;
+
+/**
+ * Testy puli wątków Parallel i działań dzielonych na wątki: wynik wielowątkowy jest taki sam jak sekwencyjny
+ */
+
+class ParallelTest {
+	
+	private ForkJoinPool pool;
+	
+	private long threshold;
+	
+	@BeforeEach
+	void saveParallel() {
+		pool = Parallel.getPool();
+		threshold = Parallel.getThreshold();
+	}
+	
+	@AfterEach
+	void restoreParallel() {
+		Parallel.setPool(pool);
+		Parallel.setThreshold(threshold);
+		Parallel.setEnabled(true);
+	}
+	
+	@Test
+	void setParallelismShutsDownReplacedPool() {
+		Parallel.setParallelism(2);
+		ForkJoinPool first = Parallel.getPool();
+		Parallel.setParallelism(3);
+		assertTrue(first.isShutdown());
+		assertEquals(3, Parallel.getParallelism());
+		ForkJoinPool second = Parallel.getPool();
+		Parallel.setPool(pool);
+		assertTrue(second.isShutdown());
+	}
+	
+	@Test
+	void poolSetByCallerIsNotShutDown() {
+		ForkJoinPool own = new ForkJoinPool(2);
+		try {
+			Parallel.setPool(own);
+			Parallel.setParallelism(2);
+			assertFalse(own.isShutdown());
+		} finally {
+			own.shutdown();
+		}
+	}
+	
+	@Test
+	void invalidSettingsThrow() {
+		assertThrows(IllegalArgumentException.class, () -> Parallel.setParallelism(0));
+		assertThrows(IllegalArgumentException.class, () -> Parallel.setThreshold(-1));
+		assertThrows(NullPointerException.class, () -> Parallel.setPool(null));
+	}
+	
+	@Test
+	void parallelResultsMatchSequential() throws MatrixSizeException {
+		MatrixGenerator g = new MatrixGenerator(1);
+		Macierz a = g.normal(203, 157), b = g.normal(203, 157), c = g.normal(157, 91);
+		Parallel.setEnabled(false);
+		Macierz sum = Macierz.add(a, b), difference = Macierz.subtract(a, b);
+		Macierz product = Macierz.product(a, c), transposed = Macierz.transpose(a);
+		Parallel.setEnabled(true);
+		Parallel.setParallelism(4);
+		Parallel.setThreshold(0);
+		assertEquals(sum, Macierz.add(a, b));
+		assertEquals(difference, Macierz.subtract(a, b));
+		assertEquals(product, Macierz.product(a, c));
+		assertEquals(transposed, Macierz.transpose(a));
+	}
+}
@@ -0,0 +1,102 @@
+package macierze;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.*;
+import org.junit.jupiter.params.provider.*;
+
+/**
+ * Testy mnożenia macierzy przez jądro blokowe GemmKernel i ścieżki dla widoków, porównywane z potrójną pętlą.
+ * Wymiary nie są wielokrotnościami MR, NR, KC, MC ani NC, więc sprawdzane są też brzegi bloków.
+ */
+
+class ProductTest {
+	
+	private ForkJoinPool pool;
+	
+	private long threshold;
+	
+	@BeforeEach
+	void saveParallel() {
+		pool = Parallel.getPool();
+		threshold = Parallel.getThreshold();
+	}
+	
+	@AfterEach
+	void restoreParallel() {
+		// Pula utworzona przez setParallelism zamykana jest przy zamianie
+		Parallel.setPool(pool);
+		Parallel.setThreshold(threshold);
+	}
+	
+	@ParameterizedTest
+	@CsvSource({"1, 1, 1", "5, 7, 3", "47, 49, 51", "130, 257, 131", "3, 513, 2051", "257, 3, 6", "129, 300, 5"})
+	void productMatchesNaive(int n, int m, int q) throws MatrixSizeException {
+		MatrixGenerator g = new MatrixGenerator(n*31 + m*7 + q);
+		Macierz a = g.normal(n, m), b = g.normal(m, q);
+		Reference.assertClose(Reference.product(a, b), Macierz.product(a, b), 1e-12);
+	}
+	
+	@ParameterizedTest
+	@CsvSource({"130, 257, 131", "3, 513, 2051", "67, 300, 9"})
+	void parallelProductMatchesNaive(int n, int m, int q) throws MatrixSizeException {
+		// Kilka wątków dzieli wiersze C i czyta ten sam spakowany panel B
+		Parallel.setParallelism(4);
+		Parallel.setThreshold(0);
+		MatrixGenerator g = new MatrixGenerator(n + m + q);
+		Macierz a = g.normal(n, m), b = g.normal(m, q);
+		Reference.assertClose(Reference.product(a, b), Macierz.product(a, b), 1e-12);
+	}
+	
+	@ParameterizedTest
+	@CsvSource({"5, 7, 3", "61, 67, 71", "130, 257, 131"})
+	void productOfViewsMatchesNaive(int n, int m, int q) throws MatrixSizeException, MatrixIndexOutOfBoundsException {
+		MatrixGenerator g = new MatrixGenerator(n*m*q);
+		Macierz a = g.normal(n+3, m+2).submatrix(2, 1, n, m);
+		Macierz at = g.normal(m, n).transposedView();
+		Macierz b = g.normal(m+4, q+5).submatrix(3, 4, m, q);
+		Macierz bt = g.normal(q, m).transposedView();
+		Reference.assertClose(Reference.product(a, b), Macierz.product(a, b), 1e-12);
+		Reference.assertClose(Reference.product(at, b), Macierz.product(at, b), 1e-12);
+		Reference.assertClose(Reference.product(a, bt), Macierz.product(a, bt), 1e-12);
+		Reference.assertClose(Reference.product(at, bt), Macierz.product(at, bt), 1e-12);
+	}
+	
+	@Test
+	void productIntoViewLeavesSurroundingElements() throws MatrixSizeException, MatrixIndexOutOfBoundsException {
+		MatrixGenerator g = new MatrixGenerator(3);
+		Macierz a = g.normal(50, 61), b = g.normal(61, 53);
+		Macierz big = g.normal(60, 60), before = Macierz.copyOf(big);
+		Macierz dst = big.submatrix(4, 3, 50, 53);
+		Macierz.productInto(a, b, dst);
+		Reference.assertClose(Reference.product(a, b), dst, 1e-12);
+		Macierz.copyInto(before.submatrix(4, 3, 50, 53), dst);
+		assertEquals(before, big);
+	}
+	
+	@Test
+	void productIntoTransposedDestination() throws MatrixSizeException {
+		MatrixGenerator g = new MatrixGenerator(4);
+		Macierz a = g.normal(70, 65), b = g.normal(65, 49);
+		Macierz dst = new Macierz(49, 70).transposedView();
+		Macierz.productInto(a, b, dst);
+		Reference.assertClose(Reference.product(a, b), dst, 1e-12);
+	}
+	
+	@Test
+	void productOfEmptyViewsKeepsShape() throws MatrixSizeException, MatrixIndexOutOfBoundsException {
+		Macierz a = new MatrixGenerator(5).normal(4, 5);
+		Macierz p = Macierz.product(a.submatrix(4, 0, 0, 5), a.transposedView());
+		assertEquals(0, p.getHeight());
+		assertEquals(4, p.getLength());
+		Macierz z = Macierz.product(a.submatrix(0, 2, 4, 0), new Macierz(0, 3));
+		assertEquals(new Macierz(4, 3), z);
+	}
+	
+	@Test
+	void incompatibleSizesThrow() {
+		assertThrows(MatrixSizeException.class, () -> Macierz.product(new Macierz(3, 4), new Macierz(5, 3)));
+	}
+}
@@ -0,0 +1,62 @@
+package macierze;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Proste wzorcowe implementacje i porównania używane przez testy
+ */
+
+final class Reference {
+	
+	private Reference() {}
+	
+	/**
+	 * Funkcja mnożąca macierze potrójną pętlą
+	 */
+	static Macierz product(Macierz a, Macierz b) throws MatrixSizeException {
+		int n = a.getHeight(), m = a.getLength(), q = b.getLength();
+		double[] c = new double[n*q];
+		double[][] x = a.toArray(), y = b.toArray();
+		for(int i=0; i<n; i++) {
+			for(int j=0; j<q; j++) {
+				double s = 0;
+				for(int k=0; k<m; k++) s += x[i][k]*y[k][j];
+				c[i*q+j] = s;
+			}
+		}
+		return new Macierz(n, q, c);
+	}
+	
+	/**
+	 * Funkcja sprawdzająca wymiary i elementy z tolerancją względną do największego elementu oczekiwanego
+	 */
+	static void assertClose(Macierz expected, Macierz actual, double tolerance) {
+		assertEquals(expected.getHeight(), actual.getHeight(), "height");
+		assertEquals(expected.getLength(), actual.getLength(), "length");
+		double[] e = expected.toFlatArray(), a = actual.toFlatArray();
+		double scale = 1;
+		for(double v : e) scale = Math.max(scale, Math.abs(v));
+		for(int i=0; i<e.length; i++) {
+			if(Math.abs(e[i] - a[i]) > tolerance*scale) {
+				fail(String.format("Element %d, %d: expected %s, was %s", i/expected.getLength(), i%expected.getLength(), e[i], a[i]));
+			}
+		}
+	}
+	
+	/**
+	 * Funkcja tworząca macierz symetryczną dodatnio określoną G*G^T + n*I
+	 */
+	static Macierz spd(int n, long seed) throws MatrixSizeException {
+		Macierz g = new MatrixGenerator(seed).normal(n, n);
+		return Macierz.add(Macierz.product(g, g.transposedView()), Macierz.product(n, new Macierz(n, n, "identity")));
+	}
+	
+	/**
+	 * Funkcja zwracająca największą różnicę elementów wektorów
+	 */
+	static double maxDifference(double[] a, double[] b) {
+		double ret = 0;
+		for(int i=0; i<a.length; i++) ret = Math.max(ret, Math.abs(a[i] - b[i]));
+		return ret;
+	}
+}
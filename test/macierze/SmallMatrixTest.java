@@ -0,0 +1,106 @@
+package macierze;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.*;
+import org.junit.jupiter.params.provider.*;
+
+/**
+ * Testy macierzy 2x2, 3x3 i 4x4 oraz pakietów małych macierzy porównywanych z wynikami klasy Macierz
+ */
+
+class SmallMatrixTest {
+	
+	@Test
+	void macierz2MatchesMacierz() throws MatrixSizeException, MatrixIndexOutOfBoundsException {
+		MatrixGenerator g = new MatrixGenerator(2);
+		Macierz a = g.normal(2, 2), b = g.normal(2, 2);
+		Macierz2 x = Macierz2.fromMacierz(a), y = Macierz2.fromMacierz(b);
+		assertEquals(a, x.toMacierz());
+		Reference.assertClose(Reference.product(a, b), Macierz2.product(x, y).toMacierz(), 1e-14);
+		assertEquals(Macierz.add(a, b), Macierz2.add(x, y).toMacierz());
+		assertEquals(Macierz.transpose(a), Macierz2.transpose(x).toMacierz());
+		assertEquals(Macierz.determinant(a), Macierz2.determinant(x), 1e-14);
+		Reference.assertClose(Macierz.inverse(a), Macierz2.inverse(x).toMacierz(), 1e-12);
+		Macierz2.productInto(x, y, x);
+		Reference.assertClose(Reference.product(a, b), x.toMacierz(), 1e-14);
+		assertThrows(ArithmeticException.class, () -> Macierz2.inverse(new Macierz2()));
+	}
+	
+	@Test
+	void macierz3MatchesMacierz() throws MatrixSizeException, MatrixIndexOutOfBoundsException {
+		MatrixGenerator g = new MatrixGenerator(3);
+		Macierz a = g.normal(3, 3), b = g.normal(3, 3);
+		Macierz3 x = Macierz3.fromMacierz(a), y = Macierz3.fromMacierz(b);
+		assertEquals(a, x.toMacierz());
+		Reference.assertClose(Reference.product(a, b), Macierz3.product(x, y).toMacierz(), 1e-14);
+		assertEquals(Macierz.transpose(a), Macierz3.transpose(x).toMacierz());
+		assertEquals(Macierz.determinant(a), Macierz3.determinant(x), 1e-13);
+		Reference.assertClose(Macierz.inverse(a), Macierz3.inverse(x).toMacierz(), 1e-12);
+		Macierz3.productInto(x, y, y);
+		Reference.assertClose(Reference.product(a, b), y.toMacierz(), 1e-14);
+		assertThrows(ArithmeticException.class, () -> Macierz3.inverse(new Macierz3()));
+	}
+	
+	@Test
+	void macierz4MatchesMacierz() throws MatrixSizeException, MatrixIndexOutOfBoundsException {
+		MatrixGenerator g = new MatrixGenerator(4);
+		Macierz a = g.normal(4, 4), b = g.normal(4, 4);
+		Macierz4 x = Macierz4.fromMacierz(a), y = Macierz4.fromMacierz(b);
+		assertEquals(a, x.toMacierz());
+		Reference.assertClose(Reference.product(a, b), Macierz4.product(x, y).toMacierz(), 1e-14);
+		assertEquals(Macierz.transpose(a), Macierz4.transpose(x).toMacierz());
+		assertEquals(Macierz.determinant(a), Macierz4.determinant(x), 1e-12);
+		Reference.assertClose(Macierz.inverse(a), Macierz4.inverse(x).toMacierz(), 1e-11);
+		Macierz4.inverseInto(x, x);
+		Reference.assertClose(Macierz.inverse(a), x.toMacierz(), 1e-11);
+		assertThrows(MatrixSizeException.class, () -> Macierz4.fromMacierz(a.transposedView().submatrix(0, 0, 3, 4)));
+	}
+	
+	@Test
+	void equalsTreatsNaNAndSignedZeroLikeHashCode() throws MatrixIndexOutOfBoundsException {
+		Macierz2 a = new Macierz2(Double.NaN, 0.0, 1, 2), b = new Macierz2(Double.NaN, -0.0, 1, 2);
+		assertEquals(a, b);
+		assertEquals(a.hashCode(), b.hashCode());
+		assertNotEquals(a, new Macierz2(Double.NaN, 0.0, 1, 3));
+		Macierz3 c = Macierz3.identity(), d = Macierz3.identity();
+		c.set(2, 2, Double.NaN);
+		d.set(2, 2, Double.NaN);
+		assertEquals(c, d);
+		Macierz4 e = Macierz4.identity(), f = Macierz4.identity();
+		e.set(1, 3, Double.NaN);
+		f.set(1, 3, Double.NaN);
+		f.set(3, 1, -0.0);
+		assertEquals(e, f);
+		assertTrue(new HashSet<>(List.of(a, c, e)).containsAll(List.of(b, d, f)));
+	}
+	
+	@ParameterizedTest
+	@ValueSource(ints = {2, 3, 4})
+	void packetMatchesSeparateMatrices(int size) throws MatrixSizeException, MatrixIndexOutOfBoundsException {
+		MatrixGenerator g = new MatrixGenerator(size);
+		int count = 1000;
+		PakietMacierzy a = new PakietMacierzy(size, count), b = new PakietMacierzy(size, count);
+		Macierz[] x = new Macierz[count], y = new Macierz[count];
+		for(int p=0; p<count; p++) {
+			x[p] = g.normal(size, size);
+			y[p] = g.normal(size, size);
+			a.set(p, x[p]);
+			b.set(p, y[p]);
+		}
+		PakietMacierzy product = PakietMacierzy.product(a, b), inverse = PakietMacierzy.inverse(a);
+		double[] det = new double[count];
+		PakietMacierzy.determinant(a, det);
+		for(int p=0; p<count; p++) {
+			Reference.assertClose(Reference.product(x[p], y[p]), product.get(p), 1e-13);
+			assertEquals(Macierz.determinant(x[p]), det[p], 1e-10*Math.max(1, Math.abs(det[p])));
+			Reference.assertClose(Macierz.inverse(x[p]), inverse.get(p), 1e-8);
+		}
+		// Mnożenie z wynikiem w a
+		PakietMacierzy.productInto(a, b, a);
+		for(int p=0; p<count; p++) Reference.assertClose(product.get(p), a.get(p), 0);
+		assertThrows(MatrixSizeException.class, () -> PakietMacierzy.productInto(a, b, new PakietMacierzy(size, count-1)));
+	}
+}
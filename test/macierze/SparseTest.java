@@ -0,0 +1,83 @@
+package macierze;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import org.junit.jupiter.api.*;
+
+/**
+ * Testy macierzy rzadkiej CSR porównywanej z tymi samymi działaniami na macierzy gęstej
+ */
+
+class SparseTest {
+	
+	/**
+	 * Funkcja tworząca macierz gęstą, w której tylko około density elementów jest niezerowych
+	 */
+	private static Macierz sparseDense(int n, int m, double density, long seed) throws MatrixSizeException {
+		SplittableRandom r = new SplittableRandom(seed);
+		double[] d = new double[n*m];
+		for(int k=0; k<d.length; k++) {
+			if(r.nextDouble() < density) d[k] = r.nextDouble(-1, 1);
+		}
+		return new Macierz(n, m, d);
+	}
+	
+	@Test
+	void denseRoundTrip() throws MatrixSizeException {
+		Macierz a = sparseDense(50, 70, 0.05, 1);
+		MacierzRzadka s = MacierzRzadka.fromDense(a);
+		assertEquals(a, s.toDense());
+		int nnz = 0;
+		for(double v : a.toFlatArray()) if(v != 0) nnz++;
+		assertEquals(nnz, s.getNonZeros());
+		assertEquals(MacierzRzadka.transpose(s), MacierzRzadka.fromDense(a.transposedView()));
+	}
+	
+	@Test
+	void builderSumsDuplicatesAndDropsZeros() throws MatrixIndexOutOfBoundsException {
+		MacierzRzadka.Builder b = new MacierzRzadka.Builder(3, 4, 1);
+		b.add(2, 3, 1).add(0, 1, 2).add(2, 3, 4).add(1, 0, 5).add(1, 0, -5).add(0, 0, 0).add(0, 1, 1);
+		MacierzRzadka s = b.build();
+		assertEquals(2, s.getNonZeros());
+		assertEquals(3, s.get(0, 1));
+		assertEquals(5, s.get(2, 3));
+		assertEquals(0, s.get(1, 0));
+		assertThrows(MatrixIndexOutOfBoundsException.class, () -> b.add(3, 0, 1));
+		assertThrows(MatrixIndexOutOfBoundsException.class, () -> s.get(0, 4));
+	}
+	
+	@Test
+	void operationsMatchDense() throws MatrixSizeException {
+		Macierz a = sparseDense(60, 40, 0.1, 2), b = sparseDense(60, 40, 0.1, 3), c = sparseDense(40, 30, 0.1, 4);
+		MacierzRzadka sa = MacierzRzadka.fromDense(a), sb = MacierzRzadka.fromDense(b), sc = MacierzRzadka.fromDense(c);
+		assertEquals(Macierz.add(a, b), MacierzRzadka.add(sa, sb).toDense());
+		assertEquals(Macierz.subtract(a, b), MacierzRzadka.subtract(sa, sb).toDense());
+		assertEquals(0, MacierzRzadka.subtract(sa, sa).getNonZeros());
+		assertEquals(Macierz.product(3, a), MacierzRzadka.product(3, sa).toDense());
+		Macierz dense = new MatrixGenerator(5).normal(40, 30);
+		Reference.assertClose(Reference.product(a, dense), MacierzRzadka.product(sa, dense), 1e-13);
+		Reference.assertClose(Reference.product(dense.transposedView(), c), MacierzRzadka.product(dense.transposedView(), sc), 1e-13);
+		Reference.assertClose(Reference.product(a, c), MacierzRzadka.product(sa, sc).toDense(), 1e-13);
+		assertThrows(MatrixSizeException.class, () -> MacierzRzadka.product(sa, sb));
+		assertThrows(MatrixSizeException.class, () -> MacierzRzadka.add(sa, sc));
+	}
+	
+	@Test
+	void multiplyVectorMatchesDense() throws MatrixSizeException {
+		Macierz a = sparseDense(80, 50, 0.05, 6);
+		double[] x = new MatrixGenerator(7).normal(50, 1).toFlatArray(), y = new double[80];
+		MacierzRzadka.fromDense(a).multiply(x, y);
+		assertArrayEquals(Reference.product(a, new Macierz(50, 1, x)).toFlatArray(), y, 1e-13);
+	}
+	
+	@Test
+	void equalsAndHashCode() throws MatrixSizeException {
+		Macierz a = sparseDense(20, 20, 0.2, 8);
+		MacierzRzadka s = MacierzRzadka.fromDense(a), t = MacierzRzadka.fromDense(Macierz.copyOf(a));
+		assertEquals(s, t);
+		assertEquals(s.hashCode(), t.hashCode());
+		assertNotEquals(s, MacierzRzadka.product(2, s));
+		assertEquals(new MacierzRzadka(3, 5), MacierzRzadka.fromDense(new Macierz(3, 5)));
+	}
+}
@@ -0,0 +1,73 @@
+package macierze;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+
+/**
+ * Testy przechowywania macierzy w jednej ciągłej tablicy zapisanej wierszami
+ */
+
+class StorageTest {
+	
+	@Test
+	void flatConstructorWrapsArrayWithoutCopy() throws MatrixSizeException {
+		double[] data = {1, 2, 3, 4, 5, 6};
+		Macierz a = new Macierz(2, 3, data);
+		assertArrayEquals(new double[][] {{1, 2, 3}, {4, 5, 6}}, a.toArray());
+		data[4] = 50;
+		assertEquals(50, a.toArray()[1][1]);
+		assertNotSame(data, a.toFlatArray());
+		assertArrayEquals(data, a.toFlatArray());
+	}
+	
+	@Test
+	void arrayConstructorCopiesRows() throws MatrixSizeException {
+		double[][] rows = {{1, 2}, {3, 4}, {5, 6}};
+		Macierz a = new Macierz(3, 2, rows);
+		rows[0][0] = 10;
+		assertArrayEquals(new double[] {1, 2, 3, 4, 5, 6}, a.toFlatArray());
+		assertThrows(MatrixSizeException.class, () -> new Macierz(2, 2, new double[][] {{1, 2}, {3}}));
+		assertThrows(MatrixSizeException.class, () -> new Macierz(2, 3, new double[][] {{1, 2}, {3, 4}}));
+	}
+	
+	@Test
+	void flatConstructorChecksLength() {
+		assertThrows(MatrixSizeException.class, () -> new Macierz(2, 3, new double[5]));
+		assertThrows(MatrixSizeException.class, () -> new Macierz(-1, 0, new double[0]));
+		// n*m przekracza zakres int i w int dałoby 0
+		assertThrows(MatrixSizeException.class, () -> new Macierz(65536, 65536, new double[0]));
+	}
+	
+	@Test
+	void emptyShapesArePreserved() throws MatrixSizeException {
+		Macierz a = new Macierz(3, 0, new double[0]), b = new Macierz(0, 4, new double[0]);
+		assertEquals(3, a.getHeight());
+		assertEquals(0, a.getLength());
+		assertEquals(0, b.getHeight());
+		assertEquals(4, b.getLength());
+		assertEquals(new Macierz(3, 0), a);
+		assertNotEquals(new Macierz(0, 0), a);
+		assertEquals(3, a.toArray().length);
+		Macierz c = Macierz.product(a, b);
+		assertEquals(3, c.getHeight());
+		assertEquals(4, c.getLength());
+		assertArrayEquals(new double[12], c.toFlatArray());
+		Macierz t = Macierz.transpose(a);
+		assertEquals(0, t.getHeight());
+		assertEquals(3, t.getLength());
+	}
+	
+	@Test
+	void rowOperationsWorkOnViews() throws MatrixSizeException, MatrixIndexOutOfBoundsException {
+		Macierz a = new Macierz(3, 3, new double[] {1, 2, 3, 4, 5, 6, 7, 8, 9});
+		Macierz view = a.submatrix(1, 1, 2, 2);
+		view.swapRow(0, 1);
+		assertArrayEquals(new double[] {1, 2, 3, 4, 8, 9, 7, 5, 6}, a.toFlatArray());
+		a.flipUD();
+		assertArrayEquals(new double[] {7, 5, 6, 4, 8, 9, 1, 2, 3}, a.toFlatArray());
+		Macierz t = a.transposedView();
+		t.swapRow(0, 2);
+		assertArrayEquals(new double[] {6, 5, 7, 9, 8, 4, 3, 2, 1}, a.toFlatArray());
+	}
+}
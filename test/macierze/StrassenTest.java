@@ -0,0 +1,67 @@
+package macierze;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.*;
+import org.junit.jupiter.params.provider.*;
+
+/**
+ * Testy algorytmu Strassena-Winograda z obniżonym rozmiarem cutoff, żeby rekurencja miała kilka poziomów
+ */
+
+class StrassenTest {
+	
+	private int cutoff;
+	
+	private int threshold;
+	
+	@BeforeEach
+	void lowerCutoff() {
+		cutoff = Strassen.getCutoff();
+		threshold = Strassen.getThreshold();
+		Strassen.setCutoff(16);
+	}
+	
+	@AfterEach
+	void restoreCutoff() {
+		Strassen.setCutoff(cutoff);
+		Strassen.setThreshold(threshold);
+	}
+	
+	@ParameterizedTest
+	@CsvSource({"16, 16, 16", "64, 64, 64", "100, 70, 90", "129, 131, 127", "33, 200, 17"})
+	void productMatchesNaive(int n, int m, int q) throws MatrixSizeException {
+		MatrixGenerator g = new MatrixGenerator(n*m + q);
+		Macierz a = g.normal(n, m), b = g.normal(m, q);
+		Reference.assertClose(Reference.product(a, b), Strassen.product(a, b), 1e-11);
+	}
+	
+	@Test
+	void sequentialProductMatchesNaive() throws MatrixSizeException {
+		boolean parallel = Strassen.isParallel();
+		Strassen.setParallel(false);
+		try {
+			MatrixGenerator g = new MatrixGenerator(7);
+			Macierz a = g.normal(97, 101), b = g.normal(101, 99);
+			Reference.assertClose(Reference.product(a, b), Strassen.product(a, b), 1e-11);
+		} finally {
+			Strassen.setParallel(parallel);
+		}
+	}
+	
+	@Test
+	void productOfViewsMatchesNaive() throws MatrixSizeException, MatrixIndexOutOfBoundsException {
+		MatrixGenerator g = new MatrixGenerator(8);
+		Macierz a = g.normal(90, 85).transposedView();
+		Macierz b = g.normal(100, 100).submatrix(5, 7, 90, 77);
+		Reference.assertClose(Reference.product(a, b), Strassen.product(a, b), 1e-11);
+	}
+	
+	@Test
+	void automaticChoiceInMacierzProduct() throws MatrixSizeException {
+		// Próg obniżony tak, by Macierz.product wybrał algorytm Strassena
+		Strassen.setThreshold(64);
+		MatrixGenerator g = new MatrixGenerator(9);
+		Macierz a = g.normal(150, 140), b = g.normal(140, 130);
+		Reference.assertClose(Reference.product(a, b), Macierz.product(a, b), 1e-11);
+	}
+}
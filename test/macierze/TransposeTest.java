@@ -0,0 +1,98 @@
+package macierze;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.*;
+import org.junit.jupiter.params.provider.*;
+
+/**
+ * Testy transpozycji kafelkami i transpozycji w miejscu porównywanych z transpozycją element po elemencie
+ */
+
+class TransposeTest {
+	
+	private long threshold;
+	
+	@BeforeEach
+	void saveThreshold() {
+		threshold = Parallel.getThreshold();
+	}
+	
+	@AfterEach
+	void restoreThreshold() {
+		Parallel.setThreshold(threshold);
+	}
+	
+	/**
+	 * Funkcja transponująca macierz element po elemencie
+	 */
+	private static Macierz naive(Macierz a) throws MatrixSizeException {
+		double[][] x = a.toArray();
+		int n = x.length, m = n == 0 ? 0 : x[0].length;
+		double[] r = new double[n*m];
+		for(int i=0; i<n; i++) {
+			for(int j=0; j<m; j++) r[j*n+i] = x[i][j];
+		}
+		return new Macierz(m, n, r);
+	}
+	
+	@ParameterizedTest
+	@CsvSource({"1, 1", "31, 33", "32, 64", "100, 7", "5, 3000", "3000, 5", "257, 513"})
+	void tiledTransposeMatchesNaive(int n, int m) throws MatrixSizeException {
+		Macierz a = new MatrixGenerator(n*m).uniform(n, m);
+		Macierz expected = naive(a);
+		assertEquals(expected, Macierz.transpose(a));
+		Macierz dst = new Macierz(m, n);
+		Macierz.transposeInto(a, dst);
+		assertEquals(expected, dst);
+		// Wynik do widoku transponowanego czyta i zapisuje kolumnami
+		Macierz t = new Macierz(n, m);
+		Macierz.transposeInto(a, t.transposedView());
+		assertEquals(expected, t.transposedView());
+		assertEquals(a, t);
+		Macierz.transposeInto(a.transposedView(), t);
+		assertEquals(a, t);
+	}
+	
+	@ParameterizedTest
+	@ValueSource(ints = {1, 2, 31, 32, 33, 100, 257})
+	void inPlaceTransposeMatchesNaive(int n) throws MatrixSizeException {
+		Macierz a = new MatrixGenerator(n).uniform(n, n);
+		Macierz expected = naive(a);
+		Macierz.transposeInPlace(a);
+		assertEquals(expected, a);
+		Macierz.transposeInto(a, a);
+		assertEquals(naive(expected), a);
+	}
+	
+	@Test
+	void inPlaceTransposeOfView() throws MatrixSizeException, MatrixIndexOutOfBoundsException {
+		Macierz a = new MatrixGenerator(1).uniform(80, 90), copy = Macierz.copyOf(a);
+		Macierz block = a.submatrix(5, 17, 70, 70);
+		Macierz expected = naive(block);
+		Macierz.transposeInPlace(block);
+		assertEquals(expected, block);
+		// Elementy poza blokiem pozostają bez zmian
+		Macierz.transposeInPlace(block);
+		assertEquals(copy, a);
+		Macierz.transposeInPlace(a.transposedView().submatrix(0, 0, 80, 80));
+		assertEquals(naive(copy.submatrix(0, 0, 80, 80)), a.submatrix(0, 0, 80, 80));
+		assertThrows(MatrixSizeException.class, () -> Macierz.transposeInPlace(a));
+	}
+	
+	@ParameterizedTest
+	@CsvSource({"600, 600", "20, 5000", "5000, 20"})
+	void parallelTransposeMatchesSequential(int n, int m) throws MatrixSizeException {
+		Macierz a = new MatrixGenerator(n+m).uniform(n, m);
+		Parallel.setThreshold(Long.MAX_VALUE);
+		Macierz sequential = Macierz.transpose(a);
+		Parallel.setThreshold(0);
+		assertEquals(sequential, Macierz.transpose(a));
+		assertEquals(naive(a), sequential);
+		if(n == m) {
+			Macierz.transposeInPlace(a);
+			assertEquals(sequential, a);
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package macierze;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+
+/**
+ * Testy obszaru roboczego i działań z zapisem do podanej macierzy, porównywanych z działaniami alokującymi wynik
+ */
+
+class WorkspaceTest {
+	
+	@Test
+	void acquireReusesReleasedMatrixOfSameSize() {
+		Workspace ws = new Workspace();
+		Macierz a = ws.acquire(4, 5);
+		ws.release(a);
+		assertEquals(1, ws.size());
+		assertNotSame(a, ws.acquire(5, 4));
+		assertSame(a, ws.acquire(4, 5));
+		assertEquals(0, ws.size());
+		ws.release(a);
+		ws.release(null);
+		ws.release(new Macierz(2, 2).freeze());
+		assertEquals(1, ws.size());
+		ws.clear();
+		assertEquals(0, ws.size());
+	}
+	
+	@Test
+	void acquireZerosClearsReusedMatrix() throws MatrixSizeException {
+		Workspace ws = new Workspace();
+		for(int i=0; i<20; i++) ws.release(new Macierz(3, 3, "ones"));
+		assertEquals(20, ws.size());
+		assertEquals(new Macierz(3, 3), ws.acquireZeros(3, 3));
+	}
+	
+	@Test
+	void intoOperationsMatchAllocatingOperations() throws MatrixSizeException {
+		MatrixGenerator g = new MatrixGenerator(1);
+		Macierz a = g.normal(37, 29), b = g.normal(37, 29), c = g.normal(29, 41);
+		Workspace ws = new Workspace();
+		Macierz dst = ws.acquire(37, 29);
+		Macierz.addInto(a, b, dst);
+		assertEquals(Macierz.add(a, b), dst);
+		Macierz.subtractInto(a, b, dst);
+		assertEquals(Macierz.subtract(a, b), dst);
+		Macierz.productInto(2.5, a, dst);
+		assertEquals(Macierz.product(2.5, a), dst);
+		Macierz.copyInto(a, dst);
+		assertEquals(a, dst);
+		Macierz.scaleInPlace(-2, dst);
+		assertEquals(Macierz.product(-2, a), dst);
+		Macierz.axpy(2, a, dst);
+		assertEquals(new Macierz(37, 29), dst);
+		Macierz p = ws.acquire(37, 41);
+		Macierz.productInto(a, c, p);
+		assertEquals(Macierz.product(a, c), p);
+		Macierz t = ws.acquire(29, 37);
+		Macierz.transposeInto(a, t);
+		assertEquals(Macierz.transpose(a), t);
+	}
+	
+	@Test
+	void intoOperationsCheckDestination() {
+		Macierz a = new Macierz(3, 4), b = new Macierz(4, 2);
+		assertThrows(MatrixSizeException.class, () -> Macierz.addInto(a, a, new Macierz(4, 3)));
+		assertThrows(MatrixSizeException.class, () -> Macierz.productInto(a, b, new Macierz(3, 3)));
+		assertThrows(MatrixSizeException.class, () -> Macierz.productInto(b, a, new Macierz(4, 4)));
+		assertThrows(MatrixSizeException.class, () -> Macierz.transposeInto(a, new Macierz(3, 4)));
+		assertThrows(MatrixSizeException.class, () -> Macierz.copyInto(a, new Macierz(3, 5)));
+		assertThrows(MatrixSizeException.class, () -> Macierz.axpy(1, a, b));
+	}
+	
+	@Test
+	void loopWithWorkspaceReusesTemporaries() throws MatrixSizeException {
+		// Iteracja x = (x + A*x)/2 z macierzami tymczasowymi z obszaru roboczego
+		Macierz a = Macierz.product(0.1, new MatrixGenerator(2).normal(20, 20)), x = new Macierz(20, 1, "ones");
+		Macierz expected = Macierz.copyOf(x);
+		for(int k=0; k<10; k++) expected = Macierz.product(0.5, Macierz.add(expected, Macierz.product(a, expected)));
+		Workspace ws = new Workspace();
+		for(int k=0; k<10; k++) {
+			Macierz ax = ws.acquire(20, 1);
+			Macierz.productInto(a, x, ax);
+			Macierz.axpy(1, x, ax);
+			Macierz.scaleInPlace(0.5, ax);
+			ws.release(x);
+			x = ax;
+		}
+		assertEquals(expected, x);
+		assertEquals(1, ws.size());
+	}
+}